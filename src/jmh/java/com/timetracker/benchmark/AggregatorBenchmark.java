@@ -0,0 +1,60 @@
+package com.timetracker.benchmark;
+
+import com.timetracker.aggregation.MinuteAggregator;
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.SampleTick;
+import com.timetracker.app.ApplicationSample;
+import com.timetracker.app.ResolvedApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One sampling tick through the aggregator. The foreground changes every 45 seconds and every tenth minute is
+ * idle, so roughly one call in 60 also finalizes a minute.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AggregatorBenchmark {
+
+    private MinuteAggregator aggregator;
+    private List<Optional<ApplicationSample>> samples;
+    private long second;
+
+    @Setup
+    public void setUp() {
+        aggregator = new MinuteAggregator(15, 60, 1, ZoneOffset.UTC);
+        List<ResolvedApplication> applications = BenchmarkFixtures.applications();
+        samples = applications.stream()
+                .map(app -> Optional.of(new ApplicationSample(app, Optional.of("%064x".formatted(app.id().hashCode())))))
+                .toList();
+        second = BenchmarkFixtures.FIRST_DAY.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    @Benchmark
+    public Optional<MinuteRecord> processSample() {
+        long now = second++;
+        boolean idle = (now / 60) % 10 == 9;
+        Optional<ApplicationSample> sample = idle
+                ? Optional.empty()
+                : samples.get((int) ((now / 45) % samples.size()));
+        return aggregator.processSample(new SampleTick(Instant.ofEpochSecond(now), idle, sample, idle ? 60 : 0));
+    }
+}
@@ -0,0 +1,145 @@
+package com.timetracker.benchmark;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.ReportConfig;
+import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.storage.StorageAdapter;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import com.timetracker.storage.sqlite.SqliteStorageAdapter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Synthetic but realistic usage data: working hours with runs of focus on a handful of applications,
+ * short idle breaks and a long lunch, generated deterministically into a temporary directory.
+ */
+final class BenchmarkFixtures {
+
+    static final LocalDate FIRST_DAY = LocalDate.of(2024, 3, 4);
+
+    private static final String[][] APPLICATIONS = {
+            {"code", "Visual Studio Code", "C:\\Program Files\\Microsoft VS Code\\Code.exe"},
+            {"chrome", "Google Chrome", "C:\\Program Files\\Google\\Chrome\\Application\\chrome.exe"},
+            {"c:\\windows\\system32\\windowsterminal.exe", "Terminal", "C:\\Windows\\System32\\WindowsTerminal.exe"},
+            {"outlook", "Outlook", "C:\\Program Files\\Microsoft Office\\root\\Office16\\OUTLOOK.EXE"},
+            {"teams", "Microsoft Teams", "C:\\Users\\dev\\AppData\\Local\\Microsoft\\Teams\\current\\Teams.exe"},
+            {"idea", "IntelliJ IDEA", "C:\\Program Files\\JetBrains\\IntelliJ IDEA\\bin\\idea64.exe"},
+            {"explorer", "File Explorer", "C:\\Windows\\explorer.exe"},
+            {"slack", "Slack, Desktop", "C:\\Users\\dev\\AppData\\Local\\slack\\slack.exe"},
+            {"notepad", "Notepad", "C:\\Windows\\System32\\notepad.exe"},
+            {"excel", "Excel", "C:\\Program Files\\Microsoft Office\\root\\Office16\\EXCEL.EXE"}
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    static List<ResolvedApplication> applications() {
+        List<ResolvedApplication> applications = new ArrayList<>();
+        for (String[] app : APPLICATIONS) {
+            String normalized = app[2].toLowerCase();
+            applications.add(new ResolvedApplication(app[0], app[1], app[2], normalized, !app[0].equals(normalized)));
+        }
+        return applications;
+    }
+
+    static String[][] identities() {
+        return APPLICATIONS;
+    }
+
+    static List<MinuteRecord> day(LocalDate date) {
+        Random random = new Random(date.toEpochDay());
+        List<ResolvedApplication> applications = applications();
+        List<MinuteRecord> records = new ArrayList<>();
+        int minute = 8 * 60 + random.nextInt(60);
+        int end = 17 * 60 + 30 + random.nextInt(90);
+        while (minute < end) {
+            if (minute >= 12 * 60 && minute < 12 * 60 + 45) {
+                minute = 12 * 60 + 45;
+                continue;
+            }
+            if (random.nextInt(10) == 0) {
+                int idle = 1 + random.nextInt(8);
+                for (int i = 0; i < idle && minute < end; i++, minute++) {
+                    records.add(new MinuteRecord(date, time(minute), MinuteStatus.IDLE, Optional.empty(),
+                            0, 60, Optional.empty()));
+                }
+                continue;
+            }
+            ResolvedApplication application = applications.get(random.nextInt(applications.size()));
+            Optional<String> title = Optional.of(String.format("%064x", random.nextLong() & Long.MAX_VALUE));
+            int run = 3 + random.nextInt(25);
+            for (int i = 0; i < run && minute < end; i++, minute++) {
+                int active = 30 + random.nextInt(31);
+                records.add(new MinuteRecord(date, time(minute), MinuteStatus.ACTIVE, Optional.of(application),
+                        active, 60 - active, title));
+            }
+        }
+        return records;
+    }
+
+    static AppConfig config(Path root, StorageType type) {
+        StorageConfig storage = new StorageConfig(type,
+                new CsvStorageConfig(root.resolve("data").toString(), 1, 100, null),
+                new SqliteStorageConfig(root.resolve("data").resolve("timetracker.db").toString(), "WAL",
+                        null, null, null, null),
+                null);
+        ReportConfig report = new ReportConfig(root.resolve("report").toString(), "23:59", 10, false);
+        return AppConfig.create(null, null, null, storage, report, null, null, null, null, null, null, null, null, null);
+    }
+
+    static StorageAdapter openStorage(AppConfig config) throws Exception {
+        return switch (config.storage().type()) {
+            case CSV -> new CsvStorageAdapter(config.storage().csv());
+            case SQLITE -> new SqliteStorageAdapter(config.storage().sqlite());
+        };
+    }
+
+    static void writeDays(AppConfig config, int days) throws Exception {
+        try (StorageAdapter storage = openStorage(config)) {
+            for (int i = 0; i < days; i++) {
+                for (MinuteRecord record : day(FIRST_DAY.plusDays(i))) {
+                    storage.persist(record);
+                }
+            }
+            storage.flush();
+        }
+    }
+
+    static Path createTempRoot(String prefix) throws IOException {
+        return Files.createTempDirectory("timetracker-" + prefix);
+    }
+
+    static void deleteRecursively(Path root) {
+        if (root == null || Files.notExists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static LocalTime time(int minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+}
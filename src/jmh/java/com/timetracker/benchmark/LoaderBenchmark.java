@@ -0,0 +1,76 @@
+package com.timetracker.benchmark;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading one day out of a 30-day store, as records and in columnar form, with the day cache disabled so
+ * every call parses or queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoaderBenchmark {
+
+    private static final int DAYS = 30;
+
+    @Param({"CSV", "SQLITE"})
+    public StorageType storageType;
+
+    private Path root;
+    private UsageDataLoader loader;
+    private int day;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = BenchmarkFixtures.createTempRoot("loader");
+        AppConfig config = BenchmarkFixtures.config(root, storageType);
+        BenchmarkFixtures.writeDays(config, DAYS);
+        loader = new UsageDataLoader(config, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        loader.close();
+        BenchmarkFixtures.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public List<MinuteRecord> loadRecords() throws Exception {
+        return loader.load(nextDay());
+    }
+
+    @Benchmark
+    public DayUsage loadDay() throws Exception {
+        return loader.loadDay(nextDay());
+    }
+
+    private LocalDate nextDay() {
+        day = (day + 1) % DAYS;
+        return BenchmarkFixtures.FIRST_DAY.plusDays(day);
+    }
+}
@@ -0,0 +1,55 @@
+package com.timetracker.benchmark;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.HtmlReportGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering and writing the HTML and JSON report for one working day.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+
+    private Path root;
+    private HtmlReportGenerator generator;
+    private DayUsage day;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = BenchmarkFixtures.createTempRoot("report");
+        AppConfig config = BenchmarkFixtures.config(root, StorageType.CSV);
+        generator = new HtmlReportGenerator(config.report());
+        day = DayUsage.of(BenchmarkFixtures.FIRST_DAY, BenchmarkFixtures.day(BenchmarkFixtures.FIRST_DAY));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkFixtures.deleteRecursively(root);
+    }
+
+    @Benchmark
+    public void generateDailyReport() throws Exception {
+        generator.generateDailyReport(day);
+    }
+}
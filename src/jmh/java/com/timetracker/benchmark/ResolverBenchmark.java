@@ -0,0 +1,77 @@
+package com.timetracker.benchmark;
+
+import com.timetracker.app.AppResolver;
+import com.timetracker.app.ApplicationSample;
+import com.timetracker.config.AliasRule;
+import com.timetracker.config.PrivacyConfig;
+import com.timetracker.config.TitleHashAlgorithm;
+import com.timetracker.sampling.AppIdentity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the foreground window. {@code switchEvery} controls how many consecutive calls see the same
+ * window: 1 defeats all memoization, 30 approximates a user who switches windows every half minute.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolverBenchmark {
+
+    @Param({"false", "true"})
+    public boolean aliases;
+
+    @Param({"NONE", "SHA256", "FAST"})
+    public String titleHashing;
+
+    @Param({"1", "30"})
+    public int switchEvery;
+
+    private AppResolver resolver;
+    private AppIdentity[] identities;
+    private Optional<String>[] titles;
+    private int call;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        List<AliasRule> aliasRules = aliases
+                ? List.of(new AliasRule("chrome.exe", "Chrome"), new AliasRule("code.exe", "VS Code"),
+                new AliasRule("teams.exe", "Teams"), new AliasRule("slack.exe", "Slack"))
+                : List.of();
+        boolean recordTitles = !"NONE".equals(titleHashing);
+        TitleHashAlgorithm algorithm = recordTitles ? TitleHashAlgorithm.valueOf(titleHashing) : TitleHashAlgorithm.SHA256;
+        resolver = new AppResolver(aliasRules, List.of(), List.of(),
+                new PrivacyConfig(recordTitles, "benchmark-salt", algorithm));
+
+        String[][] apps = BenchmarkFixtures.identities();
+        identities = new AppIdentity[apps.length];
+        titles = new Optional[apps.length];
+        for (int i = 0; i < apps.length; i++) {
+            identities[i] = new AppIdentity(apps[i][2], apps[i][1], 1000 + i);
+            titles[i] = Optional.of(apps[i][1] + " - project/src/main/java/Example" + i + ".java");
+        }
+    }
+
+    @Benchmark
+    public Optional<ApplicationSample> resolve() {
+        int index = (call++ / switchEvery) % identities.length;
+        return resolver.resolve(identities[index], titles[index]);
+    }
+}
@@ -0,0 +1,74 @@
+package com.timetracker.benchmark;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.storage.StorageAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persisting an hour of minute records followed by a flush, reported per record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int RECORDS_PER_INVOCATION = 60;
+
+    @Param({"CSV", "SQLITE"})
+    public StorageType storageType;
+
+    private Path root;
+    private StorageAdapter storage;
+    private List<MinuteRecord> records;
+    private int offset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = BenchmarkFixtures.createTempRoot("storage");
+        AppConfig config = BenchmarkFixtures.config(root, storageType);
+        storage = BenchmarkFixtures.openStorage(config);
+        records = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            records.addAll(BenchmarkFixtures.day(BenchmarkFixtures.FIRST_DAY.plusDays(i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        storage.close();
+        BenchmarkFixtures.deleteRecursively(root);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS_PER_INVOCATION)
+    public void persistAndFlush() throws Exception {
+        for (int i = 0; i < RECORDS_PER_INVOCATION; i++) {
+            storage.persist(records.get(offset));
+            offset = (offset + 1) % records.size();
+        }
+        storage.flush();
+    }
+}
@@ -1,12 +1,22 @@
 package com.timetracker;
 
+import com.timetracker.config.AppConfig;
 import com.timetracker.config.FileConfigManager;
+import com.timetracker.config.StorageType;
 import com.timetracker.lifecycle.TimeTrackerApplication;
 import com.timetracker.lifecycle.TimeTrackerService;
+import com.timetracker.report.export.ColumnarExporter;
+import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.storage.migration.StorageMigration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.concurrent.CountDownLatch;
 
 public final class TimeTrackerMain {
@@ -16,7 +26,16 @@ public final class TimeTrackerMain {
     private TimeTrackerMain() {
     }
 
+    private static final String MIGRATE = "--migrate";
+    private static final String EXPORT = "--export";
+
     public static void main(String[] args) {
+        if (args != null && args.length > 0 && MIGRATE.equals(args[0])) {
+            System.exit(migrate(Arrays.copyOfRange(args, 1, args.length)));
+        }
+        if (args != null && args.length > 0 && EXPORT.equals(args[0])) {
+            System.exit(export(Arrays.copyOfRange(args, 1, args.length)));
+        }
         Path configPath = resolveConfigPath(args);
         try (FileConfigManager configManager = new FileConfigManager()) {
             TimeTrackerApplication application = new TimeTrackerService(configPath, configManager);
@@ -39,6 +58,72 @@ public final class TimeTrackerMain {
         }
     }
 
+    /**
+     * {@code --migrate <from> <to> [config.json]}: copies the history between the storage locations of the given
+     * config. Run it with the tracker stopped, then set {@code storage.type} once it reports success.
+     */
+    private static int migrate(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: " + MIGRATE + " <CSV|SQLITE> <CSV|SQLITE> [config.json]");
+            return 2;
+        }
+        try (FileConfigManager configManager = new FileConfigManager()) {
+            StorageType source = StorageType.valueOf(args[0].toUpperCase(Locale.ROOT));
+            StorageType target = StorageType.valueOf(args[1].toUpperCase(Locale.ROOT));
+            AppConfig config = configManager.load(resolveConfigPath(Arrays.copyOfRange(args, 2, args.length)));
+            StorageMigration migration = new StorageMigration(config, source, target,
+                    Runtime.getRuntime().availableProcessors(), Clock.systemDefaultZone());
+            long started = System.nanoTime();
+            StorageMigration.Result result = migration.run();
+            System.out.printf("Migrated %d of %d days (%d records) and %d rolled-up days from %s to %s in %d ms%n",
+                    result.copiedDays(), result.days(), result.records(), result.rolledUpDays(), result.source(),
+                    result.target(), (System.nanoTime() - started) / 1_000_000);
+            if (!result.verified()) {
+                System.err.println("Verification failed for " + result.mismatches());
+                return 1;
+            }
+            System.out.println("Verified. Set storage.type to " + target + " to use the migrated data.");
+            return 0;
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return 2;
+        } catch (Exception ex) {
+            log.error("Migration failed", ex);
+            return 1;
+        }
+    }
+
+    /**
+     * {@code --export <from> <to> <file> [config.json]}: writes the days from {@code from} to {@code to} into a
+     * columnar file for analysis; safe to run while the tracker is running.
+     */
+    private static int export(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: " + EXPORT + " <yyyy-MM-dd> <yyyy-MM-dd> <file> [config.json]");
+            return 2;
+        }
+        try (FileConfigManager configManager = new FileConfigManager()) {
+            LocalDate from = LocalDate.parse(args[0]);
+            LocalDate to = LocalDate.parse(args[1]);
+            Path file = Path.of(args[2]).toAbsolutePath().normalize();
+            AppConfig config = configManager.load(resolveConfigPath(Arrays.copyOfRange(args, 3, args.length)));
+            long started = System.nanoTime();
+            ColumnarExporter.Result result;
+            try (UsageDataLoader loader = new UsageDataLoader(config)) {
+                result = new ColumnarExporter(loader).export(from, to, file);
+            }
+            System.out.printf("Exported %d days (%d records) to %s, %d bytes, in %d ms%n", result.days(),
+                    result.records(), file, result.bytes(), (System.nanoTime() - started) / 1_000_000);
+            return 0;
+        } catch (DateTimeParseException | IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return 2;
+        } catch (Exception ex) {
+            log.error("Export failed", ex);
+            return 1;
+        }
+    }
+
     private static Path resolveConfigPath(String[] args) {
         if (args != null && args.length > 0) {
             return Path.of(args[0]).toAbsolutePath().normalize();
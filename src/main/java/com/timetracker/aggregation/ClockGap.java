@@ -0,0 +1,49 @@
+package com.timetracker.aggregation;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A discontinuity between two consecutive samples, e.g. the machine slept or hibernated.
+ */
+public record ClockGap(
+        Instant lastSample,
+        Instant resumedAt
+) {
+
+    public ClockGap {
+        Objects.requireNonNull(lastSample, "lastSample");
+        Objects.requireNonNull(resumedAt, "resumedAt");
+    }
+
+    public Duration duration() {
+        return Duration.between(lastSample, resumedAt);
+    }
+
+    /**
+     * Whole minutes that received no samples at all, split into one range record per calendar day.
+     */
+    public List<MinuteRecord> toSuspendedRecords(ZoneId zoneId) {
+        Objects.requireNonNull(zoneId, "zoneId");
+        LocalDateTime cursor = LocalDateTime.ofInstant(lastSample, zoneId)
+                .truncatedTo(ChronoUnit.MINUTES)
+                .plusMinutes(1);
+        LocalDateTime end = LocalDateTime.ofInstant(resumedAt, zoneId)
+                .truncatedTo(ChronoUnit.MINUTES);
+        List<MinuteRecord> records = new ArrayList<>();
+        while (cursor.isBefore(end)) {
+            LocalDateTime nextDay = cursor.toLocalDate().plusDays(1).atStartOfDay();
+            LocalDateTime segmentEnd = end.isBefore(nextDay) ? end : nextDay;
+            int minutes = (int) ChronoUnit.MINUTES.between(cursor, segmentEnd);
+            records.add(MinuteRecord.suspended(cursor.toLocalDate(), cursor.toLocalTime(), minutes));
+            cursor = segmentEnd;
+        }
+        return records;
+    }
+}
@@ -0,0 +1,175 @@
+package com.timetracker.aggregation;
+
+import com.timetracker.app.ApplicationDictionary;
+import com.timetracker.app.ResolvedApplication;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Columnar view of one day of minute records: parallel primitive arrays indexed by minute of day. Applications
+ * are stored as {@link ApplicationDictionary} ids, so a day costs about 13 KB regardless of content. Window-title
+ * hashes are not kept; use {@link MinuteRecord} lists where they are needed.
+ */
+public final class DayUsage {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private static final byte NONE = 0;
+    private static final MinuteStatus[] STATUSES = MinuteStatus.values();
+
+    private final LocalDate date;
+    private final ApplicationDictionary dictionary;
+    private final byte[] status = new byte[MINUTES_PER_DAY];
+    private final int[] applicationIds = new int[MINUTES_PER_DAY];
+    private final byte[] activeSeconds = new byte[MINUTES_PER_DAY];
+    private final byte[] idleSeconds = new byte[MINUTES_PER_DAY];
+    private final short[] spans = new short[MINUTES_PER_DAY];
+    private int recordCount;
+
+    public DayUsage(LocalDate date) {
+        this(date, ApplicationDictionary.global());
+    }
+
+    public DayUsage(LocalDate date, ApplicationDictionary dictionary) {
+        this.date = Objects.requireNonNull(date, "date");
+        this.dictionary = Objects.requireNonNull(dictionary, "dictionary");
+        Arrays.fill(applicationIds, ApplicationDictionary.NO_ID);
+    }
+
+    public static DayUsage of(LocalDate date, List<MinuteRecord> records) {
+        DayUsage day = new DayUsage(date);
+        for (MinuteRecord record : records) {
+            day.add(record);
+        }
+        return day;
+    }
+
+    /**
+     * Adds a record for this day; records for other dates are ignored. A later record for the same minute
+     * replaces the earlier one.
+     */
+    public void add(MinuteRecord record) {
+        if (!date.equals(record.date())) {
+            return;
+        }
+        int applicationId = record.application()
+                .map(dictionary::applicationId)
+                .orElse(ApplicationDictionary.NO_ID);
+        set(record.minute().getHour() * 60 + record.minute().getMinute(), record.status(), applicationId,
+                record.activeSeconds(), record.idleSeconds(), record.minutes());
+    }
+
+    /**
+     * Sets {@code minuteOfDay}. An active or idle span is a run whose seconds are totals: it is spread over its
+     * minutes as by {@link MinuteRecord#perMinute()}. A suspended span stays one entry covering the range.
+     */
+    public void set(int minuteOfDay,
+                    MinuteStatus minuteStatus,
+                    int applicationId,
+                    int active,
+                    int idle,
+                    int span) {
+        Objects.checkIndex(minuteOfDay, MINUTES_PER_DAY);
+        Objects.requireNonNull(minuteStatus, "minuteStatus");
+        if (span > 1 && minuteStatus != MinuteStatus.SUSPENDED) {
+            int count = Math.min(span, MINUTES_PER_DAY - minuteOfDay);
+            for (int i = 0; i < count; i++) {
+                set(minuteOfDay + i, minuteStatus, applicationId, MinuteRecord.share(active, span, i),
+                        MinuteRecord.share(idle, span, i), 1);
+            }
+            return;
+        }
+        if (status[minuteOfDay] == NONE) {
+            recordCount++;
+        }
+        status[minuteOfDay] = (byte) (minuteStatus.ordinal() + 1);
+        applicationIds[minuteOfDay] = minuteStatus == MinuteStatus.ACTIVE ? applicationId : ApplicationDictionary.NO_ID;
+        activeSeconds[minuteOfDay] = (byte) clampSeconds(active);
+        idleSeconds[minuteOfDay] = (byte) clampSeconds(idle);
+        spans[minuteOfDay] = (short) Math.max(1, Math.min(span, MINUTES_PER_DAY - minuteOfDay));
+    }
+
+    public LocalDate date() {
+        return date;
+    }
+
+    public int recordCount() {
+        return recordCount;
+    }
+
+    public boolean isEmpty() {
+        return recordCount == 0;
+    }
+
+    /**
+     * Whether the day has any active or idle minute (suspended ranges alone do not count).
+     */
+    public boolean hasUsage() {
+        for (byte value : status) {
+            if (value != NONE && STATUSES[value - 1] != MinuteStatus.SUSPENDED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isPresent(int minuteOfDay) {
+        return status[minuteOfDay] != NONE;
+    }
+
+    public MinuteStatus status(int minuteOfDay) {
+        byte value = status[minuteOfDay];
+        return value == NONE ? null : STATUSES[value - 1];
+    }
+
+    public int applicationId(int minuteOfDay) {
+        return applicationIds[minuteOfDay];
+    }
+
+    public Optional<ResolvedApplication> application(int minuteOfDay) {
+        int id = applicationIds[minuteOfDay];
+        return id == ApplicationDictionary.NO_ID ? Optional.empty() : dictionary.internOptional(dictionary.application(id));
+    }
+
+    public int activeSeconds(int minuteOfDay) {
+        return activeSeconds[minuteOfDay] & 0xFF;
+    }
+
+    public int idleSeconds(int minuteOfDay) {
+        return idleSeconds[minuteOfDay] & 0xFF;
+    }
+
+    public int span(int minuteOfDay) {
+        return spans[minuteOfDay];
+    }
+
+    public ApplicationDictionary dictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Expands the day back into minute records, in minute order.
+     */
+    public List<MinuteRecord> toRecords() {
+        List<MinuteRecord> records = new ArrayList<>(recordCount);
+        for (int minute = 0; minute < MINUTES_PER_DAY; minute++) {
+            if (status[minute] == NONE) {
+                continue;
+            }
+            records.add(new MinuteRecord(date, LocalTime.of(minute / 60, minute % 60), status(minute),
+                    application(minute), activeSeconds(minute), idleSeconds(minute), Optional.empty(),
+                    span(minute)));
+        }
+        return records;
+    }
+
+    private static int clampSeconds(int seconds) {
+        return Math.max(0, Math.min(seconds, 255));
+    }
+}
@@ -1,15 +1,20 @@
 package com.timetracker.aggregation;
 
+import com.timetracker.app.ApplicationDictionary;
 import com.timetracker.app.ApplicationSample;
 import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
 import org.apache.commons.lang3.StringUtils;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -20,8 +25,18 @@ public class MinuteAggregator {
     private final int minIdleSeconds;
     private final int samplingIntervalSeconds;
     private final ZoneId zoneId;
+    private final int gapThresholdSeconds;
+    private final ApplicationDictionary dictionary = ApplicationDictionary.global();
 
     private LocalDateTime currentMinuteStart;
+    private Instant lastTimestamp;
+    private ClockGap pendingGap;
+
+    // Event-driven mode: the state observed at intervalStart applies until the next observation.
+    private Instant intervalStart;
+    private boolean intervalIdle;
+    private Optional<ApplicationSample> intervalApplication = Optional.empty();
+    private long intervalIdleMillis;
     private final Map<String, AppAccumulation> appSeconds = new HashMap<>();
     private int idleSeconds;
     private boolean idleThresholdReached;
@@ -35,6 +50,14 @@ public class MinuteAggregator {
     }
 
     public MinuteAggregator(int minActiveSeconds, int minIdleSeconds, int samplingIntervalSeconds, ZoneId zoneId) {
+        this(minActiveSeconds, minIdleSeconds, samplingIntervalSeconds, zoneId, AppConfig.DEFAULT_GAP_THRESHOLD_SECONDS);
+    }
+
+    public MinuteAggregator(int minActiveSeconds,
+                            int minIdleSeconds,
+                            int samplingIntervalSeconds,
+                            ZoneId zoneId,
+                            int gapThresholdSeconds) {
         if (minActiveSeconds <= 0) {
             throw new IllegalArgumentException("minActiveSeconds must be > 0");
         }
@@ -48,6 +71,7 @@ public class MinuteAggregator {
         this.minIdleSeconds = minIdleSeconds;
         this.samplingIntervalSeconds = samplingIntervalSeconds;
         this.zoneId = Objects.requireNonNull(zoneId, "zoneId");
+        this.gapThresholdSeconds = Math.max(gapThresholdSeconds, samplingIntervalSeconds * 2);
     }
 
     /**
@@ -59,20 +83,107 @@ public class MinuteAggregator {
 
         Optional<MinuteRecord> flushed = Optional.empty();
 
+        if (lastTimestamp != null
+                && Duration.between(lastTimestamp, tick.timestamp()).toSeconds() >= gapThresholdSeconds) {
+            // Suspend/hibernate: keep only the latest gap, the caller drains it after every tick.
+            pendingGap = new ClockGap(lastTimestamp, tick.timestamp());
+        }
+
         if (currentMinuteStart == null) {
             startNewMinute(minute);
-        } else if (minute.isAfter(currentMinuteStart)) {
+        } else if (!minute.equals(currentMinuteStart)) {
+            // A new minute, a resume after a gap, or a clock adjustment backwards: the open minute is complete.
             flushed = finalizeCurrentMinute();
             startNewMinute(minute);
-        } else if (minute.isBefore(currentMinuteStart)) {
-            // Time went backwards (clock adjustment) - restart aggregation.
-            startNewMinute(minute);
         }
 
-        accumulate(tick);
+        lastTimestamp = tick.timestamp();
+        accumulate(tick.idle(), tick.application(), tick.idleDurationSeconds(), samplingIntervalSeconds * 1000L);
         return flushed;
     }
 
+    /**
+     * Event-driven counterpart of {@link #processSample(SampleTick)}: closes the interval since the previous
+     * observation with the previous state and makes {@code idle}/{@code application} the current state.
+     * Nothing has to be called while the state is stable except {@link #advanceTo(Instant)} at minute boundaries.
+     */
+    public List<MinuteRecord> observe(Instant timestamp,
+                                      boolean idle,
+                                      Optional<ApplicationSample> application,
+                                      int idleDurationSeconds) {
+        Objects.requireNonNull(application, "application");
+        List<MinuteRecord> completed = advanceTo(timestamp);
+        intervalStart = timestamp;
+        intervalIdle = idle;
+        intervalApplication = idle ? Optional.empty() : application;
+        intervalIdleMillis = Math.max(0, idleDurationSeconds) * 1000L;
+        return completed;
+    }
+
+    /**
+     * Accumulates the current event-driven state up to {@code timestamp} and returns every minute completed
+     * on the way.
+     */
+    public List<MinuteRecord> advanceTo(Instant timestamp) {
+        Objects.requireNonNull(timestamp, "timestamp");
+        if (intervalStart == null) {
+            return List.of();
+        }
+        List<MinuteRecord> completed = null;
+        if (timestamp.isBefore(intervalStart)) {
+            // Clock moved backwards: close the open minute and continue from the new wall time.
+            completed = addRecord(completed, finalizeCurrentMinute());
+            intervalStart = timestamp;
+            return completed == null ? List.of() : completed;
+        }
+
+        Instant cursor = intervalStart;
+        while (cursor.isBefore(timestamp)) {
+            LocalDateTime minute = toMinuteStart(cursor);
+            completed = rollTo(minute, completed);
+            Instant minuteEnd = minute.plusMinutes(1).atZone(zoneId).toInstant();
+            Instant segmentEnd = minuteEnd.isBefore(timestamp) ? minuteEnd : timestamp;
+            long segmentMillis = Duration.between(cursor, segmentEnd).toMillis();
+            if (intervalIdle) {
+                intervalIdleMillis += segmentMillis;
+            }
+            accumulate(intervalIdle, intervalApplication, (int) Math.min(Integer.MAX_VALUE, intervalIdleMillis / 1000L),
+                    segmentMillis);
+            cursor = segmentEnd;
+        }
+        // A minute that has been fully covered is complete even if no later observation falls into it.
+        completed = rollTo(toMinuteStart(timestamp), completed);
+        intervalStart = timestamp;
+        return completed == null ? List.of() : completed;
+    }
+
+    /**
+     * Event-driven suspend handling: the current state ends at {@code lastObserved}, nothing is attributed to
+     * the gap, and accumulation resumes at {@code resumedAt}. The gap is reported through {@link #takeGap()}.
+     */
+    public List<MinuteRecord> observeGap(Instant lastObserved, Instant resumedAt) {
+        List<MinuteRecord> completed = new ArrayList<>(advanceTo(lastObserved));
+        completed = addRecord(completed, finalizeCurrentMinute());
+        pendingGap = new ClockGap(lastObserved, resumedAt);
+        if (intervalStart != null) {
+            intervalStart = resumedAt;
+        }
+        return completed;
+    }
+
+    /**
+     * Returns and clears the discontinuity detected by the last {@link #processSample(SampleTick)} call, if any.
+     */
+    public Optional<ClockGap> takeGap() {
+        ClockGap gap = pendingGap;
+        pendingGap = null;
+        return Optional.ofNullable(gap);
+    }
+
+    public ZoneId zoneId() {
+        return zoneId;
+    }
+
     /**
      * Flush the current minute immediately, typically on shutdown or day rollover.
      */
@@ -85,9 +196,31 @@ public class MinuteAggregator {
         return record;
     }
 
-    private void accumulate(SampleTick tick) {
-        if (tick.idle()) {
-            int rawDuration = Math.max(0, tick.idleDurationSeconds());
+    private List<MinuteRecord> rollTo(LocalDateTime minute, List<MinuteRecord> completed) {
+        if (currentMinuteStart == null) {
+            startNewMinute(minute);
+        } else if (!minute.equals(currentMinuteStart)) {
+            completed = addRecord(completed, finalizeCurrentMinute());
+            startNewMinute(minute);
+        }
+        return completed;
+    }
+
+    private static List<MinuteRecord> addRecord(List<MinuteRecord> records, Optional<MinuteRecord> record) {
+        if (record.isEmpty()) {
+            return records;
+        }
+        List<MinuteRecord> target = records == null ? new ArrayList<>(2) : records;
+        target.add(record.get());
+        return target;
+    }
+
+    private void accumulate(boolean idle,
+                            Optional<ApplicationSample> application,
+                            int idleDurationSeconds,
+                            long activeMillis) {
+        if (idle) {
+            int rawDuration = Math.max(0, idleDurationSeconds);
             int cappedDuration = Math.min(rawDuration, 60);
             idleSeconds = Math.max(idleSeconds, cappedDuration);
             if (rawDuration >= minIdleSeconds) {
@@ -96,13 +229,13 @@ public class MinuteAggregator {
             return;
         }
 
-        int currentIdle = Math.max(0, Math.min(tick.idleDurationSeconds(), 60));
+        int currentIdle = Math.max(0, Math.min(idleDurationSeconds, 60));
         idleSeconds = currentIdle;
 
-        tick.application().ifPresent(sample -> {
+        application.ifPresent(sample -> {
             AppAccumulation accumulation = appSeconds.computeIfAbsent(sample.application().id(),
                     id -> new AppAccumulation(sample.application()));
-            accumulation.increment(samplingIntervalSeconds);
+            accumulation.increment(activeMillis);
             sample.windowTitleHash()
                     .filter(StringUtils::isNotBlank)
                     .ifPresent(accumulation::setWindowTitleHash);
@@ -129,17 +262,17 @@ public class MinuteAggregator {
             );
         } else {
             AppAccumulation winner = selectWinner();
-            if (winner != null && winner.activeSeconds >= minActiveSeconds) {
-                int reportedActiveSeconds = Math.min(winner.activeSeconds, 60);
+            if (winner != null && winner.activeSeconds() >= minActiveSeconds) {
+                int reportedActiveSeconds = Math.min(winner.activeSeconds(), 60);
                 int reportedIdleSeconds = Math.min(idleSeconds, 60);
                 record = new MinuteRecord(
                         minuteStart.toLocalDate(),
                         minuteStart.toLocalTime(),
                         MinuteStatus.ACTIVE,
-                        Optional.of(winner.application),
+                        dictionary.internOptional(winner.application),
                         reportedActiveSeconds,
                         reportedIdleSeconds,
-                        Optional.ofNullable(winner.windowTitleHash).filter(StringUtils::isNotBlank)
+                        dictionary.internTitleHash(winner.windowTitleHash)
                 );
             }
         }
@@ -164,6 +297,7 @@ public class MinuteAggregator {
         idleSeconds = 0;
         idleThresholdReached = false;
         currentMinuteStart = null;
+        lastTimestamp = null;
     }
 
     private AppAccumulation selectWinner() {
@@ -181,15 +315,15 @@ public class MinuteAggregator {
 
     private static final class AppAccumulation {
         private final ResolvedApplication application;
-        private int activeSeconds;
+        private long activeMillis;
         private String windowTitleHash;
 
         private AppAccumulation(ResolvedApplication application) {
             this.application = application;
         }
 
-        private void increment(int samplingIntervalSeconds) {
-            activeSeconds += samplingIntervalSeconds;
+        private void increment(long millis) {
+            activeMillis += millis;
         }
 
         private void setWindowTitleHash(String hash) {
@@ -197,7 +331,7 @@ public class MinuteAggregator {
         }
 
         private int activeSeconds() {
-            return activeSeconds;
+            return (int) Math.min(Integer.MAX_VALUE, activeMillis / 1000L);
         }
     }
 }
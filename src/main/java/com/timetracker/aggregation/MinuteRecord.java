@@ -4,9 +4,15 @@ import com.timetracker.app.ResolvedApplication;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
+/**
+ * A single aggregated minute, or a contiguous range of minutes when {@code minutes > 1}: a
+ * {@link MinuteStatus#SUSPENDED} range, or a run of active or idle minutes whose seconds are totals over the run.
+ */
 public record MinuteRecord(
         LocalDate date,
         LocalTime minute,
@@ -14,7 +20,8 @@ public record MinuteRecord(
         Optional<ResolvedApplication> application,
         int activeSeconds,
         int idleSeconds,
-        Optional<String> windowTitleHash
+        Optional<String> windowTitleHash,
+        int minutes
 ) {
 
     public MinuteRecord {
@@ -23,5 +30,47 @@ public record MinuteRecord(
         Objects.requireNonNull(status, "status");
         Objects.requireNonNull(application, "application");
         Objects.requireNonNull(windowTitleHash, "windowTitleHash");
+        if (minutes <= 0) {
+            throw new IllegalArgumentException("minutes must be > 0");
+        }
+    }
+
+    public MinuteRecord(LocalDate date,
+                        LocalTime minute,
+                        MinuteStatus status,
+                        Optional<ResolvedApplication> application,
+                        int activeSeconds,
+                        int idleSeconds,
+                        Optional<String> windowTitleHash) {
+        this(date, minute, status, application, activeSeconds, idleSeconds, windowTitleHash, 1);
+    }
+
+    public static MinuteRecord suspended(LocalDate date, LocalTime start, int minutes) {
+        return new MinuteRecord(date, start, MinuteStatus.SUSPENDED, Optional.empty(), 0, 0, Optional.empty(), minutes);
+    }
+
+    /**
+     * Splits a run into its minutes, spreading the seconds evenly with any remainder on the first minutes.
+     * Single minutes and suspended ranges are returned as they are.
+     */
+    public List<MinuteRecord> perMinute() {
+        if (minutes == 1 || status == MinuteStatus.SUSPENDED) {
+            return List.of(this);
+        }
+        int start = minute.getHour() * 60 + minute.getMinute();
+        int count = Math.min(minutes, DayUsage.MINUTES_PER_DAY - start);
+        List<MinuteRecord> split = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            split.add(new MinuteRecord(date, minute.plusMinutes(i), status, application,
+                    share(activeSeconds, minutes, i), share(idleSeconds, minutes, i), windowTitleHash));
+        }
+        return split;
+    }
+
+    /**
+     * The part of {@code total} that falls on minute {@code index} of a run of {@code minutes}.
+     */
+    public static int share(int total, int minutes, int index) {
+        return total / minutes + (index < total % minutes ? 1 : 0);
     }
 }
@@ -2,5 +2,6 @@ package com.timetracker.aggregation;
 
 public enum MinuteStatus {
     ACTIVE,
-    IDLE
+    IDLE,
+    SUSPENDED
 }
@@ -2,14 +2,11 @@ package com.timetracker.app;
 
 import com.timetracker.config.AliasRule;
 import com.timetracker.config.PrivacyConfig;
+import com.timetracker.config.TitleHashAlgorithm;
 import com.timetracker.sampling.AppIdentity;
 import org.apache.commons.lang3.StringUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-import java.util.HexFormat;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
@@ -23,9 +20,11 @@ public class AppResolver {
     private final Set<String> whitelist;
     private final Set<String> blacklist;
     private final boolean recordWindowTitle;
-    private final String titleHashSalt;
+    private final TitleHasher titleHasher;
+    private final ApplicationDictionary dictionary = ApplicationDictionary.global();
 
-    private static final HexFormat HEX = HexFormat.of();
+    // The foreground app rarely changes between samples; remember the last resolution.
+    private volatile ResolvedMemo lastResolved;
 
     public AppResolver(List<AliasRule> aliasRules,
                        List<String> whitelist,
@@ -35,14 +34,41 @@ public class AppResolver {
         this.whitelist = Set.copyOf(normalizeList(whitelist));
         this.blacklist = Set.copyOf(normalizeList(blacklist));
         this.recordWindowTitle = privacyConfig != null && Boolean.TRUE.equals(privacyConfig.recordWindowTitle());
-        this.titleHashSalt = (privacyConfig == null || privacyConfig.titleHashSalt() == null)
-                ? ""
-                : privacyConfig.titleHashSalt();
+        this.titleHasher = privacyConfig == null
+                ? new TitleHasher("", TitleHashAlgorithm.SHA256)
+                : new TitleHasher(privacyConfig.titleHashSalt(), privacyConfig.titleHashAlgorithm());
     }
 
     public Optional<ApplicationSample> resolve(AppIdentity identity, Optional<String> windowTitle) {
         Objects.requireNonNull(identity, "identity");
 
+        ResolvedMemo memo = lastResolved;
+        boolean sameIdentity = memo != null
+                && Objects.equals(memo.executablePath(), identity.executablePath())
+                && Objects.equals(memo.displayName(), identity.displayName());
+        Optional<ResolvedApplication> application = sameIdentity ? memo.application() : resolveApplication(identity);
+        if (application.isEmpty()) {
+            if (!sameIdentity) {
+                lastResolved = new ResolvedMemo(identity.executablePath(), identity.displayName(),
+                        application, Optional.empty(), Optional.empty());
+            }
+            return Optional.empty();
+        }
+
+        Optional<String> windowTitleHash = recordWindowTitle
+                ? titleHasher.hash(windowTitle)
+                : Optional.empty();
+        if (sameIdentity && memo.windowTitleHash() == windowTitleHash && memo.result().isPresent()) {
+            return memo.result();
+        }
+
+        Optional<ApplicationSample> result = Optional.of(new ApplicationSample(application.get(), windowTitleHash));
+        lastResolved = new ResolvedMemo(identity.executablePath(), identity.displayName(),
+                application, windowTitleHash, result);
+        return result;
+    }
+
+    private Optional<ResolvedApplication> resolveApplication(AppIdentity identity) {
         String normalizedPath = normalizePath(identity.executablePath());
         String normalizedLower = normalizedPath.toLowerCase(Locale.ROOT);
 
@@ -64,24 +90,19 @@ public class AppResolver {
                 ? matchedAlias.name().toLowerCase(Locale.ROOT)
                 : normalizedLower;
 
-        ResolvedApplication application = new ResolvedApplication(
+        return dictionary.internOptional(new ResolvedApplication(
                 id,
                 displayName,
                 normalizedPath,
                 normalizedLower,
                 aliasApplied
-        );
-
-        Optional<String> windowTitleHash = recordWindowTitle
-                ? hashWindowTitle(windowTitle)
-                : Optional.empty();
-
-        return Optional.of(new ApplicationSample(application, windowTitleHash));
+        ));
     }
 
     public void updateAliases(List<AliasRule> aliases) {
         aliasRules.clear();
         aliasRules.addAll(aliases == null ? List.of() : aliases);
+        lastResolved = null;
     }
 
     private AliasRule findAlias(String normalizedLower) {
@@ -93,21 +114,6 @@ public class AppResolver {
         return null;
     }
 
-    private Optional<String> hashWindowTitle(Optional<String> windowTitle) {
-        return windowTitle
-                .filter(StringUtils::isNotBlank)
-                .map(title -> {
-                    try {
-                        MessageDigest digest = MessageDigest.getInstance("SHA-256");
-                        digest.update(titleHashSalt.getBytes(StandardCharsets.UTF_8));
-                        digest.update(title.strip().getBytes(StandardCharsets.UTF_8));
-                        return HEX.formatHex(digest.digest());
-                    } catch (NoSuchAlgorithmException e) {
-                        throw new IllegalStateException("SHA-256 not available", e);
-                    }
-                });
-    }
-
     private List<String> normalizeList(List<String> entries) {
         if (entries == null) {
             return List.of();
@@ -145,4 +151,13 @@ public class AppResolver {
         }
         return StringUtils.capitalize(baseName.toLowerCase(Locale.ROOT));
     }
+
+    private record ResolvedMemo(
+            String executablePath,
+            String displayName,
+            Optional<ResolvedApplication> application,
+            Optional<String> windowTitleHash,
+            Optional<ApplicationSample> result
+    ) {
+    }
 }
@@ -0,0 +1,146 @@
+package com.timetracker.app;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide interning dictionary for applications and window-title hashes. Every distinct value gets one
+ * canonical instance (and one canonical {@code Optional}) plus a stable integer id, so records produced by the
+ * resolver, aggregator and loaders share references and can be compared by identity.
+ */
+public final class ApplicationDictionary {
+
+    public static final int NO_ID = -1;
+
+    private static final int DEFAULT_MAX_TITLE_HASHES = 1 << 16;
+    private static final ApplicationDictionary GLOBAL = new ApplicationDictionary(DEFAULT_MAX_TITLE_HASHES);
+
+    private final Map<ResolvedApplication, Entry<ResolvedApplication>> applications = new ConcurrentHashMap<>();
+    private final Map<String, Entry<String>> titleHashes = new ConcurrentHashMap<>();
+    private final int maxTitleHashes;
+
+    // Copy-on-grow lookup tables, written under the dictionary lock and published through the volatile field.
+    private volatile ResolvedApplication[] applicationsById = new ResolvedApplication[64];
+    private volatile String[] titleHashesById = new String[256];
+    private int applicationCount;
+    private int titleHashCount;
+
+    public ApplicationDictionary(int maxTitleHashes) {
+        if (maxTitleHashes < 0) {
+            throw new IllegalArgumentException("maxTitleHashes must be >= 0");
+        }
+        this.maxTitleHashes = maxTitleHashes;
+    }
+
+    public static ApplicationDictionary global() {
+        return GLOBAL;
+    }
+
+    public ResolvedApplication intern(ResolvedApplication application) {
+        return applicationEntry(application).value();
+    }
+
+    public Optional<ResolvedApplication> internOptional(ResolvedApplication application) {
+        return applicationEntry(application).optional();
+    }
+
+    public int applicationId(ResolvedApplication application) {
+        return applicationEntry(application).id();
+    }
+
+    public ResolvedApplication application(int id) {
+        ResolvedApplication[] table = applicationsById;
+        if (id < 0 || id >= table.length || table[id] == null) {
+            throw new IllegalArgumentException("Unknown application id " + id);
+        }
+        return table[id];
+    }
+
+    public int applicationCount() {
+        synchronized (this) {
+            return applicationCount;
+        }
+    }
+
+    /**
+     * Returns the canonical {@code Optional} for a title hash. Once the title dictionary is full, new hashes are
+     * returned as-is (not interned) so that an unbounded number of distinct titles cannot grow the heap.
+     */
+    public Optional<String> internTitleHash(String hash) {
+        if (hash == null || hash.isBlank()) {
+            return Optional.empty();
+        }
+        Entry<String> entry = titleHashEntry(hash);
+        return entry != null ? entry.optional() : Optional.of(hash);
+    }
+
+    public int titleHashId(String hash) {
+        if (hash == null || hash.isBlank()) {
+            return NO_ID;
+        }
+        Entry<String> entry = titleHashEntry(hash);
+        return entry != null ? entry.id() : NO_ID;
+    }
+
+    public String titleHash(int id) {
+        String[] table = titleHashesById;
+        if (id < 0 || id >= table.length || table[id] == null) {
+            throw new IllegalArgumentException("Unknown title hash id " + id);
+        }
+        return table[id];
+    }
+
+    private Entry<ResolvedApplication> applicationEntry(ResolvedApplication application) {
+        Objects.requireNonNull(application, "application");
+        Entry<ResolvedApplication> entry = applications.get(application);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (this) {
+            entry = applications.get(application);
+            if (entry == null) {
+                int id = applicationCount++;
+                entry = new Entry<>(id, application, Optional.of(application));
+                ResolvedApplication[] table = applicationsById;
+                if (id >= table.length) {
+                    table = Arrays.copyOf(table, table.length * 2);
+                }
+                table[id] = application;
+                applicationsById = table;
+                applications.put(application, entry);
+            }
+            return entry;
+        }
+    }
+
+    private Entry<String> titleHashEntry(String hash) {
+        Entry<String> entry = titleHashes.get(hash);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (this) {
+            entry = titleHashes.get(hash);
+            if (entry == null) {
+                if (titleHashCount >= maxTitleHashes) {
+                    return null;
+                }
+                int id = titleHashCount++;
+                entry = new Entry<>(id, hash, Optional.of(hash));
+                String[] table = titleHashesById;
+                if (id >= table.length) {
+                    table = Arrays.copyOf(table, table.length * 2);
+                }
+                table[id] = hash;
+                titleHashesById = table;
+                titleHashes.put(hash, entry);
+            }
+            return entry;
+        }
+    }
+
+    private record Entry<T>(int id, T value, Optional<T> optional) {
+    }
+}
@@ -0,0 +1,107 @@
+package com.timetracker.app;
+
+import com.timetracker.config.TitleHashAlgorithm;
+import org.apache.commons.lang3.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Salted window-title hashing with a small cache of recent titles. Foreground titles rarely change between
+ * samples, so the steady state is a cache hit that returns the previously built {@code Optional}.
+ */
+final class TitleHasher {
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final int CACHE_SIZE = 8;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final TitleHashAlgorithm algorithm;
+    private final byte[] saltBytes;
+    private final MessageDigest saltedPrototype;
+    private final long saltedSeed;
+
+    private final CachedHash[] cache = new CachedHash[CACHE_SIZE];
+    private int nextSlot;
+
+    TitleHasher(String salt, TitleHashAlgorithm algorithm) {
+        String resolvedSalt = salt == null ? "" : salt;
+        this.algorithm = algorithm == null ? TitleHashAlgorithm.SHA256 : algorithm;
+        this.saltBytes = resolvedSalt.getBytes(StandardCharsets.UTF_8);
+        if (this.algorithm == TitleHashAlgorithm.SHA256) {
+            this.saltedPrototype = newSha256();
+            this.saltedPrototype.update(saltBytes);
+            this.saltedSeed = 0L;
+        } else {
+            this.saltedPrototype = null;
+            this.saltedSeed = fnv(FNV_OFFSET, resolvedSalt);
+        }
+    }
+
+    synchronized Optional<String> hash(Optional<String> windowTitle) {
+        if (windowTitle.isEmpty()) {
+            return Optional.empty();
+        }
+        String title = windowTitle.get();
+        for (CachedHash cached : cache) {
+            if (cached != null && (cached.title() == title || cached.title().equals(title))) {
+                return cached.hash();
+            }
+        }
+        Optional<String> hash = StringUtils.isBlank(title)
+                ? Optional.empty()
+                : ApplicationDictionary.global().internTitleHash(computeHash(title.strip()));
+        cache[nextSlot] = new CachedHash(title, hash);
+        nextSlot = (nextSlot + 1) % CACHE_SIZE;
+        return hash;
+    }
+
+    private String computeHash(String strippedTitle) {
+        if (algorithm == TitleHashAlgorithm.FAST) {
+            return HEX.toHexDigits(fnv(saltedSeed, strippedTitle));
+        }
+        MessageDigest digest = cloneSaltedDigest();
+        digest.update(strippedTitle.getBytes(StandardCharsets.UTF_8));
+        return HEX.formatHex(digest.digest());
+    }
+
+    private MessageDigest cloneSaltedDigest() {
+        try {
+            return (MessageDigest) saltedPrototype.clone();
+        } catch (CloneNotSupportedException ex) {
+            // Providers without clone support: re-absorbing the salt is still correct, just slower.
+            MessageDigest digest = newSha256();
+            digest.update(saltBytes);
+            return digest;
+        }
+    }
+
+    private static long fnv(long seed, String value) {
+        Objects.requireNonNull(value, "value");
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            hash ^= ch & 0xff;
+            hash *= FNV_PRIME;
+            hash ^= ch >>> 8;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    private record CachedHash(String title, Optional<String> hash) {
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.timetracker.clock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ScheduledExecutorService} on a {@link VirtualTime} timeline. Shutdown follows the
+ * {@link java.util.concurrent.ScheduledThreadPoolExecutor} defaults: periodic tasks are cancelled, tasks that are
+ * already queued still run. Fixed-delay scheduling is treated as fixed-rate since tasks take no virtual time.
+ */
+final class VirtualScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final VirtualTime time;
+    private volatile boolean shutdown;
+
+    VirtualScheduledExecutor(VirtualTime time) {
+        this.time = time;
+    }
+
+    VirtualTime time() {
+        return time;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        Objects.requireNonNull(command, "command");
+        return submitTask(new VirtualTask<>(this, Executors.callable(command), due(delay, unit), time.nextSequence()));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        Objects.requireNonNull(callable, "callable");
+        return submitTask(new VirtualTask<>(this, callable, due(delay, unit), time.nextSequence()));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        Objects.requireNonNull(command, "command");
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be > 0");
+        }
+        return submitTask(new VirtualTask<>(this, command, due(initialDelay, unit), unit.toNanos(period),
+                time.nextSequence()));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        return scheduleAtFixedRate(command, initialDelay, delay, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        for (VirtualTask<?> task : tasks()) {
+            if (task.isPeriodic()) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>();
+        for (VirtualTask<?> task : tasks()) {
+            if (task.cancel(false)) {
+                pending.add(task);
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && !time.hasTasks(this);
+    }
+
+    /**
+     * Virtual time does not pass while waiting, so this runs the tasks that are already due on the calling
+     * thread and reports whether that emptied the executor.
+     */
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        time.runDue(this);
+        return isTerminated();
+    }
+
+    private <V> VirtualTask<V> submitTask(VirtualTask<V> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Virtual scheduler has been shut down");
+        }
+        time.enqueue(task);
+        return task;
+    }
+
+    private long due(long delay, TimeUnit unit) {
+        return time.nanoTime() + Math.max(0, unit.toNanos(delay));
+    }
+
+    private List<VirtualTask<?>> tasks() {
+        return time.tasksOf(this);
+    }
+}
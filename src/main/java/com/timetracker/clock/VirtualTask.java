@@ -0,0 +1,86 @@
+package com.timetracker.clock;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A one-shot or fixed-rate task on a {@link VirtualTime} timeline, ordered by due time and then submission order.
+ */
+final class VirtualTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+    private final VirtualScheduledExecutor owner;
+    private final long periodNanos;
+    private long dueNanos;
+    private long sequence;
+
+    VirtualTask(VirtualScheduledExecutor owner, Callable<V> callable, long dueNanos, long sequence) {
+        super(callable);
+        this.owner = owner;
+        this.periodNanos = 0;
+        this.dueNanos = dueNanos;
+        this.sequence = sequence;
+    }
+
+    VirtualTask(VirtualScheduledExecutor owner, Runnable runnable, long dueNanos, long periodNanos, long sequence) {
+        super(runnable, null);
+        this.owner = owner;
+        this.periodNanos = periodNanos;
+        this.dueNanos = dueNanos;
+        this.sequence = sequence;
+    }
+
+    VirtualScheduledExecutor owner() {
+        return owner;
+    }
+
+    long dueNanos() {
+        return dueNanos;
+    }
+
+    @Override
+    public boolean isPeriodic() {
+        return periodNanos > 0;
+    }
+
+    @Override
+    public void run() {
+        if (!isPeriodic()) {
+            super.run();
+            return;
+        }
+        if (runAndReset() && !owner.isShutdown()) {
+            dueNanos += periodNanos;
+            sequence = owner.time().nextSequence();
+            owner.time().enqueue(this);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            owner.time().remove(this);
+        }
+        return cancelled;
+    }
+
+    @Override
+    public long getDelay(TimeUnit unit) {
+        return unit.convert(dueNanos - owner.time().nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+        if (other == this) {
+            return 0;
+        }
+        if (other instanceof VirtualTask<?> task) {
+            int byTime = Long.compare(dueNanos, task.dueNanos);
+            return byTime != 0 ? byTime : Long.compare(sequence, task.sequence);
+        }
+        return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+    }
+}
@@ -0,0 +1,183 @@
+package com.timetracker.clock;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * A manually advanced timeline with a {@link Clock} view and any number of {@link ScheduledExecutorService}s
+ * bound to it. Nothing happens on its own: {@link #advanceTo(Instant)} moves time forward and runs every task
+ * that falls due on the calling thread, in due-time order across all schedulers, so a whole service can run
+ * through days or months as fast as its tasks execute.
+ */
+public final class VirtualTime {
+
+    private final Instant origin;
+    private final PriorityQueue<VirtualTask<?>> queue = new PriorityQueue<>();
+    private final Clock clock;
+    private volatile long nowNanos;
+    private long sequence;
+
+    public VirtualTime(Instant start, ZoneId zone) {
+        this.origin = Objects.requireNonNull(start, "start");
+        this.clock = new VirtualClock(Objects.requireNonNull(zone, "zone"));
+    }
+
+    public Clock clock() {
+        return clock;
+    }
+
+    public Instant now() {
+        return origin.plusNanos(nowNanos);
+    }
+
+    /**
+     * Creates a scheduler whose delays are measured on this timeline. Its tasks only run inside
+     * {@link #advance(Duration)}, {@link #advanceTo(Instant)} or {@link #runDue()}.
+     */
+    public ScheduledExecutorService newScheduler() {
+        return new VirtualScheduledExecutor(this);
+    }
+
+    public int advance(Duration duration) {
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Virtual time cannot move backwards");
+        }
+        return advanceTo(now().plus(duration));
+    }
+
+    /**
+     * Moves time forward to {@code target}, running due tasks in order; the clock reads each task's due time
+     * while it runs. Returns the number of tasks run.
+     */
+    public int advanceTo(Instant target) {
+        long targetNanos = Duration.between(origin, target).toNanos();
+        int executed = 0;
+        VirtualTask<?> task;
+        while ((task = pollDue(targetNanos)) != null) {
+            task.run();
+            executed++;
+        }
+        synchronized (this) {
+            nowNanos = Math.max(nowNanos, targetNanos);
+        }
+        return executed;
+    }
+
+    /**
+     * Runs the tasks that are already due without moving time, e.g. work submitted from other threads.
+     */
+    public int runDue() {
+        return advanceTo(now());
+    }
+
+    /**
+     * Moves time forward to {@code target} without running anything, like a machine that was suspended: tasks
+     * that fell due on the way run late, reading the new time, on the next advance or {@link #runDue()}.
+     */
+    public synchronized void suspendUntil(Instant target) {
+        nowNanos = Math.max(nowNanos, Duration.between(origin, target).toNanos());
+    }
+
+    public synchronized int pendingTasks() {
+        return queue.size();
+    }
+
+    long nanoTime() {
+        return nowNanos;
+    }
+
+    synchronized long nextSequence() {
+        return sequence++;
+    }
+
+    synchronized void enqueue(VirtualTask<?> task) {
+        queue.add(task);
+    }
+
+    synchronized void remove(VirtualTask<?> task) {
+        queue.remove(task);
+    }
+
+    synchronized boolean hasTasks(VirtualScheduledExecutor owner) {
+        return !tasksOf(owner).isEmpty();
+    }
+
+    synchronized List<VirtualTask<?>> tasksOf(VirtualScheduledExecutor owner) {
+        List<VirtualTask<?>> tasks = new ArrayList<>();
+        for (VirtualTask<?> task : queue) {
+            if (task.owner() == owner) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * Runs the tasks of {@code owner} that are due now, leaving the rest of the timeline untouched.
+     */
+    void runDue(VirtualScheduledExecutor owner) {
+        VirtualTask<?> task;
+        while ((task = pollDue(owner)) != null) {
+            task.run();
+        }
+    }
+
+    private synchronized VirtualTask<?> pollDue(long targetNanos) {
+        VirtualTask<?> next = queue.peek();
+        if (next == null || next.dueNanos() > targetNanos) {
+            return null;
+        }
+        queue.poll();
+        nowNanos = Math.max(nowNanos, next.dueNanos());
+        return next;
+    }
+
+    private synchronized VirtualTask<?> pollDue(VirtualScheduledExecutor owner) {
+        VirtualTask<?> due = null;
+        for (VirtualTask<?> task : queue) {
+            if (task.owner() == owner && task.dueNanos() <= nowNanos && (due == null || task.compareTo(due) < 0)) {
+                due = task;
+            }
+        }
+        if (due != null) {
+            queue.remove(due);
+        }
+        return due;
+    }
+
+    private final class VirtualClock extends Clock {
+
+        private final ZoneId clockZone;
+
+        private VirtualClock(ZoneId clockZone) {
+            this.clockZone = clockZone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return clockZone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId newZone) {
+            return newZone.equals(clockZone) ? this : new VirtualClock(newZone);
+        }
+
+        @Override
+        public Instant instant() {
+            return now();
+        }
+
+        @Override
+        public long millis() {
+            return now().toEpochMilli();
+        }
+    }
+}
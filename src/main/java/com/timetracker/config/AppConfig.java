@@ -19,13 +19,18 @@ public record AppConfig(
         List<AliasRule> aliases,
         List<String> whitelist,
         List<String> blacklist,
-        PrivacyConfig privacy
+        PrivacyConfig privacy,
+        int gapThresholdSeconds,
+        boolean recordSuspendedRanges,
+        SamplingMode samplingMode,
+        MetricsConfig metrics
         ) {
 
     private static final int DEFAULT_SAMPLING_INTERVAL_SECONDS = 1;
     private static final int DEFAULT_MIN_ACTIVE_SECONDS = 15;
     private static final int DEFAULT_MIN_IDLE_SECONDS = 60;
     private static final int DEFAULT_TOP_N = 10;
+    public static final int DEFAULT_GAP_THRESHOLD_SECONDS = 120;
 
     @JsonCreator
     public static AppConfig create(
@@ -38,7 +43,11 @@ public record AppConfig(
             @JsonProperty("aliases") List<AliasRule> aliases,
             @JsonProperty("whitelist") List<String> whitelist,
             @JsonProperty("blacklist") List<String> blacklist,
-            @JsonProperty("privacy") PrivacyConfig privacy
+            @JsonProperty("privacy") PrivacyConfig privacy,
+            @JsonProperty("gapThresholdSeconds") Integer gapThresholdSeconds,
+            @JsonProperty("recordSuspendedRanges") Boolean recordSuspendedRanges,
+            @JsonProperty("samplingMode") SamplingMode samplingMode,
+            @JsonProperty("metrics") MetricsConfig metrics
     ) {
         int sampling = samplingIntervalSeconds == null
                 ? DEFAULT_SAMPLING_INTERVAL_SECONDS
@@ -49,6 +58,11 @@ public record AppConfig(
         int minIdle = minIdleSeconds == null
                 ? DEFAULT_MIN_IDLE_SECONDS
                 : minIdleSeconds;
+        int gapThreshold = gapThresholdSeconds == null || gapThresholdSeconds <= 0
+                ? DEFAULT_GAP_THRESHOLD_SECONDS
+                : gapThresholdSeconds;
+        boolean recordSuspended = recordSuspendedRanges == null || recordSuspendedRanges;
+        SamplingMode resolvedSamplingMode = samplingMode == null ? SamplingMode.POLLING : samplingMode;
 
         Path root = defaultRoot();
         StorageConfig resolvedStorage = storage == null
@@ -64,6 +78,9 @@ public record AppConfig(
         List<String> resolvedWhitelist = whitelist == null ? List.of() : normalizeList(whitelist);
         List<String> resolvedBlacklist = blacklist == null ? List.of() : normalizeList(blacklist);
         PrivacyConfig resolvedPrivacy = privacy == null ? PrivacyConfig.defaults() : privacy.withDefaults();
+        MetricsConfig resolvedMetrics = metrics == null
+                ? MetricsConfig.defaults(root)
+                : metrics.withDefaults(root);
 
         return new AppConfig(
                 sampling,
@@ -75,7 +92,11 @@ public record AppConfig(
                 resolvedAliases,
                 resolvedWhitelist,
                 resolvedBlacklist,
-                resolvedPrivacy
+                resolvedPrivacy,
+                gapThreshold,
+                recordSuspended,
+                resolvedSamplingMode,
+                resolvedMetrics
         );
     }
 
@@ -108,7 +129,11 @@ public record AppConfig(
                 Collections.emptyList(),
                 Collections.emptyList(),
                 Collections.emptyList(),
-                PrivacyConfig.defaults()
+                PrivacyConfig.defaults(),
+                DEFAULT_GAP_THRESHOLD_SECONDS,
+                true,
+                SamplingMode.POLLING,
+                MetricsConfig.defaults(defaultRoot())
         );
     }
 }
@@ -11,6 +11,10 @@ public interface ConfigManager extends AutoCloseable {
 
     void registerListener(ConfigListener listener);
 
+    default void unregisterListener(ConfigListener listener) {
+        // optional
+    }
+
     default void startWatching(Path path) throws IOException {
         // optional
     }
@@ -8,24 +8,31 @@ import com.timetracker.util.PathUtils;
 import java.nio.file.Path;
 import java.util.Objects;
 
+/**
+ * @param archiveAfterDays days older than this are rolled into monthly archives; 0 keeps every day as a plain file
+ */
 public record CsvStorageConfig(
         String rootDir,
         Integer flushIntervalMinutes,
-        Integer maxBatchSize
+        Integer maxBatchSize,
+        Integer archiveAfterDays
 ) {
 
     private static final int DEFAULT_FLUSH_MINUTES = 1;
     private static final int DEFAULT_MAX_BATCH = 100;
+    private static final int DEFAULT_ARCHIVE_AFTER_DAYS = 7;
 
     @JsonCreator
     public CsvStorageConfig(
             @JsonProperty("rootDir") String rootDir,
             @JsonProperty("flushIntervalMinutes") Integer flushIntervalMinutes,
-            @JsonProperty("maxBatchSize") Integer maxBatchSize
+            @JsonProperty("maxBatchSize") Integer maxBatchSize,
+            @JsonProperty("archiveAfterDays") Integer archiveAfterDays
     ) {
         this.rootDir = rootDir;
         this.flushIntervalMinutes = flushIntervalMinutes;
         this.maxBatchSize = maxBatchSize;
+        this.archiveAfterDays = archiveAfterDays;
     }
 
     public CsvStorageConfig withDefaults(Path defaultDir) {
@@ -38,10 +45,14 @@ public record CsvStorageConfig(
         int batchSize = maxBatchSize == null || maxBatchSize <= 0
                 ? DEFAULT_MAX_BATCH
                 : maxBatchSize;
-        return new CsvStorageConfig(resolvedRoot, flushMinutes, batchSize);
+        int archiveDays = archiveAfterDays == null || archiveAfterDays < 0
+                ? DEFAULT_ARCHIVE_AFTER_DAYS
+                : archiveAfterDays;
+        return new CsvStorageConfig(resolvedRoot, flushMinutes, batchSize, archiveDays);
     }
 
     public static CsvStorageConfig defaults(Path defaultDir) {
-        return new CsvStorageConfig(defaultDir.toString(), DEFAULT_FLUSH_MINUTES, DEFAULT_MAX_BATCH);
+        return new CsvStorageConfig(defaultDir.toString(), DEFAULT_FLUSH_MINUTES, DEFAULT_MAX_BATCH,
+                DEFAULT_ARCHIVE_AFTER_DAYS);
     }
 }
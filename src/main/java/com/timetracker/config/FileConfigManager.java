@@ -85,6 +85,11 @@ public class FileConfigManager implements ConfigManager {
         listeners.add(listener);
     }
 
+    @Override
+    public void unregisterListener(ConfigListener listener) {
+        listeners.remove(listener);
+    }
+
     @Override
     public void startWatching(Path configFile) throws IOException {
         Objects.requireNonNull(configFile, "configFile");
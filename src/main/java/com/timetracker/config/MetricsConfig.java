@@ -0,0 +1,64 @@
+package com.timetracker.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import com.timetracker.util.PathUtils;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+public record MetricsConfig(
+        Boolean enabled,
+        Integer logIntervalMinutes,
+        String dumpFile,
+        Integer maxRssMB,
+        Double maxCpuPercent,
+        Integer maxDiskMBPerDay
+) {
+
+    private static final int DEFAULT_LOG_INTERVAL_MINUTES = 60;
+    // Footprint promised in docs/requirements.md.
+    private static final int DEFAULT_MAX_RSS_MB = 40;
+    private static final double DEFAULT_MAX_CPU_PERCENT = 1.0;
+    private static final int DEFAULT_MAX_DISK_MB_PER_DAY = 1;
+
+    @JsonCreator
+    public MetricsConfig(
+            @JsonProperty("enabled") Boolean enabled,
+            @JsonProperty("logIntervalMinutes") Integer logIntervalMinutes,
+            @JsonProperty("dumpFile") String dumpFile,
+            @JsonProperty("maxRssMB") Integer maxRssMB,
+            @JsonProperty("maxCpuPercent") Double maxCpuPercent,
+            @JsonProperty("maxDiskMBPerDay") Integer maxDiskMBPerDay
+    ) {
+        this.enabled = enabled;
+        this.logIntervalMinutes = logIntervalMinutes;
+        this.dumpFile = dumpFile;
+        this.maxRssMB = maxRssMB;
+        this.maxCpuPercent = maxCpuPercent;
+        this.maxDiskMBPerDay = maxDiskMBPerDay;
+    }
+
+    public MetricsConfig withDefaults(Path rootDir) {
+        Objects.requireNonNull(rootDir, "rootDir");
+        boolean resolvedEnabled = enabled == null || enabled;
+        int resolvedInterval = (logIntervalMinutes == null || logIntervalMinutes <= 0)
+                ? DEFAULT_LOG_INTERVAL_MINUTES
+                : logIntervalMinutes;
+        String resolvedDump = PathUtils.resolveOrDefault(dumpFile, defaultDumpFile(rootDir)).toString();
+        int resolvedRss = maxRssMB == null || maxRssMB <= 0 ? DEFAULT_MAX_RSS_MB : maxRssMB;
+        double resolvedCpu = maxCpuPercent == null || maxCpuPercent <= 0 ? DEFAULT_MAX_CPU_PERCENT : maxCpuPercent;
+        int resolvedDisk = maxDiskMBPerDay == null || maxDiskMBPerDay <= 0 ? DEFAULT_MAX_DISK_MB_PER_DAY : maxDiskMBPerDay;
+        return new MetricsConfig(resolvedEnabled, resolvedInterval, resolvedDump, resolvedRss, resolvedCpu, resolvedDisk);
+    }
+
+    public static MetricsConfig defaults(Path rootDir) {
+        return new MetricsConfig(Boolean.TRUE, DEFAULT_LOG_INTERVAL_MINUTES, defaultDumpFile(rootDir).toString(),
+                DEFAULT_MAX_RSS_MB, DEFAULT_MAX_CPU_PERCENT, DEFAULT_MAX_DISK_MB_PER_DAY);
+    }
+
+    private static Path defaultDumpFile(Path rootDir) {
+        return rootDir.resolve("logs").resolve("metrics.txt");
+    }
+}
@@ -8,18 +8,26 @@ import java.util.Base64;
 
 public record PrivacyConfig(
         Boolean recordWindowTitle,
-        String titleHashSalt
+        String titleHashSalt,
+        TitleHashAlgorithm titleHashAlgorithm
 ) {
 
     private static final SecureRandom RANDOM = new SecureRandom();
+    private static final TitleHashAlgorithm DEFAULT_ALGORITHM = TitleHashAlgorithm.SHA256;
 
     @JsonCreator
     public PrivacyConfig(
             @JsonProperty("recordWindowTitle") Boolean recordWindowTitle,
-            @JsonProperty("titleHashSalt") String titleHashSalt
+            @JsonProperty("titleHashSalt") String titleHashSalt,
+            @JsonProperty("titleHashAlgorithm") TitleHashAlgorithm titleHashAlgorithm
     ) {
         this.recordWindowTitle = recordWindowTitle;
         this.titleHashSalt = titleHashSalt;
+        this.titleHashAlgorithm = titleHashAlgorithm;
+    }
+
+    public PrivacyConfig(Boolean recordWindowTitle, String titleHashSalt) {
+        this(recordWindowTitle, titleHashSalt, DEFAULT_ALGORITHM);
     }
 
     public PrivacyConfig withDefaults() {
@@ -27,7 +35,8 @@ public record PrivacyConfig(
         String salt = (titleHashSalt == null || titleHashSalt.isBlank())
                 ? randomSalt()
                 : titleHashSalt;
-        return new PrivacyConfig(record, salt);
+        TitleHashAlgorithm algorithm = titleHashAlgorithm == null ? DEFAULT_ALGORITHM : titleHashAlgorithm;
+        return new PrivacyConfig(record, salt, algorithm);
     }
 
     private static String randomSalt() {
@@ -37,6 +46,6 @@ public record PrivacyConfig(
     }
 
     public static PrivacyConfig defaults() {
-        return new PrivacyConfig(Boolean.FALSE, randomSalt());
+        return new PrivacyConfig(Boolean.FALSE, randomSalt(), DEFAULT_ALGORITHM);
     }
 }
@@ -0,0 +1,47 @@
+package com.timetracker.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * How long each storage tier is kept. Minute rows older than {@code minuteDays} are replaced by hourly and daily
+ * rollups, hourly rollups older than {@code hourlyDays} are dropped, daily totals are kept forever. Zero keeps a
+ * tier forever. Rolling up deletes minute rows for good, so it is off unless {@code minuteDays} is set.
+ */
+public record RetentionConfig(
+        Integer minuteDays,
+        Integer hourlyDays
+) {
+
+    private static final int DEFAULT_MINUTE_DAYS = 0;
+    private static final int DEFAULT_HOURLY_DAYS = 730;
+
+    @JsonCreator
+    public RetentionConfig(
+            @JsonProperty("minuteDays") Integer minuteDays,
+            @JsonProperty("hourlyDays") Integer hourlyDays
+    ) {
+        this.minuteDays = minuteDays;
+        this.hourlyDays = hourlyDays;
+    }
+
+    public RetentionConfig withDefaults() {
+        int minutes = minuteDays == null || minuteDays < 0 ? DEFAULT_MINUTE_DAYS : minuteDays;
+        int hours = hourlyDays == null || hourlyDays < 0 ? DEFAULT_HOURLY_DAYS : hourlyDays;
+        // Hourly rollups are derived from minute rows, so they cannot expire before them.
+        if (minutes == 0) {
+            hours = 0;
+        } else if (hours != 0 && hours < minutes) {
+            hours = minutes;
+        }
+        return new RetentionConfig(minutes, hours);
+    }
+
+    public static RetentionConfig defaults() {
+        return new RetentionConfig(DEFAULT_MINUTE_DAYS, DEFAULT_HOURLY_DAYS);
+    }
+
+    public boolean enabled() {
+        return minuteDays != null && minuteDays > 0;
+    }
+}
@@ -0,0 +1,6 @@
+package com.timetracker.config;
+
+public enum SamplingMode {
+    POLLING,
+    EVENTS
+}
@@ -0,0 +1,6 @@
+package com.timetracker.config;
+
+public enum SqliteEncoding {
+    MINUTES,
+    RUNS
+}
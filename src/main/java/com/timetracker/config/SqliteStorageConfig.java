@@ -8,21 +8,50 @@ import com.timetracker.util.PathUtils;
 import java.nio.file.Path;
 import java.util.Objects;
 
+/**
+ * @param walCheckpointPages WAL growth, in pages, after which the writer checkpoints at the end of a flush; 0 leaves
+ *                           checkpointing to SQLite's automatic checkpoint on commit
+ * @param encoding           {@code RUNS} stores consecutive minutes of the same application, status and title as one
+ *                           row whose length grows in place; readers accept both encodings
+ */
 public record SqliteStorageConfig(
         String databasePath,
-        String journalMode
+        String journalMode,
+        SqlitePartitioning partitioning,
+        Integer flushIntervalMinutes,
+        Integer maxBatchSize,
+        Integer walCheckpointPages,
+        SqliteEncoding encoding
 ) {
 
     private static final String DEFAULT_DB_NAME = "timetracker.db";
     private static final String DEFAULT_JOURNAL_MODE = "WAL";
+    private static final int DEFAULT_FLUSH_MINUTES = 1;
+    private static final int DEFAULT_MAX_BATCH = 100;
+    private static final int DEFAULT_WAL_CHECKPOINT_PAGES = 1000;
 
     @JsonCreator
     public SqliteStorageConfig(
             @JsonProperty("databasePath") String databasePath,
-            @JsonProperty("journalMode") String journalMode
+            @JsonProperty("journalMode") String journalMode,
+            @JsonProperty("partitioning") SqlitePartitioning partitioning,
+            @JsonProperty("flushIntervalMinutes") Integer flushIntervalMinutes,
+            @JsonProperty("maxBatchSize") Integer maxBatchSize,
+            @JsonProperty("walCheckpointPages") Integer walCheckpointPages,
+            @JsonProperty("encoding") SqliteEncoding encoding
     ) {
         this.databasePath = databasePath;
         this.journalMode = journalMode;
+        this.partitioning = partitioning == null ? SqlitePartitioning.NONE : partitioning;
+        this.flushIntervalMinutes = flushIntervalMinutes;
+        this.maxBatchSize = maxBatchSize;
+        this.walCheckpointPages = walCheckpointPages;
+        this.encoding = encoding == null ? SqliteEncoding.MINUTES : encoding;
+    }
+
+    public SqliteStorageConfig(String databasePath, String journalMode, SqlitePartitioning partitioning,
+                               Integer flushIntervalMinutes, Integer maxBatchSize, Integer walCheckpointPages) {
+        this(databasePath, journalMode, partitioning, flushIntervalMinutes, maxBatchSize, walCheckpointPages, null);
     }
 
     public SqliteStorageConfig withDefaults(Path defaultDir) {
@@ -32,10 +61,30 @@ public record SqliteStorageConfig(
         String resolvedJournalMode = (journalMode == null || journalMode.isBlank())
                 ? DEFAULT_JOURNAL_MODE
                 : journalMode;
-        return new SqliteStorageConfig(resolvedPath, resolvedJournalMode);
+        int flushMinutes = flushIntervalMinutes == null || flushIntervalMinutes <= 0
+                ? DEFAULT_FLUSH_MINUTES
+                : flushIntervalMinutes;
+        int batchSize = maxBatchSize == null || maxBatchSize <= 0
+                ? DEFAULT_MAX_BATCH
+                : maxBatchSize;
+        int checkpointPages = walCheckpointPages == null || walCheckpointPages < 0
+                ? DEFAULT_WAL_CHECKPOINT_PAGES
+                : walCheckpointPages;
+        return new SqliteStorageConfig(resolvedPath, resolvedJournalMode, partitioning, flushMinutes, batchSize,
+                checkpointPages, encoding);
+    }
+
+    public boolean partitioned() {
+        return partitioning == SqlitePartitioning.MONTHLY;
+    }
+
+    public boolean runs() {
+        return encoding == SqliteEncoding.RUNS;
     }
 
     public static SqliteStorageConfig defaults(Path defaultDir) {
-        return new SqliteStorageConfig(defaultDir.resolve(DEFAULT_DB_NAME).toString(), DEFAULT_JOURNAL_MODE);
+        return new SqliteStorageConfig(defaultDir.resolve(DEFAULT_DB_NAME).toString(), DEFAULT_JOURNAL_MODE,
+                SqlitePartitioning.NONE, DEFAULT_FLUSH_MINUTES, DEFAULT_MAX_BATCH, DEFAULT_WAL_CHECKPOINT_PAGES,
+                SqliteEncoding.MINUTES);
     }
 }
@@ -4,12 +4,19 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
+/**
+ * @param sinks extra destinations records are also written to; reports always read from {@code type}
+ */
 public record StorageConfig(
         StorageType type,
         CsvStorageConfig csv,
-        SqliteStorageConfig sqlite
+        SqliteStorageConfig sqlite,
+        RetentionConfig retention,
+        List<StorageSinkConfig> sinks
 ) {
 
     private static final StorageType DEFAULT_TYPE = StorageType.CSV;
@@ -18,11 +25,20 @@ public record StorageConfig(
     public StorageConfig(
             @JsonProperty("type") StorageType type,
             @JsonProperty("csv") CsvStorageConfig csv,
-            @JsonProperty("sqlite") SqliteStorageConfig sqlite
+            @JsonProperty("sqlite") SqliteStorageConfig sqlite,
+            @JsonProperty("retention") RetentionConfig retention,
+            @JsonProperty("sinks") List<StorageSinkConfig> sinks
     ) {
         this.type = type == null ? DEFAULT_TYPE : type;
         this.csv = csv;
         this.sqlite = sqlite;
+        this.retention = retention;
+        this.sinks = sinks == null ? List.of() : List.copyOf(sinks);
+    }
+
+    public StorageConfig(StorageType type, CsvStorageConfig csv, SqliteStorageConfig sqlite,
+                         RetentionConfig retention) {
+        this(type, csv, sqlite, retention, null);
     }
 
     public StorageConfig withDefaults(Path rootDir) {
@@ -33,12 +49,19 @@ public record StorageConfig(
         SqliteStorageConfig sqliteConfig = (sqlite == null)
                 ? SqliteStorageConfig.defaults(rootDir.resolve("data"))
                 : sqlite.withDefaults(rootDir.resolve("data"));
-        return new StorageConfig(type, csvConfig, sqliteConfig);
+        RetentionConfig retentionConfig = retention == null ? RetentionConfig.defaults() : retention.withDefaults();
+        List<StorageSinkConfig> sinkConfigs = new ArrayList<>(sinks.size());
+        for (int i = 0; i < sinks.size(); i++) {
+            sinkConfigs.add(sinks.get(i).withDefaults(rootDir.resolve("data"), i));
+        }
+        return new StorageConfig(type, csvConfig, sqliteConfig, retentionConfig, sinkConfigs);
     }
 
     public static StorageConfig defaults(Path rootDir) {
         return new StorageConfig(DEFAULT_TYPE,
                 CsvStorageConfig.defaults(rootDir.resolve("data")),
-                SqliteStorageConfig.defaults(rootDir.resolve("data")));
+                SqliteStorageConfig.defaults(rootDir.resolve("data")),
+                RetentionConfig.defaults(),
+                List.of());
     }
 }
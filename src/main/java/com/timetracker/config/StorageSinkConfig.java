@@ -0,0 +1,68 @@
+package com.timetracker.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import com.timetracker.util.PathUtils;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * An extra destination every minute record is copied to, next to the primary storage that reports read from.
+ *
+ * @param queueCapacity records held in memory for the sink before new ones spill to disk
+ * @param retrySeconds  wait after a failure before the sink is opened again
+ * @param spillDir      where records wait, as CSV day files, while the sink is failing or falling behind
+ */
+public record StorageSinkConfig(
+        String name,
+        StorageType type,
+        CsvStorageConfig csv,
+        SqliteStorageConfig sqlite,
+        Integer queueCapacity,
+        Integer retrySeconds,
+        String spillDir
+) {
+
+    private static final StorageType DEFAULT_TYPE = StorageType.CSV;
+    private static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final int DEFAULT_RETRY_SECONDS = 30;
+
+    @JsonCreator
+    public StorageSinkConfig(
+            @JsonProperty("name") String name,
+            @JsonProperty("type") StorageType type,
+            @JsonProperty("csv") CsvStorageConfig csv,
+            @JsonProperty("sqlite") SqliteStorageConfig sqlite,
+            @JsonProperty("queueCapacity") Integer queueCapacity,
+            @JsonProperty("retrySeconds") Integer retrySeconds,
+            @JsonProperty("spillDir") String spillDir
+    ) {
+        this.name = name;
+        this.type = type == null ? DEFAULT_TYPE : type;
+        this.csv = csv;
+        this.sqlite = sqlite;
+        this.queueCapacity = queueCapacity;
+        this.retrySeconds = retrySeconds;
+        this.spillDir = spillDir;
+    }
+
+    /**
+     * @param dataDir the primary data directory; unnamed sinks are called {@code sink1}, {@code sink2}, ... and keep
+     *                their files and spill directory below it
+     */
+    public StorageSinkConfig withDefaults(Path dataDir, int index) {
+        Objects.requireNonNull(dataDir, "dataDir");
+        String resolvedName = name == null || name.isBlank() ? "sink" + (index + 1) : name;
+        Path sinkDir = dataDir.resolve("sinks").resolve(resolvedName);
+        CsvStorageConfig csvConfig = csv == null ? CsvStorageConfig.defaults(sinkDir) : csv.withDefaults(sinkDir);
+        SqliteStorageConfig sqliteConfig = sqlite == null
+                ? SqliteStorageConfig.defaults(sinkDir)
+                : sqlite.withDefaults(sinkDir);
+        int capacity = queueCapacity == null || queueCapacity <= 0 ? DEFAULT_QUEUE_CAPACITY : queueCapacity;
+        int retry = retrySeconds == null || retrySeconds <= 0 ? DEFAULT_RETRY_SECONDS : retrySeconds;
+        Path spill = PathUtils.resolveOrDefault(spillDir, dataDir.resolve("spill").resolve(resolvedName));
+        return new StorageSinkConfig(resolvedName, type, csvConfig, sqliteConfig, capacity, retry, spill.toString());
+    }
+}
@@ -0,0 +1,68 @@
+package com.timetracker.lifecycle;
+
+import com.timetracker.sampling.ForegroundEventSource;
+import com.timetracker.sampling.ForegroundSampler;
+import com.timetracker.sampling.IdleDetector;
+import com.timetracker.sampling.PollingForegroundEventSource;
+import com.timetracker.tray.TrayController;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Platform-facing collaborators of {@link TimeTrackerService}. The default set talks to Win32 and the system
+ * tray on the system clock; harnesses substitute fakes and a virtual clock.
+ */
+public interface ServiceComponents {
+
+    Clock clock();
+
+    ForegroundSampler sampler(boolean captureWindowTitles);
+
+    IdleDetector idleDetector();
+
+    TrayController tray(Path reportDirectory, Path dataDirectory, Path configPath);
+
+    /**
+     * Whether the service schedules its own polling ticks. Harnesses that return {@code false} drive each tick
+     * themselves through {@link TimeTrackerService#sampleOnce()}.
+     */
+    default boolean scheduledSampling() {
+        return true;
+    }
+
+    /**
+     * Foreground events for {@code samplingMode: EVENTS}, created on start and again after a threshold reload.
+     * The default polls {@code sampler} on its own timer; harnesses return a
+     * {@link com.timetracker.sampling.SimulatedForegroundEventSource} and push events themselves.
+     */
+    default ForegroundEventSource eventSource(Supplier<ForegroundSampler> sampler,
+                                              IdleDetector idleDetector,
+                                              Duration interval,
+                                              Duration idleThreshold,
+                                              Duration gapThreshold) {
+        return new PollingForegroundEventSource(sampler, idleDetector, interval, idleThreshold, gapThreshold,
+                () -> scheduler("foreground-events"));
+    }
+
+    /**
+     * Creates a timer for one of the service's background stages. The default is a single daemon thread on wall
+     * time; harnesses return schedulers from a {@link com.timetracker.clock.VirtualTime} so delays follow
+     * {@link #clock()}.
+     */
+    default ScheduledExecutorService scheduler(String name) {
+        return Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static ServiceComponents windows() {
+        return Win32ServiceComponents.INSTANCE;
+    }
+}
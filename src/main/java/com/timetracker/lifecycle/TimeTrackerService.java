@@ -1,56 +1,94 @@
 package com.timetracker.lifecycle;
 
+import com.timetracker.aggregation.ClockGap;
+import com.timetracker.aggregation.DayUsage;
 import com.timetracker.aggregation.MinuteAggregator;
 import com.timetracker.aggregation.MinuteRecord;
 import com.timetracker.aggregation.MinuteStatus;
 import com.timetracker.aggregation.SampleTick;
 import com.timetracker.app.AppResolver;
+import com.timetracker.app.ApplicationDictionary;
 import com.timetracker.app.ApplicationSample;
 import com.timetracker.app.ResolvedApplication;
 import com.timetracker.config.AppConfig;
+import com.timetracker.config.ConfigListener;
 import com.timetracker.config.ConfigManager;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.SamplingMode;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageSinkConfig;
 import com.timetracker.config.StorageType;
 import com.timetracker.logging.LoggingConfigurator;
+import com.timetracker.metrics.ConfigReloadEvent;
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.DayRolloverEvent;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
+import com.timetracker.metrics.ReportGenerationEvent;
+import com.timetracker.metrics.ResourceBudget;
+import com.timetracker.metrics.ResourceMonitor;
+import com.timetracker.metrics.ResourceProbe;
+import com.timetracker.metrics.SamplingTickEvent;
+import com.timetracker.pipeline.PipelineStage;
+import com.timetracker.pipeline.SamplingPipeline;
+import com.timetracker.pipeline.StageMetrics;
+import com.timetracker.pipeline.TickSlot;
 import com.timetracker.report.HtmlReportGenerator;
 import com.timetracker.report.ReportGenerator;
 import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.sampling.AppIdentity;
+import com.timetracker.sampling.ClockDiscontinuityDetector;
+import com.timetracker.sampling.ForegroundEventListener;
+import com.timetracker.sampling.ForegroundEventSource;
 import com.timetracker.sampling.ForegroundSample;
 import com.timetracker.sampling.ForegroundSampler;
 import com.timetracker.sampling.IdleDetector;
 import com.timetracker.sampling.SamplingException;
 import com.timetracker.storage.StorageAdapter;
 import com.timetracker.storage.StorageException;
+import com.timetracker.storage.SwitchableStorageAdapter;
+import com.timetracker.storage.csv.CsvArchiveCompactor;
 import com.timetracker.storage.csv.CsvStorageAdapter;
+import com.timetracker.storage.fanout.FanOutStorageAdapter;
+import com.timetracker.storage.fanout.QueuedSink;
+import com.timetracker.storage.retention.RetentionJob;
 import com.timetracker.storage.sqlite.SqliteStorageAdapter;
-import com.timetracker.tray.SystemTrayController;
 import com.timetracker.tray.TrayActions;
 import com.timetracker.tray.TrayController;
 import com.timetracker.tray.TrayException;
 import com.timetracker.tray.TrayMessageType;
 import com.timetracker.tray.TrayStatus;
-import com.timetracker.win32.Win32ForegroundSampler;
-import com.timetracker.win32.Win32IdleDetector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Orchestrates sampling, aggregation, persistence, tray updates, and report generation.
@@ -59,21 +97,36 @@ public class TimeTrackerService implements TimeTrackerApplication {
 
     private static final Logger log = LoggerFactory.getLogger(TimeTrackerService.class);
 
+    private static final String SINK_METRICS_PREFIX = "storage.sink.";
+
     private final Path configPath;
     private final ConfigManager configManager;
 
-    private AppConfig config;
-    private ForegroundSampler sampler;
+    private volatile AppConfig config;
+    private volatile ForegroundSampler sampler;
     private IdleDetector idleDetector;
     private AppResolver appResolver;
     private MinuteAggregator aggregator;
-    private StorageAdapter storageAdapter;
+    private SwitchableStorageAdapter storageAdapter;
+    // Settings the storage adapter was opened with; only changed on the report executor once a switch succeeds.
+    private volatile StorageConfig activeStorage;
     private ReportGenerator reportGenerator;
-    private UsageDataLoader usageDataLoader;
+    private volatile UsageDataLoader usageDataLoader;
     private TrayController trayController;
+    private ClockDiscontinuityDetector discontinuityDetector;
 
-    private ScheduledExecutorService samplingExecutor;
-    private ScheduledExecutorService reportExecutor;
+    private SamplingPipeline samplingPipeline;
+    private SamplingMode samplingMode;
+    private ForegroundEventSource eventSource;
+    private final MetricsRegistry metrics = new MetricsRegistry(true);
+    private final StageMetrics stageMetrics = new StageMetrics(metrics);
+    private final LatencyHistogram flushLatency = metrics.histogram("storage.flush");
+    private final LatencyHistogram reportLatency = metrics.histogram("report.generate");
+    private final Counter persistedRecords = metrics.counter("storage.records");
+    private final Counter reportsGenerated = metrics.counter("report.generated");
+    private final AtomicLong reportBytesWritten = new AtomicLong();
+    private ResourceMonitor resourceMonitor;
+    private volatile ScheduledExecutorService reportExecutor;
     private ExecutorService shutdownExecutor;
 
     private final AtomicBoolean trackingActive = new AtomicBoolean(false);
@@ -84,13 +137,31 @@ public class TimeTrackerService implements TimeTrackerApplication {
     private final Map<String, ResolvedApplication> todayApps = new ConcurrentHashMap<>();
     private final AtomicInteger todayIdleMinutes = new AtomicInteger(0);
 
+    // Event-driven focus state, confined to the pipeline consumer thread.
+    private Optional<AppIdentity> focusedApp = Optional.empty();
+    private Optional<String> focusedTitle = Optional.empty();
+    private boolean focusIdle;
+    private int focusIdleSeconds;
+    // Latest instant the aggregator has been brought up to in EVENTS mode.
+    private Instant eventClock;
+
     private volatile String currentAppDisplay = "Idle";
     private volatile LocalDate currentDay;
     private volatile LocalDate lastReportGenerated;
 
+    private final ServiceComponents components;
+    private final Clock clock;
+    private final ConfigListener configListener = this::onConfigReload;
+
     public TimeTrackerService(Path configPath, ConfigManager configManager) {
+        this(configPath, configManager, ServiceComponents.windows());
+    }
+
+    public TimeTrackerService(Path configPath, ConfigManager configManager, ServiceComponents components) {
         this.configPath = configPath.toAbsolutePath().normalize();
         this.configManager = configManager;
+        this.components = Objects.requireNonNull(components, "components");
+        this.clock = components.clock();
     }
 
     @Override
@@ -102,34 +173,40 @@ public class TimeTrackerService implements TimeTrackerApplication {
         LoggingConfigurator.apply(config.logging());
         log.info("Starting TimeTracker");
 
-        this.sampler = new Win32ForegroundSampler(Boolean.TRUE.equals(config.privacy().recordWindowTitle()));
-        this.idleDetector = new Win32IdleDetector();
+        this.sampler = components.sampler(Boolean.TRUE.equals(config.privacy().recordWindowTitle()));
+        this.idleDetector = components.idleDetector();
         this.appResolver = new AppResolver(config.aliases(), config.whitelist(), config.blacklist(), config.privacy());
-        this.aggregator = new MinuteAggregator(
-                config.minActiveInMinuteSeconds(),
-                config.minIdleSeconds(),
-                config.samplingIntervalSeconds());
-        this.storageAdapter = createStorageAdapter(config);
+        this.aggregator = createAggregator(config);
+        this.discontinuityDetector = new ClockDiscontinuityDetector(Duration.ofSeconds(config.gapThresholdSeconds()));
+        StorageAdapter adapter = createStorageAdapter(config);
+        startSinks(adapter);
+        this.storageAdapter = new SwitchableStorageAdapter(adapter);
+        this.activeStorage = config.storage();
         this.reportGenerator = new HtmlReportGenerator(config.report());
-        this.usageDataLoader = new UsageDataLoader(config);
+        this.usageDataLoader = new UsageDataLoader(config, clock);
+        this.resourceMonitor = new ResourceMonitor(
+                ResourceBudget.of(config.metrics()),
+                ResourceProbe.jvm(),
+                clock,
+                () -> storageAdapter.bytesWritten(),
+                reportBytesWritten::get);
+        metrics.setEnabled(Boolean.TRUE.equals(config.metrics().enabled()));
+        registerGauges();
 
         Path reportDir = Path.of(config.report().rootDir());
         Path dataDir = dataRootPath(this.config);
-        this.trayController = new SystemTrayController(reportDir, dataDir, configPath);
+        this.trayController = components.tray(reportDir, dataDir, configPath);
         TrayActions trayActions = new TrayActions(this::toggleTracking, this::requestStop, trackingActive::get);
         trayController.init(trayActions);
 
-        this.currentDay = LocalDate.now();
+        this.currentDay = LocalDate.now(clock);
         this.lastReportGenerated = null;
         this.trackingActive.set(true);
         this.shutdownExecutor = Executors.newSingleThreadExecutor(new NamedThreadFactory("shutdown"));
+        this.samplingMode = config.samplingMode();
 
         schedulingSetup();
-        configManager.registerListener(newConfig -> {
-            if (samplingExecutor != null && !samplingExecutor.isShutdown()) {
-                samplingExecutor.execute(() -> applyConfigReload(newConfig));
-            }
-        });
+        configManager.registerListener(configListener);
         try {
             configManager.startWatching(configPath);
         } catch (Exception ex) {
@@ -139,30 +216,69 @@ public class TimeTrackerService implements TimeTrackerApplication {
         maybeGenerateReportForYesterday();
     }
 
+    private void onConfigReload(AppConfig newConfig) {
+        if (samplingPipeline != null) {
+            samplingPipeline.execute(() -> applyConfigReload(newConfig));
+        }
+    }
+
     private void schedulingSetup() {
-        scheduleSamplingExecutor();
         scheduleReportExecutor();
+        startSamplingPipeline();
     }
 
-    private void scheduleSamplingExecutor() {
-        if (samplingExecutor != null) {
-            samplingExecutor.shutdownNow();
+    private void startSamplingPipeline() {
+        this.samplingPipeline = new SamplingPipeline(
+                this::sampleTick,
+                this::processTick,
+                trackingActive::get,
+                SamplingPipeline.DEFAULT_CAPACITY,
+                stageMetrics,
+                components.scheduler("sampler"));
+        if (samplingMode == SamplingMode.EVENTS) {
+            samplingPipeline.startConsumer();
+            startEventSource();
+            // Minutes close on their own while focus is stable; one wake-up per minute instead of one per sample.
+            long untilNextMinute = 60_000L - (clock.millis() % 60_000L) + 500L;
+            samplingPipeline.schedulePeriodic(this::advanceEventClock, untilNextMinute, 60_000L);
+        } else if (components.scheduledSampling()) {
+            samplingPipeline.start(samplingIntervalMillis(config));
+        } else {
+            samplingPipeline.startConsumer();
         }
-        this.samplingExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("sampler"));
-        long intervalMillis = Math.max(1, config.samplingIntervalSeconds()) * 1000L;
-        samplingExecutor.scheduleAtFixedRate(
-                () -> safeExecute(this::performSamplingTick, "sampling tick"),
-                0,
-                intervalMillis,
-                TimeUnit.MILLISECONDS
-        );
+    }
+
+    private void startEventSource() {
+        this.eventSource = components.eventSource(
+                () -> sampler,
+                idleDetector,
+                Duration.ofSeconds(Math.max(1, config.samplingIntervalSeconds())),
+                Duration.ofSeconds(config.minIdleSeconds()),
+                Duration.ofSeconds(config.gapThresholdSeconds()));
+        try {
+            eventSource.start(new PipelineEventListener());
+        } catch (SamplingException ex) {
+            log.error("Failed to start foreground event source", ex);
+        }
+    }
+
+    private void stopEventSource() {
+        if (eventSource != null) {
+            eventSource.stop();
+            eventSource = null;
+        }
+    }
+
+    private long samplingIntervalMillis(AppConfig configuration) {
+        return Math.max(1, configuration.samplingIntervalSeconds()) * 1000L;
     }
 
     private void scheduleReportExecutor() {
         if (reportExecutor != null) {
-            reportExecutor.shutdownNow();
+            // Let queued catch-up work finish; the periodic report task is cancelled by shutdown().
+            reportExecutor.shutdown();
         }
-        this.reportExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("reporter"));
+        this.reportExecutor = components.scheduler("reporter");
         LocalTime reportTime = LocalTime.parse(config.report().generateTime());
         long initialDelayMillis = computeInitialDelay(reportTime);
         long periodMillis = Duration.ofDays(1).toMillis();
@@ -172,10 +288,35 @@ public class TimeTrackerService implements TimeTrackerApplication {
                 periodMillis,
                 TimeUnit.MILLISECONDS
         );
+        long metricsPeriodMinutes = config.metrics().logIntervalMinutes();
+        reportExecutor.scheduleAtFixedRate(
+                () -> safeExecute(this::reportMetrics, "metrics reporting"),
+                metricsPeriodMinutes,
+                metricsPeriodMinutes,
+                TimeUnit.MINUTES
+        );
+        reportExecutor.scheduleAtFixedRate(
+                () -> safeExecute(this::checkResourceBudget, "resource budget check"),
+                1,
+                1,
+                TimeUnit.MINUTES
+        );
+        reportExecutor.scheduleAtFixedRate(
+                () -> safeExecute(this::compactCsvArchives, "CSV archive compaction"),
+                10,
+                Duration.ofDays(1).toMinutes(),
+                TimeUnit.MINUTES
+        );
+        reportExecutor.scheduleAtFixedRate(
+                () -> safeExecute(this::applyRetention, "retention"),
+                15,
+                Duration.ofHours(1).toMinutes(),
+                TimeUnit.MINUTES
+        );
     }
 
     private long computeInitialDelay(LocalTime reportTime) {
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = LocalDateTime.now(clock);
         LocalDateTime firstRun = LocalDateTime.of(now.toLocalDate(), reportTime);
         if (!firstRun.isAfter(now)) {
             firstRun = firstRun.plusDays(1);
@@ -183,19 +324,35 @@ public class TimeTrackerService implements TimeTrackerApplication {
         return Duration.between(now, firstRun).toMillis();
     }
 
-    private void performSamplingTick() {
-        if (!trackingActive.get()) {
-            return;
-        }
+    /**
+     * Producer stage: native calls only, everything else happens in {@link #processTick(TickSlot)}.
+     */
+    private void sampleTick(TickSlot slot) throws SamplingException {
+        long start = System.nanoTime();
+        ForegroundSample sample = sampler.sample();
+        long sampled = System.nanoTime();
+        Duration idleDuration = idleDetector.timeSinceLastInput();
+        long checked = System.nanoTime();
+        stageMetrics.record(PipelineStage.SAMPLE, sampled - start);
+        stageMetrics.record(PipelineStage.IDLE_CHECK, checked - sampled);
+        slot.set(sample, Math.max(0, idleDuration.toMillis()));
+        slot.setTimings(sampled - start, checked - sampled);
+    }
+
+    private void processTick(TickSlot slot) {
+        SamplingTickEvent event = new SamplingTickEvent();
+        event.begin();
         try {
-            ForegroundSample sample = sampler.sample();
-            Duration idleDuration = idleDetector.timeSinceLastInput();
-            long idleSecondsTotal = Math.max(0, idleDuration.toSeconds());
+            ForegroundSample sample = slot.sample();
+            observeClock(sample);
+            long idleSecondsTotal = slot.idleMillis() / 1000L;
             boolean idle = idleSecondsTotal >= config.minIdleSeconds();
             int idleSecondsSnapshot = idleSecondsTotal > Integer.MAX_VALUE
                     ? Integer.MAX_VALUE
                     : (int) idleSecondsTotal;
 
+            long stageStart = System.nanoTime();
+            long queueNanos = stageStart - slot.publishedNanos();
             Optional<ApplicationSample> appSample = Optional.empty();
             if (!idle) {
                 appSample = sample.app().flatMap(identity -> appResolver.resolve(identity, sample.windowTitle()));
@@ -205,20 +362,137 @@ public class TimeTrackerService implements TimeTrackerApplication {
             } else {
                 currentAppDisplay = "Idle";
             }
+            long resolved = System.nanoTime();
+            stageMetrics.record(PipelineStage.RESOLVE, resolved - stageStart);
 
             SampleTick tick = new SampleTick(sample.timestamp(), idle, appSample, idleSecondsSnapshot);
-            aggregator.processSample(tick).ifPresent(this::handleMinuteRecord);
+            Optional<MinuteRecord> completed = aggregator.processSample(tick);
+            long aggregated = System.nanoTime();
+            stageMetrics.record(PipelineStage.AGGREGATE, aggregated - resolved);
+
+            long persisted = aggregated;
+            if (completed.isPresent()) {
+                handleMinuteRecord(completed.get());
+                persisted = System.nanoTime();
+                stageMetrics.record(PipelineStage.PERSIST, persisted - aggregated);
+            }
+            aggregator.takeGap().ifPresent(this::handleGap);
+
             refreshTrayStatus();
-        } catch (SamplingException ex) {
-            log.warn("Sampling failed: {}", ex.getMessage());
+            long refreshed = System.nanoTime();
+            stageMetrics.record(PipelineStage.TRAY, refreshed - persisted);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.sampleNanos = slot.sampleNanos();
+                event.idleCheckNanos = slot.idleCheckNanos();
+                event.queueNanos = queueNanos;
+                event.resolveNanos = resolved - stageStart;
+                event.aggregateNanos = aggregated - resolved;
+                event.persistNanos = persisted - aggregated;
+                event.trayNanos = refreshed - persisted;
+                event.idle = idle;
+                event.minuteCompleted = completed.isPresent();
+                event.commit();
+            }
         } catch (Exception ex) {
             log.error("Unexpected error during sampling tick", ex);
         }
     }
 
+    private void onForegroundChanged(Instant timestamp, Optional<AppIdentity> app, Optional<String> windowTitle) {
+        focusedApp = app;
+        focusedTitle = windowTitle;
+        observeFocus(timestamp);
+    }
+
+    private void onInputActivity(Instant timestamp, Duration idleDuration) {
+        long idleSecondsTotal = Math.max(0, idleDuration.toSeconds());
+        focusIdle = idleSecondsTotal >= config.minIdleSeconds();
+        focusIdleSeconds = (int) Math.min(Integer.MAX_VALUE, idleSecondsTotal);
+        observeFocus(timestamp);
+    }
+
+    private void onClockGap(Instant lastObserved, Instant resumedAt) {
+        Instant from = eventClock != null && eventClock.isAfter(lastObserved) ? eventClock : lastObserved;
+        if (Duration.between(from, resumedAt).toSeconds() < eventGapThresholdSeconds()) {
+            // The minute timer or a later event noticed the jump first and already closed it.
+            return;
+        }
+        aggregator.observeGap(from, resumedAt).forEach(this::handleMinuteRecord);
+        aggregator.takeGap().ifPresent(this::handleGap);
+        eventClock = resumedAt;
+    }
+
+    /**
+     * The minute timer wakes the consumer at least once a minute, so a longer silence before {@code timestamp}
+     * is a suspend whose gap event may still be queued behind the timer; close it here instead of attributing
+     * it to the focused window.
+     */
+    private void catchUpEventClock(Instant timestamp) {
+        if (eventClock != null && Duration.between(eventClock, timestamp).toSeconds() >= eventGapThresholdSeconds()) {
+            onClockGap(eventClock, timestamp);
+        }
+        if (eventClock == null || timestamp.isAfter(eventClock)) {
+            eventClock = timestamp;
+        }
+    }
+
+    private long eventGapThresholdSeconds() {
+        return Math.max(config.gapThresholdSeconds(), 120);
+    }
+
+    /**
+     * Event-driven counterpart of {@link #processTick(TickSlot)}, invoked only when focus, idle or tracking
+     * state changes.
+     */
+    private void observeFocus(Instant timestamp) {
+        Optional<ApplicationSample> appSample = Optional.empty();
+        boolean tracking = trackingActive.get();
+        if (tracking && !focusIdle) {
+            appSample = focusedApp.flatMap(identity -> appResolver.resolve(identity, focusedTitle));
+            currentAppDisplay = appSample
+                    .map(app -> app.application().displayName())
+                    .orElse(focusedApp.map(AppIdentity::displayName).orElse("Unknown"));
+        } else if (focusIdle) {
+            currentAppDisplay = "Idle";
+        }
+        catchUpEventClock(timestamp);
+        aggregator.observe(timestamp, tracking && focusIdle, appSample, focusIdleSeconds)
+                .forEach(this::handleMinuteRecord);
+        refreshTrayStatus();
+    }
+
+    private void advanceEventClock() {
+        Instant now = clock.instant();
+        catchUpEventClock(now);
+        aggregator.advanceTo(now).forEach(this::handleMinuteRecord);
+    }
+
+    private void onTrackingStateChanged() {
+        if (samplingPipeline == null) {
+            return;
+        }
+        if (samplingMode == SamplingMode.EVENTS) {
+            samplingPipeline.execute(() -> observeFocus(clock.instant()));
+        } else {
+            samplingPipeline.execute(this::restartPollingMinute);
+        }
+    }
+
+    /**
+     * No ticks are published while paused, so a pause must not look like a suspend to the first tick after it:
+     * the open minute is closed and the aggregator and discontinuity detector forget the last sample.
+     */
+    private void restartPollingMinute() {
+        aggregator.flushPendingMinute().ifPresent(this::handleMinuteRecord);
+        discontinuityDetector.reset();
+    }
+
     private void handleMinuteRecord(MinuteRecord record) {
         try {
             storageAdapter.persist(record);
+            persistedRecords.increment();
         } catch (StorageException ex) {
             log.error("Failed to persist minute record", ex);
             trayController.displayMessage("TimeTracker", "Failed to persist usage data.", TrayMessageType.ERROR);
@@ -226,8 +500,16 @@ public class TimeTrackerService implements TimeTrackerApplication {
 
         LocalDate recordDay = record.date();
         if (recordDay.isAfter(currentDay)) {
-            generateReport(currentDay);
+            LocalDate previousDay = currentDay;
+            DayRolloverEvent rollover = new DayRolloverEvent();
+            if (rollover.isEnabled()) {
+                rollover.previousDay = previousDay.toString();
+                rollover.newDay = recordDay.toString();
+                rollover.daysSkipped = Math.max(0, ChronoUnit.DAYS.between(previousDay, recordDay) - 1);
+                rollover.commit();
+            }
             resetDailyStats(recordDay);
+            runInBackground(() -> generateReports(previousDay, recordDay), "day rollover reports");
         }
 
         if (record.status() == MinuteStatus.ACTIVE && record.application().isPresent()) {
@@ -239,6 +521,131 @@ public class TimeTrackerService implements TimeTrackerApplication {
         }
     }
 
+    private void observeClock(ForegroundSample sample) {
+        ClockDiscontinuityDetector.Discontinuity discontinuity =
+                discontinuityDetector.observe(sample.timestamp(), System.nanoTime());
+        switch (discontinuity) {
+            case SUSPEND_RESUME -> log.info("Resumed after suspend at {}", sample.timestamp());
+            case WALL_CLOCK_FORWARD -> log.info("Wall clock jumped forward to {} (clock change or suspend)", sample.timestamp());
+            case WALL_CLOCK_BACKWARD -> log.warn("Wall clock moved backwards to {}", sample.timestamp());
+            case NONE -> {
+            }
+        }
+    }
+
+    private void handleGap(ClockGap gap) {
+        log.info("No samples for {} between {} and {}", gap.duration(), gap.lastSample(), gap.resumedAt());
+        if (!config.recordSuspendedRanges()) {
+            return;
+        }
+        // Splitting and persisting the range is O(days) and may touch disk, so keep it off the sampler thread.
+        ZoneId zoneId = aggregator.zoneId();
+        runInBackground(() -> {
+            try {
+                for (MinuteRecord suspended : gap.toSuspendedRecords(zoneId)) {
+                    storageAdapter.persist(suspended);
+                }
+                flushStorage();
+            } catch (StorageException ex) {
+                log.error("Failed to persist suspended range", ex);
+            }
+        }, "suspended range persistence");
+    }
+
+    private void flushStorage() throws StorageException {
+        long start = System.nanoTime();
+        storageAdapter.flush();
+        flushLatency.recordSince(start);
+    }
+
+    private void registerGauges() {
+        metrics.gauge("pipeline.backlog", () -> samplingPipeline == null ? 0 : samplingPipeline.backlog());
+        metrics.gauge("dictionary.applications", () -> ApplicationDictionary.global().applicationCount());
+        metrics.gauge("loader.cached_days", () -> usageDataLoader.cacheStats().size());
+        resourceMonitor.registerGauges(metrics);
+    }
+
+    private void checkResourceBudget() {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        List<ResourceMonitor.Violation> violations = resourceMonitor.sample();
+        if (violations.isEmpty()) {
+            return;
+        }
+        for (ResourceMonitor.Violation violation : violations) {
+            log.warn("Resource budget exceeded: {}", violation.describe());
+            trayController.displayMessage("TimeTracker", violation.describe(), TrayMessageType.WARNING);
+        }
+        try {
+            metrics.writeTo(Path.of(config.metrics().dumpFile()), clock.instant());
+        } catch (IOException ex) {
+            log.warn("Failed to write metrics dump: {}", ex.getMessage());
+        }
+    }
+
+    private void reportMetrics() {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        log.info("Metrics: {}", metrics);
+        try {
+            metrics.writeTo(Path.of(config.metrics().dumpFile()), clock.instant());
+        } catch (IOException ex) {
+            log.warn("Failed to write metrics dump: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Rolls closed CSV days into monthly archives. Runs on the report executor, so it never races report
+     * generation for the days it moves.
+     */
+    private void compactCsvArchives() {
+        AppConfig current = config;
+        if (current.storage().type() != StorageType.CSV || current.storage().csv().archiveAfterDays() <= 0) {
+            return;
+        }
+        CsvStorageConfig csv = current.storage().csv();
+        try {
+            new CsvArchiveCompactor(Path.of(csv.rootDir()), csv.archiveAfterDays(), clock).compact();
+        } catch (IOException ex) {
+            log.warn("CSV archive compaction failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Rolls minute rows past {@code storage.retention.minuteDays} up into hourly and daily totals. Also runs on the
+     * report executor; each run is bounded, so a long backlog is worked off over several hours.
+     */
+    private void applyRetention() {
+        AppConfig current = config;
+        UsageDataLoader loader = usageDataLoader;
+        try {
+            new RetentionJob(current.storage().retention(), loader.rollupStore(), loader::loadDay, clock).run();
+        } catch (IOException ex) {
+            log.warn("Retention run failed: {}", ex.getMessage());
+        }
+    }
+
+    private void generateReports(LocalDate fromInclusive, LocalDate toExclusive) {
+        for (LocalDate day = fromInclusive; day.isBefore(toExclusive); day = day.plusDays(1)) {
+            generateReport(day);
+        }
+    }
+
+    private void runInBackground(Runnable task, String taskName) {
+        ScheduledExecutorService executor = reportExecutor;
+        if (executor == null || executor.isShutdown()) {
+            safeExecute(task, taskName);
+            return;
+        }
+        try {
+            executor.execute(() -> safeExecute(task, taskName));
+        } catch (RejectedExecutionException ex) {
+            safeExecute(task, taskName);
+        }
+    }
+
     private void refreshTrayStatus() {
         Optional<TrayStatus.AppUsageSummary> top = todayMinutes.entrySet().stream()
                 .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
@@ -260,6 +667,7 @@ public class TimeTrackerService implements TimeTrackerApplication {
         boolean active = trackingActive.get();
         boolean updated = trackingActive.compareAndSet(active, !active);
         if (updated) {
+            onTrackingStateChanged();
             String message = active ? "Tracking paused" : "Tracking resumed";
             trayController.displayMessage("TimeTracker", message, TrayMessageType.INFO);
         }
@@ -267,37 +675,58 @@ public class TimeTrackerService implements TimeTrackerApplication {
     }
 
     private void dailyReportTask() {
-        LocalDate targetDate = LocalDate.now();
-        Optional<MinuteRecord> pending = aggregator.flushPendingMinute();
-        pending.ifPresent(this::handleMinuteRecord);
-        generateReport(targetDate);
+        LocalDate targetDate = LocalDate.now(clock);
+        log.info("Sampling pipeline: {}", stageMetrics);
+        log.info("Usage day cache: {}", usageDataLoader.cacheStats());
+        // The aggregator is confined to the pipeline consumer; flush there and hop back for the report.
+        samplingPipeline.execute(() -> {
+            Optional<MinuteRecord> pending = aggregator.flushPendingMinute();
+            pending.ifPresent(this::handleMinuteRecord);
+            runInBackground(() -> generateReport(targetDate), "daily report generation");
+        });
     }
 
     private void generateReport(LocalDate date) {
         if (lastReportGenerated != null && !date.isAfter(lastReportGenerated)) {
             return;
         }
+        ReportGenerationEvent event = new ReportGenerationEvent();
+        event.begin();
+        event.date = date.toString();
         try {
-            storageAdapter.flush();
-            List<MinuteRecord> records = usageDataLoader.load(date);
-            if (records.isEmpty()) {
+            flushStorage();
+            long reportStart = System.nanoTime();
+            DayUsage day = usageDataLoader.loadDay(date);
+            if (!day.hasUsage()) {
                 log.debug("No usage data for {}, skipping report generation.", date);
                 return;
             }
-            reportGenerator.generateDailyReport(date, records);
+            event.minutes = day.recordCount();
+            ReportGenerator generator = reportGenerator;
+            long bytesBefore = generator.bytesWritten();
+            generator.generateDailyReport(day);
+            reportBytesWritten.addAndGet(generator.bytesWritten() - bytesBefore);
+            reportLatency.recordSince(reportStart);
+            reportsGenerated.increment();
             lastReportGenerated = date;
+            event.succeeded = true;
+            event.commit();
             trayController.displayMessage("TimeTracker", "Report generated for " + date, TrayMessageType.INFO);
         } catch (Exception ex) {
+            event.commit();
             log.error("Failed to generate report for {}", date, ex);
             trayController.displayMessage("TimeTracker", "Report generation failed for " + date, TrayMessageType.ERROR);
         }
     }
 
     private void applyConfigReload(AppConfig newConfig) {
+        ConfigReloadEvent event = new ConfigReloadEvent();
+        event.begin();
         AppConfig previous = this.config;
         this.config = newConfig;
         if (previous.equals(newConfig)) {
             log.debug("Configuration reload detected but no changes applied.");
+            event.commit();
             return;
         }
         log.info("Configuration reloaded from {}", configPath);
@@ -318,7 +747,7 @@ public class TimeTrackerService implements TimeTrackerApplication {
         boolean newWindowCapture = Boolean.TRUE.equals(newConfig.privacy().recordWindowTitle());
         if (previousWindowCapture != newWindowCapture) {
             ForegroundSampler oldSampler = this.sampler;
-            this.sampler = new Win32ForegroundSampler(newWindowCapture);
+            this.sampler = components.sampler(newWindowCapture);
             if (oldSampler != null) {
                 try {
                     oldSampler.close();
@@ -331,16 +760,24 @@ public class TimeTrackerService implements TimeTrackerApplication {
         boolean samplingIntervalChanged = newConfig.samplingIntervalSeconds() != previous.samplingIntervalSeconds();
         boolean thresholdsChanged = samplingIntervalChanged
                 || newConfig.minActiveInMinuteSeconds() != previous.minActiveInMinuteSeconds()
-                || newConfig.minIdleSeconds() != previous.minIdleSeconds();
+                || newConfig.minIdleSeconds() != previous.minIdleSeconds()
+                || newConfig.gapThresholdSeconds() != previous.gapThresholdSeconds();
         if (thresholdsChanged) {
             if (aggregator != null) {
+                if (samplingMode == SamplingMode.EVENTS) {
+                    advanceEventClock();
+                }
                 Optional<MinuteRecord> pending = aggregator.flushPendingMinute();
                 pending.ifPresent(this::handleMinuteRecord);
             }
-            this.aggregator = new MinuteAggregator(
-                    newConfig.minActiveInMinuteSeconds(),
-                    newConfig.minIdleSeconds(),
-                    newConfig.samplingIntervalSeconds());
+            this.aggregator = createAggregator(newConfig);
+            this.discontinuityDetector = new ClockDiscontinuityDetector(Duration.ofSeconds(newConfig.gapThresholdSeconds()));
+            if (samplingMode == SamplingMode.EVENTS) {
+                // The new aggregator has no interval state yet; seed it with the current focus.
+                observeFocus(clock.instant());
+                stopEventSource();
+                startEventSource();
+            }
         }
 
         boolean reportConfigChanged = !previous.report().equals(newConfig.report());
@@ -348,34 +785,133 @@ public class TimeTrackerService implements TimeTrackerApplication {
         if (reportConfigChanged) {
             this.reportGenerator = new HtmlReportGenerator(newConfig.report());
         }
-        this.usageDataLoader = new UsageDataLoader(newConfig);
+        if (!previous.storage().equals(newConfig.storage())) {
+            // Opening the new storage may touch disk, so it happens next to report generation rather than here.
+            runInBackground(() -> switchStorage(newConfig), "storage switch");
+        }
 
         if (trayController != null) {
             trayController.updatePaths(Path.of(newConfig.report().rootDir()), dataRootPath(newConfig));
         }
 
         if (samplingIntervalChanged) {
-            scheduleSamplingExecutor();
+            if (samplingMode == SamplingMode.POLLING && components.scheduledSampling()) {
+                samplingPipeline.reschedule(samplingIntervalMillis(newConfig));
+            }
             log.info("Sampling interval updated to {} second(s)", newConfig.samplingIntervalSeconds());
         }
 
-        if (reportTimeChanged) {
+        metrics.setEnabled(Boolean.TRUE.equals(newConfig.metrics().enabled()));
+        resourceMonitor.setBudget(ResourceBudget.of(newConfig.metrics()));
+        boolean metricsIntervalChanged = !previous.metrics().logIntervalMinutes()
+                .equals(newConfig.metrics().logIntervalMinutes());
+        if (reportTimeChanged || metricsIntervalChanged) {
             scheduleReportExecutor();
-            log.info("Report generation time updated to {}", newConfig.report().generateTime());
+            if (reportTimeChanged) {
+                log.info("Report generation time updated to {}", newConfig.report().generateTime());
+            }
+        }
+
+        event.changed = true;
+        event.thresholdsChanged = thresholdsChanged;
+        event.samplingIntervalChanged = samplingIntervalChanged;
+        event.reportChanged = reportConfigChanged;
+        event.storageChanged = !previous.storage().equals(newConfig.storage());
+        event.commit();
+
+        if (newConfig.samplingMode() != samplingMode) {
+            log.warn("Sampling mode changed to {}; please restart the application to apply.", newConfig.samplingMode());
         }
 
         if (!previous.storage().equals(newConfig.storage())) {
-            log.warn("Storage configuration changed; please restart the application to apply.");
-            if (trayController != null) {
-                trayController.displayMessage("TimeTracker", "Storage settings changed. Restart required to apply.", TrayMessageType.WARNING);
+            if (previous.storage().type() != newConfig.storage().type()) {
+                log.warn("Only today's {} data moves to the new storage; run with --migrate {} {} to copy older days.",
+                        previous.storage().type(), previous.storage().type(), newConfig.storage().type());
             }
         } else if (trayController != null) {
             trayController.displayMessage("TimeTracker", "Configuration reloaded", TrayMessageType.INFO);
         }
     }
 
+    /**
+     * Moves recording to new storage settings while sampling continues. Runs on the report executor, so no report
+     * reads a half-switched store. The new adapter is opened first; the swap itself only holds up the consumer for
+     * one flush and, when the data moves to another file or directory, for copying today's records across, so
+     * that today's report stays complete. Older days stay where they were.
+     */
+    private void switchStorage(AppConfig newConfig) {
+        StorageConfig previous = activeStorage;
+        if (previous.equals(newConfig.storage())) {
+            return;
+        }
+        StorageAdapter replacement;
+        try {
+            replacement = createStorageAdapter(newConfig);
+        } catch (StorageException ex) {
+            log.error("Failed to open the new storage; still writing to the previous one", ex);
+            trayController.displayMessage("TimeTracker", "Failed to apply storage settings.", TrayMessageType.ERROR);
+            return;
+        }
+        UsageDataLoader previousLoader = usageDataLoader;
+        LocalDate today = currentDay;
+        boolean moved = !sameLocation(previous, newConfig.storage());
+        StorageAdapter retired;
+        try {
+            retired = storageAdapter.swap(replacement, (old, next) -> {
+                if (moved) {
+                    copyDay(previousLoader, today, next);
+                }
+            });
+        } catch (StorageException ex) {
+            log.error("Failed to switch storage; still writing to the previous one", ex);
+            closeQuietly(replacement);
+            trayController.displayMessage("TimeTracker", "Failed to apply storage settings.", TrayMessageType.ERROR);
+            return;
+        }
+        closeQuietly(retired);
+        startSinks(replacement);
+        activeStorage = newConfig.storage();
+        this.usageDataLoader = new UsageDataLoader(newConfig, clock);
+        previousLoader.close();
+        log.info("Storage switched to {}", newConfig.storage().type());
+        trayController.displayMessage("TimeTracker", "Storage settings applied", TrayMessageType.INFO);
+    }
+
+    private static void copyDay(UsageDataLoader source, LocalDate date, StorageAdapter target)
+            throws StorageException {
+        try {
+            for (MinuteRecord record : source.load(date)) {
+                if (record.date().equals(date)) {
+                    target.persist(record);
+                }
+            }
+        } catch (IOException ex) {
+            throw new StorageException("Failed to read " + date + " from the previous storage", ex);
+        }
+        target.flush();
+    }
+
+    private static boolean sameLocation(StorageConfig a, StorageConfig b) {
+        if (a.type() != b.type()) {
+            return false;
+        }
+        return switch (a.type()) {
+            case CSV -> Path.of(a.csv().rootDir()).equals(Path.of(b.csv().rootDir()));
+            case SQLITE -> Path.of(a.sqlite().databasePath()).equals(Path.of(b.sqlite().databasePath()))
+                    && a.sqlite().partitioning() == b.sqlite().partitioning();
+        };
+    }
+
+    private static void closeQuietly(StorageAdapter adapter) {
+        try {
+            adapter.close();
+        } catch (StorageException ex) {
+            log.warn("Failed to close storage adapter", ex);
+        }
+    }
+
     private void maybeGenerateReportForYesterday() {
-        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate yesterday = LocalDate.now(clock).minusDays(1);
         generateReport(yesterday);
     }
 
@@ -394,11 +930,52 @@ public class TimeTrackerService implements TimeTrackerApplication {
         }
     }
 
+    private MinuteAggregator createAggregator(AppConfig configuration) {
+        return new MinuteAggregator(
+                configuration.minActiveInMinuteSeconds(),
+                configuration.minIdleSeconds(),
+                configuration.samplingIntervalSeconds(),
+                clock.getZone(),
+                configuration.gapThresholdSeconds());
+    }
+
     private StorageAdapter createStorageAdapter(AppConfig config) throws StorageException {
-        return switch (config.storage().type()) {
+        StorageAdapter primary = switch (config.storage().type()) {
             case CSV -> new CsvStorageAdapter(config.storage().csv());
             case SQLITE -> new SqliteStorageAdapter(config.storage().sqlite());
         };
+        if (config.storage().sinks().isEmpty()) {
+            return primary;
+        }
+        List<QueuedSink> sinks = new ArrayList<>();
+        for (StorageSinkConfig sinkConfig : config.storage().sinks()) {
+            sinks.add(new QueuedSink(sinkConfig, clock));
+        }
+        return new FanOutStorageAdapter(primary, sinks);
+    }
+
+    /**
+     * Starts the secondary sinks of the adapter now in use and points the sink gauges at them, dropping those of
+     * sinks that are gone; a sink that does not start keeps its records in memory until it is closed, which spills
+     * them.
+     */
+    private void startSinks(StorageAdapter adapter) {
+        metrics.removeGauges(SINK_METRICS_PREFIX);
+        if (adapter instanceof FanOutStorageAdapter fanOut) {
+            for (QueuedSink sink : fanOut.sinks()) {
+                String prefix = SINK_METRICS_PREFIX + sink.name() + ".";
+                metrics.gauge(prefix + "queued", sink::queued);
+                metrics.gauge(prefix + "lag_minutes", sink::lagMinutes);
+                metrics.gauge(prefix + "spilled", sink::spilledRecords);
+                metrics.gauge(prefix + "failures", sink::failures);
+                metrics.gauge(prefix + "dropped", sink::droppedRecords);
+            }
+            try {
+                fanOut.start();
+            } catch (IOException ex) {
+                log.error("Failed to start storage sinks", ex);
+            }
+        }
     }
 
     private Path dataRootPath() {
@@ -429,6 +1006,7 @@ public class TimeTrackerService implements TimeTrackerApplication {
     @Override
     public void pause() {
         trackingActive.set(false);
+        onTrackingStateChanged();
         trayController.displayMessage("TimeTracker", "Tracking paused", TrayMessageType.INFO);
         refreshTrayStatus();
     }
@@ -436,31 +1014,42 @@ public class TimeTrackerService implements TimeTrackerApplication {
     @Override
     public void resume() {
         trackingActive.set(true);
+        onTrackingStateChanged();
         trayController.displayMessage("TimeTracker", "Tracking resumed", TrayMessageType.INFO);
         refreshTrayStatus();
     }
 
     @Override
     public void stop() throws Exception {
-        if (!started.get()) {
+        if (!started.compareAndSet(true, false)) {
             return;
         }
         log.info("Stopping TimeTracker");
         trackingActive.set(false);
-        if (samplingExecutor != null) {
-            samplingExecutor.shutdownNow();
-            samplingExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        stopEventSource();
+        if (samplingPipeline != null) {
+            if (samplingMode == SamplingMode.EVENTS) {
+                samplingPipeline.execute(this::advanceEventClock);
+            }
+            samplingPipeline.stop(5_000L);
+            log.info("Sampling pipeline: {}", stageMetrics);
         }
         if (reportExecutor != null) {
-            reportExecutor.shutdownNow();
-            reportExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            // Queued catch-up work (rollover reports, suspended ranges) is allowed to finish.
+            reportExecutor.shutdown();
+            if (!reportExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                reportExecutor.shutdownNow();
+            }
         }
 
         Optional<MinuteRecord> pending = aggregator.flushPendingMinute();
         pending.ifPresent(this::handleMinuteRecord);
-        storageAdapter.flush();
+        flushStorage();
 
         generateReport(currentDay);
+        log.info("Usage day cache: {}", usageDataLoader.cacheStats());
+        reportMetrics();
+        usageDataLoader.close();
 
         if (trayController != null) {
             trayController.shutdown();
@@ -471,6 +1060,7 @@ public class TimeTrackerService implements TimeTrackerApplication {
         if (storageAdapter != null) {
             storageAdapter.close();
         }
+        configManager.unregisterListener(configListener);
         configManager.close();
 
         if (shutdownExecutor != null) {
@@ -483,6 +1073,52 @@ public class TimeTrackerService implements TimeTrackerApplication {
         stop();
     }
 
+    /**
+     * Runs one polling tick on the calling thread; only for services whose components disable scheduled
+     * sampling.
+     *
+     * @return whether the tick was queued for processing
+     */
+    boolean sampleOnce() {
+        return samplingPipeline.sampleNow();
+    }
+
+    int samplingBacklog() {
+        return samplingPipeline == null ? 0 : samplingPipeline.backlog();
+    }
+
+    /**
+     * Waits until the consumer has handled every tick and event handed to it before this call.
+     */
+    void awaitConsumer() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        samplingPipeline.execute(done::countDown);
+        if (!done.await(10, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Sampling consumer did not catch up");
+        }
+    }
+
+    /**
+     * Hands event callbacks from the source's thread over to the pipeline consumer.
+     */
+    private final class PipelineEventListener implements ForegroundEventListener {
+
+        @Override
+        public void onForegroundChanged(Instant timestamp, Optional<AppIdentity> app, Optional<String> windowTitle) {
+            samplingPipeline.execute(() -> TimeTrackerService.this.onForegroundChanged(timestamp, app, windowTitle));
+        }
+
+        @Override
+        public void onInputActivity(Instant timestamp, Duration idleDuration) {
+            samplingPipeline.execute(() -> TimeTrackerService.this.onInputActivity(timestamp, idleDuration));
+        }
+
+        @Override
+        public void onClockGap(Instant lastObserved, Instant resumedAt) {
+            samplingPipeline.execute(() -> TimeTrackerService.this.onClockGap(lastObserved, resumedAt));
+        }
+    }
+
     private static final class NamedThreadFactory implements ThreadFactory {
         private final String prefix;
         private int counter = 0;
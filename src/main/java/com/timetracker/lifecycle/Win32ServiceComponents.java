@@ -0,0 +1,39 @@
+package com.timetracker.lifecycle;
+
+import com.timetracker.sampling.ForegroundSampler;
+import com.timetracker.sampling.IdleDetector;
+import com.timetracker.tray.SystemTrayController;
+import com.timetracker.tray.TrayController;
+import com.timetracker.win32.Win32ForegroundSampler;
+import com.timetracker.win32.Win32IdleDetector;
+
+import java.nio.file.Path;
+import java.time.Clock;
+
+final class Win32ServiceComponents implements ServiceComponents {
+
+    static final Win32ServiceComponents INSTANCE = new Win32ServiceComponents();
+
+    private Win32ServiceComponents() {
+    }
+
+    @Override
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+
+    @Override
+    public ForegroundSampler sampler(boolean captureWindowTitles) {
+        return new Win32ForegroundSampler(captureWindowTitles, clock());
+    }
+
+    @Override
+    public IdleDetector idleDetector() {
+        return new Win32IdleDetector();
+    }
+
+    @Override
+    public TrayController tray(Path reportDirectory, Path dataDirectory, Path configPath) {
+        return new SystemTrayController(reportDirectory, dataDirectory, configPath, clock());
+    }
+}
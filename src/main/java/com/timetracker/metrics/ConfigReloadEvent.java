@@ -0,0 +1,28 @@
+package com.timetracker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.timetracker.ConfigReload")
+@Label("Config Reload")
+@Category({"TimeTracker", "Lifecycle"})
+@StackTrace(false)
+public class ConfigReloadEvent extends jdk.jfr.Event {
+
+    @Label("Changed")
+    public boolean changed;
+
+    @Label("Thresholds Changed")
+    public boolean thresholdsChanged;
+
+    @Label("Sampling Interval Changed")
+    public boolean samplingIntervalChanged;
+
+    @Label("Report Changed")
+    public boolean reportChanged;
+
+    @Label("Storage Changed")
+    public boolean storageChanged;
+}
@@ -0,0 +1,37 @@
+package com.timetracker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class Counter {
+
+    private final String name;
+    private final MetricsRegistry registry;
+    private final AtomicLong value = new AtomicLong();
+
+    Counter(String name, MetricsRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long delta) {
+        if (registry.isEnabled()) {
+            value.addAndGet(delta);
+        }
+    }
+
+    public long value() {
+        return value.get();
+    }
+
+    void reset() {
+        value.set(0);
+    }
+}
@@ -0,0 +1,22 @@
+package com.timetracker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.timetracker.DayRollover")
+@Label("Day Rollover")
+@Category({"TimeTracker", "Lifecycle"})
+@StackTrace(false)
+public class DayRolloverEvent extends jdk.jfr.Event {
+
+    @Label("Previous Day")
+    public String previousDay;
+
+    @Label("New Day")
+    public String newDay;
+
+    @Label("Days Skipped")
+    public long daysSkipped;
+}
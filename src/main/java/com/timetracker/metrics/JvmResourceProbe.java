@@ -0,0 +1,81 @@
+package com.timetracker.metrics;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Probe backed by the platform MXBeans. Resident memory comes from {@code /proc/self/status} where it exists;
+ * elsewhere the committed heap plus non-heap memory is used, which undercounts native allocations but tracks the
+ * part of the footprint the application controls.
+ */
+final class JvmResourceProbe implements ResourceProbe {
+
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+
+    static final JvmResourceProbe INSTANCE = new JvmResourceProbe();
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final boolean procAvailable = Files.isReadable(PROC_STATUS);
+
+    private JvmResourceProbe() {
+    }
+
+    @Override
+    public long rssBytes() {
+        if (procAvailable) {
+            long rss = readProcRss();
+            if (rss >= 0) {
+                return rss;
+            }
+        }
+        return memory.getHeapMemoryUsage().getCommitted() + memory.getNonHeapMemoryUsage().getCommitted();
+    }
+
+    @Override
+    public long heapUsedBytes() {
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public long nonHeapUsedBytes() {
+        return memory.getNonHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public long processCpuNanos() {
+        if (os instanceof com.sun.management.OperatingSystemMXBean extended) {
+            return extended.getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    @Override
+    public int threadCount() {
+        return threads.getThreadCount();
+    }
+
+    private static long readProcRss() {
+        try (BufferedReader reader = Files.newBufferedReader(PROC_STATUS, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    String value = line.substring("VmRSS:".length()).trim();
+                    int space = value.indexOf(' ');
+                    return Long.parseLong(space < 0 ? value : value.substring(0, space)) * 1024L;
+                }
+            }
+        } catch (IOException | NumberFormatException ex) {
+            return -1;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,92 @@
+package com.timetracker.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed power-of-two bucket histogram of nanosecond durations. Recording is a handful of atomic adds and never
+ * allocates; percentiles are reported as the upper bound of the bucket they fall in (within 2x).
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final String name;
+    private final MetricsRegistry registry;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    LatencyHistogram(String name, MetricsRegistry registry) {
+        this.name = name;
+        this.registry = registry;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        if (!registry.isEnabled()) {
+            return;
+        }
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(value == 0 ? 0 : 63 - Long.numberOfLeadingZeros(value));
+        count.incrementAndGet();
+        totalNanos.addAndGet(value);
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos} (a {@link System#nanoTime()} reading).
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = buckets.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(count.get(), totalNanos.get(), maxNanos.get(),
+                percentile(copy, total, 0.50), percentile(copy, total, 0.90), percentile(copy, total, 0.99));
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    private static long percentile(long[] buckets, long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return i >= 62 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public record Snapshot(long count, long totalNanos, long maxNanos, long p50Nanos, long p90Nanos, long p99Nanos) {
+
+        public long averageNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.timetracker.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Named counters, gauges and latency histograms. Metrics are created once and then updated without allocation;
+ * while the registry is disabled every update is a single volatile read.
+ */
+public final class MetricsRegistry {
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private volatile boolean enabled;
+
+    public MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter(key, this));
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram(key, this));
+    }
+
+    /**
+     * Registers (or replaces) a gauge that is sampled whenever the registry is dumped.
+     */
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Drops every gauge whose name starts with {@code prefix}, e.g. those of a component that was closed.
+     */
+    public void removeGauges(String prefix) {
+        gauges.keySet().removeIf(name -> name.startsWith(prefix));
+    }
+
+    public void reset() {
+        counters.values().forEach(Counter::reset);
+        histograms.values().forEach(LatencyHistogram::reset);
+    }
+
+    /**
+     * One line per metric, sorted by name within each kind; durations in microseconds.
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        counters.forEach((name, counter) ->
+                builder.append("counter ").append(name).append(' ').append(counter.value()).append('\n'));
+        gauges.forEach((name, gauge) ->
+                builder.append("gauge ").append(name).append(' ').append(sample(gauge)).append('\n'));
+        histograms.forEach((name, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            builder.append(String.format(Locale.ROOT,
+                    "histogram %s count=%d avg_us=%d p50_us=%d p90_us=%d p99_us=%d max_us=%d%n",
+                    name, snapshot.count(), snapshot.averageNanos() / 1_000L, snapshot.p50Nanos() / 1_000L,
+                    snapshot.p90Nanos() / 1_000L, snapshot.p99Nanos() / 1_000L, snapshot.maxNanos() / 1_000L));
+        });
+        return builder.toString();
+    }
+
+    /**
+     * Writes {@link #dump()} to {@code file} under a header stamped with {@code timestamp}, replacing the previous
+     * dump atomically where the platform allows.
+     */
+    public void writeTo(Path file, Instant timestamp) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        String content = "# " + timestamp + System.lineSeparator() + dump();
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Compact single-line summary of the histograms that have recorded anything.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        histograms.forEach((name, histogram) -> {
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.count() == 0) {
+                return;
+            }
+            if (!builder.isEmpty()) {
+                builder.append(", ");
+            }
+            builder.append(name)
+                    .append("[n=").append(snapshot.count())
+                    .append(" p50=").append(snapshot.p50Nanos() / 1_000L).append("us")
+                    .append(" p99=").append(snapshot.p99Nanos() / 1_000L).append("us")
+                    .append(" max=").append(snapshot.maxNanos() / 1_000L).append("us]");
+        });
+        return builder.toString();
+    }
+
+    private static String sample(LongSupplier gauge) {
+        try {
+            return Long.toString(gauge.getAsLong());
+        } catch (RuntimeException ex) {
+            return "error";
+        }
+    }
+}
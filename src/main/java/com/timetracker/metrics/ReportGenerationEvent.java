@@ -0,0 +1,24 @@
+package com.timetracker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("com.timetracker.ReportGeneration")
+@Label("Report Generation")
+@Category({"TimeTracker", "Report"})
+@Threshold("100 ms")
+@StackTrace(false)
+public class ReportGenerationEvent extends jdk.jfr.Event {
+
+    @Label("Date")
+    public String date;
+
+    @Label("Minutes")
+    public int minutes;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,16 @@
+package com.timetracker.metrics;
+
+import com.timetracker.config.MetricsConfig;
+
+/**
+ * Per-day resource limits: peak resident memory, average process CPU over the day, and bytes written by the
+ * storage adapter (reports are measured but not budgeted).
+ */
+public record ResourceBudget(long maxRssBytes, double maxCpuPercent, long maxDiskBytesPerDay) {
+
+    private static final long MB = 1024L * 1024L;
+
+    public static ResourceBudget of(MetricsConfig config) {
+        return new ResourceBudget(config.maxRssMB() * MB, config.maxCpuPercent(), config.maxDiskMBPerDay() * MB);
+    }
+}
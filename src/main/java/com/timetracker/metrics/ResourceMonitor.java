@@ -0,0 +1,182 @@
+package com.timetracker.metrics;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * Checks the process against a {@link ResourceBudget} over calendar-day windows. Each {@link #sample()} takes a
+ * handful of probe readings and returns the budgets newly exceeded today; every budget is reported at most once
+ * per day. CPU is averaged over the day so far (once at least an hour has been observed) and again over the whole
+ * day when it closes, as a percentage of one core.
+ */
+public final class ResourceMonitor {
+
+    public enum Resource {
+        RSS,
+        CPU,
+        DISK_IO
+    }
+
+    public record Violation(LocalDate day, Resource resource, double observed, double limit) {
+
+        public String describe() {
+            return switch (resource) {
+                case RSS -> String.format(Locale.ROOT, "Resident memory %.1f MB exceeds the %.1f MB budget",
+                        observed / MB, limit / MB);
+                case CPU -> String.format(Locale.ROOT, "Average CPU %.2f%% on %s exceeds the %.2f%% budget",
+                        observed, day, limit);
+                case DISK_IO -> String.format(Locale.ROOT, "Storage wrote %.2f MB on %s, over the %.2f MB daily budget",
+                        observed / MB, day, limit / MB);
+            };
+        }
+    }
+
+    public record Snapshot(LocalDate day,
+                           long rssBytes,
+                           long peakRssBytes,
+                           long heapUsedBytes,
+                           long nonHeapUsedBytes,
+                           int threads,
+                           double cpuPercent,
+                           long storageBytes,
+                           long reportBytes,
+                           long violations) {
+    }
+
+    private static final double MB = 1024.0 * 1024.0;
+    private static final long MIN_CPU_WINDOW_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final ResourceProbe probe;
+    private final Clock clock;
+    private final LongSupplier storageBytes;
+    private final LongSupplier reportBytes;
+    private volatile ResourceBudget budget;
+
+    private LocalDate day;
+    private long dayStartMillis;
+    private long dayStartCpuNanos;
+    private long dayStartStorageBytes;
+    private long dayStartReportBytes;
+    private final Set<Resource> reportedToday = EnumSet.noneOf(Resource.class);
+    private volatile Snapshot snapshot;
+    private long violations;
+
+    /**
+     * @param storageBytes cumulative bytes written by storage; counted against the disk budget
+     * @param reportBytes  cumulative bytes written by reports; tracked but not budgeted
+     */
+    public ResourceMonitor(ResourceBudget budget,
+                           ResourceProbe probe,
+                           Clock clock,
+                           LongSupplier storageBytes,
+                           LongSupplier reportBytes) {
+        this.budget = Objects.requireNonNull(budget, "budget");
+        this.probe = Objects.requireNonNull(probe, "probe");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.storageBytes = Objects.requireNonNull(storageBytes, "storageBytes");
+        this.reportBytes = Objects.requireNonNull(reportBytes, "reportBytes");
+        long now = clock.millis();
+        startDay(today(now), now, probe.processCpuNanos(), storageBytes.getAsLong(), reportBytes.getAsLong());
+        this.snapshot = new Snapshot(day, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public void setBudget(ResourceBudget budget) {
+        this.budget = Objects.requireNonNull(budget, "budget");
+    }
+
+    public ResourceBudget budget() {
+        return budget;
+    }
+
+    public synchronized List<Violation> sample() {
+        ResourceBudget limits = budget;
+        long now = clock.millis();
+        LocalDate today = today(now);
+        long cpuNanos = probe.processCpuNanos();
+        long storage = storageBytes.getAsLong();
+        long report = reportBytes.getAsLong();
+        List<Violation> found = new ArrayList<>(1);
+
+        if (today.isAfter(day)) {
+            // Close the previous window with its full-day CPU average before rolling over.
+            checkCpu(limits, now, cpuNanos, 0, found);
+            startDay(today, now, cpuNanos, storage, report);
+        }
+
+        long rss = probe.rssBytes();
+        long peakRss = Math.max(snapshot.day().equals(day) ? snapshot.peakRssBytes() : 0, rss);
+        if (rss > limits.maxRssBytes()) {
+            report(new Violation(day, Resource.RSS, rss, limits.maxRssBytes()), found);
+        }
+        long storageToday = storage - dayStartStorageBytes;
+        if (storageToday > limits.maxDiskBytesPerDay()) {
+            report(new Violation(day, Resource.DISK_IO, storageToday, limits.maxDiskBytesPerDay()), found);
+        }
+        double cpuPercent = checkCpu(limits, now, cpuNanos, MIN_CPU_WINDOW_MILLIS, found);
+
+        snapshot = new Snapshot(day, rss, peakRss, probe.heapUsedBytes(), probe.nonHeapUsedBytes(),
+                probe.threadCount(), cpuPercent, storageToday, report - dayStartReportBytes, violations);
+        return found;
+    }
+
+    /**
+     * Readings from the most recent {@link #sample()}.
+     */
+    public Snapshot snapshot() {
+        return snapshot;
+    }
+
+    public void registerGauges(MetricsRegistry registry) {
+        registry.gauge("resource.rss_bytes", () -> snapshot.rssBytes());
+        registry.gauge("resource.rss_peak_bytes", () -> snapshot.peakRssBytes());
+        registry.gauge("resource.heap_used_bytes", () -> snapshot.heapUsedBytes());
+        registry.gauge("resource.nonheap_used_bytes", () -> snapshot.nonHeapUsedBytes());
+        registry.gauge("resource.threads", () -> snapshot.threads());
+        // Parts per million of one core: 1% is 10000.
+        registry.gauge("resource.cpu_ppm", () -> Math.round(snapshot.cpuPercent() * 10_000));
+        registry.gauge("resource.storage_bytes_today", () -> snapshot.storageBytes());
+        registry.gauge("resource.report_bytes_today", () -> snapshot.reportBytes());
+        registry.gauge("resource.violations", () -> snapshot.violations());
+    }
+
+    private double checkCpu(ResourceBudget limits, long now, long cpuNanos, long minWindowMillis, List<Violation> found) {
+        long windowMillis = now - dayStartMillis;
+        if (cpuNanos < 0 || dayStartCpuNanos < 0 || windowMillis <= 0) {
+            return 0;
+        }
+        double percent = (cpuNanos - dayStartCpuNanos) / (windowMillis * 1_000_000.0) * 100.0;
+        if (windowMillis >= minWindowMillis && percent > limits.maxCpuPercent()) {
+            report(new Violation(day, Resource.CPU, percent, limits.maxCpuPercent()), found);
+        }
+        return percent;
+    }
+
+    private void report(Violation violation, List<Violation> found) {
+        if (reportedToday.add(violation.resource())) {
+            violations++;
+            found.add(violation);
+        }
+    }
+
+    private void startDay(LocalDate today, long now, long cpuNanos, long storage, long report) {
+        this.day = today;
+        this.dayStartMillis = now;
+        this.dayStartCpuNanos = cpuNanos;
+        this.dayStartStorageBytes = storage;
+        this.dayStartReportBytes = report;
+        reportedToday.clear();
+    }
+
+    private LocalDate today(long millis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+    }
+}
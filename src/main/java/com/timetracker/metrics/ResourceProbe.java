@@ -0,0 +1,24 @@
+package com.timetracker.metrics;
+
+/**
+ * Point-in-time process resource readings. Values that cannot be determined on the current platform are -1.
+ */
+public interface ResourceProbe {
+
+    long rssBytes();
+
+    long heapUsedBytes();
+
+    long nonHeapUsedBytes();
+
+    /**
+     * Cumulative CPU time consumed by the whole process.
+     */
+    long processCpuNanos();
+
+    int threadCount();
+
+    static ResourceProbe jvm() {
+        return JvmResourceProbe.INSTANCE;
+    }
+}
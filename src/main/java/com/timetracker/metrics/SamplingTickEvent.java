@@ -0,0 +1,55 @@
+package com.timetracker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * One sampling tick from queue hand-off to tray refresh, with the time spent in each stage.
+ */
+@Name("com.timetracker.SamplingTick")
+@Label("Sampling Tick")
+@Category({"TimeTracker", "Sampling"})
+@Description("Processing of one foreground sample")
+@Threshold("20 ms")
+@StackTrace(false)
+public class SamplingTickEvent extends jdk.jfr.Event {
+
+    @Label("Native Sample")
+    @Timespan
+    public long sampleNanos;
+
+    @Label("Idle Check")
+    @Timespan
+    public long idleCheckNanos;
+
+    @Label("Queued")
+    @Timespan
+    public long queueNanos;
+
+    @Label("Resolve")
+    @Timespan
+    public long resolveNanos;
+
+    @Label("Aggregate")
+    @Timespan
+    public long aggregateNanos;
+
+    @Label("Persist")
+    @Timespan
+    public long persistNanos;
+
+    @Label("Tray")
+    @Timespan
+    public long trayNanos;
+
+    @Label("Idle")
+    public boolean idle;
+
+    @Label("Minute Completed")
+    public boolean minuteCompleted;
+}
@@ -0,0 +1,29 @@
+package com.timetracker.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("com.timetracker.StorageFlush")
+@Label("Storage Flush")
+@Category({"TimeTracker", "Storage"})
+@Description("A batch of minute records written by a storage adapter")
+@Threshold("10 ms")
+@StackTrace(false)
+public class StorageFlushEvent extends jdk.jfr.Event {
+
+    @Label("Storage")
+    public String storage;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Bytes")
+    @Description("Encoded size of the rows written")
+    @DataAmount
+    public long bytes;
+}
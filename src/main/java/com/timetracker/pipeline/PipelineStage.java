@@ -0,0 +1,13 @@
+package com.timetracker.pipeline;
+
+public enum PipelineStage {
+    /** Native foreground window query. */
+    SAMPLE,
+    /** Native last-input query. */
+    IDLE_CHECK,
+    QUEUE,
+    RESOLVE,
+    AGGREGATE,
+    PERSIST,
+    TRAY
+}
@@ -0,0 +1,251 @@
+package com.timetracker.pipeline;
+
+import com.timetracker.sampling.SamplingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Two-stage sampling pipeline: a scheduled producer that only performs the native sampling calls and a
+ * dedicated consumer thread that resolves, aggregates and persists. The stages are decoupled by a
+ * {@link TickRingBuffer}, so slow storage or report work never delays the next sample.
+ */
+public class SamplingPipeline implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SamplingPipeline.class);
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * Fills a slot on the producer thread; must be cheap and must not block on I/O.
+     */
+    @FunctionalInterface
+    public interface TickSource {
+        void sample(TickSlot slot) throws SamplingException;
+    }
+
+    /**
+     * Consumes a slot on the consumer thread. The slot is recycled as soon as this method returns.
+     */
+    @FunctionalInterface
+    public interface TickHandler {
+        void handle(TickSlot slot);
+    }
+
+    private final TickSource source;
+    private final TickHandler handler;
+    private final BooleanSupplier samplingEnabled;
+    private final TickRingBuffer ring;
+    private final StageMetrics metrics;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService producer;
+    private final Thread consumer;
+
+    private ScheduledFuture<?> producerFuture;
+    private volatile boolean running;
+    private boolean dropReported;
+
+    public SamplingPipeline(TickSource source,
+                            TickHandler handler,
+                            BooleanSupplier samplingEnabled,
+                            int capacity,
+                            StageMetrics metrics) {
+        this(source, handler, samplingEnabled, capacity, metrics, Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sampler");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * @param producer timer for the producer stage and {@link #schedulePeriodic}; owned and shut down by the pipeline
+     */
+    public SamplingPipeline(TickSource source,
+                            TickHandler handler,
+                            BooleanSupplier samplingEnabled,
+                            int capacity,
+                            StageMetrics metrics,
+                            ScheduledExecutorService producer) {
+        this.source = Objects.requireNonNull(source, "source");
+        this.handler = Objects.requireNonNull(handler, "handler");
+        this.samplingEnabled = Objects.requireNonNull(samplingEnabled, "samplingEnabled");
+        this.ring = new TickRingBuffer(capacity);
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+        this.producer = Objects.requireNonNull(producer, "producer");
+        this.consumer = new Thread(this::consumeLoop, "aggregator");
+        this.consumer.setDaemon(true);
+    }
+
+    public synchronized void start(long intervalMillis) {
+        if (running) {
+            return;
+        }
+        startConsumer();
+        schedule(intervalMillis);
+    }
+
+    /**
+     * Starts only the consumer stage, for push-based sources that feed it through {@link #execute(Runnable)}.
+     */
+    public synchronized void startConsumer() {
+        if (running) {
+            return;
+        }
+        running = true;
+        consumer.start();
+    }
+
+    /**
+     * Runs one producer step on the calling thread, for pipelines started with {@link #startConsumer()} whose
+     * ticks are driven externally. Must not be mixed with {@link #start(long)}, which owns the producer side.
+     *
+     * @return whether a tick was published
+     */
+    public boolean sampleNow() {
+        return produce();
+    }
+
+    /**
+     * Periodically enqueues {@code task} for the consumer thread, using the producer's timer.
+     */
+    public synchronized void schedulePeriodic(Runnable task, long initialDelayMillis, long periodMillis) {
+        Objects.requireNonNull(task, "task");
+        producer.scheduleAtFixedRate(() -> execute(task), initialDelayMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Changes the sampling cadence without touching the consumer stage.
+     */
+    public synchronized void reschedule(long intervalMillis) {
+        if (!running) {
+            return;
+        }
+        schedule(intervalMillis);
+    }
+
+    /**
+     * Runs a task on the consumer thread, ordered after every slot already published.
+     */
+    public void execute(Runnable task) {
+        Objects.requireNonNull(task, "task");
+        tasks.add(task);
+        LockSupport.unpark(consumer);
+    }
+
+    public boolean isConsumerThread() {
+        return Thread.currentThread() == consumer;
+    }
+
+    public StageMetrics metrics() {
+        return metrics;
+    }
+
+    public int backlog() {
+        return ring.size();
+    }
+
+    /**
+     * Stops sampling, lets the consumer drain everything already published, then stops the consumer.
+     */
+    public synchronized void stop(long timeoutMillis) throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        producer.shutdownNow();
+        producer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+        running = false;
+        LockSupport.unpark(consumer);
+        consumer.join(timeoutMillis);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        stop(5_000L);
+    }
+
+    private void schedule(long intervalMillis) {
+        if (producerFuture != null) {
+            producerFuture.cancel(false);
+        }
+        producerFuture = producer.scheduleAtFixedRate(this::produce, 0, Math.max(1, intervalMillis), TimeUnit.MILLISECONDS);
+    }
+
+    private boolean produce() {
+        if (!samplingEnabled.getAsBoolean()) {
+            return false;
+        }
+        TickSlot slot = ring.claim();
+        if (slot == null) {
+            metrics.recordDroppedTick();
+            if (!dropReported) {
+                dropReported = true;
+                log.warn("Sampling pipeline full ({} ticks); dropping samples until processing catches up", ring.capacity());
+            }
+            return false;
+        }
+        dropReported = false;
+        try {
+            source.sample(slot);
+        } catch (SamplingException ex) {
+            metrics.recordSampleFailure();
+            log.warn("Sampling failed: {}", ex.getMessage());
+            return false;
+        } catch (RuntimeException ex) {
+            metrics.recordSampleFailure();
+            log.error("Unexpected error during sampling", ex);
+            return false;
+        }
+        ring.publish(System.nanoTime());
+        LockSupport.unpark(consumer);
+        return true;
+    }
+
+    private void consumeLoop() {
+        while (true) {
+            boolean worked = runTasks();
+            TickSlot slot = ring.peek();
+            if (slot != null) {
+                metrics.record(PipelineStage.QUEUE, System.nanoTime() - slot.publishedNanos());
+                try {
+                    handler.handle(slot);
+                } catch (RuntimeException ex) {
+                    log.error("Unexpected error while processing sampling tick", ex);
+                } finally {
+                    ring.release();
+                }
+                continue;
+            }
+            if (!running) {
+                // Producer is stopped; nothing else can be published.
+                runTasks();
+                return;
+            }
+            if (!worked) {
+                LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+    }
+
+    private boolean runTasks() {
+        boolean worked = false;
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            worked = true;
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                log.error("Error executing pipeline task", ex);
+            }
+        }
+        return worked;
+    }
+}
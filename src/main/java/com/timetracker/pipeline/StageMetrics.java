@@ -0,0 +1,88 @@
+package com.timetracker.pipeline;
+
+import com.timetracker.metrics.Counter;
+import com.timetracker.metrics.LatencyHistogram;
+import com.timetracker.metrics.MetricsRegistry;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-stage latency histograms, registered as {@code pipeline.<stage>} in a {@link MetricsRegistry}.
+ */
+public final class StageMetrics {
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[PipelineStage.values().length];
+    private final Counter droppedTicks;
+    private final Counter sampleFailures;
+
+    public StageMetrics() {
+        this(new MetricsRegistry(true));
+    }
+
+    public StageMetrics(MetricsRegistry registry) {
+        for (PipelineStage stage : PipelineStage.values()) {
+            stages[stage.ordinal()] = registry.histogram("pipeline." + stage.name().toLowerCase(Locale.ROOT));
+        }
+        this.droppedTicks = registry.counter("pipeline.dropped_ticks");
+        this.sampleFailures = registry.counter("pipeline.sample_failures");
+    }
+
+    public void record(PipelineStage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    public void recordDroppedTick() {
+        droppedTicks.increment();
+    }
+
+    public void recordSampleFailure() {
+        sampleFailures.increment();
+    }
+
+    public long sampleFailures() {
+        return sampleFailures.value();
+    }
+
+    public long droppedTicks() {
+        return droppedTicks.value();
+    }
+
+    public Map<PipelineStage, StageStats> snapshot() {
+        Map<PipelineStage, StageStats> snapshot = new EnumMap<>(PipelineStage.class);
+        for (PipelineStage stage : PipelineStage.values()) {
+            LatencyHistogram.Snapshot stats = stages[stage.ordinal()].snapshot();
+            snapshot.put(stage, new StageStats(stats.count(), stats.totalNanos(), stats.maxNanos(), stats.p99Nanos()));
+        }
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        snapshot().forEach((stage, stats) -> {
+            if (stats.count() == 0) {
+                return;
+            }
+            if (!builder.isEmpty()) {
+                builder.append(", ");
+            }
+            builder.append(stage.name().toLowerCase(Locale.ROOT))
+                    .append("[n=").append(stats.count())
+                    .append(" avg=").append(stats.averageMicros()).append("us")
+                    .append(" p99=").append(stats.p99Nanos() / 1_000L).append("us")
+                    .append(" max=").append(stats.maxNanos() / 1_000L).append("us]");
+        });
+        builder.append(builder.isEmpty() ? "" : ", ").append("dropped=").append(droppedTicks.value())
+                .append(", failures=").append(sampleFailures.value());
+        return builder.toString();
+    }
+
+    public record StageStats(long count, long totalNanos, long maxNanos, long p99Nanos) {
+
+        public long averageMicros() {
+            return count == 0 ? 0 : totalNanos / count / 1_000L;
+        }
+    }
+}
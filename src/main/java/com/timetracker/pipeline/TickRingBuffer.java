@@ -0,0 +1,80 @@
+package com.timetracker.pipeline;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer/single-consumer ring of {@link TickSlot}s. All slots are allocated up front;
+ * the producer fills a claimed slot in place and publishes it, the consumer reads and releases it.
+ */
+public final class TickRingBuffer {
+
+    private final TickSlot[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // Producer-local view of head, refreshed only when the ring looks full.
+    private long cachedHead;
+
+    public TickRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a positive power of two");
+        }
+        this.slots = new TickSlot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new TickSlot();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Producer side: returns the next free slot, or {@code null} when the consumer is a full ring behind.
+     */
+    public TickSlot claim() {
+        long currentTail = tail.get();
+        if (currentTail - cachedHead >= slots.length) {
+            cachedHead = head.get();
+            if (currentTail - cachedHead >= slots.length) {
+                return null;
+            }
+        }
+        return slots[(int) (currentTail & mask)];
+    }
+
+    /**
+     * Producer side: makes the slot returned by the last {@link #claim()} visible to the consumer.
+     */
+    public void publish(long nanos) {
+        long currentTail = tail.get();
+        slots[(int) (currentTail & mask)].markPublished(nanos);
+        tail.lazySet(currentTail + 1);
+    }
+
+    /**
+     * Consumer side: returns the oldest published slot without removing it, or {@code null} when empty.
+     */
+    public TickSlot peek() {
+        long currentHead = head.get();
+        if (currentHead >= tail.get()) {
+            return null;
+        }
+        return slots[(int) (currentHead & mask)];
+    }
+
+    /**
+     * Consumer side: returns the slot obtained from {@link #peek()} to the producer.
+     */
+    public void release() {
+        long currentHead = head.get();
+        slots[(int) (currentHead & mask)].clear();
+        head.lazySet(currentHead + 1);
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
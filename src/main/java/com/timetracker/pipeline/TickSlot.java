@@ -0,0 +1,61 @@
+package com.timetracker.pipeline;
+
+import com.timetracker.sampling.ForegroundSample;
+
+/**
+ * Preallocated, mutable hand-off slot between the sampling and processing stages. Slots are owned by
+ * {@link TickRingBuffer} and must not be retained after {@link TickRingBuffer#release()}.
+ */
+public final class TickSlot {
+
+    private ForegroundSample sample;
+    private long idleMillis;
+    private long publishedNanos;
+    private long sampleNanos;
+    private long idleCheckNanos;
+
+    TickSlot() {
+    }
+
+    public ForegroundSample sample() {
+        return sample;
+    }
+
+    public long idleMillis() {
+        return idleMillis;
+    }
+
+    public long publishedNanos() {
+        return publishedNanos;
+    }
+
+    public long sampleNanos() {
+        return sampleNanos;
+    }
+
+    public long idleCheckNanos() {
+        return idleCheckNanos;
+    }
+
+    public void setTimings(long sampleNanos, long idleCheckNanos) {
+        this.sampleNanos = sampleNanos;
+        this.idleCheckNanos = idleCheckNanos;
+    }
+
+    public void set(ForegroundSample sample, long idleMillis) {
+        this.sample = sample;
+        this.idleMillis = idleMillis;
+    }
+
+    void markPublished(long nanos) {
+        this.publishedNanos = nanos;
+    }
+
+    void clear() {
+        this.sample = null;
+        this.idleMillis = 0;
+        this.publishedNanos = 0;
+        this.sampleNanos = 0;
+        this.idleCheckNanos = 0;
+    }
+}
@@ -4,8 +4,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
-import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.DayUsage;
 import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ApplicationDictionary;
 import com.timetracker.app.ResolvedApplication;
 import com.timetracker.config.ReportConfig;
 import org.apache.commons.lang3.StringUtils;
@@ -20,6 +21,7 @@ import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -39,6 +41,7 @@ public class HtmlReportGenerator implements ReportGenerator {
     private final ReportConfig config;
     private final ObjectMapper objectMapper;
     private final String chartJs;
+    private volatile long bytesWritten;
 
     public HtmlReportGenerator(ReportConfig config) {
         this.config = Objects.requireNonNull(config, "config");
@@ -49,14 +52,14 @@ public class HtmlReportGenerator implements ReportGenerator {
     }
 
     @Override
-    public void generateDailyReport(LocalDate date, List<MinuteRecord> records) throws IOException {
-        Objects.requireNonNull(date, "date");
-        Objects.requireNonNull(records, "records");
+    public void generateDailyReport(DayUsage day) throws IOException {
+        Objects.requireNonNull(day, "day");
+        LocalDate date = day.date();
 
         Path reportDir = Path.of(config.rootDir()).toAbsolutePath();
         Files.createDirectories(reportDir);
 
-        DailyDataset dataset = buildDataset(date, records);
+        DailyDataset dataset = buildDataset(day);
         String htmlContent = buildHtml(dataset);
         Path htmlPath = reportDir.resolve("daily_report_" + date.format(FILE_SUFFIX) + ".html");
         Files.writeString(htmlPath, htmlContent, StandardCharsets.UTF_8,
@@ -70,31 +73,54 @@ public class HtmlReportGenerator implements ReportGenerator {
                 StandardOpenOption.TRUNCATE_EXISTING,
                 StandardOpenOption.WRITE);
 
+        bytesWritten += Files.size(htmlPath) + Files.size(jsonPath);
         log.info("Generated daily report for {} at {}", date, htmlPath);
     }
 
-    private DailyDataset buildDataset(LocalDate date, List<MinuteRecord> records) {
+    @Override
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    private DailyDataset buildDataset(DayUsage day) {
+        LocalDate date = day.date();
+        ApplicationDictionary dictionary = day.dictionary();
         Map<String, AppAggregate> aggregates = new LinkedHashMap<>();
+        // Aliased executables share an app id, so several dictionary ids can map to one aggregate.
+        AppAggregate[] byDictionaryId = new AppAggregate[dictionary.applicationCount()];
         int idleMinutes = 0;
         int idleSeconds = 0;
+        List<TimelineEntry> timeline = new ArrayList<>(day.recordCount());
 
-        for (MinuteRecord record : records) {
-            if (!date.equals(record.date())) {
+        for (int minute = 0; minute < DayUsage.MINUTES_PER_DAY; minute++) {
+            if (!day.isPresent(minute)) {
                 continue;
             }
-            if (record.status() == MinuteStatus.IDLE) {
+            MinuteStatus status = day.status(minute);
+            int applicationId = day.applicationId(minute);
+            ResolvedApplication app = status == MinuteStatus.ACTIVE && applicationId != ApplicationDictionary.NO_ID
+                    ? dictionary.application(applicationId)
+                    : null;
+            timeline.add(TimelineEntry.of(minute, status, app, day.span(minute)));
+
+            if (status == MinuteStatus.IDLE) {
                 idleMinutes += 1;
-                idleSeconds += record.idleSeconds();
-            } else {
-                record.application().ifPresent(app -> {
-                    AppAggregate agg = aggregates.computeIfAbsent(app.id(), id -> new AppAggregate(
+                idleSeconds += day.idleSeconds(minute);
+            } else if (app != null) {
+                if (applicationId >= byDictionaryId.length) {
+                    byDictionaryId = Arrays.copyOf(byDictionaryId, applicationId + 1);
+                }
+                AppAggregate agg = byDictionaryId[applicationId];
+                if (agg == null) {
+                    agg = aggregates.computeIfAbsent(app.id(), id -> new AppAggregate(
                             app.id(),
                             app.displayName(),
                             app.executablePath()
                     ));
-                    agg.minutes += 1;
-                    agg.activeSeconds += record.activeSeconds();
-                });
+                    byDictionaryId[applicationId] = agg;
+                }
+                agg.minutes += 1;
+                agg.activeSeconds += day.activeSeconds(minute);
             }
         }
 
@@ -125,12 +151,6 @@ public class HtmlReportGenerator implements ReportGenerator {
         }
         List<ChartEntry> barChart = buildBarSeries(barEntries, config.topN());
 
-        List<TimelineEntry> timeline = records.stream()
-                .filter(record -> date.equals(record.date()))
-                .sorted(Comparator.comparing(MinuteRecord::minute))
-                .map(TimelineEntry::fromMinuteRecord)
-                .toList();
-
         Summary summary = new Summary(
                 date.format(DATE_DISPLAY),
                 totalMinutes,
@@ -296,7 +316,7 @@ public class HtmlReportGenerator implements ReportGenerator {
                 const timelineContainer = document.getElementById('timeline');
                 timelineData.forEach(item => {
                     const row = document.createElement('div');
-                    row.className = 'timeline-item ' + (item.status === 'IDLE' ? 'idle' : '');
+                    row.className = 'timeline-item ' + (item.status === 'ACTIVE' ? '' : 'idle');
                     const time = document.createElement('span');
                     time.className = 'timeline-time';
                     time.textContent = item.minute;
@@ -354,15 +374,30 @@ public class HtmlReportGenerator implements ReportGenerator {
 
     private record TimelineEntry(String minute, String label, String status, int minutes) {
 
-        static TimelineEntry fromMinuteRecord(MinuteRecord record) {
-            String label = record.status() == MinuteStatus.IDLE
-                    ? "Idle"
-                    : record.application().map(ResolvedApplication::displayName).orElse("Unknown");
+        private static final String[] MINUTE_LABELS = new String[DayUsage.MINUTES_PER_DAY];
+
+        static {
+            for (int i = 0; i < MINUTE_LABELS.length; i++) {
+                MINUTE_LABELS[i] = String.format("%02d:%02d", i / 60, i % 60);
+            }
+        }
+
+        static TimelineEntry of(int minuteOfDay, MinuteStatus status, ResolvedApplication app, int span) {
+            String label = switch (status) {
+                case IDLE -> "Idle";
+                case SUSPENDED -> "Suspended";
+                case ACTIVE -> app == null ? "Unknown" : app.displayName();
+            };
+            int minutes = switch (status) {
+                case ACTIVE -> 1;
+                case IDLE -> 0;
+                case SUSPENDED -> span;
+            };
             return new TimelineEntry(
-                    record.minute().toString(),
+                    MINUTE_LABELS[minuteOfDay],
                     label,
-                    record.status().name(),
-                    record.status() == MinuteStatus.ACTIVE ? 1 : 0
+                    status.name(),
+                    minutes
             );
         }
     }
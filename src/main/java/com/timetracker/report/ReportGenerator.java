@@ -1,5 +1,6 @@
 package com.timetracker.report;
 
+import com.timetracker.aggregation.DayUsage;
 import com.timetracker.aggregation.MinuteRecord;
 
 import java.io.IOException;
@@ -8,5 +9,16 @@ import java.util.List;
 
 public interface ReportGenerator {
 
-    void generateDailyReport(LocalDate date, List<MinuteRecord> records) throws IOException;
+    void generateDailyReport(DayUsage day) throws IOException;
+
+    default void generateDailyReport(LocalDate date, List<MinuteRecord> records) throws IOException {
+        generateDailyReport(DayUsage.of(date, records));
+    }
+
+    /**
+     * Total bytes of report output written since this generator was created.
+     */
+    default long bytesWritten() {
+        return 0;
+    }
 }
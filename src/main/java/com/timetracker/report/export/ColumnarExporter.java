@@ -0,0 +1,222 @@
+package com.timetracker.report.export;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.app.ApplicationDictionary;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.report.loader.UsageDataLoader;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes a date range into a single columnar file for analysis outside the tracker; see {@link ColumnarFile} for
+ * reading it back. Days come from {@link UsageDataLoader#loadDay}, so rolled-up days are exported at the tier
+ * still kept and window-title hashes are not included.
+ */
+public final class ColumnarExporter {
+
+    /**
+     * @param days    days with at least one record, one block each
+     * @param records rows written across all days
+     * @param bytes   size of the written file
+     */
+    public record Result(int days, long records, long bytes) {
+    }
+
+    private final UsageDataLoader loader;
+
+    public ColumnarExporter(UsageDataLoader loader) {
+        this.loader = Objects.requireNonNull(loader, "loader");
+    }
+
+    /**
+     * Exports {@code from} to {@code to}, both inclusive. The file is written next to {@code file} and moved into
+     * place, so an interrupted export never leaves a partial file behind.
+     */
+    public Result export(LocalDate from, LocalDate to, Path file) throws IOException {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Export range ends before it starts: " + from + " .. " + to);
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        // Applications in order of first use, so early blocks have low ids and skip on later applications.
+        Map<ResolvedApplication, Integer> applicationIds = new HashMap<>();
+        List<ResolvedApplication> applications = new ArrayList<>();
+        List<ColumnarFormat.BlockStats> blocks = new ArrayList<>();
+        long records = 0;
+        long offset;
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            output.writeInt(ColumnarFormat.MAGIC);
+            output.writeInt(ColumnarFormat.VERSION);
+            offset = 2L * Integer.BYTES;
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+                DayUsage day = loader.loadDay(date);
+                if (day.isEmpty()) {
+                    continue;
+                }
+                byte[] block = encode(day, applicationIds, applications);
+                blocks.add(stats(day, offset, block.length, applicationIds));
+                output.write(block);
+                offset += block.length;
+                records += day.recordCount();
+            }
+
+            output.writeInt(applications.size());
+            for (ResolvedApplication application : applications) {
+                output.writeUTF(application.id());
+                output.writeUTF(application.displayName());
+                output.writeUTF(application.executablePath());
+                output.writeUTF(application.normalizedPath());
+                output.writeBoolean(application.aliasApplied());
+            }
+            output.writeInt(blocks.size());
+            for (ColumnarFormat.BlockStats block : blocks) {
+                block.write(output);
+            }
+            output.writeLong(offset);
+            output.writeInt(ColumnarFormat.MAGIC);
+        }
+        long bytes = Files.size(temp);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new Result(blocks.size(), records, bytes);
+    }
+
+    /**
+     * Minutes are stored as gaps from the previous row, spans, statuses and applications as runs of equal values,
+     * and seconds as one byte per row.
+     */
+    private static byte[] encode(DayUsage day,
+                                 Map<ResolvedApplication, Integer> applicationIds,
+                                 List<ResolvedApplication> applications) {
+        ByteArrayOutputStream minutes = new ByteArrayOutputStream();
+        RunLengthColumn spans = new RunLengthColumn();
+        RunLengthColumn statuses = new RunLengthColumn();
+        RunLengthColumn applicationColumn = new RunLengthColumn();
+        ByteArrayOutputStream active = new ByteArrayOutputStream();
+        ByteArrayOutputStream idle = new ByteArrayOutputStream();
+        int previous = 0;
+        for (int minute = 0; minute < DayUsage.MINUTES_PER_DAY; minute++) {
+            if (!day.isPresent(minute)) {
+                continue;
+            }
+            ColumnarFormat.writeVarint(minutes, minute - previous);
+            previous = minute;
+            spans.add(day.span(minute));
+            statuses.add(day.status(minute).ordinal());
+            applicationColumn.add(applicationValue(day, minute, applicationIds, applications));
+            active.write(day.activeSeconds(minute));
+            idle.write(day.idleSeconds(minute));
+        }
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        ColumnarFormat.writeColumn(block, minutes.toByteArray());
+        ColumnarFormat.writeColumn(block, spans.toByteArray());
+        ColumnarFormat.writeColumn(block, statuses.toByteArray());
+        ColumnarFormat.writeColumn(block, applicationColumn.toByteArray());
+        ColumnarFormat.writeColumn(block, active.toByteArray());
+        ColumnarFormat.writeColumn(block, idle.toByteArray());
+        return block.toByteArray();
+    }
+
+    private static int applicationValue(DayUsage day,
+                                        int minute,
+                                        Map<ResolvedApplication, Integer> applicationIds,
+                                        List<ResolvedApplication> applications) {
+        int id = day.applicationId(minute);
+        if (id == ApplicationDictionary.NO_ID) {
+            return ColumnarFormat.NO_APPLICATION;
+        }
+        ResolvedApplication application = day.dictionary().application(id);
+        return applicationIds.computeIfAbsent(application, key -> {
+            applications.add(key);
+            return applications.size();
+        });
+    }
+
+    private static ColumnarFormat.BlockStats stats(DayUsage day,
+                                                   long offset,
+                                                   int length,
+                                                   Map<ResolvedApplication, Integer> applicationIds) {
+        int minMinute = Integer.MAX_VALUE;
+        int maxMinute = 0;
+        int statusMask = 0;
+        int minApplication = Integer.MAX_VALUE;
+        int maxApplication = ColumnarFormat.NO_APPLICATION;
+        int minActive = Integer.MAX_VALUE;
+        int maxActive = 0;
+        for (int minute = 0; minute < DayUsage.MINUTES_PER_DAY; minute++) {
+            if (!day.isPresent(minute)) {
+                continue;
+            }
+            minMinute = Math.min(minMinute, minute);
+            maxMinute = minute;
+            statusMask |= 1 << day.status(minute).ordinal();
+            int id = day.applicationId(minute);
+            if (id != ApplicationDictionary.NO_ID) {
+                int value = applicationIds.get(day.dictionary().application(id));
+                minApplication = Math.min(minApplication, value);
+                maxApplication = Math.max(maxApplication, value);
+            }
+            minActive = Math.min(minActive, day.activeSeconds(minute));
+            maxActive = Math.max(maxActive, day.activeSeconds(minute));
+        }
+        if (maxApplication == ColumnarFormat.NO_APPLICATION) {
+            minApplication = ColumnarFormat.NO_APPLICATION;
+        }
+        return new ColumnarFormat.BlockStats((int) day.date().toEpochDay(), offset, length, day.recordCount(),
+                minMinute, maxMinute, statusMask, minApplication, maxApplication, minActive, maxActive);
+    }
+
+    /**
+     * Pairs of (value, run length) as varints.
+     */
+    private static final class RunLengthColumn {
+
+        private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        private int value = -1;
+        private int run;
+
+        void add(int next) {
+            if (run > 0 && next == value) {
+                run++;
+                return;
+            }
+            end();
+            value = next;
+            run = 1;
+        }
+
+        byte[] toByteArray() {
+            end();
+            return output.toByteArray();
+        }
+
+        private void end() {
+            if (run > 0) {
+                ColumnarFormat.writeVarint(output, value);
+                ColumnarFormat.writeVarint(output, run);
+                run = 0;
+            }
+        }
+    }
+}
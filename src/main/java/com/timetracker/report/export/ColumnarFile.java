@@ -0,0 +1,310 @@
+package com.timetracker.report.export;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ApplicationDictionary;
+import com.timetracker.app.ResolvedApplication;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads a file written by {@link ColumnarExporter}. Opening it reads only the footer; {@link #scan} then checks
+ * each block's statistics against the filter and reads just the blocks that can contain matching rows.
+ */
+public final class ColumnarFile implements Closeable {
+
+    private static final MinuteStatus[] STATUSES = MinuteStatus.values();
+
+    /**
+     * Rows to return. {@code null} bounds and sets match everything.
+     *
+     * @param from             first day, inclusive
+     * @param to               last day, inclusive
+     * @param applicationIds   {@link ResolvedApplication#id()}s; minutes without an application never match
+     * @param statuses         statuses to keep
+     * @param minActiveSeconds rows with fewer active seconds are dropped
+     */
+    public record Filter(
+            LocalDate from,
+            LocalDate to,
+            Set<String> applicationIds,
+            Set<MinuteStatus> statuses,
+            int minActiveSeconds
+    ) {
+
+        public Filter {
+            applicationIds = applicationIds == null ? null : Set.copyOf(applicationIds);
+            statuses = statuses == null ? null : Set.copyOf(statuses);
+        }
+
+        public static Filter all() {
+            return new Filter(null, null, null, null, 0);
+        }
+
+        public Filter between(LocalDate first, LocalDate last) {
+            return new Filter(first, last, applicationIds, statuses, minActiveSeconds);
+        }
+
+        public Filter applications(String... ids) {
+            return new Filter(from, to, Set.of(ids), statuses, minActiveSeconds);
+        }
+
+        public Filter statuses(MinuteStatus first, MinuteStatus... rest) {
+            return new Filter(from, to, applicationIds, EnumSet.of(first, rest), minActiveSeconds);
+        }
+
+        public Filter minActiveSeconds(int seconds) {
+            return new Filter(from, to, applicationIds, statuses, seconds);
+        }
+    }
+
+    /**
+     * @param blocksRead    blocks read and decoded
+     * @param blocksSkipped blocks ruled out by their statistics alone
+     * @param rows          rows that matched the filter
+     */
+    public record ScanResult(int blocksRead, int blocksSkipped, long rows) {
+    }
+
+    private final Path file;
+    private final FileChannel channel;
+    private final List<ResolvedApplication> applications;
+    // Dictionary ids in the process-wide dictionary, indexed by column value.
+    private final int[] dictionaryIds;
+    private final List<ColumnarFormat.BlockStats> blocks;
+
+    private ColumnarFile(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        long size = channel.size();
+        if (size < 2L * Integer.BYTES + ColumnarFormat.TRAILER_BYTES) {
+            throw new IOException("Not a columnar export: " + file);
+        }
+        ByteBuffer header = read(0, 2 * Integer.BYTES);
+        ByteBuffer trailer = read(size - ColumnarFormat.TRAILER_BYTES, ColumnarFormat.TRAILER_BYTES);
+        long footerOffset = trailer.getLong();
+        if (header.getInt() != ColumnarFormat.MAGIC || trailer.getInt() != ColumnarFormat.MAGIC) {
+            throw new IOException("Not a columnar export: " + file);
+        }
+        int version = header.getInt();
+        if (version != ColumnarFormat.VERSION) {
+            throw new IOException("Unsupported columnar export version " + version + ": " + file);
+        }
+        long footerLength = size - ColumnarFormat.TRAILER_BYTES - footerOffset;
+        if (footerOffset < 2L * Integer.BYTES || footerLength < 0 || footerLength > Integer.MAX_VALUE) {
+            throw new IOException("Corrupt columnar export footer: " + file);
+        }
+        ByteBuffer footerBytes = read(footerOffset, (int) footerLength);
+        DataInputStream footer = new DataInputStream(new ByteArrayInputStream(footerBytes.array()));
+
+        int applicationCount = footer.readInt();
+        List<ResolvedApplication> readApplications = new ArrayList<>(applicationCount);
+        this.dictionaryIds = new int[applicationCount + 1];
+        dictionaryIds[ColumnarFormat.NO_APPLICATION] = ApplicationDictionary.NO_ID;
+        ApplicationDictionary dictionary = ApplicationDictionary.global();
+        for (int i = 0; i < applicationCount; i++) {
+            ResolvedApplication application = dictionary.intern(new ResolvedApplication(footer.readUTF(),
+                    footer.readUTF(), footer.readUTF(), footer.readUTF(), footer.readBoolean()));
+            readApplications.add(application);
+            dictionaryIds[i + 1] = dictionary.applicationId(application);
+        }
+        this.applications = List.copyOf(readApplications);
+        int blockCount = footer.readInt();
+        List<ColumnarFormat.BlockStats> readBlocks = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            readBlocks.add(ColumnarFormat.BlockStats.read(footer));
+        }
+        this.blocks = List.copyOf(readBlocks);
+    }
+
+    public static ColumnarFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ColumnarFile(file, channel);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public List<LocalDate> days() {
+        return blocks.stream().map(block -> LocalDate.ofEpochDay(block.epochDay())).toList();
+    }
+
+    public List<ResolvedApplication> applications() {
+        return applications;
+    }
+
+    /**
+     * Hands every day with matching rows to {@code consumer}, oldest first, holding only those rows.
+     */
+    public ScanResult scan(Filter filter, Consumer<DayUsage> consumer) throws IOException {
+        Objects.requireNonNull(filter, "filter");
+        Objects.requireNonNull(consumer, "consumer");
+        boolean[] wantedApplications = wantedApplications(filter);
+        int statusMask = statusMask(filter);
+        int read = 0;
+        int skipped = 0;
+        long rows = 0;
+        for (ColumnarFormat.BlockStats block : blocks) {
+            if (!mayMatch(block, filter, wantedApplications, statusMask)) {
+                skipped++;
+                continue;
+            }
+            read++;
+            DayUsage day = decode(block, filter, wantedApplications, statusMask);
+            if (!day.isEmpty()) {
+                rows += day.recordCount();
+                consumer.accept(day);
+            }
+        }
+        return new ScanResult(read, skipped, rows);
+    }
+
+    /**
+     * Every day in the file, in full.
+     */
+    public List<DayUsage> readAll() throws IOException {
+        List<DayUsage> days = new ArrayList<>(blocks.size());
+        scan(Filter.all(), days::add);
+        return days;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static boolean mayMatch(ColumnarFormat.BlockStats block,
+                                    Filter filter,
+                                    boolean[] wantedApplications,
+                                    int statusMask) {
+        if (filter.from() != null && block.epochDay() < filter.from().toEpochDay()) {
+            return false;
+        }
+        if (filter.to() != null && block.epochDay() > filter.to().toEpochDay()) {
+            return false;
+        }
+        if ((block.statusMask() & statusMask) == 0 || block.maxActiveSeconds() < filter.minActiveSeconds()) {
+            return false;
+        }
+        if (wantedApplications == null) {
+            return true;
+        }
+        if (block.minApplication() == ColumnarFormat.NO_APPLICATION) {
+            return false;
+        }
+        for (int value = block.minApplication(); value <= block.maxApplication(); value++) {
+            if (wantedApplications[value]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private DayUsage decode(ColumnarFormat.BlockStats block,
+                            Filter filter,
+                            boolean[] wantedApplications,
+                            int statusMask) throws IOException {
+        ByteBuffer bytes = read(block.offset(), block.length());
+        ByteBuffer minutes = ColumnarFormat.readColumn(bytes);
+        RunLengthReader spans = new RunLengthReader(ColumnarFormat.readColumn(bytes));
+        RunLengthReader statuses = new RunLengthReader(ColumnarFormat.readColumn(bytes));
+        RunLengthReader applicationColumn = new RunLengthReader(ColumnarFormat.readColumn(bytes));
+        ByteBuffer active = ColumnarFormat.readColumn(bytes);
+        ByteBuffer idle = ColumnarFormat.readColumn(bytes);
+
+        DayUsage day = new DayUsage(LocalDate.ofEpochDay(block.epochDay()));
+        int minute = 0;
+        for (int row = 0; row < block.rows(); row++) {
+            minute += ColumnarFormat.readVarint(minutes);
+            int span = spans.next();
+            int status = statuses.next();
+            int application = applicationColumn.next();
+            int activeSeconds = active.get() & 0xFF;
+            int idleSeconds = idle.get() & 0xFF;
+            if (minute >= DayUsage.MINUTES_PER_DAY || status >= STATUSES.length
+                    || application >= dictionaryIds.length) {
+                throw new IOException("Corrupt block for " + day.date() + " in " + file);
+            }
+            if ((statusMask & (1 << status)) == 0 || activeSeconds < filter.minActiveSeconds()
+                    || wantedApplications != null && !wantedApplications[application]) {
+                continue;
+            }
+            day.set(minute, STATUSES[status], dictionaryIds[application], activeSeconds, idleSeconds, span);
+        }
+        return day;
+    }
+
+    private boolean[] wantedApplications(Filter filter) {
+        if (filter.applicationIds() == null) {
+            return null;
+        }
+        boolean[] wanted = new boolean[dictionaryIds.length];
+        for (int i = 0; i < applications.size(); i++) {
+            wanted[i + 1] = filter.applicationIds().contains(applications.get(i).id());
+        }
+        return wanted;
+    }
+
+    private static int statusMask(Filter filter) {
+        if (filter.statuses() == null) {
+            return (1 << STATUSES.length) - 1;
+        }
+        int mask = 0;
+        for (MinuteStatus status : filter.statuses()) {
+            mask |= 1 << status.ordinal();
+        }
+        return mask;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long at = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, at);
+            if (read < 0) {
+                throw new IOException("Unexpected end of columnar export: " + file);
+            }
+            at += read;
+        }
+        return buffer.flip();
+    }
+
+    private static final class RunLengthReader {
+
+        private final ByteBuffer input;
+        private int value;
+        private int remaining;
+
+        RunLengthReader(ByteBuffer input) {
+            this.input = input;
+        }
+
+        int next() throws IOException {
+            if (remaining == 0) {
+                value = ColumnarFormat.readVarint(input);
+                remaining = ColumnarFormat.readVarint(input);
+                if (remaining == 0) {
+                    throw new IOException("Empty run");
+                }
+            }
+            remaining--;
+            return value;
+        }
+    }
+}
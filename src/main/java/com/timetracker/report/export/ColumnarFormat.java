@@ -0,0 +1,170 @@
+package com.timetracker.report.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Layout shared by {@link ColumnarExporter} and {@link ColumnarFile}:
+ * <pre>
+ * header  magic, version
+ * blocks  one per day: minute, span, status, application, active and idle columns
+ * footer  application dictionary, then one {@link BlockStats} per block
+ * trailer footer offset, magic
+ * </pre>
+ * Each column is stored as (codec, raw length, stored length, bytes) and deflated on its own when that pays off.
+ * Integers inside columns are unsigned varints.
+ */
+final class ColumnarFormat {
+
+    static final int MAGIC = 0x54544331; // "TTC1"
+    static final int VERSION = 1;
+    static final int TRAILER_BYTES = Long.BYTES + Integer.BYTES;
+
+    static final byte RAW = 0;
+    static final byte DEFLATED = 1;
+
+    /** Application column value for minutes without one; file dictionary entry {@code i} is stored as {@code i + 1}. */
+    static final int NO_APPLICATION = 0;
+
+    private ColumnarFormat() {
+    }
+
+    /**
+     * Footer entry of one block, enough to skip it without reading it. Application bounds are column values,
+     * both {@link #NO_APPLICATION} when the day has no application minutes.
+     */
+    record BlockStats(
+            int epochDay,
+            long offset,
+            int length,
+            int rows,
+            int minMinute,
+            int maxMinute,
+            int statusMask,
+            int minApplication,
+            int maxApplication,
+            int minActiveSeconds,
+            int maxActiveSeconds
+    ) {
+
+        void write(DataOutput output) throws IOException {
+            output.writeInt(epochDay);
+            output.writeLong(offset);
+            output.writeInt(length);
+            output.writeShort(rows);
+            output.writeShort(minMinute);
+            output.writeShort(maxMinute);
+            output.writeByte(statusMask);
+            output.writeInt(minApplication);
+            output.writeInt(maxApplication);
+            output.writeByte(minActiveSeconds);
+            output.writeByte(maxActiveSeconds);
+        }
+
+        static BlockStats read(DataInput input) throws IOException {
+            return new BlockStats(input.readInt(), input.readLong(), input.readInt(), input.readUnsignedShort(),
+                    input.readUnsignedShort(), input.readUnsignedShort(), input.readUnsignedByte(), input.readInt(),
+                    input.readInt(), input.readUnsignedByte(), input.readUnsignedByte());
+        }
+    }
+
+    static void writeVarint(ByteArrayOutputStream output, int value) {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.write((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.write(remaining);
+    }
+
+    static int readVarint(ByteBuffer input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            if (!input.hasRemaining()) {
+                throw new IOException("Truncated varint");
+            }
+            int b = input.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Appends a column to {@code block}, deflated unless that would not make it smaller.
+     */
+    static void writeColumn(ByteArrayOutputStream block, byte[] raw) {
+        byte[] deflated = deflate(raw);
+        boolean compress = deflated.length < raw.length;
+        byte[] stored = compress ? deflated : raw;
+        block.write(compress ? DEFLATED : RAW);
+        writeVarint(block, raw.length);
+        writeVarint(block, stored.length);
+        block.write(stored, 0, stored.length);
+    }
+
+    static ByteBuffer readColumn(ByteBuffer block) throws IOException {
+        byte codec = block.get();
+        int rawLength = readVarint(block);
+        int storedLength = readVarint(block);
+        if (storedLength > block.remaining()) {
+            throw new IOException("Truncated column");
+        }
+        byte[] stored = new byte[storedLength];
+        block.get(stored);
+        return switch (codec) {
+            case RAW -> ByteBuffer.wrap(stored);
+            case DEFLATED -> ByteBuffer.wrap(inflate(stored, rawLength));
+            default -> throw new IOException("Unknown column codec " + codec);
+        };
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                output.write(chunk, 0, length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] stored, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != raw.length) {
+                throw new IOException("Truncated column");
+            }
+            return raw;
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt column", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
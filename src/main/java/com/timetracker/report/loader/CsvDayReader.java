@@ -0,0 +1,348 @@
+package com.timetracker.report.loader;
+
+import com.timetracker.aggregation.MinuteStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Row cursor over a daily CSV file that parses fields straight from bytes. Field positions are recorded per row
+ * and only the columns a caller asks for are decoded; dates, minutes and integers have fixed-format fast paths
+ * and quoted fields fall back to an unescaping copy.
+ */
+final class CsvDayReader {
+
+    static final int DATE = 0;
+    static final int MINUTE = 1;
+    static final int STATUS = 2;
+    static final int APP_ID = 3;
+    static final int APP_NAME = 4;
+    static final int EXE_PATH = 5;
+    static final int MINUTES = 6;
+    static final int ACTIVE_SECONDS = 7;
+    static final int IDLE_SECONDS = 8;
+    static final int TITLE_HASH = 9;
+
+    private static final int COLUMNS = 10;
+    private static final MinuteStatus[] STATUSES = MinuteStatus.values();
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    private int[] starts = new int[COLUMNS];
+    private int[] ends = new int[COLUMNS];
+    private boolean[] quoted = new boolean[COLUMNS];
+    private int fieldCount;
+    private int[] previousStarts = new int[COLUMNS];
+    private int[] previousEnds = new int[COLUMNS];
+    private boolean[] previousQuoted = new boolean[COLUMNS];
+    private int previousFieldCount = -1;
+    private byte[] scratch = new byte[128];
+
+    private CsvDayReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+        skipLine();
+    }
+
+    /**
+     * Reads a day file into the heap and closes it. Day files are small, and a memory mapping would keep them from
+     * being deleted on Windows by archiving or retention until the buffer is garbage collected.
+     */
+    static CsvDayReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("CSV file too large to load: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading until the snapshot is complete
+            }
+            return new CsvDayReader(buffer.flip());
+        }
+    }
+
+    /**
+     * Reads a day file that is already in memory, e.g. a block inflated from a monthly archive.
+     */
+    static CsvDayReader of(ByteBuffer buffer) {
+        return new CsvDayReader(buffer);
+    }
+
+    /**
+     * Advances to the next non-blank data row.
+     */
+    boolean next() {
+        while (position < limit) {
+            if (isBlankLine()) {
+                skipLine();
+                continue;
+            }
+            swapRows();
+            readRow();
+            return true;
+        }
+        return false;
+    }
+
+    boolean isEmpty(int column) {
+        return column >= fieldCount || starts[column] == ends[column];
+    }
+
+    /**
+     * Whether the raw bytes of the given columns are identical to the previous row's.
+     */
+    boolean sameAsPrevious(int firstColumn, int lastColumn) {
+        if (previousFieldCount < 0) {
+            return false;
+        }
+        for (int column = firstColumn; column <= lastColumn; column++) {
+            boolean present = column < fieldCount;
+            boolean previousPresent = column < previousFieldCount;
+            int length = present ? ends[column] - starts[column] : 0;
+            int previousLength = previousPresent ? previousEnds[column] - previousStarts[column] : 0;
+            if (length != previousLength || (length > 0 && quoted[column] != previousQuoted[column])) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(starts[column] + i) != buffer.get(previousStarts[column] + i)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    String text(int column) {
+        if (isEmpty(column)) {
+            return "";
+        }
+        int start = starts[column];
+        int length = ends[column] - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        if (!quoted[column]) {
+            buffer.get(start, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        int written = 0;
+        for (int i = start; i < start + length; i++) {
+            byte value = buffer.get(i);
+            scratch[written++] = value;
+            if (value == '"' && i + 1 < start + length && buffer.get(i + 1) == '"') {
+                i++;
+            }
+        }
+        return new String(scratch, 0, written, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Parses an optionally signed decimal integer; blank or malformed values yield zero.
+     */
+    int integer(int column) {
+        if (isEmpty(column)) {
+            return 0;
+        }
+        int index = starts[column];
+        int end = ends[column];
+        boolean negative = buffer.get(index) == '-';
+        if (negative && ++index == end) {
+            return 0;
+        }
+        long value = 0;
+        for (; index < end; index++) {
+            int digit = buffer.get(index) - '0';
+            if (digit < 0 || digit > 9) {
+                return 0;
+            }
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) {
+                return 0;
+            }
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? 0 : (int) value;
+    }
+
+    /**
+     * Parses a {@code yyyy-MM-dd} column, returning {@code previous} when it denotes the same day.
+     */
+    LocalDate date(int column, LocalDate previous) {
+        if (!isEmpty(column) && ends[column] - starts[column] == 10) {
+            int at = starts[column];
+            int year = digits(at, 4);
+            int month = digits(at + 5, 2);
+            int day = digits(at + 8, 2);
+            if (year >= 0 && month > 0 && day > 0 && buffer.get(at + 4) == '-' && buffer.get(at + 7) == '-') {
+                if (previous != null && previous.getYear() == year
+                        && previous.getMonthValue() == month && previous.getDayOfMonth() == day) {
+                    return previous;
+                }
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(text(column));
+    }
+
+    /**
+     * Parses an {@code HH:mm} column into a minute-of-day index, or -1 when it is not in that exact form.
+     */
+    int minuteOfDay(int column) {
+        if (isEmpty(column) || ends[column] - starts[column] != 5 || buffer.get(starts[column] + 2) != ':') {
+            return -1;
+        }
+        int hour = digits(starts[column], 2);
+        int minute = digits(starts[column] + 3, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    MinuteStatus status(int column) {
+        if (isEmpty(column)) {
+            return MinuteStatus.ACTIVE;
+        }
+        int start = starts[column];
+        int length = ends[column] - start;
+        for (MinuteStatus status : STATUSES) {
+            String name = status.name();
+            if (name.length() != length) {
+                continue;
+            }
+            boolean matches = true;
+            for (int i = 0; i < length && matches; i++) {
+                int value = buffer.get(start + i);
+                if (value >= 'a' && value <= 'z') {
+                    value -= 'a' - 'A';
+                }
+                matches = value == name.charAt(i);
+            }
+            if (matches) {
+                return status;
+            }
+        }
+        String value = text(column).trim();
+        return value.isEmpty() ? MinuteStatus.ACTIVE : MinuteStatus.valueOf(value.toUpperCase(Locale.ROOT));
+    }
+
+    private int digits(int at, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = buffer.get(at + i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private void readRow() {
+        fieldCount = 0;
+        while (true) {
+            if (fieldCount == starts.length) {
+                growFields();
+            }
+            int field = fieldCount++;
+            if (position < limit && buffer.get(position) == '"') {
+                int contentStart = ++position;
+                while (position < limit) {
+                    if (buffer.get(position) == '"') {
+                        if (position + 1 < limit && buffer.get(position + 1) == '"') {
+                            position += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    position++;
+                }
+                starts[field] = contentStart;
+                ends[field] = Math.min(position, limit);
+                quoted[field] = true;
+                position++;
+                // Anything between the closing quote and the delimiter is ignored.
+                while (position < limit && !isDelimiter(buffer.get(position))) {
+                    position++;
+                }
+            } else {
+                int start = position;
+                while (position < limit && !isDelimiter(buffer.get(position))) {
+                    position++;
+                }
+                starts[field] = start;
+                ends[field] = position;
+                quoted[field] = false;
+            }
+            if (position >= limit) {
+                return;
+            }
+            byte delimiter = buffer.get(position++);
+            if (delimiter == ',') {
+                continue;
+            }
+            if (delimiter == '\r' && position < limit && buffer.get(position) == '\n') {
+                position++;
+            }
+            return;
+        }
+    }
+
+    private void swapRows() {
+        int[] startsSwap = previousStarts;
+        previousStarts = starts;
+        starts = startsSwap;
+        int[] endsSwap = previousEnds;
+        previousEnds = ends;
+        ends = endsSwap;
+        boolean[] quotedSwap = previousQuoted;
+        previousQuoted = quoted;
+        quoted = quotedSwap;
+        previousFieldCount = fieldCount;
+        if (starts.length < previousStarts.length) {
+            starts = new int[previousStarts.length];
+            ends = new int[previousStarts.length];
+            quoted = new boolean[previousStarts.length];
+        }
+    }
+
+    private void growFields() {
+        int size = starts.length * 2;
+        starts = Arrays.copyOf(starts, size);
+        ends = Arrays.copyOf(ends, size);
+        quoted = Arrays.copyOf(quoted, size);
+    }
+
+    private boolean isBlankLine() {
+        for (int i = position; i < limit; i++) {
+            byte value = buffer.get(i);
+            if (value == '\n') {
+                return true;
+            }
+            if (value != ' ' && value != '\t' && value != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void skipLine() {
+        while (position < limit && buffer.get(position++) != '\n') {
+            // advance past the line terminator
+        }
+    }
+
+    private static boolean isDelimiter(byte value) {
+        return value == ',' || value == '\n' || value == '\r';
+    }
+}
@@ -0,0 +1,70 @@
+package com.timetracker.report.loader;
+
+import com.timetracker.aggregation.DayUsage;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded LRU cache of loaded days. Each entry remembers the version of its source (file size and mtime, or a
+ * row fingerprint) and is dropped as soon as the caller observes a different version.
+ */
+final class DayCache {
+
+    private final int capacity;
+    private final LinkedHashMap<LocalDate, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    DayCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must be >= 0");
+        }
+        this.capacity = capacity;
+    }
+
+    synchronized DayUsage get(LocalDate date, Object version) {
+        Entry entry = entries.get(date);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (!entry.version().equals(version)) {
+            entries.remove(date);
+            invalidations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.day();
+    }
+
+    synchronized void put(LocalDate date, Object version, DayUsage day) {
+        if (capacity == 0) {
+            return;
+        }
+        entries.put(date, new Entry(Objects.requireNonNull(version, "version"), day));
+        Iterator<Map.Entry<LocalDate, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > capacity) {
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized DayCacheStats stats() {
+        return new DayCacheStats(entries.size(), capacity, hits, misses, evictions, invalidations);
+    }
+
+    private record Entry(Object version, DayUsage day) {
+    }
+}
@@ -0,0 +1,10 @@
+package com.timetracker.report.loader;
+
+public record DayCacheStats(int size, int capacity, long hits, long misses, long evictions, long invalidations) {
+
+    @Override
+    public String toString() {
+        return String.format("days=%d/%d hits=%d misses=%d evictions=%d invalidations=%d",
+                size, capacity, hits, misses, evictions, invalidations);
+    }
+}
@@ -0,0 +1,167 @@
+package com.timetracker.report.loader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Small pool of long-lived read connections to the usage database. Connections are opened lazily, switched to
+ * {@code query_only} and keep their prepared statements, so repeated day loads only pay for the query itself.
+ * They read through the writer's WAL like any other SQLite connection.
+ */
+final class SqliteReadPool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteReadPool.class);
+
+    private static final long MMAP_SIZE_BYTES = 64L * 1024 * 1024;
+    private static final int CACHE_SIZE_KIB = 4096;
+    private static final int BUSY_TIMEOUT_MILLIS = 5000;
+
+    private final String url;
+    private final int maxConnections;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private int open;
+    private long opened;
+    private boolean closed;
+
+    SqliteReadPool(String databasePath, int maxConnections) {
+        Objects.requireNonNull(databasePath, "databasePath");
+        if (maxConnections <= 0) {
+            throw new IllegalArgumentException("maxConnections must be > 0");
+        }
+        this.url = "jdbc:sqlite:" + databasePath;
+        this.maxConnections = maxConnections;
+    }
+
+    <T> T query(String sql, StatementCallback<T> callback) throws SQLException {
+        PooledConnection connection = borrow();
+        boolean healthy = false;
+        try {
+            PreparedStatement statement = connection.statement(sql);
+            statement.clearParameters();
+            T result = callback.apply(statement);
+            healthy = true;
+            return result;
+        } finally {
+            release(connection, healthy);
+        }
+    }
+
+    /**
+     * Number of physical connections opened over the pool's lifetime.
+     */
+    synchronized long connectionsOpened() {
+        return opened;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        while (!idle.isEmpty()) {
+            idle.pop().closeQuietly();
+        }
+        notifyAll();
+    }
+
+    private PooledConnection borrow() throws SQLException {
+        synchronized (this) {
+            while (true) {
+                if (closed) {
+                    throw new SQLException("SQLite read pool is closed");
+                }
+                if (!idle.isEmpty()) {
+                    return idle.pop();
+                }
+                if (open < maxConnections) {
+                    open++;
+                    break;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a SQLite read connection", ex);
+                }
+            }
+        }
+        try {
+            PooledConnection connection = new PooledConnection(openConnection());
+            synchronized (this) {
+                opened++;
+            }
+            return connection;
+        } catch (SQLException | RuntimeException ex) {
+            synchronized (this) {
+                open--;
+                notifyAll();
+            }
+            throw ex;
+        }
+    }
+
+    private synchronized void release(PooledConnection connection, boolean healthy) {
+        if (healthy && !closed) {
+            idle.push(connection);
+        } else {
+            // A failed query may leave the connection in an unknown state; replace it on next use.
+            connection.closeQuietly();
+            open--;
+        }
+        notifyAll();
+    }
+
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout=" + BUSY_TIMEOUT_MILLIS);
+            statement.execute("PRAGMA query_only=ON");
+            statement.execute("PRAGMA mmap_size=" + MMAP_SIZE_BYTES);
+            statement.execute("PRAGMA cache_size=-" + CACHE_SIZE_KIB);
+        } catch (SQLException ex) {
+            connection.close();
+            throw ex;
+        }
+        return connection;
+    }
+
+    @FunctionalInterface
+    interface StatementCallback<T> {
+        T apply(PreparedStatement statement) throws SQLException;
+    }
+
+    private static final class PooledConnection {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+        }
+
+        private PreparedStatement statement(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        private void closeQuietly() {
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                log.debug("Failed to close SQLite read connection", ex);
+            }
+        }
+    }
+}
@@ -1,159 +1,564 @@
 package com.timetracker.report.loader;
 
+import com.timetracker.aggregation.DayUsage;
 import com.timetracker.aggregation.MinuteRecord;
 import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ApplicationDictionary;
 import com.timetracker.app.ResolvedApplication;
 import com.timetracker.config.AppConfig;
 import com.timetracker.config.StorageType;
+import com.timetracker.storage.csv.CsvArchive;
+import com.timetracker.storage.csv.CsvRollupStore;
+import com.timetracker.storage.retention.RetentionJob;
+import com.timetracker.storage.retention.RollupStore;
+import com.timetracker.storage.sqlite.SqlitePartitions;
+import com.timetracker.storage.sqlite.SqliteRollupStore;
 import org.apache.commons.lang3.StringUtils;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 
-public class UsageDataLoader {
+public class UsageDataLoader implements AutoCloseable {
 
     private static final DateTimeFormatter FOLDER_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
     private static final DateTimeFormatter MINUTE_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
 
+    private static final String SELECT_DAY_SQL = """
+            SELECT date, minute, status, app_id, app_name, exe_path, active_seconds, idle_seconds, minutes, title_hash
+            FROM usage_minutes
+            WHERE date = ?
+            ORDER BY minute
+            """;
+
+    private static final String VERSION_SQL = """
+            SELECT COUNT(*), MAX(updated_at)
+            FROM usage_minutes
+            WHERE date = ?
+            """;
+
+    private static final int DEFAULT_CACHE_DAYS = 62;
+    private static final int SQLITE_READ_CONNECTIONS = 2;
+    private static final int MAX_SQLITE_FILES = 3;
+
+    private static final LocalTime[] MINUTES_OF_DAY = new LocalTime[24 * 60];
+
+    static {
+        for (int i = 0; i < MINUTES_OF_DAY.length; i++) {
+            MINUTES_OF_DAY[i] = LocalTime.of(i / 60, i % 60);
+        }
+    }
+
     private final AppConfig config;
+    private final ApplicationDictionary dictionary = ApplicationDictionary.global();
+    private final DayCache dayCache;
+    private final Clock clock;
+    // One pool per database file; with monthly partitions, the last few months read stay open.
+    private final Map<Path, SqliteReadPool> sqlitePools = new LinkedHashMap<>(8, 0.75f, true);
+    private final SqlitePartitions partitions;
+    private boolean unpartitionedRowsMoved;
+    // The archive of the month read last; a monthly report opens it once instead of one file per day.
+    private CsvArchive archive;
+    private FileVersion archiveVersion;
+    private RollupStore rollupStore;
 
     public UsageDataLoader(AppConfig config) {
+        this(config, DEFAULT_CACHE_DAYS);
+    }
+
+    public UsageDataLoader(AppConfig config, Clock clock) {
+        this(config, DEFAULT_CACHE_DAYS, clock);
+    }
+
+    public UsageDataLoader(AppConfig config, int cacheDays) {
+        this(config, cacheDays, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param clock decides which days are in the past and therefore immutable and cacheable
+     */
+    public UsageDataLoader(AppConfig config, int cacheDays, Clock clock) {
         this.config = Objects.requireNonNull(config, "config");
+        this.dayCache = new DayCache(cacheDays);
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.partitions = config.storage().sqlite() != null && config.storage().sqlite().partitioned()
+                ? new SqlitePartitions(Path.of(config.storage().sqlite().databasePath()))
+                : null;
     }
 
     public List<MinuteRecord> load(LocalDate date) throws IOException {
         Objects.requireNonNull(date, "date");
-        return switch (config.storage().type()) {
+        List<MinuteRecord> records = switch (config.storage().type()) {
             case CSV -> loadFromCsv(date);
             case SQLITE -> loadFromSqlite(date);
         };
+        if (records.isEmpty()) {
+            DayUsage rolledUp = rolledUp(date);
+            if (rolledUp != null) {
+                return rolledUp.toRecords();
+            }
+        }
+        return records;
     }
 
-    private List<MinuteRecord> loadFromCsv(LocalDate date) throws IOException {
+    /**
+     * Loads a day straight into its columnar form, without building per-minute objects. Days are cached until
+     * their source changes, so the returned instance is shared and must not be modified.
+     */
+    public DayUsage loadDay(LocalDate date) throws IOException {
+        Objects.requireNonNull(date, "date");
+        Object version = sourceVersion(date);
+        if (version != null) {
+            DayUsage cached = dayCache.get(date, version);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        DayUsage day = switch (config.storage().type()) {
+            case CSV -> loadDayFromCsv(date);
+            case SQLITE -> loadDayFromSqlite(date);
+        };
+        if (day.isEmpty()) {
+            // Rollups change tier without touching the minute source, so they are not cached under its version.
+            DayUsage rolledUp = rolledUp(date);
+            if (rolledUp != null) {
+                return rolledUp;
+            }
+        }
+        if (version != null) {
+            // The version was read before loading, so a concurrent write only makes the entry look stale.
+            dayCache.put(date, version, day);
+        }
+        return day;
+    }
+
+    /**
+     * The hourly and daily rollups that replace minute rows once they age out of retention.
+     */
+    public synchronized RollupStore rollupStore() {
+        if (rollupStore == null) {
+            rollupStore = switch (config.storage().type()) {
+                case CSV -> new CsvRollupStore(Path.of(config.storage().csv().rootDir()));
+                case SQLITE -> new SqliteRollupStore(config.storage().sqlite());
+            };
+        }
+        return rollupStore;
+    }
+
+    public DayCacheStats cacheStats() {
+        return dayCache.stats();
+    }
+
+    synchronized long sqliteConnectionsOpened() {
+        return sqlitePools.values().stream().mapToLong(SqliteReadPool::connectionsOpened).sum();
+    }
+
+    @Override
+    public void close() {
+        List<SqliteReadPool> pools;
+        RollupStore rollups;
+        synchronized (this) {
+            pools = new ArrayList<>(sqlitePools.values());
+            sqlitePools.clear();
+            rollups = rollupStore;
+            rollupStore = null;
+        }
+        pools.forEach(SqliteReadPool::close);
+        if (rollups != null) {
+            try {
+                rollups.close();
+            } catch (IOException ex) {
+                // Nothing was pending; the store only held a connection.
+            }
+        }
+        closeArchive();
+        dayCache.clear();
+    }
+
+    /**
+     * The pool for the file holding {@code date}, or null when that day's month has no partition yet.
+     */
+    private synchronized SqliteReadPool readPool(LocalDate date) throws IOException {
+        if (partitions != null && !unpartitionedRowsMoved) {
+            // Days are only read from partitions, so rows from before partitioning must be moved into them first.
+            try {
+                partitions.moveUnpartitionedRows();
+            } catch (SQLException ex) {
+                throw new IOException("Failed to move minute rows into monthly partitions", ex);
+            }
+            unpartitionedRowsMoved = true;
+        }
+        Path file = partitions == null
+                ? Path.of(config.storage().sqlite().databasePath())
+                : partitions.fileFor(date);
+        SqliteReadPool pool = sqlitePools.get(file);
+        if (pool == null) {
+            if (partitions != null && Files.notExists(file)) {
+                return null;
+            }
+            pool = new SqliteReadPool(file.toString(), SQLITE_READ_CONNECTIONS);
+            sqlitePools.put(file, pool);
+            if (sqlitePools.size() > MAX_SQLITE_FILES) {
+                Iterator<SqliteReadPool> eldest = sqlitePools.values().iterator();
+                eldest.next().close();
+                eldest.remove();
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Returns a value that changes whenever the stored data for the day may have changed, or null when the
+     * day should not be cached.
+     */
+    private Object sourceVersion(LocalDate date) throws IOException {
+        return switch (config.storage().type()) {
+            case CSV -> {
+                FileVersion file = fileVersion(csvFile(date));
+                FileVersion archived = fileVersion(archiveFile(date));
+                yield file == null && archived == null ? null : new CsvVersion(file, archived);
+            }
+            // updated_at has second resolution, so only closed days are fingerprinted for SQLite.
+            case SQLITE -> date.isBefore(LocalDate.now(clock)) ? sqliteVersion(date) : null;
+        };
+    }
+
+    private RowVersion sqliteVersion(LocalDate date) throws IOException {
+        SqliteReadPool pool = readPool(date);
+        if (pool == null) {
+            return null;
+        }
+        try {
+            return pool.query(VERSION_SQL, statement -> {
+                statement.setString(1, date.toString());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return new RowVersion(resultSet.getLong(1), resultSet.getString(2));
+                }
+            });
+        } catch (SQLException ex) {
+            throw new IOException("Failed to read usage data version from SQLite", ex);
+        }
+    }
+
+    private static FileVersion fileVersion(Path file) throws IOException {
+        if (Files.notExists(file)) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        return new FileVersion(attributes.size(), attributes.lastModifiedTime().toMillis());
+    }
+
+    private Path archiveFile(LocalDate date) {
+        return CsvArchive.fileFor(Path.of(config.storage().csv().rootDir()), YearMonth.from(date));
+    }
+
+    /**
+     * Returns the archived copy of a day, or null when its month has no archive or the day is not in it.
+     */
+    private synchronized byte[] archivedDay(LocalDate date) throws IOException {
+        Path file = archiveFile(date);
+        FileVersion version = fileVersion(file);
+        if (version == null) {
+            return null;
+        }
+        if (archive == null || !archive.file().equals(file) || !version.equals(archiveVersion)) {
+            closeArchive();
+            archive = CsvArchive.open(file);
+            archiveVersion = version;
+        }
+        return archive.read(date);
+    }
+
+    private synchronized void closeArchive() {
+        if (archive != null) {
+            try {
+                archive.close();
+            } catch (IOException ex) {
+                // Read-only channel; nothing to recover.
+            }
+            archive = null;
+            archiveVersion = null;
+        }
+    }
+
+    /**
+     * The rolled-up view of a past day that has no minute rows left, or null when there is none.
+     */
+    private DayUsage rolledUp(LocalDate date) throws IOException {
+        if (!date.isBefore(LocalDate.now(clock))) {
+            return null;
+        }
+        return RetentionJob.fromRollups(rollupStore(), date, dictionary);
+    }
+
+    private Path csvFile(LocalDate date) {
         Path root = Path.of(config.storage().csv().rootDir());
         Path directory = root
                 .resolve(Integer.toString(date.getYear()))
                 .resolve(date.format(FOLDER_FORMAT));
-        Path file = directory.resolve(date.format(FOLDER_FORMAT) + ".csv");
-        if (Files.notExists(file)) {
+        return directory.resolve(date.format(FOLDER_FORMAT) + ".csv");
+    }
+
+    private List<MinuteRecord> loadFromCsv(LocalDate date) throws IOException {
+        byte[] archived = archivedDay(date);
+        Path file = csvFile(date);
+        boolean hasFile = Files.exists(file);
+        if (archived == null && !hasFile) {
             return List.of();
         }
 
         List<MinuteRecord> records = new ArrayList<>();
-        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
-            String line;
-            boolean header = true;
-            while ((line = reader.readLine()) != null) {
-                if (header) {
-                    header = false;
-                    continue;
-                }
-                if (line.isBlank()) {
-                    continue;
+        // Position of each minute's row; a later row for the same minute supersedes it, as SQLite's upsert does.
+        int[] positions = new int[DayUsage.MINUTES_PER_DAY];
+        Arrays.fill(positions, -1);
+        // Rows written after the day was archived live in a plain file again and supersede the archived ones.
+        if (archived != null) {
+            readRecords(CsvDayReader.of(ByteBuffer.wrap(archived)), date, records, positions);
+        }
+        if (hasFile) {
+            readRecords(CsvDayReader.open(file), date, records, positions);
+        }
+        return records;
+    }
+
+    private void readRecords(CsvDayReader reader, LocalDate date, List<MinuteRecord> records, int[] positions) {
+        MinuteRecord previous = null;
+        while (reader.next()) {
+            previous = readRecord(reader, previous);
+            if (!date.equals(previous.date())) {
+                records.add(previous);
+                continue;
+            }
+            int minuteOfDay = previous.minute().getHour() * 60 + previous.minute().getMinute();
+            if (positions[minuteOfDay] >= 0) {
+                records.set(positions[minuteOfDay], previous);
+            } else {
+                positions[minuteOfDay] = records.size();
+                records.add(previous);
+            }
+        }
+    }
+
+    private DayUsage loadDayFromCsv(LocalDate date) throws IOException {
+        DayUsage day = new DayUsage(date, dictionary);
+        byte[] archived = archivedDay(date);
+        if (archived != null) {
+            readDay(CsvDayReader.of(ByteBuffer.wrap(archived)), date, day);
+        }
+        Path file = csvFile(date);
+        if (Files.exists(file)) {
+            readDay(CsvDayReader.open(file), date, day);
+        }
+        return day;
+    }
+
+    private void readDay(CsvDayReader reader, LocalDate date, DayUsage day) {
+        LocalDate rowDate = null;
+        int applicationId = ApplicationDictionary.NO_ID;
+        boolean applicationCached = false;
+        while (reader.next()) {
+            rowDate = reader.date(CsvDayReader.DATE, rowDate);
+            MinuteStatus status = reader.status(CsvDayReader.STATUS);
+            if (status == MinuteStatus.ACTIVE) {
+                if (!applicationCached || !reader.sameAsPrevious(CsvDayReader.APP_ID, CsvDayReader.EXE_PATH)) {
+                    applicationId = buildApplication(status,
+                            reader.text(CsvDayReader.APP_ID),
+                            reader.text(CsvDayReader.APP_NAME),
+                            reader.text(CsvDayReader.EXE_PATH))
+                            .map(dictionary::applicationId)
+                            .orElse(ApplicationDictionary.NO_ID);
                 }
-                List<String> columns = parseCsvLine(line);
-                records.add(buildRecord(columns));
+                applicationCached = true;
+            } else {
+                applicationCached = false;
+            }
+            if (!date.equals(rowDate)) {
+                continue;
             }
+            int minuteOfDay = reader.minuteOfDay(CsvDayReader.MINUTE);
+            if (minuteOfDay < 0) {
+                LocalTime minute = LocalTime.parse(reader.text(CsvDayReader.MINUTE), MINUTE_FORMAT);
+                minuteOfDay = minute.getHour() * 60 + minute.getMinute();
+            }
+            // set() overwrites, so a superseding row for the same minute wins.
+            day.set(minuteOfDay, status,
+                    status == MinuteStatus.ACTIVE ? applicationId : ApplicationDictionary.NO_ID,
+                    reader.integer(CsvDayReader.ACTIVE_SECONDS),
+                    reader.integer(CsvDayReader.IDLE_SECONDS),
+                    Math.max(1, reader.integer(CsvDayReader.MINUTES)));
         }
-        return records;
+    }
+
+    private DayUsage loadDayFromSqlite(LocalDate date) throws IOException {
+        DayUsage day = new DayUsage(date, dictionary);
+        SqliteReadPool pool = readPool(date);
+        if (pool == null) {
+            return day;
+        }
+        try {
+            pool.query(SELECT_DAY_SQL, statement -> {
+                statement.setString(1, date.toString());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        LocalTime minute = parseMinute(resultSet.getString("minute"));
+                        MinuteStatus status = parseStatus(resultSet.getString("status"));
+                        int applicationId = buildApplication(status,
+                                resultSet.getString("app_id"),
+                                resultSet.getString("app_name"),
+                                resultSet.getString("exe_path"))
+                                .map(dictionary::applicationId)
+                                .orElse(ApplicationDictionary.NO_ID);
+                        day.set(minute.getHour() * 60 + minute.getMinute(), status, applicationId,
+                                resultSet.getInt("active_seconds"),
+                                resultSet.getInt("idle_seconds"),
+                                Math.max(1, resultSet.getInt("minutes")));
+                    }
+                }
+                return day;
+            });
+        } catch (SQLException ex) {
+            throw new IOException("Failed to read usage data from SQLite", ex);
+        }
+        return day;
     }
 
     private List<MinuteRecord> loadFromSqlite(LocalDate date) throws IOException {
-        String url = "jdbc:sqlite:" + config.storage().sqlite().databasePath();
         List<MinuteRecord> records = new ArrayList<>();
-        try (Connection connection = DriverManager.getConnection(url);
-             PreparedStatement statement = connection.prepareStatement("""
-                     SELECT date, minute, status, app_id, app_name, exe_path, active_seconds, idle_seconds, title_hash
-                     FROM usage_minutes
-                     WHERE date = ?
-                     ORDER BY minute
-                     """)) {
-            statement.setString(1, date.toString());
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    records.add(mapRow(resultSet));
+        SqliteReadPool pool = readPool(date);
+        if (pool == null) {
+            return records;
+        }
+        try {
+            pool.query(SELECT_DAY_SQL, statement -> {
+                statement.setString(1, date.toString());
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    MinuteRecord previous = null;
+                    while (resultSet.next()) {
+                        previous = mapRow(resultSet, previous);
+                        // Rows stored as runs come back one record per minute, like every other day.
+                        records.addAll(previous.perMinute());
+                    }
                 }
-            }
+                return records;
+            });
         } catch (SQLException ex) {
             throw new IOException("Failed to read usage data from SQLite", ex);
         }
         return records;
     }
 
-    private MinuteRecord mapRow(ResultSet resultSet) throws SQLException {
-        LocalDate date = LocalDate.parse(resultSet.getString("date"));
-        LocalTime minute = LocalTime.parse(resultSet.getString("minute"), MINUTE_FORMAT);
+    private MinuteRecord mapRow(ResultSet resultSet, MinuteRecord previous) throws SQLException {
+        LocalDate date = parseDate(resultSet.getString("date"), previous);
+        LocalTime minute = parseMinute(resultSet.getString("minute"));
         MinuteStatus status = parseStatus(resultSet.getString("status"));
         String appId = resultSet.getString("app_id");
         String appName = resultSet.getString("app_name");
         String exePath = resultSet.getString("exe_path");
         int activeSeconds = resultSet.getInt("active_seconds");
         int idleSeconds = resultSet.getInt("idle_seconds");
+        int minutes = Math.max(1, resultSet.getInt("minutes"));
         String titleHash = resultSet.getString("title_hash");
 
         Optional<ResolvedApplication> application = buildApplication(status, appId, appName, exePath);
-        Optional<String> title = Optional.ofNullable(titleHash).filter(StringUtils::isNotBlank);
-
-        return new MinuteRecord(date, minute, status, application, activeSeconds, idleSeconds, title);
-    }
-
-    private MinuteRecord buildRecord(List<String> columns) {
-        String dateValue = getColumn(columns, 0);
-        String minuteValue = getColumn(columns, 1);
-        String statusValue = getColumn(columns, 2);
-        String appId = getColumn(columns, 3);
-        String appName = getColumn(columns, 4);
-        String exePath = getColumn(columns, 5);
-        String activeSecondsValue = getColumn(columns, 7);
-        String idleSecondsValue = getColumn(columns, 8);
-        String titleHash = getColumn(columns, 9);
-
-        LocalDate date = LocalDate.parse(dateValue);
-        LocalTime minute = LocalTime.parse(minuteValue, MINUTE_FORMAT);
-        MinuteStatus status = parseStatus(statusValue);
-        int activeSeconds = parseInt(activeSecondsValue);
-        int idleSeconds = parseInt(idleSecondsValue);
-        Optional<ResolvedApplication> application = buildApplication(status, appId, appName, exePath);
-        Optional<String> title = Optional.ofNullable(titleHash).filter(StringUtils::isNotBlank);
+        Optional<String> title = dictionary.internTitleHash(titleHash);
+
+        return new MinuteRecord(date, minute, status, application, activeSeconds, idleSeconds, title, minutes);
+    }
+
+    private MinuteRecord readRecord(CsvDayReader reader, MinuteRecord previous) {
+        LocalDate date = reader.date(CsvDayReader.DATE, previous == null ? null : previous.date());
+        int minuteOfDay = reader.minuteOfDay(CsvDayReader.MINUTE);
+        LocalTime minute = minuteOfDay >= 0
+                ? MINUTES_OF_DAY[minuteOfDay]
+                : LocalTime.parse(reader.text(CsvDayReader.MINUTE), MINUTE_FORMAT);
+        MinuteStatus status = reader.status(CsvDayReader.STATUS);
+        int activeSeconds = reader.integer(CsvDayReader.ACTIVE_SECONDS);
+        int idleSeconds = reader.integer(CsvDayReader.IDLE_SECONDS);
+        int minutes = Math.max(1, reader.integer(CsvDayReader.MINUTES));
+
+        // Consecutive minutes usually repeat the application and title; skip decoding when the bytes match.
+        Optional<ResolvedApplication> application;
+        if (status != MinuteStatus.ACTIVE) {
+            application = Optional.empty();
+        } else if (previous != null && previous.application().isPresent()
+                && reader.sameAsPrevious(CsvDayReader.APP_ID, CsvDayReader.EXE_PATH)) {
+            application = previous.application();
+        } else {
+            application = buildApplication(status,
+                    reader.text(CsvDayReader.APP_ID),
+                    reader.text(CsvDayReader.APP_NAME),
+                    reader.text(CsvDayReader.EXE_PATH));
+        }
+        Optional<String> title = previous != null && reader.sameAsPrevious(CsvDayReader.TITLE_HASH, CsvDayReader.TITLE_HASH)
+                ? previous.windowTitleHash()
+                : dictionary.internTitleHash(reader.text(CsvDayReader.TITLE_HASH));
 
-        return new MinuteRecord(date, minute, status, application, activeSeconds, idleSeconds, title);
+        return new MinuteRecord(date, minute, status, application, activeSeconds, idleSeconds, title, minutes);
     }
 
     private Optional<ResolvedApplication> buildApplication(MinuteStatus status,
                                                            String appId,
                                                            String appName,
                                                            String exePath) {
-        if (status == MinuteStatus.IDLE || StringUtils.isBlank(exePath)) {
+        if (status != MinuteStatus.ACTIVE || StringUtils.isBlank(exePath)) {
             return Optional.empty();
         }
         String normalized = exePath.toLowerCase(Locale.ROOT);
         String resolvedId = StringUtils.isNotBlank(appId) ? appId : normalized;
         String display = StringUtils.isNotBlank(appName) ? appName : deriveDisplayName(exePath);
         boolean aliasApplied = StringUtils.isNotBlank(appId) && !appId.equalsIgnoreCase(normalized);
-        ResolvedApplication application = new ResolvedApplication(
+        return dictionary.internOptional(new ResolvedApplication(
                 resolvedId,
                 display,
                 exePath,
                 normalized,
                 aliasApplied
-        );
-        return Optional.of(application);
+        ));
+    }
+
+    private LocalDate parseDate(String value, MinuteRecord previous) {
+        // Rows of one file share a date; reuse the previous instance instead of keeping one per row.
+        LocalDate date = LocalDate.parse(value);
+        return previous != null && previous.date().equals(date) ? previous.date() : date;
+    }
+
+    private LocalTime parseMinute(String value) {
+        if (value != null && value.length() == 5 && value.charAt(2) == ':') {
+            int hour = digits(value, 0);
+            int minute = digits(value, 3);
+            if (hour >= 0 && hour < 24 && minute >= 0 && minute < 60) {
+                return MINUTES_OF_DAY[hour * 60 + minute];
+            }
+        }
+        return LocalTime.parse(value, MINUTE_FORMAT);
+    }
+
+    private int digits(String value, int offset) {
+        char high = value.charAt(offset);
+        char low = value.charAt(offset + 1);
+        if (high < '0' || high > '9' || low < '0' || low > '9') {
+            return -1;
+        }
+        return (high - '0') * 10 + (low - '0');
     }
 
     private String deriveDisplayName(String exePath) {
@@ -191,34 +596,12 @@ public class UsageDataLoader {
         return MinuteStatus.valueOf(value.trim().toUpperCase(Locale.ROOT));
     }
 
-    private String getColumn(List<String> columns, int index) {
-        if (index < 0 || index >= columns.size()) {
-            return "";
-        }
-        return columns.get(index);
+    private record FileVersion(long size, long lastModifiedMillis) {
     }
 
-    private List<String> parseCsvLine(String line) {
-        List<String> columns = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean inQuotes = false;
-        for (int i = 0; i < line.length(); i++) {
-            char ch = line.charAt(i);
-            if (ch == '"') {
-                if (inQuotes && i + 1 < line.length() && line.charAt(i + 1) == '"') {
-                    current.append('"');
-                    i++;
-                } else {
-                    inQuotes = !inQuotes;
-                }
-            } else if (ch == ',' && !inQuotes) {
-                columns.add(current.toString());
-                current.setLength(0);
-            } else {
-                current.append(ch);
-            }
-        }
-        columns.add(current.toString());
-        return columns;
+    private record CsvVersion(FileVersion file, FileVersion archive) {
+    }
+
+    private record RowVersion(long rows, String lastUpdated) {
     }
 }
@@ -0,0 +1,58 @@
+package com.timetracker.sampling;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Compares wall-clock progress with monotonic progress between consecutive samples to tell a
+ * suspend/resume apart from a manual or NTP clock adjustment.
+ */
+public class ClockDiscontinuityDetector {
+
+    public enum Discontinuity {
+        NONE,
+        SUSPEND_RESUME,
+        WALL_CLOCK_FORWARD,
+        WALL_CLOCK_BACKWARD
+    }
+
+    private final long thresholdMillis;
+
+    private Instant lastWall;
+    private long lastMonotonicNanos;
+
+    public ClockDiscontinuityDetector(Duration threshold) {
+        if (threshold == null || threshold.isNegative() || threshold.isZero()) {
+            throw new IllegalArgumentException("threshold must be > 0");
+        }
+        this.thresholdMillis = threshold.toMillis();
+    }
+
+    public Discontinuity observe(Instant wall, long monotonicNanos) {
+        Instant previousWall = lastWall;
+        long previousMonotonic = lastMonotonicNanos;
+        lastWall = wall;
+        lastMonotonicNanos = monotonicNanos;
+        if (previousWall == null) {
+            return Discontinuity.NONE;
+        }
+        long wallDelta = Duration.between(previousWall, wall).toMillis();
+        long monotonicDelta = (monotonicNanos - previousMonotonic) / 1_000_000L;
+        if (wallDelta <= -thresholdMillis) {
+            return Discontinuity.WALL_CLOCK_BACKWARD;
+        }
+        if (wallDelta < thresholdMillis) {
+            return Discontinuity.NONE;
+        }
+        // Some platforms pause the monotonic clock while suspended, so a forward wall jump without
+        // monotonic progress is either a clock adjustment or such a suspend.
+        return monotonicDelta >= thresholdMillis
+                ? Discontinuity.SUSPEND_RESUME
+                : Discontinuity.WALL_CLOCK_FORWARD;
+    }
+
+    public void reset() {
+        lastWall = null;
+        lastMonotonicNanos = 0;
+    }
+}
@@ -0,0 +1,27 @@
+package com.timetracker.sampling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Receives push notifications from a {@link ForegroundEventSource}. Callbacks arrive on the source's thread
+ * and must return quickly.
+ */
+public interface ForegroundEventListener {
+
+    void onForegroundChanged(Instant timestamp, Optional<AppIdentity> app, Optional<String> windowTitle);
+
+    /**
+     * Called when the user crosses the idle threshold in either direction; {@code idleDuration} is the time
+     * since the last input at {@code timestamp}.
+     */
+    void onInputActivity(Instant timestamp, Duration idleDuration);
+
+    /**
+     * Called when the source could not observe anything between the two instants (suspend/hibernate).
+     */
+    default void onClockGap(Instant lastObserved, Instant resumedAt) {
+        // optional
+    }
+}
@@ -0,0 +1,17 @@
+package com.timetracker.sampling;
+
+/**
+ * Push-based alternative to {@link ForegroundSampler}: emits an event only when the foreground window or the
+ * idle state changes.
+ */
+public interface ForegroundEventSource extends AutoCloseable {
+
+    void start(ForegroundEventListener listener) throws SamplingException;
+
+    void stop();
+
+    @Override
+    default void close() {
+        stop();
+    }
+}
@@ -0,0 +1,137 @@
+package com.timetracker.sampling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Synthesizes foreground events from any polling {@link ForegroundSampler}: the native calls still run on
+ * every poll, but listeners only see changes.
+ */
+public class PollingForegroundEventSource implements ForegroundEventSource {
+
+    private static final Logger log = LoggerFactory.getLogger(PollingForegroundEventSource.class);
+
+    private final Supplier<ForegroundSampler> sampler;
+    private final IdleDetector idleDetector;
+    private final Duration interval;
+    private final Duration idleThreshold;
+    private final Duration gapThreshold;
+    private final Supplier<ScheduledExecutorService> executorFactory;
+
+    private ScheduledExecutorService executor;
+    private ForegroundEventListener listener;
+
+    private Instant lastPoll;
+    private boolean initialised;
+    private String lastExecutable;
+    private int lastProcessId;
+    private Optional<String> lastTitle = Optional.empty();
+    private boolean lastIdle;
+
+    public PollingForegroundEventSource(Supplier<ForegroundSampler> sampler,
+                                        IdleDetector idleDetector,
+                                        Duration interval,
+                                        Duration idleThreshold,
+                                        Duration gapThreshold) {
+        this(sampler, idleDetector, interval, idleThreshold, gapThreshold, () -> Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "foreground-events");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * @param executorFactory creates the polling timer on each {@link #start}; the source shuts it down on stop
+     */
+    public PollingForegroundEventSource(Supplier<ForegroundSampler> sampler,
+                                        IdleDetector idleDetector,
+                                        Duration interval,
+                                        Duration idleThreshold,
+                                        Duration gapThreshold,
+                                        Supplier<ScheduledExecutorService> executorFactory) {
+        this.sampler = Objects.requireNonNull(sampler, "sampler");
+        this.idleDetector = Objects.requireNonNull(idleDetector, "idleDetector");
+        this.interval = Objects.requireNonNull(interval, "interval");
+        this.idleThreshold = Objects.requireNonNull(idleThreshold, "idleThreshold");
+        this.gapThreshold = Objects.requireNonNull(gapThreshold, "gapThreshold");
+        this.executorFactory = Objects.requireNonNull(executorFactory, "executorFactory");
+    }
+
+    @Override
+    public synchronized void start(ForegroundEventListener listener) {
+        if (executor != null) {
+            return;
+        }
+        this.listener = Objects.requireNonNull(listener, "listener");
+        this.executor = executorFactory.get();
+        long intervalMillis = Math.max(1, interval.toMillis());
+        executor.scheduleAtFixedRate(this::safePoll, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+    }
+
+    private void safePoll() {
+        try {
+            poll();
+        } catch (SamplingException ex) {
+            log.warn("Sampling failed: {}", ex.getMessage());
+        } catch (RuntimeException ex) {
+            log.error("Unexpected error while polling foreground window", ex);
+        }
+    }
+
+    /**
+     * Performs one poll and emits whatever changed since the previous one. Must be called from a single thread.
+     */
+    void poll() throws SamplingException {
+        ForegroundSample sample = sampler.get().sample();
+        Duration idleDuration = idleDetector.timeSinceLastInput();
+        Instant now = sample.timestamp();
+
+        if (lastPoll != null && Duration.between(lastPoll, now).compareTo(gapThreshold) >= 0) {
+            listener.onClockGap(lastPoll, now);
+            initialised = false;
+        }
+        lastPoll = now;
+
+        boolean idle = idleDuration.compareTo(idleThreshold) >= 0;
+        if (!initialised || idle != lastIdle) {
+            lastIdle = idle;
+            listener.onInputActivity(now, idleDuration);
+        }
+
+        String executable = sample.app().map(AppIdentity::executablePath).orElse(null);
+        int processId = sample.app().map(AppIdentity::processId).orElse(0);
+        if (!initialised
+                || !Objects.equals(executable, lastExecutable)
+                || processId != lastProcessId
+                || !lastTitle.equals(sample.windowTitle())) {
+            lastExecutable = executable;
+            lastProcessId = processId;
+            lastTitle = sample.windowTitle();
+            listener.onForegroundChanged(now, sample.app(), sample.windowTitle());
+        }
+        initialised = true;
+    }
+}
@@ -0,0 +1,46 @@
+package com.timetracker.sampling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Event source driven explicitly by the caller, for tests and simulations. Events are delivered synchronously
+ * on the calling thread.
+ */
+public class SimulatedForegroundEventSource implements ForegroundEventSource {
+
+    private volatile ForegroundEventListener listener;
+
+    @Override
+    public void start(ForegroundEventListener listener) {
+        this.listener = Objects.requireNonNull(listener, "listener");
+    }
+
+    @Override
+    public void stop() {
+        this.listener = null;
+    }
+
+    public void focus(Instant timestamp, AppIdentity app, String windowTitle) {
+        ForegroundEventListener current = listener;
+        if (current != null) {
+            current.onForegroundChanged(timestamp, Optional.ofNullable(app), Optional.ofNullable(windowTitle));
+        }
+    }
+
+    public void input(Instant timestamp, Duration idleDuration) {
+        ForegroundEventListener current = listener;
+        if (current != null) {
+            current.onInputActivity(timestamp, idleDuration);
+        }
+    }
+
+    public void gap(Instant lastObserved, Instant resumedAt) {
+        ForegroundEventListener current = listener;
+        if (current != null) {
+            current.onClockGap(lastObserved, resumedAt);
+        }
+    }
+}
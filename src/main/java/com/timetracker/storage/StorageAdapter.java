@@ -8,6 +8,13 @@ public interface StorageAdapter extends AutoCloseable {
 
     void flush() throws StorageException;
 
+    /**
+     * Total bytes this adapter has written since it was created; adapters that cannot tell return zero.
+     */
+    default long bytesWritten() {
+        return 0;
+    }
+
     @Override
     default void close() throws StorageException {
         flush();
@@ -0,0 +1,65 @@
+package com.timetracker.storage;
+
+import com.timetracker.aggregation.MinuteRecord;
+
+import java.util.Objects;
+
+/**
+ * Forwards to an adapter that can be replaced while records keep arriving. Replacing it takes the same lock as
+ * {@link #persist} and {@link #flush}, so every record lands in exactly one adapter: the old one is flushed first
+ * and the new one receives everything after.
+ */
+public final class SwitchableStorageAdapter implements StorageAdapter {
+
+    /**
+     * Runs under the adapter's lock between flushing the previous adapter and routing to the next one.
+     */
+    @FunctionalInterface
+    public interface Handover {
+
+        void transfer(StorageAdapter previous, StorageAdapter next) throws StorageException;
+    }
+
+    private StorageAdapter current;
+    // Bytes written by adapters that were switched away from.
+    private long retiredBytes;
+
+    public SwitchableStorageAdapter(StorageAdapter initial) {
+        this.current = Objects.requireNonNull(initial, "initial");
+    }
+
+    @Override
+    public synchronized void persist(MinuteRecord record) throws StorageException {
+        current.persist(record);
+    }
+
+    @Override
+    public synchronized void flush() throws StorageException {
+        current.flush();
+    }
+
+    @Override
+    public synchronized long bytesWritten() {
+        return retiredBytes + current.bytesWritten();
+    }
+
+    /**
+     * Flushes the current adapter, runs {@code handover} and then routes every further call to {@code next}.
+     * If either step fails nothing is switched and the caller still owns {@code next}; otherwise the previous
+     * adapter is returned for the caller to close.
+     */
+    public synchronized StorageAdapter swap(StorageAdapter next, Handover handover) throws StorageException {
+        Objects.requireNonNull(next, "next");
+        StorageAdapter previous = current;
+        previous.flush();
+        handover.transfer(previous, next);
+        retiredBytes += previous.bytesWritten();
+        current = next;
+        return previous;
+    }
+
+    @Override
+    public synchronized void close() throws StorageException {
+        current.close();
+    }
+}
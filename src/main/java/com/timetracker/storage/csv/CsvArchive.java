@@ -0,0 +1,229 @@
+package com.timetracker.storage.csv;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One month of closed CSV days in a single file: a fixed index of 31 (offset, compressed length, raw length)
+ * entries followed by one independently deflated block per day, so any day can be read with a single
+ * positioned read. Each block holds the day file exactly as it was written, header included.
+ */
+public final class CsvArchive implements Closeable {
+
+    public static final String SUFFIX = ".archive";
+
+    private static final int MAGIC = 0x54544131; // "TTA1"
+    private static final int DAYS = 31;
+    private static final int ENTRY_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES + DAYS * ENTRY_BYTES;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final Path file;
+    private final FileChannel channel;
+    private final YearMonth month;
+    private final long[] offsets = new long[DAYS];
+    private final int[] compressedLengths = new int[DAYS];
+    private final int[] rawLengths = new int[DAYS];
+
+    private CsvArchive(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Not a CSV archive: " + file);
+        }
+        int epochMonth = header.getInt();
+        this.month = YearMonth.of(Math.floorDiv(epochMonth, 12), Math.floorMod(epochMonth, 12) + 1);
+        for (int i = 0; i < DAYS; i++) {
+            offsets[i] = header.getLong();
+            compressedLengths[i] = header.getInt();
+            rawLengths[i] = header.getInt();
+        }
+    }
+
+    /**
+     * Where the archive for {@code month} lives under a CSV root: next to the per-day directories of its year.
+     */
+    public static Path fileFor(Path rootDir, YearMonth month) {
+        return rootDir.resolve(Integer.toString(month.getYear())).resolve(month.format(MONTH_FORMAT) + SUFFIX);
+    }
+
+    public static CsvArchive open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new CsvArchive(file, channel);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public YearMonth month() {
+        return month;
+    }
+
+    public boolean contains(LocalDate date) {
+        return YearMonth.from(date).equals(month) && offsets[date.getDayOfMonth() - 1] > 0;
+    }
+
+    public List<LocalDate> days() {
+        List<LocalDate> days = new ArrayList<>();
+        for (int i = 0; i < DAYS; i++) {
+            if (offsets[i] > 0) {
+                days.add(month.atDay(i + 1));
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Returns the day file as it was archived, or {@code null} when the day is not in this archive.
+     */
+    public byte[] read(LocalDate date) throws IOException {
+        if (!contains(date)) {
+            return null;
+        }
+        int index = date.getDayOfMonth() - 1;
+        byte[] compressed = compressed(index);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLengths[index]];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != raw.length) {
+                throw new IOException("Truncated block for " + date + " in " + file);
+            }
+            return raw;
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt block for " + date + " in " + file, ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The stored block of a day, for copying it into a rewritten archive without inflating it.
+     */
+    Block block(LocalDate date) throws IOException {
+        int index = date.getDayOfMonth() - 1;
+        return new Block(compressed(index), rawLengths[index]);
+    }
+
+    /**
+     * Writes a complete archive for {@code month} next to {@code file} and moves it into place, so readers see
+     * either the previous archive or the new one.
+     */
+    static void write(Path file, YearMonth month, Map<Integer, Block> blocksByDay) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putInt(month.getYear() * 12 + month.getMonthValue() - 1);
+        long offset = HEADER_BYTES;
+        for (int day = 1; day <= DAYS; day++) {
+            Block block = blocksByDay.get(day);
+            if (block == null) {
+                header.putLong(0).putInt(0).putInt(0);
+                continue;
+            }
+            header.putLong(offset).putInt(block.compressed().length).putInt(block.rawLength());
+            offset += block.compressed().length;
+        }
+        header.flip();
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel output = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(output, header);
+            for (int day = 1; day <= DAYS; day++) {
+                Block block = blocksByDay.get(day);
+                if (block != null) {
+                    writeFully(output, ByteBuffer.wrap(block.compressed()));
+                }
+            }
+            output.force(true);
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static Block compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream output = new ByteArrayOutputStream(Math.max(64, raw.length / 8));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(chunk);
+                output.write(chunk, 0, length);
+            }
+            return new Block(output.toByteArray(), raw.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private byte[] compressed(int index) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(compressedLengths[index]);
+        readFully(buffer, offsets[index]);
+        return buffer.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, at);
+            if (read < 0) {
+                throw new IOException("Unexpected end of CSV archive: " + file);
+            }
+            at += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    record Block(byte[] compressed, int rawLength) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.timetracker.storage.csv;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Rolls closed CSV days into their monthly {@link CsvArchive} and removes the per-day directories. A day that
+ * reappears after it was archived (a late write) is merged by appending its rows to the archived block, which
+ * readers resolve last-writer-wins like any other superseding row.
+ */
+public final class CsvArchiveCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvArchiveCompactor.class);
+
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final Path rootDir;
+    private final int archiveAfterDays;
+    private final Clock clock;
+
+    /**
+     * @param archiveAfterDays days older than this many days before today are archived; at least 1
+     */
+    public CsvArchiveCompactor(Path rootDir, int archiveAfterDays, Clock clock) {
+        this.rootDir = Objects.requireNonNull(rootDir, "rootDir").toAbsolutePath();
+        if (archiveAfterDays < 1) {
+            throw new IllegalArgumentException("archiveAfterDays must be >= 1");
+        }
+        this.archiveAfterDays = archiveAfterDays;
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    /**
+     * Archives every eligible day and returns how many day files were rolled up.
+     */
+    public int compact() throws IOException {
+        if (!Files.isDirectory(rootDir)) {
+            return 0;
+        }
+        LocalDate cutoff = LocalDate.now(clock).minusDays(archiveAfterDays);
+        Map<YearMonth, Map<LocalDate, Path>> byMonth = new TreeMap<>();
+        try (DirectoryStream<Path> years = Files.newDirectoryStream(rootDir, CsvArchiveCompactor::isYearDirectory)) {
+            for (Path year : years) {
+                try (DirectoryStream<Path> days = Files.newDirectoryStream(year, Files::isDirectory)) {
+                    for (Path dayDir : days) {
+                        LocalDate date = parseDay(dayDir.getFileName().toString());
+                        Path csv = dayDir.resolve(dayDir.getFileName() + ".csv");
+                        if (date != null && date.isBefore(cutoff) && Files.isRegularFile(csv)) {
+                            byMonth.computeIfAbsent(YearMonth.from(date), month -> new TreeMap<>()).put(date, csv);
+                        }
+                    }
+                }
+            }
+        }
+        int archived = 0;
+        for (Map.Entry<YearMonth, Map<LocalDate, Path>> month : byMonth.entrySet()) {
+            archived += compactMonth(month.getKey(), month.getValue());
+        }
+        if (archived > 0) {
+            log.info("Archived {} CSV day(s) into {} monthly archive(s)", archived, byMonth.size());
+        }
+        return archived;
+    }
+
+    private int compactMonth(YearMonth month, Map<LocalDate, Path> dayFiles) throws IOException {
+        Path archiveFile = CsvArchive.fileFor(rootDir, month);
+        Map<Integer, CsvArchive.Block> blocks = new TreeMap<>();
+        boolean changed = false;
+        CsvArchive existing = Files.exists(archiveFile) ? CsvArchive.open(archiveFile) : null;
+        try {
+            if (existing != null) {
+                for (LocalDate day : existing.days()) {
+                    blocks.put(day.getDayOfMonth(), existing.block(day));
+                }
+            }
+            for (Map.Entry<LocalDate, Path> day : dayFiles.entrySet()) {
+                byte[] raw = Files.readAllBytes(day.getValue());
+                byte[] archived = existing == null ? null : existing.read(day.getKey());
+                byte[] rows = withoutHeader(raw);
+                if (archived != null && endsWith(archived, rows)) {
+                    // Left behind by an earlier run that archived or merged it but could not delete it.
+                    continue;
+                }
+                byte[] merged = archived == null ? raw : append(archived, rows);
+                blocks.put(day.getKey().getDayOfMonth(), CsvArchive.compress(merged));
+                changed = true;
+            }
+        } finally {
+            if (existing != null) {
+                existing.close();
+            }
+        }
+        if (changed) {
+            CsvArchive.write(archiveFile, month, blocks);
+        }
+        for (Path csv : dayFiles.values()) {
+            deleteDay(csv);
+        }
+        return dayFiles.size();
+    }
+
+    private static void deleteDay(Path csv) throws IOException {
+        Files.deleteIfExists(MinuteOccupancy.sidecarOf(csv));
+        Files.deleteIfExists(csv);
+        try {
+            Files.deleteIfExists(csv.getParent());
+        } catch (DirectoryNotEmptyException ex) {
+            log.debug("Keeping {}; it holds more than the day file", csv.getParent());
+        }
+    }
+
+    private static byte[] withoutHeader(byte[] raw) {
+        for (int i = 0; i < raw.length; i++) {
+            if (raw[i] == '\n') {
+                return Arrays.copyOfRange(raw, i + 1, raw.length);
+            }
+        }
+        return new byte[0];
+    }
+
+    private static boolean endsWith(byte[] bytes, byte[] suffix) {
+        return suffix.length <= bytes.length
+                && Arrays.equals(bytes, bytes.length - suffix.length, bytes.length, suffix, 0, suffix.length);
+    }
+
+    private static byte[] append(byte[] first, byte[] second) {
+        boolean needsNewline = first.length > 0 && first[first.length - 1] != '\n';
+        byte[] merged = Arrays.copyOf(first, first.length + (needsNewline ? 1 : 0) + second.length);
+        if (needsNewline) {
+            merged[first.length] = '\n';
+        }
+        System.arraycopy(second, 0, merged, merged.length - second.length, second.length);
+        return merged;
+    }
+
+    private static boolean isYearDirectory(Path path) {
+        String name = path.getFileName().toString();
+        return name.length() == 4 && name.chars().allMatch(Character::isDigit) && Files.isDirectory(path);
+    }
+
+    private static LocalDate parseDay(String name) {
+        if (name.length() != 8) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(name, DAY_FORMAT);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
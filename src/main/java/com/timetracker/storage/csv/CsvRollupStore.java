@@ -0,0 +1,318 @@
+package com.timetracker.storage.csv;
+
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.storage.retention.RollupStore;
+import com.timetracker.storage.retention.UsageRollup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Retention tiers next to the CSV day files: hourly rollups in {@code YYYY/YYYYMM.hourly.csv} and daily totals in
+ * {@code YYYY/YYYY.daily.csv}. A rolled-up day replaces any rows it already had in those files, so a run that is
+ * interrupted between writing the rollups and deleting the minutes simply repeats the day.
+ */
+public final class CsvRollupStore implements RollupStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CsvRollupStore.class);
+
+    private static final String HOURLY_SUFFIX = ".hourly.csv";
+    private static final String DAILY_SUFFIX = ".daily.csv";
+
+    private static final String HEADER =
+            "date,hour,status,app_id,app_name,exe_path,minutes,active_seconds,idle_seconds";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final Path rootDir;
+
+    public CsvRollupStore(Path rootDir) {
+        this.rootDir = Objects.requireNonNull(rootDir, "rootDir").toAbsolutePath();
+    }
+
+    @Override
+    public synchronized List<LocalDate> minuteDaysBefore(LocalDate cutoff, int limit) throws IOException {
+        TreeSet<LocalDate> days = new TreeSet<>();
+        if (!Files.isDirectory(rootDir)) {
+            return List.of();
+        }
+        try (DirectoryStream<Path> years = Files.newDirectoryStream(rootDir, CsvRollupStore::isYearDirectory)) {
+            for (Path year : years) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(year)) {
+                    for (Path entry : entries) {
+                        String name = entry.getFileName().toString();
+                        if (Files.isDirectory(entry)) {
+                            LocalDate date = parseDay(name);
+                            if (date != null && date.isBefore(cutoff)
+                                    && Files.isRegularFile(entry.resolve(name + ".csv"))) {
+                                days.add(date);
+                            }
+                        } else if (name.endsWith(CsvArchive.SUFFIX)) {
+                            try (CsvArchive archive = CsvArchive.open(entry)) {
+                                archive.days().stream().filter(date -> date.isBefore(cutoff)).forEach(days::add);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return days.stream().limit(limit).toList();
+    }
+
+    @Override
+    public synchronized void replaceMinutes(LocalDate date, List<UsageRollup> hourly, List<UsageRollup> daily)
+            throws IOException {
+        replaceDay(hourlyFile(YearMonth.from(date)), date, hourly);
+        replaceDay(dailyFile(date.getYear()), date, daily);
+        deleteMinutes(date);
+    }
+
+    @Override
+    public synchronized int dropHourlyBefore(LocalDate cutoff) throws IOException {
+        if (!Files.isDirectory(rootDir)) {
+            return 0;
+        }
+        int dropped = 0;
+        try (DirectoryStream<Path> years = Files.newDirectoryStream(rootDir, CsvRollupStore::isYearDirectory)) {
+            for (Path year : years) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(year, "*" + HOURLY_SUFFIX)) {
+                    for (Path file : files) {
+                        dropped += dropBefore(file, cutoff);
+                    }
+                }
+            }
+        }
+        return dropped;
+    }
+
+    @Override
+    public synchronized List<LocalDate> rolledUpDays() throws IOException {
+        TreeSet<LocalDate> days = new TreeSet<>();
+        if (!Files.isDirectory(rootDir)) {
+            return List.of();
+        }
+        try (DirectoryStream<Path> years = Files.newDirectoryStream(rootDir, CsvRollupStore::isYearDirectory)) {
+            for (Path year : years) {
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(year, "*.{hourly,daily}.csv")) {
+                    for (Path file : files) {
+                        days.addAll(read(file).keySet());
+                    }
+                }
+            }
+        }
+        return List.copyOf(days);
+    }
+
+    @Override
+    public synchronized List<UsageRollup> hourly(LocalDate date) throws IOException {
+        return read(hourlyFile(YearMonth.from(date))).getOrDefault(date, List.of());
+    }
+
+    @Override
+    public synchronized List<UsageRollup> daily(LocalDate date) throws IOException {
+        return read(dailyFile(date.getYear())).getOrDefault(date, List.of());
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private Path hourlyFile(YearMonth month) {
+        return rootDir.resolve(Integer.toString(month.getYear())).resolve(month.format(MONTH_FORMAT) + HOURLY_SUFFIX);
+    }
+
+    private Path dailyFile(int year) {
+        return rootDir.resolve(Integer.toString(year)).resolve(year + DAILY_SUFFIX);
+    }
+
+    private void replaceDay(Path file, LocalDate date, List<UsageRollup> rollups) throws IOException {
+        Map<LocalDate, List<UsageRollup>> rows = read(file);
+        if (rollups.isEmpty()) {
+            rows.remove(date);
+        } else {
+            rows.put(date, rollups);
+        }
+        write(file, rows);
+    }
+
+    private int dropBefore(Path file, LocalDate cutoff) throws IOException {
+        Map<LocalDate, List<UsageRollup>> rows = read(file);
+        int before = rows.size();
+        rows.keySet().removeIf(date -> date.isBefore(cutoff));
+        int dropped = before - rows.size();
+        if (dropped > 0) {
+            write(file, rows);
+        }
+        return dropped;
+    }
+
+    /**
+     * Removes the minute-level copy of a day: its day directory and, when it was already archived, its block in
+     * the month archive.
+     */
+    private void deleteMinutes(LocalDate date) throws IOException {
+        Path dayDir = rootDir.resolve(Integer.toString(date.getYear())).resolve(date.format(DAY_FORMAT));
+        Path csv = dayDir.resolve(dayDir.getFileName() + ".csv");
+        Files.deleteIfExists(MinuteOccupancy.sidecarOf(csv));
+        Files.deleteIfExists(csv);
+        try {
+            Files.deleteIfExists(dayDir);
+        } catch (DirectoryNotEmptyException ex) {
+            log.debug("Keeping {}; it holds more than the day file", dayDir);
+        }
+
+        YearMonth month = YearMonth.from(date);
+        Path archiveFile = CsvArchive.fileFor(rootDir, month);
+        if (!Files.exists(archiveFile)) {
+            return;
+        }
+        Map<Integer, CsvArchive.Block> remaining = new TreeMap<>();
+        try (CsvArchive archive = CsvArchive.open(archiveFile)) {
+            if (!archive.contains(date)) {
+                return;
+            }
+            for (LocalDate day : archive.days()) {
+                if (!day.equals(date)) {
+                    remaining.put(day.getDayOfMonth(), archive.block(day));
+                }
+            }
+        }
+        if (remaining.isEmpty()) {
+            Files.delete(archiveFile);
+        } else {
+            CsvArchive.write(archiveFile, month, remaining);
+        }
+    }
+
+    private static Map<LocalDate, List<UsageRollup>> read(Path file) throws IOException {
+        Map<LocalDate, List<UsageRollup>> rows = new TreeMap<>();
+        if (!Files.isRegularFile(file)) {
+            return rows;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (int i = 1; i < lines.size(); i++) {
+            if (lines.get(i).isBlank()) {
+                continue;
+            }
+            try {
+                UsageRollup rollup = parse(lines.get(i));
+                rows.computeIfAbsent(rollup.date(), date -> new ArrayList<>()).add(rollup);
+            } catch (RuntimeException ex) {
+                log.warn("Skipping malformed rollup row {} in {}", i + 1, file);
+            }
+        }
+        return rows;
+    }
+
+    private static void write(Path file, Map<LocalDate, List<UsageRollup>> rows) throws IOException {
+        if (rows.isEmpty()) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        rows.values().forEach(rollups -> rollups.forEach(rollup -> lines.add(format(rollup))));
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String format(UsageRollup rollup) {
+        Optional<ResolvedApplication> app = rollup.application();
+        return String.join(",",
+                rollup.date().toString(),
+                Integer.toString(rollup.hour()),
+                rollup.status().name(),
+                CsvStorageAdapter.escape(app.map(ResolvedApplication::id).orElse("")),
+                CsvStorageAdapter.escape(app.map(ResolvedApplication::displayName).orElse("")),
+                CsvStorageAdapter.escape(app.map(ResolvedApplication::executablePath).orElse("")),
+                Integer.toString(rollup.minutes()),
+                Integer.toString(rollup.activeSeconds()),
+                Integer.toString(rollup.idleSeconds()));
+    }
+
+    private static UsageRollup parse(String line) {
+        List<String> fields = split(line);
+        if (fields.size() != 9) {
+            throw new IllegalArgumentException("Expected 9 columns but found " + fields.size());
+        }
+        return new UsageRollup(
+                LocalDate.parse(fields.get(0)),
+                Integer.parseInt(fields.get(1)),
+                MinuteStatus.valueOf(fields.get(2).toUpperCase(Locale.ROOT)),
+                UsageRollup.application(fields.get(3), fields.get(4), fields.get(5)),
+                Integer.parseInt(fields.get(6)),
+                Integer.parseInt(fields.get(7)),
+                Integer.parseInt(fields.get(8)));
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static boolean isYearDirectory(Path path) {
+        String name = path.getFileName().toString();
+        return name.length() == 4 && name.chars().allMatch(Character::isDigit) && Files.isDirectory(path);
+    }
+
+    private static LocalDate parseDay(String name) {
+        if (name.length() != 8) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(name, DAY_FORMAT);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+}
@@ -1,9 +1,10 @@
 package com.timetracker.storage.csv;
 
 import com.timetracker.aggregation.MinuteRecord;
-import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ApplicationDictionary;
 import com.timetracker.app.ResolvedApplication;
 import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.metrics.StorageFlushEvent;
 import com.timetracker.storage.StorageAdapter;
 import com.timetracker.storage.StorageException;
 import org.apache.commons.lang3.StringUtils;
@@ -12,13 +13,21 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class CsvStorageAdapter implements StorageAdapter {
 
@@ -26,12 +35,22 @@ public class CsvStorageAdapter implements StorageAdapter {
 
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter MINUTE_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter FILE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    // Today and yesterday cover a rollover; older days are reloaded from their sidecar on demand.
+    private static final int OCCUPANCY_DAYS = 2;
 
     private final Path rootDir;
     private final int flushIntervalMinutes;
     private final int maxBatchSize;
     private final List<MinuteRecord> buffer = new ArrayList<>();
+    private final Map<LocalDate, MinuteOccupancy> occupancy = new LinkedHashMap<>(4, 0.75f, true);
+    private LocalDate latestDay;
+    private long supersededMinutes;
     private long lastFlushEpochMinute = -1;
+    private volatile long bytesWritten;
+    private final ApplicationDictionary dictionary = ApplicationDictionary.global();
+    // Escaped "app_id,app_name,exe_path" columns, indexed by dictionary id.
+    private String[] appColumns = new String[64];
 
     public CsvStorageAdapter(CsvStorageConfig config) {
         Objects.requireNonNull(config, "config");
@@ -40,10 +59,29 @@ public class CsvStorageAdapter implements StorageAdapter {
         this.maxBatchSize = config.maxBatchSize();
     }
 
+    /**
+     * Buffers a record. A minute that is already stored is superseded like SQLite's upsert: a buffered row is
+     * replaced in place, a flushed one gets a newer row appended that readers resolve last-writer-wins.
+     */
     @Override
     public synchronized void persist(MinuteRecord record) throws StorageException {
         Objects.requireNonNull(record, "record");
+        MinuteOccupancy day = occupancy(record.date());
+        int minuteOfDay = record.minute().getHour() * 60 + record.minute().getMinute();
+        if (day.isPending(minuteOfDay)) {
+            supersededMinutes++;
+            replaceBuffered(record);
+            return;
+        }
+        if (day.isOccupied(minuteOfDay)) {
+            supersededMinutes++;
+            log.debug("Minute {} {} already stored; appending a superseding row", record.date(), record.minute());
+        }
+        day.markPending(minuteOfDay);
         buffer.add(record);
+        if (latestDay == null || record.date().isAfter(latestDay)) {
+            latestDay = record.date();
+        }
 
         long minuteValue = record.date().toEpochDay() * 1440L + record.minute().getHour() * 60L + record.minute().getMinute();
         if (lastFlushEpochMinute < 0) {
@@ -64,9 +102,35 @@ public class CsvStorageAdapter implements StorageAdapter {
         if (buffer.isEmpty()) {
             return;
         }
+        StorageFlushEvent event = new StorageFlushEvent();
+        event.begin();
+        long bytes = 0;
         try {
+            Set<LocalDate> days = new LinkedHashSet<>();
             for (MinuteRecord record : buffer) {
-                writeRecord(record);
+                bytes += writeRecord(record);
+                days.add(record.date());
+            }
+            for (LocalDate date : days) {
+                MinuteOccupancy day = occupancy.get(date);
+                if (day != null) {
+                    day.commitPending();
+                }
+            }
+            // The day being written keeps its sidecar stale until rollover, eviction or close; earlier days are
+            // done once a later one has been flushed.
+            for (Map.Entry<LocalDate, MinuteOccupancy> entry : occupancy.entrySet()) {
+                if (entry.getKey().isBefore(latestDay)) {
+                    bytes += saveOccupancy(entry.getKey(), entry.getValue());
+                }
+            }
+            bytesWritten += bytes;
+            event.end();
+            if (event.shouldCommit()) {
+                event.storage = "CSV";
+                event.records = buffer.size();
+                event.bytes = bytes;
+                event.commit();
             }
             buffer.clear();
         } catch (IOException ex) {
@@ -74,27 +138,121 @@ public class CsvStorageAdapter implements StorageAdapter {
         }
     }
 
-    private void writeRecord(MinuteRecord record) throws IOException {
-        Path datedDir = rootDir
-                .resolve(Integer.toString(record.date().getYear()))
-                .resolve(record.date().format(DateTimeFormatter.ofPattern("yyyyMMdd")));
-        Files.createDirectories(datedDir);
+    /**
+     * Flushes buffered rows and saves the sidecar of every day still held in memory.
+     */
+    @Override
+    public synchronized void close() throws StorageException {
+        flush();
+        long bytes = 0;
+        try {
+            for (Map.Entry<LocalDate, MinuteOccupancy> entry : occupancy.entrySet()) {
+                bytes += saveOccupancy(entry.getKey(), entry.getValue());
+            }
+        } catch (IOException ex) {
+            throw new StorageException("Failed to save stored minutes", ex);
+        }
+        bytesWritten += bytes;
+    }
+
+    @Override
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Records that replaced a minute already buffered or stored since this adapter was created.
+     */
+    public synchronized long supersededMinutes() {
+        return supersededMinutes;
+    }
+
+    private MinuteOccupancy occupancy(LocalDate date) throws StorageException {
+        MinuteOccupancy day = occupancy.get(date);
+        if (day == null) {
+            try {
+                day = MinuteOccupancy.load(dayFile(date));
+            } catch (IOException ex) {
+                throw new StorageException("Failed to read stored minutes for " + date, ex);
+            }
+            if (occupancy.size() >= OCCUPANCY_DAYS) {
+                evictEldest();
+            }
+            occupancy.put(date, day);
+        }
+        return day;
+    }
 
-        Path file = datedDir.resolve(record.date().format(DateTimeFormatter.ofPattern("yyyyMMdd")) + ".csv");
+    private void evictEldest() throws StorageException {
+        Iterator<Map.Entry<LocalDate, MinuteOccupancy>> eldest = occupancy.entrySet().iterator();
+        Map.Entry<LocalDate, MinuteOccupancy> entry = eldest.next();
+        eldest.remove();
+        if (entry.getValue().hasPending()) {
+            // Evicted while its rows are buffered; the stale sidecar is rebuilt from the file on next use.
+            return;
+        }
+        try {
+            bytesWritten += saveOccupancy(entry.getKey(), entry.getValue());
+        } catch (IOException ex) {
+            throw new StorageException("Failed to save stored minutes for " + entry.getKey(), ex);
+        }
+    }
+
+    /**
+     * Saves the sidecar of a day whose stored minutes changed since it was last saved, returning its size.
+     */
+    private long saveOccupancy(LocalDate date, MinuteOccupancy day) throws IOException {
+        Path file = dayFile(date);
+        if (!day.isDirty() || Files.notExists(file)) {
+            return 0;
+        }
+        return day.save(file, Files.size(file));
+    }
+
+    private void replaceBuffered(MinuteRecord record) {
+        for (int i = buffer.size() - 1; i >= 0; i--) {
+            MinuteRecord buffered = buffer.get(i);
+            if (buffered.date().equals(record.date()) && buffered.minute().equals(record.minute())) {
+                buffer.set(i, record);
+                return;
+            }
+        }
+    }
+
+    private Path dayFile(LocalDate date) {
+        String name = date.format(FILE_FORMAT);
+        return rootDir.resolve(Integer.toString(date.getYear())).resolve(name).resolve(name + ".csv");
+    }
+
+    /**
+     * Appends one record to its day file, returning the encoded size of what was written.
+     */
+    private long writeRecord(MinuteRecord record) throws IOException {
+        Path file = dayFile(record.date());
+        Files.createDirectories(file.getParent());
         boolean newFile = Files.notExists(file);
 
         try (BufferedWriter writer = Files.newBufferedWriter(file,
                 StandardOpenOption.CREATE,
                 StandardOpenOption.APPEND)) {
+            long written = 0;
             if (newFile) {
-                writer.write(header());
+                String header = header();
+                writer.write(header);
                 writer.newLine();
+                written += encodedLength(header);
             }
-            writer.write(toCsv(record));
+            String line = toCsv(record);
+            writer.write(line);
             writer.newLine();
+            return written + encodedLength(line);
         }
     }
 
+    private static long encodedLength(String line) {
+        return line.getBytes(StandardCharsets.UTF_8).length + System.lineSeparator().length();
+    }
+
     private String header() {
         return String.join(",",
                 "date",
@@ -110,26 +268,42 @@ public class CsvStorageAdapter implements StorageAdapter {
     }
 
     private String toCsv(MinuteRecord record) {
-        String status = record.status() == MinuteStatus.IDLE ? "Idle" : "Active";
-        String appId = record.application().map(ResolvedApplication::id).orElse("");
-        String appName = record.application().map(ResolvedApplication::displayName).orElse("");
-        String exePath = record.application().map(ResolvedApplication::executablePath).orElse("");
+        String status = switch (record.status()) {
+            case ACTIVE -> "Active";
+            case IDLE -> "Idle";
+            case SUSPENDED -> "Suspended";
+        };
+        String application = record.application().map(this::appColumns).orElse(",,");
         String titleHash = record.windowTitleHash().orElse("");
 
         return String.join(",",
                 escape(record.date().format(DATE_FORMAT)),
                 escape(record.minute().format(MINUTE_FORMAT)),
                 escape(status),
-                escape(appId),
-                escape(appName),
-                escape(exePath),
-                "1",
+                application,
+                Integer.toString(record.minutes()),
                 Integer.toString(record.activeSeconds()),
                 Integer.toString(record.idleSeconds()),
                 escape(titleHash));
     }
 
-    private String escape(String value) {
+    private String appColumns(ResolvedApplication application) {
+        int id = dictionary.applicationId(application);
+        if (id >= appColumns.length) {
+            appColumns = Arrays.copyOf(appColumns, Math.max(id + 1, appColumns.length * 2));
+        }
+        String columns = appColumns[id];
+        if (columns == null) {
+            columns = String.join(",",
+                    escape(application.id()),
+                    escape(application.displayName()),
+                    escape(application.executablePath()));
+            appColumns[id] = columns;
+        }
+        return columns;
+    }
+
+    static String escape(String value) {
         if (StringUtils.isEmpty(value)) {
             return "";
         }
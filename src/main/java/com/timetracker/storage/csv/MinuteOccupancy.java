@@ -0,0 +1,180 @@
+package com.timetracker.storage.csv;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Which minutes of one day file already have a row: a 1440-bit bitmap plus a second bitmap for minutes that
+ * are still buffered in memory. The bitmap is persisted next to the CSV file together with the file size it
+ * describes; a missing or stale sidecar is rebuilt by scanning the minute column once, so the writer only saves
+ * it when it is done with a day rather than after every flush.
+ */
+final class MinuteOccupancy {
+
+    static final String SIDECAR_SUFFIX = ".minutes";
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS = (MINUTES_PER_DAY + 63) / 64;
+    private static final int MAGIC = 0x544D4F31; // "TMO1"
+
+    private final long[] stored = new long[WORDS];
+    private final long[] pending = new long[WORDS];
+    private boolean dirty;
+
+    private MinuteOccupancy() {
+    }
+
+    /**
+     * Loads the occupancy of {@code csvFile}, preferring its sidecar when it matches the file's current size.
+     */
+    static MinuteOccupancy load(Path csvFile) throws IOException {
+        MinuteOccupancy occupancy = new MinuteOccupancy();
+        long size;
+        try {
+            size = Files.size(csvFile);
+        } catch (NoSuchFileException ex) {
+            return occupancy;
+        }
+        if (!occupancy.readSidecar(sidecarOf(csvFile), size)) {
+            occupancy.scan(csvFile);
+        }
+        return occupancy;
+    }
+
+    static Path sidecarOf(Path csvFile) {
+        return csvFile.resolveSibling(csvFile.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    boolean isOccupied(int minuteOfDay) {
+        return isSet(stored, minuteOfDay) || isSet(pending, minuteOfDay);
+    }
+
+    boolean isPending(int minuteOfDay) {
+        return isSet(pending, minuteOfDay);
+    }
+
+    void markPending(int minuteOfDay) {
+        pending[minuteOfDay >>> 6] |= 1L << minuteOfDay;
+    }
+
+    /**
+     * Moves every buffered minute to the stored set once its rows are on disk.
+     */
+    void commitPending() {
+        for (int i = 0; i < WORDS; i++) {
+            dirty |= pending[i] != 0;
+            stored[i] |= pending[i];
+            pending[i] = 0;
+        }
+    }
+
+    boolean hasPending() {
+        for (long word : pending) {
+            if (word != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether minutes were stored since the sidecar was last saved.
+     */
+    boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Writes the stored set for a CSV file of {@code csvSize} bytes, replacing the previous sidecar.
+     *
+     * @return the size of the sidecar written
+     */
+    long save(Path csvFile, long csvSize) throws IOException {
+        Path sidecar = sidecarOf(csvFile);
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try (OutputStream stream = Files.newOutputStream(temp);
+             DataOutputStream output = new DataOutputStream(stream)) {
+            output.writeInt(MAGIC);
+            output.writeLong(csvSize);
+            for (long word : stored) {
+                output.writeLong(word);
+            }
+        }
+        try {
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dirty = false;
+        return Integer.BYTES + Long.BYTES + (long) WORDS * Long.BYTES;
+    }
+
+    private boolean readSidecar(Path sidecar, long csvSize) throws IOException {
+        if (Files.notExists(sidecar)) {
+            return false;
+        }
+        try (InputStream stream = Files.newInputStream(sidecar);
+             DataInputStream input = new DataInputStream(stream)) {
+            if (input.readInt() != MAGIC || input.readLong() != csvSize) {
+                return false;
+            }
+            for (int i = 0; i < WORDS; i++) {
+                stored[i] = input.readLong();
+            }
+            return true;
+        } catch (EOFException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Rebuilds the stored set from the minute column. The writer never quotes dates or minutes, so the second
+     * field can be located without a full CSV parse.
+     */
+    private void scan(Path csvFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int minuteOfDay = minuteOfDay(line);
+                if (minuteOfDay >= 0) {
+                    stored[minuteOfDay >>> 6] |= 1L << minuteOfDay;
+                }
+            }
+        }
+    }
+
+    private static int minuteOfDay(String line) {
+        int start = line.indexOf(',') + 1;
+        if (start == 0 || line.length() < start + 5 || line.charAt(start + 2) != ':') {
+            return -1;
+        }
+        int hour = twoDigits(line, start);
+        int minute = twoDigits(line, start + 3);
+        return hour < 0 || hour > 23 || minute < 0 || minute > 59 ? -1 : hour * 60 + minute;
+    }
+
+    private static int twoDigits(String value, int offset) {
+        char high = value.charAt(offset);
+        char low = value.charAt(offset + 1);
+        if (high < '0' || high > '9' || low < '0' || low > '9') {
+            return -1;
+        }
+        return (high - '0') * 10 + (low - '0');
+    }
+
+    private static boolean isSet(long[] bits, int minuteOfDay) {
+        return (bits[minuteOfDay >>> 6] & (1L << minuteOfDay)) != 0;
+    }
+}
@@ -0,0 +1,82 @@
+package com.timetracker.storage.fanout;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.storage.StorageAdapter;
+import com.timetracker.storage.StorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Writes every record to the primary adapter, which reports read from, and hands a copy to each secondary sink.
+ * The primary is written on the caller's thread as before, so a flush still makes records visible to reports;
+ * the sinks run on their own queues and never hold up the caller or each other.
+ */
+public final class FanOutStorageAdapter implements StorageAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(FanOutStorageAdapter.class);
+
+    private final StorageAdapter primary;
+    private final List<QueuedSink> sinks;
+
+    public FanOutStorageAdapter(StorageAdapter primary, List<QueuedSink> sinks) {
+        this.primary = Objects.requireNonNull(primary, "primary");
+        this.sinks = List.copyOf(sinks);
+    }
+
+    /**
+     * Starts the sinks' workers. Kept apart from construction so that a sink replacing another one on the same
+     * spill directory starts only after the old one has closed.
+     */
+    public void start() throws IOException {
+        for (QueuedSink sink : sinks) {
+            sink.start();
+        }
+    }
+
+    public List<QueuedSink> sinks() {
+        return sinks;
+    }
+
+    @Override
+    public void persist(MinuteRecord record) throws StorageException {
+        // Sinks first, so that a failing primary does not starve them.
+        for (QueuedSink sink : sinks) {
+            sink.offer(record);
+        }
+        primary.persist(record);
+    }
+
+    @Override
+    public void flush() throws StorageException {
+        sinks.forEach(QueuedSink::requestFlush);
+        primary.flush();
+    }
+
+    @Override
+    public long bytesWritten() {
+        long bytes = primary.bytesWritten();
+        for (QueuedSink sink : sinks) {
+            bytes += sink.bytesWritten();
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() throws StorageException {
+        try {
+            primary.close();
+        } finally {
+            for (QueuedSink sink : sinks) {
+                try {
+                    sink.close();
+                } catch (IOException ex) {
+                    log.warn("Failed to close sink {}", sink.name(), ex);
+                }
+            }
+        }
+    }
+}
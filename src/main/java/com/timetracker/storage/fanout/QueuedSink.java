@@ -0,0 +1,468 @@
+package com.timetracker.storage.fanout;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageSinkConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.storage.StorageAdapter;
+import com.timetracker.storage.StorageException;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import com.timetracker.storage.sqlite.SqliteStorageAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * One secondary destination of a {@link FanOutStorageAdapter}. Records are queued for a worker thread that owns
+ * the sink's adapter, so a slow or broken sink only ever delays itself. While the sink is failing, or its queue is
+ * full, records go to a spill directory of CSV day files instead and are replayed oldest day first once the sink
+ * accepts writes again. Records that were in flight when a write failed are spilled as well; both stores keep the
+ * last row written for a minute, so writing one of them twice does no harm. Spilling is done by the worker too:
+ * {@link #offer} only ever touches memory, and drops a record, with a count, if even the overflow buffer is full.
+ */
+public final class QueuedSink implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(QueuedSink.class);
+
+    private static final long POLL_MILLIS = 200;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+    private static final int MAX_UNACKNOWLEDGED = 1_000;
+    private static final int SPILL_BATCH_SIZE = 100;
+    // A week of minutes; the worker normally drains it within one poll.
+    private static final int OVERFLOW_CAPACITY = 7 * 1440;
+
+    private final StorageSinkConfig config;
+    private final Clock clock;
+    private final BlockingQueue<MinuteRecord> queue;
+    private final BlockingQueue<MinuteRecord> overflow;
+    private final Path spillDir;
+    private final Path replayDir;
+    private final Thread worker;
+
+    private final Object spillLock = new Object();
+    // Guarded by spillLock. While spilling, every new record goes to the overflow buffer and the queue stays empty.
+    private boolean spilling;
+    private final List<MinuteRecord> unacknowledged = new ArrayList<>();
+
+    // Guarded by spillWriter; the worker, and close() once the worker is done.
+    private final Object spillWriter = new Object();
+    private CsvStorageAdapter spill;
+
+    // Worker thread only.
+    private StorageAdapter adapter;
+    private long retryAtNanos;
+    private long retiredBytes;
+
+    private volatile boolean closed;
+    private volatile boolean flushRequested;
+    private volatile long bytesWritten;
+    private volatile long offeredMinute = -1;
+    private volatile long acknowledgedMinute = -1;
+    private final AtomicLong spilledRecords = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public QueuedSink(StorageSinkConfig config) {
+        this(config, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Records offered before {@link #start()} wait in the queue.
+     */
+    public QueuedSink(StorageSinkConfig config, Clock clock) {
+        this.config = Objects.requireNonNull(config, "config");
+        this.clock = Objects.requireNonNull(clock, "clock");
+        this.queue = new ArrayBlockingQueue<>(config.queueCapacity());
+        this.overflow = new ArrayBlockingQueue<>(Math.max(config.queueCapacity(), OVERFLOW_CAPACITY));
+        Path root = Path.of(config.spillDir()).toAbsolutePath();
+        this.spillDir = root.resolve("pending");
+        this.replayDir = root.resolve("replay");
+        this.worker = new Thread(this::work, "sink-" + config.name());
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Starts delivering. Records spilled by an earlier run, or by the sink this one replaces, go first; anything
+     * queued meanwhile is spilled behind them.
+     */
+    public void start() throws IOException {
+        if (hasFiles(spillDir) || hasFiles(replayDir)) {
+            startSpilling();
+        }
+        worker.start();
+    }
+
+    public String name() {
+        return config.name();
+    }
+
+    /**
+     * Hands a record to the sink without waiting for it or doing any I/O; once the queue is full the record waits
+     * in the overflow buffer for the worker to spill it.
+     */
+    public void offer(MinuteRecord record) {
+        long minute = epochMinute(record);
+        if (acknowledgedMinute < 0) {
+            // Lag counts from the first record, not from the epoch.
+            acknowledgedMinute = minute - 1;
+        }
+        if (minute > offeredMinute) {
+            offeredMinute = minute;
+        }
+        synchronized (spillLock) {
+            if (!spilling && queue.offer(record)) {
+                return;
+            }
+            if (!spilling) {
+                log.warn("Sink {} is falling behind; spilling records to {}", name(), spillDir);
+                spilling = true;
+            }
+            if (overflow.offer(record)) {
+                return;
+            }
+        }
+        if (dropped.getAndIncrement() == 0) {
+            log.error("Sink {} cannot keep up even with spilling; dropping records", name());
+        }
+    }
+
+    /**
+     * Asks the worker to flush its adapter soon; does not wait for it.
+     */
+    public void requestFlush() {
+        flushRequested = true;
+    }
+
+    /**
+     * Records held in memory, waiting to be delivered or spilled.
+     */
+    public int queued() {
+        return queue.size() + overflow.size();
+    }
+
+    public long spilledRecords() {
+        return spilledRecords.get();
+    }
+
+    public long failures() {
+        return failures.get();
+    }
+
+    public long droppedRecords() {
+        return dropped.get();
+    }
+
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Minutes between the newest record handed to the sink and the newest one it has durably stored.
+     */
+    public long lagMinutes() {
+        long offered = offeredMinute;
+        return offered < 0 ? 0 : Math.max(0, offered - acknowledgedMinute);
+    }
+
+    /**
+     * Gives the worker a few seconds to deliver what is queued; whatever is still undelivered after that is
+     * spilled and sent on the next start.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            worker.join(CLOSE_TIMEOUT_MILLIS);
+            if (worker.isAlive()) {
+                log.warn("Sink {} did not finish in time; spilling what is left", name());
+                worker.interrupt();
+                worker.join(POLL_MILLIS);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        spillPending();
+        closeSpill();
+    }
+
+    private void work() {
+        try {
+            while (!closed || !queue.isEmpty()) {
+                try {
+                    if (isSpilling()) {
+                        spillPending();
+                    }
+                    if (adapter == null) {
+                        if (closed) {
+                            // Nothing can be delivered now; close() spills what is queued.
+                            break;
+                        }
+                        if (!open()) {
+                            continue;
+                        }
+                    }
+                    if (isSpilling()) {
+                        if (closed) {
+                            break;
+                        }
+                        acknowledge();
+                        replay();
+                        continue;
+                    }
+                    MinuteRecord record = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (record != null) {
+                        synchronized (spillLock) {
+                            unacknowledged.add(record);
+                        }
+                        adapter.persist(record);
+                    }
+                    if (record == null || flushRequested || unacknowledged() >= MAX_UNACKNOWLEDGED) {
+                        flushRequested = false;
+                        acknowledge();
+                    }
+                } catch (StorageException | IOException | RuntimeException ex) {
+                    fail(ex);
+                }
+            }
+            if (adapter != null) {
+                try {
+                    acknowledge();
+                    closeAdapter();
+                } catch (StorageException ex) {
+                    fail(ex);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Opens the sink's adapter unless the last failure is too recent; waits a little when it does not open.
+     */
+    private boolean open() throws InterruptedException {
+        long waitNanos = retryAtNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            Thread.sleep(Math.min(POLL_MILLIS, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1));
+            return false;
+        }
+        try {
+            adapter = switch (config.type()) {
+                case CSV -> new CsvStorageAdapter(config.csv());
+                case SQLITE -> new SqliteStorageAdapter(config.sqlite());
+            };
+            return true;
+        } catch (StorageException ex) {
+            fail(ex);
+            return false;
+        }
+    }
+
+    private void acknowledge() throws StorageException {
+        adapter.flush();
+        synchronized (spillLock) {
+            for (MinuteRecord record : unacknowledged) {
+                acknowledgedMinute = Math.max(acknowledgedMinute, epochMinute(record));
+            }
+            unacknowledged.clear();
+        }
+        bytesWritten = retiredBytes + adapter.bytesWritten();
+    }
+
+    /**
+     * Delivers the spilled days, oldest first, deleting each once the sink has flushed it. A replay that fails
+     * part way leaves the remaining days in the replay directory, which goes first next time.
+     */
+    private void replay() throws IOException, StorageException {
+        if (!snapshot()) {
+            return;
+        }
+        try (UsageDataLoader loader = new UsageDataLoader(spillConfig(replayDir), 0, clock)) {
+            for (LocalDate date : loader.rollupStore().minuteDaysBefore(LocalDate.MAX, Integer.MAX_VALUE)) {
+                // Keep the overflow buffer moving during a long replay.
+                spillPending();
+                long newest = -1;
+                for (MinuteRecord record : loader.load(date)) {
+                    if (record.date().equals(date)) {
+                        adapter.persist(record);
+                        newest = Math.max(newest, epochMinute(record));
+                    }
+                }
+                adapter.flush();
+                acknowledgedMinute = Math.max(acknowledgedMinute, newest);
+                deleteRecursively(replayDir.resolve(Integer.toString(date.getYear()))
+                        .resolve(date.format(DateTimeFormatter.BASIC_ISO_DATE)));
+            }
+        }
+        deleteRecursively(replayDir);
+        bytesWritten = retiredBytes + adapter.bytesWritten();
+        log.info("Sink {} caught up with its spilled records", name());
+    }
+
+    /**
+     * Moves the spilled records aside for replay while new ones keep spilling; returns false once there is nothing
+     * left, and stops spilling unless more records arrived meanwhile.
+     */
+    private boolean snapshot() throws IOException {
+        if (hasFiles(replayDir)) {
+            return true;
+        }
+        spillPending();
+        closeSpill();
+        if (!hasFiles(spillDir)) {
+            synchronized (spillLock) {
+                spilling = !overflow.isEmpty();
+            }
+            return false;
+        }
+        deleteRecursively(replayDir);
+        Files.move(spillDir, replayDir);
+        return true;
+    }
+
+    private void fail(Exception ex) {
+        if (failures.getAndIncrement() == 0 || !isSpilling()) {
+            log.warn("Sink {} failed; spilling records until it recovers: {}", name(), ex.getMessage());
+        } else {
+            log.debug("Sink {} is still failing", name(), ex);
+        }
+        closeAdapter();
+        retryAtNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.retrySeconds());
+        startSpilling();
+        spillPending();
+    }
+
+    private void closeAdapter() {
+        if (adapter == null) {
+            return;
+        }
+        retiredBytes += adapter.bytesWritten();
+        try {
+            adapter.close();
+        } catch (StorageException ex) {
+            log.debug("Failed to close sink {}", name(), ex);
+        }
+        adapter = null;
+    }
+
+    private void startSpilling() {
+        synchronized (spillLock) {
+            spilling = true;
+        }
+    }
+
+    /**
+     * Spills what was handed to the sink but not confirmed, then the queued records, then the overflow buffer.
+     */
+    private void spillPending() {
+        List<MinuteRecord> pending = new ArrayList<>();
+        synchronized (spillLock) {
+            pending.addAll(unacknowledged);
+            unacknowledged.clear();
+            queue.drainTo(pending);
+            overflow.drainTo(pending);
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        synchronized (spillWriter) {
+            for (MinuteRecord record : pending) {
+                spill(record);
+            }
+            if (spill != null) {
+                try {
+                    spill.flush();
+                } catch (StorageException ex) {
+                    log.error("Failed to spill records of sink {}", name(), ex);
+                }
+            }
+        }
+    }
+
+    // Caller holds spillWriter.
+    private void spill(MinuteRecord record) {
+        try {
+            if (spill == null) {
+                spill = new CsvStorageAdapter(spillConfig(spillDir).storage().csv());
+            }
+            spill.persist(record);
+            spilledRecords.incrementAndGet();
+        } catch (StorageException ex) {
+            log.error("Failed to spill a record of sink {}; it is lost", name(), ex);
+        }
+    }
+
+    private void closeSpill() {
+        synchronized (spillWriter) {
+            if (spill != null) {
+                try {
+                    spill.close();
+                } catch (StorageException ex) {
+                    log.error("Failed to flush spilled records of sink {}", name(), ex);
+                }
+                spill = null;
+            }
+        }
+    }
+
+    private boolean isSpilling() {
+        synchronized (spillLock) {
+            return spilling;
+        }
+    }
+
+    private int unacknowledged() {
+        synchronized (spillLock) {
+            return unacknowledged.size();
+        }
+    }
+
+    private static AppConfig spillConfig(Path directory) {
+        CsvStorageConfig csv = new CsvStorageConfig(directory.toString(), Integer.MAX_VALUE, SPILL_BATCH_SIZE, 0);
+        return AppConfig.create(null, null, null, new StorageConfig(StorageType.CSV, csv, null, null),
+                null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static long epochMinute(MinuteRecord record) {
+        return record.date().toEpochDay() * 1440L + record.minute().getHour() * 60L + record.minute().getMinute();
+    }
+
+    private static boolean hasFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return false;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files.anyMatch(Files::isRegularFile);
+        }
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (Files.notExists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.timetracker.storage.migration;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.storage.StorageAdapter;
+import com.timetracker.storage.StorageException;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import com.timetracker.storage.retention.RollupStore;
+import com.timetracker.storage.sqlite.SqliteStorageAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Copies the full usage history from one storage type to another. Days are parsed in parallel
+ * and handed, oldest first, to a single batched writer; rollups of aged-out days are copied as they are. Every
+ * source row is then looked up in the target, which may hold newer rows of its own once the service has switched
+ * to it.
+ * <p>
+ * Progress is recorded next to the target after every few committed days, so an interrupted migration resumes
+ * where it stopped. Both writers replace a minute that is already stored, so repeating a day is harmless. The
+ * application must not be running against either store while a migration runs.
+ */
+public final class StorageMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(StorageMigration.class);
+
+    private static final int BULK_BATCH_SIZE = 10_000;
+    private static final int DAYS_PER_CHECKPOINT = 30;
+    private static final int DAYS_IN_FLIGHT_PER_THREAD = 4;
+    private static final String PROGRESS_SUFFIX = ".migration";
+
+    private final AppConfig sourceConfig;
+    private final AppConfig targetConfig;
+    private final int threads;
+    private final Clock clock;
+
+    /**
+     * @param config storage locations of both types; {@code storage.type} itself is ignored
+     */
+    public StorageMigration(AppConfig config, StorageType source, StorageType target, int threads, Clock clock) {
+        Objects.requireNonNull(config, "config");
+        Objects.requireNonNull(source, "source");
+        Objects.requireNonNull(target, "target");
+        if (source == target) {
+            throw new IllegalArgumentException("Source and target storage are both " + target);
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be > 0");
+        }
+        this.sourceConfig = withStorage(config, new StorageConfig(source, config.storage().csv(),
+                config.storage().sqlite(), config.storage().retention()));
+        this.targetConfig = withStorage(config, bulk(config.storage(), target));
+        this.threads = threads;
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    /**
+     * @param days          days with minute rows in the source
+     * @param copiedDays    days written by this run; the rest were committed by an interrupted earlier run
+     * @param records       minute records written by this run
+     * @param rolledUpDays  days whose rollups were copied
+     * @param mismatches    days whose rows or rollups differ between source and target after the copy
+     */
+    public record Result(
+            StorageType source,
+            StorageType target,
+            int days,
+            int copiedDays,
+            long records,
+            int rolledUpDays,
+            List<LocalDate> mismatches
+    ) {
+
+        public boolean verified() {
+            return mismatches.isEmpty();
+        }
+    }
+
+    public Path progressFile() {
+        StorageConfig storage = targetConfig.storage();
+        return switch (storage.type()) {
+            case CSV -> Path.of(storage.csv().rootDir()).resolve(PROGRESS_SUFFIX);
+            case SQLITE -> Path.of(storage.sqlite().databasePath() + PROGRESS_SUFFIX);
+        };
+    }
+
+    public Result run() throws IOException {
+        StorageType source = sourceConfig.storage().type();
+        StorageType target = targetConfig.storage().type();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new DaemonThreadFactory());
+        try (UsageDataLoader sourceLoader = new UsageDataLoader(sourceConfig, 0, clock);
+             UsageDataLoader targetLoader = new UsageDataLoader(targetConfig, 0, clock)) {
+            long records;
+            List<LocalDate> days;
+            List<LocalDate> rolledUpDays;
+            List<LocalDate> pending = new ArrayList<>();
+            Path progressFile = progressFile();
+            // The writer creates the target schema that the rollup store deletes minute rows from.
+            try (StorageAdapter writer = openWriter()) {
+                RollupStore sourceRollups = sourceLoader.rollupStore();
+                RollupStore targetRollups = targetLoader.rollupStore();
+                days = sourceRollups.minuteDaysBefore(LocalDate.now(clock).plusDays(1), Integer.MAX_VALUE);
+                rolledUpDays = sourceRollups.rolledUpDays();
+
+                Progress progress = Progress.read(progressFile, source, target);
+                if (progress == null) {
+                    // Rollups go first: storing them clears the target's minute rows of the same day.
+                    for (LocalDate date : rolledUpDays) {
+                        targetRollups.replaceMinutes(date, sourceRollups.hourly(date), sourceRollups.daily(date));
+                    }
+                    progress = new Progress(source, target, null);
+                    progress.write(progressFile);
+                } else {
+                    log.info("Resuming {} to {} migration after {}", source, target, progress.lastDay());
+                }
+
+                for (LocalDate date : days) {
+                    if (progress.lastDay() == null || date.isAfter(progress.lastDay())) {
+                        pending.add(date);
+                    }
+                }
+                records = copy(sourceLoader, writer, pending, progress, progressFile, executor);
+            } catch (StorageException ex) {
+                throw new IOException("Failed to write migrated records", ex);
+            }
+
+            List<LocalDate> mismatches = verify(sourceLoader, targetLoader, days, rolledUpDays, executor);
+            Files.deleteIfExists(progressFile);
+            return new Result(source, target, days.size(), pending.size(), records, rolledUpDays.size(),
+                    mismatches);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses up to a few days per thread ahead of the writer, which consumes them in order so that the
+     * recorded progress always covers a contiguous prefix of the history.
+     */
+    private long copy(UsageDataLoader sourceLoader, StorageAdapter writer, List<LocalDate> days, Progress progress,
+                      Path progressFile, ExecutorService executor) throws IOException, StorageException {
+        if (days.isEmpty()) {
+            return 0;
+        }
+        long records = 0;
+        Deque<Future<List<MinuteRecord>>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        try {
+            for (int written = 0; written < days.size(); written++) {
+                while (next < days.size() && inFlight.size() < threads * DAYS_IN_FLIGHT_PER_THREAD) {
+                    LocalDate date = days.get(next++);
+                    inFlight.add(executor.submit(() -> sourceLoader.load(date)));
+                }
+                LocalDate date = days.get(written);
+                for (MinuteRecord record : await(inFlight.poll())) {
+                    // Loaders also return rows of other days that happen to sit in the day's file.
+                    if (record.date().equals(date)) {
+                        writer.persist(record);
+                        records++;
+                    }
+                }
+                if ((written + 1) % DAYS_PER_CHECKPOINT == 0 || written + 1 == days.size()) {
+                    writer.flush();
+                    progress = new Progress(progress.source(), progress.target(), date);
+                    progress.write(progressFile);
+                }
+            }
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+        return records;
+    }
+
+    private List<LocalDate> verify(UsageDataLoader sourceLoader, UsageDataLoader targetLoader, List<LocalDate> days,
+                                   List<LocalDate> rolledUpDays, ExecutorService executor) throws IOException {
+        List<Future<LocalDate>> checks = new ArrayList<>(days.size() + rolledUpDays.size());
+        for (LocalDate date : days) {
+            checks.add(executor.submit(() -> DayRows.of(targetLoader.load(date), date)
+                    .containsAll(DayRows.of(sourceLoader.load(date), date)) ? null : date));
+        }
+        RollupStore sourceRollups = sourceLoader.rollupStore();
+        RollupStore targetRollups = targetLoader.rollupStore();
+        for (LocalDate date : rolledUpDays) {
+            checks.add(executor.submit(() -> sameRollups(sourceRollups, targetRollups, date) ? null : date));
+        }
+        List<LocalDate> mismatches = new ArrayList<>();
+        for (Future<LocalDate> check : checks) {
+            LocalDate mismatch = await(check);
+            if (mismatch != null) {
+                log.warn("Migrated data for {} does not match the source", mismatch);
+                mismatches.add(mismatch);
+            }
+        }
+        return mismatches.stream().distinct().sorted().toList();
+    }
+
+    private static boolean sameRollups(RollupStore source, RollupStore target, LocalDate date) throws IOException {
+        return new HashSet<>(target.hourly(date)).containsAll(source.hourly(date))
+                && new HashSet<>(target.daily(date)).containsAll(source.daily(date));
+    }
+
+    private StorageAdapter openWriter() throws StorageException {
+        StorageConfig storage = targetConfig.storage();
+        return switch (storage.type()) {
+            case CSV -> new CsvStorageAdapter(storage.csv());
+            case SQLITE -> new SqliteStorageAdapter(storage.sqlite());
+        };
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Migration interrupted", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Migration task failed", ex.getCause());
+        }
+    }
+
+    /**
+     * The target settings with flushes driven only by a large batch size, so that the writer commits thousands
+     * of rows at a time instead of one simulated minute at a time. SQLite targets get one row per minute even when
+     * configured for runs, so every minute can be verified exactly.
+     */
+    private static StorageConfig bulk(StorageConfig storage, StorageType target) {
+        CsvStorageConfig csv = storage.csv();
+        SqliteStorageConfig sqlite = storage.sqlite();
+        return new StorageConfig(target,
+                new CsvStorageConfig(csv.rootDir(), Integer.MAX_VALUE, BULK_BATCH_SIZE, csv.archiveAfterDays()),
+                new SqliteStorageConfig(sqlite.databasePath(), sqlite.journalMode(), sqlite.partitioning(),
+                        Integer.MAX_VALUE, BULK_BATCH_SIZE, sqlite.walCheckpointPages()),
+                storage.retention());
+    }
+
+    private static AppConfig withStorage(AppConfig config, StorageConfig storage) {
+        return new AppConfig(
+                config.samplingIntervalSeconds(),
+                config.minActiveInMinuteSeconds(),
+                config.minIdleSeconds(),
+                storage,
+                config.report(),
+                config.logging(),
+                config.aliases(),
+                config.whitelist(),
+                config.blacklist(),
+                config.privacy(),
+                config.gapThresholdSeconds(),
+                config.recordSuspendedRanges(),
+                config.samplingMode(),
+                config.metrics());
+    }
+
+    /**
+     * A day's rows, each reduced to every field either store keeps.
+     */
+    record DayRows(Set<String> rows) {
+
+        static DayRows of(List<MinuteRecord> records, LocalDate date) {
+            Set<String> rows = new HashSet<>();
+            for (MinuteRecord record : records) {
+                if (!record.date().equals(date)) {
+                    continue;
+                }
+                Optional<ResolvedApplication> app = record.application();
+                rows.add(String.join("\u001f",
+                        record.minute().toString(),
+                        record.status().name(),
+                        app.map(ResolvedApplication::id).orElse(""),
+                        app.map(ResolvedApplication::displayName).orElse(""),
+                        app.map(ResolvedApplication::executablePath).orElse(""),
+                        Integer.toString(record.activeSeconds()),
+                        Integer.toString(record.idleSeconds()),
+                        Integer.toString(record.minutes()),
+                        record.windowTitleHash().orElse("")));
+            }
+            return new DayRows(rows);
+        }
+
+        boolean containsAll(DayRows other) {
+            return rows.containsAll(other.rows);
+        }
+    }
+
+    /**
+     * The last day whose minute rows are committed in the target; null until the first batch is.
+     */
+    record Progress(StorageType source, StorageType target, LocalDate lastDay) {
+
+        static Progress read(Path file, StorageType source, StorageType target) throws IOException {
+            if (Files.notExists(file)) {
+                return null;
+            }
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+            }
+            if (!source.name().equals(properties.getProperty("source"))
+                    || !target.name().equals(properties.getProperty("target"))) {
+                log.warn("Ignoring {}; it belongs to a different migration", file);
+                return null;
+            }
+            String lastDay = properties.getProperty("lastDay", "");
+            return new Progress(source, target, lastDay.isEmpty() ? null : LocalDate.parse(lastDay));
+        }
+
+        void write(Path file) throws IOException {
+            Properties properties = new Properties();
+            properties.setProperty("source", source.name());
+            properties.setProperty("target", target.name());
+            properties.setProperty("lastDay", lastDay == null ? "" : lastDay.toString());
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                properties.store(out, null);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "migration-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.timetracker.storage.retention;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.app.ApplicationDictionary;
+import com.timetracker.config.RetentionConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Moves expired minute rows down to hourly and daily rollups and drops expired hourly rollups. Each run handles
+ * at most {@link #MAX_DAYS_PER_RUN} days, so a machine with years of history catches up over a few runs instead
+ * of in one long pause.
+ */
+public final class RetentionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RetentionJob.class);
+
+    static final int MAX_DAYS_PER_RUN = 31;
+
+    /**
+     * Reads the minute-level view of a day.
+     */
+    @FunctionalInterface
+    public interface DaySource {
+        DayUsage load(LocalDate date) throws IOException;
+    }
+
+    private final RetentionConfig config;
+    private final RollupStore store;
+    private final DaySource days;
+    private final Clock clock;
+
+    public RetentionJob(RetentionConfig config, RollupStore store, DaySource days, Clock clock) {
+        this.config = Objects.requireNonNull(config, "config");
+        this.store = Objects.requireNonNull(store, "store");
+        this.days = Objects.requireNonNull(days, "days");
+        this.clock = Objects.requireNonNull(clock, "clock");
+    }
+
+    /**
+     * Runs one increment and returns the number of days whose minute rows were rolled up.
+     */
+    public int run() throws IOException {
+        if (!config.enabled()) {
+            return 0;
+        }
+        LocalDate today = LocalDate.now(clock);
+        List<LocalDate> expired = store.minuteDaysBefore(today.minusDays(config.minuteDays()), MAX_DAYS_PER_RUN);
+        for (LocalDate date : expired) {
+            DayUsage day = days.load(date);
+            store.replaceMinutes(date, UsageRollup.hourly(day), UsageRollup.daily(day));
+        }
+        int dropped = config.hourlyDays() > 0 ? store.dropHourlyBefore(today.minusDays(config.hourlyDays())) : 0;
+        if (!expired.isEmpty() || dropped > 0) {
+            log.info("Retention: rolled up {} day(s) of minute rows, dropped {} day(s) of hourly rollups",
+                    expired.size(), dropped);
+        }
+        return expired.size();
+    }
+
+    /**
+     * The coarsest-available view of a day whose minute rows are gone: hourly rollups if kept, else daily totals.
+     * Returns {@code null} when neither tier has the day.
+     */
+    public static DayUsage fromRollups(RollupStore store, LocalDate date,
+                                       ApplicationDictionary dictionary) throws IOException {
+        List<UsageRollup> rollups = store.hourly(date);
+        if (rollups.isEmpty()) {
+            rollups = store.daily(date);
+        }
+        return rollups.isEmpty() ? null : UsageRollup.expand(date, rollups, dictionary);
+    }
+}
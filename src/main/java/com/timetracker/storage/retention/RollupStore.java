@@ -0,0 +1,39 @@
+package com.timetracker.storage.retention;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Backend side of the retention tiers: finds days that still have minute rows, swaps them for rollups and
+ * serves the rollups back to readers.
+ */
+public interface RollupStore extends Closeable {
+
+    /**
+     * Days before {@code cutoff} that still have minute rows, oldest first.
+     */
+    List<LocalDate> minuteDaysBefore(LocalDate cutoff, int limit) throws IOException;
+
+    /**
+     * Stores the rollups of {@code date} and then drops its minute rows. Running it again for the same day
+     * replaces the rollups instead of adding to them.
+     */
+    void replaceMinutes(LocalDate date, List<UsageRollup> hourly, List<UsageRollup> daily) throws IOException;
+
+    /**
+     * Drops hourly rollups of days before {@code cutoff}; stores may keep a few more days than asked to
+     * delete in whole units. Returns the number of days or files removed.
+     */
+    int dropHourlyBefore(LocalDate cutoff) throws IOException;
+
+    /**
+     * Days that have hourly or daily rollups, oldest first.
+     */
+    List<LocalDate> rolledUpDays() throws IOException;
+
+    List<UsageRollup> hourly(LocalDate date) throws IOException;
+
+    List<UsageRollup> daily(LocalDate date) throws IOException;
+}
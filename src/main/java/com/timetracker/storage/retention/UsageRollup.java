@@ -0,0 +1,138 @@
+package com.timetracker.storage.retention;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ApplicationDictionary;
+import com.timetracker.app.ResolvedApplication;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Total active or idle time of one application (or of idle time) within an hour, or within a whole day when
+ * {@link #hour()} is {@link #WHOLE_DAY}. Suspended ranges are not rolled up.
+ */
+public record UsageRollup(
+        LocalDate date,
+        int hour,
+        MinuteStatus status,
+        Optional<ResolvedApplication> application,
+        int minutes,
+        int activeSeconds,
+        int idleSeconds
+) {
+
+    public static final int WHOLE_DAY = -1;
+
+    private static final int MINUTES_PER_HOUR = 60;
+
+    public UsageRollup {
+        Objects.requireNonNull(date, "date");
+        Objects.requireNonNull(status, "status");
+        Objects.requireNonNull(application, "application");
+        if (hour < WHOLE_DAY || hour > 23) {
+            throw new IllegalArgumentException("hour must be -1 or 0-23: " + hour);
+        }
+    }
+
+    public boolean isDaily() {
+        return hour == WHOLE_DAY;
+    }
+
+    public static List<UsageRollup> hourly(DayUsage day) {
+        return rollUp(day, false);
+    }
+
+    public static List<UsageRollup> daily(DayUsage day) {
+        return rollUp(day, true);
+    }
+
+    /**
+     * Rebuilds an approximate minute view from rollups so that the report path can treat old days like any other:
+     * per-application and per-hour totals are exact, while the minutes within each hour (or within the day for
+     * daily totals) are laid out back to back, largest application first.
+     */
+    public static DayUsage expand(LocalDate date, List<UsageRollup> rollups, ApplicationDictionary dictionary) {
+        DayUsage day = new DayUsage(date, dictionary);
+        Map<Integer, List<UsageRollup>> byHour = new LinkedHashMap<>();
+        for (UsageRollup rollup : rollups) {
+            if (rollup.date().equals(date)) {
+                byHour.computeIfAbsent(rollup.hour(), hour -> new ArrayList<>()).add(rollup);
+            }
+        }
+        byHour.forEach((hour, entries) -> {
+            int minute = hour == WHOLE_DAY ? 0 : hour * MINUTES_PER_HOUR;
+            int end = hour == WHOLE_DAY ? DayUsage.MINUTES_PER_DAY : minute + MINUTES_PER_HOUR;
+            entries.sort(Comparator.comparing((UsageRollup rollup) -> rollup.status() == MinuteStatus.IDLE)
+                    .thenComparing(Comparator.comparingInt(UsageRollup::minutes).reversed()));
+            for (UsageRollup entry : entries) {
+                int applicationId = entry.application().map(dictionary::applicationId)
+                        .orElse(ApplicationDictionary.NO_ID);
+                int count = Math.min(entry.minutes(), end - minute);
+                for (int i = 0; i < count; i++, minute++) {
+                    day.set(minute, entry.status(), applicationId,
+                            share(entry.activeSeconds(), count, i), share(entry.idleSeconds(), count, i), 1);
+                }
+            }
+        });
+        return day;
+    }
+
+    /**
+     * Rebuilds the application of a stored rollup row the same way the minute loaders do.
+     */
+    public static Optional<ResolvedApplication> application(String appId, String appName, String exePath) {
+        if (StringUtils.isBlank(exePath)) {
+            return Optional.empty();
+        }
+        String normalized = exePath.toLowerCase(Locale.ROOT);
+        String id = StringUtils.isNotBlank(appId) ? appId : normalized;
+        String name = StringUtils.isNotBlank(appName) ? appName : id;
+        return Optional.of(new ResolvedApplication(id, name, exePath, normalized,
+                StringUtils.isNotBlank(appId) && !appId.equalsIgnoreCase(normalized)));
+    }
+
+    private static List<UsageRollup> rollUp(DayUsage day, boolean wholeDay) {
+        ApplicationDictionary dictionary = day.dictionary();
+        Map<Long, int[]> totals = new LinkedHashMap<>();
+        for (int minute = 0; minute < DayUsage.MINUTES_PER_DAY; minute++) {
+            MinuteStatus status = day.status(minute);
+            if (status == null || status == MinuteStatus.SUSPENDED) {
+                continue;
+            }
+            int applicationId = day.applicationId(minute);
+            if (status == MinuteStatus.ACTIVE && applicationId == ApplicationDictionary.NO_ID) {
+                continue;
+            }
+            int hour = wholeDay ? WHOLE_DAY : minute / MINUTES_PER_HOUR;
+            int key = status == MinuteStatus.IDLE ? ApplicationDictionary.NO_ID : applicationId;
+            int[] total = totals.computeIfAbsent(((long) hour << 32) | (key & 0xFFFFFFFFL), k -> new int[3]);
+            total[0]++;
+            total[1] += day.activeSeconds(minute);
+            total[2] += day.idleSeconds(minute);
+        }
+        List<UsageRollup> rollups = new ArrayList<>(totals.size());
+        totals.forEach((key, total) -> {
+            int hour = (int) (key >> 32);
+            int applicationId = (int) (long) key;
+            Optional<ResolvedApplication> application = applicationId == ApplicationDictionary.NO_ID
+                    ? Optional.empty()
+                    : Optional.of(dictionary.application(applicationId));
+            MinuteStatus status = application.isPresent() ? MinuteStatus.ACTIVE : MinuteStatus.IDLE;
+            rollups.add(new UsageRollup(day.date(), hour, status, application, total[0], total[1], total[2]));
+        });
+        return rollups;
+    }
+
+    private static int share(int total, int count, int index) {
+        return total / count + (index < total % count ? 1 : 0);
+    }
+}
@@ -0,0 +1,86 @@
+package com.timetracker.storage.sqlite;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Folds consecutive minutes with the same status, application and title into runs: one record whose
+ * {@code minutes} is the run length and whose seconds are totals. The last run written stays open, so the next
+ * flush extends it instead of starting a new row.
+ */
+final class MinuteRuns {
+
+    /**
+     * A row to write. Minutes from {@code coveredFrom} to the end of the run may still hold older rows that the
+     * run supersedes; earlier minutes were cleared when the run was written before.
+     */
+    record Run(MinuteRecord row, int coveredFrom) {
+    }
+
+    private MinuteRecord open;
+
+    /**
+     * Coalesces {@code records} onto the open run without changing it; call {@link #written} once the runs are
+     * committed.
+     */
+    List<Run> coalesce(List<MinuteRecord> records) {
+        List<Run> runs = new ArrayList<>();
+        MinuteRecord current = open;
+        int coveredFrom = open == null ? -1 : end(open);
+        for (MinuteRecord record : records) {
+            if (current != null && continues(current, record)) {
+                current = new MinuteRecord(current.date(), current.minute(), current.status(),
+                        current.application(), current.activeSeconds() + record.activeSeconds(),
+                        current.idleSeconds() + record.idleSeconds(), current.windowTitleHash(),
+                        current.minutes() + 1);
+                continue;
+            }
+            if (current != null && current != open) {
+                runs.add(new Run(current, coveredFrom));
+            }
+            current = record;
+            coveredFrom = start(record);
+        }
+        if (current != null && current != open) {
+            runs.add(new Run(current, coveredFrom));
+        }
+        return runs;
+    }
+
+    void written(List<Run> runs) {
+        if (!runs.isEmpty()) {
+            MinuteRecord last = runs.get(runs.size() - 1).row();
+            open = last.status() == MinuteStatus.SUSPENDED ? null : last;
+        }
+    }
+
+    static int start(MinuteRecord record) {
+        return record.minute().getHour() * 60 + record.minute().getMinute();
+    }
+
+    static int end(MinuteRecord record) {
+        return start(record) + record.minutes();
+    }
+
+    /**
+     * The seconds of the first {@code minutes} minutes of a run, split the same way
+     * {@link MinuteRecord#perMinute()} does.
+     */
+    static int head(int total, int length, int minutes) {
+        return minutes * (total / length) + Math.min(minutes, total % length);
+    }
+
+    private static boolean continues(MinuteRecord run, MinuteRecord record) {
+        return run.status() != MinuteStatus.SUSPENDED
+                && record.minutes() == 1
+                && record.status() == run.status()
+                && record.date().equals(run.date())
+                && start(record) == end(run)
+                && record.application().equals(run.application())
+                && Objects.equals(record.windowTitleHash(), run.windowTitleHash());
+    }
+}
@@ -0,0 +1,231 @@
+package com.timetracker.storage.sqlite;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Layout of a monthly-partitioned usage database: {@code timetracker.db} keeps the retention tiers and each
+ * month's minute rows live in a sibling {@code timetracker-YYYYMM.db}. Only the current month's file is written
+ * to; queries that span months attach the partitions they need to a connection and read them with
+ * {@code UNION ALL}. Minute rows written before partitioning was switched on are moved out of the main file by
+ * {@link #moveUnpartitionedRows()}.
+ */
+public final class SqlitePartitions {
+
+    /**
+     * SQLite's default limit on attached databases per connection.
+     */
+    public static final int MAX_ATTACHED = 10;
+
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String UNPARTITIONED = "unpartitioned";
+    private static final String MINUTE_COLUMNS = "date, minute, status, app_id, app_name, exe_path, active_seconds, "
+            + "idle_seconds, minutes, title_hash, created_at, updated_at";
+    // A row the partition already has is newer, or a copy left by an interrupted move.
+    private static final String COPY_MONTH_SQL = "INSERT INTO main.usage_minutes (" + MINUTE_COLUMNS + ")\n"
+            + "SELECT " + MINUTE_COLUMNS + " FROM " + UNPARTITIONED + ".usage_minutes\n"
+            + "WHERE date >= ? AND date < ?\n"
+            + "ORDER BY date, minute\n"
+            + "ON CONFLICT(date, minute) DO NOTHING";
+    private static final String DELETE_MONTH_SQL = "DELETE FROM " + UNPARTITIONED + ".usage_minutes "
+            + "WHERE date >= ? AND date < ?";
+
+    private final Path databasePath;
+    private final String stem;
+    private final String extension;
+
+    public SqlitePartitions(Path databasePath) {
+        this.databasePath = Objects.requireNonNull(databasePath, "databasePath").toAbsolutePath();
+        String name = this.databasePath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.stem = dot > 0 ? name.substring(0, dot) : name;
+        this.extension = dot > 0 ? name.substring(dot) : "";
+    }
+
+    public Path databasePath() {
+        return databasePath;
+    }
+
+    public Path fileFor(YearMonth month) {
+        return databasePath.resolveSibling(stem + "-" + month.format(MONTH_FORMAT) + extension);
+    }
+
+    public Path fileFor(LocalDate date) {
+        return fileFor(YearMonth.from(date));
+    }
+
+    /**
+     * Months that have a partition file, oldest first.
+     */
+    public List<YearMonth> months() throws IOException {
+        Path directory = databasePath.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<YearMonth> months = new ArrayList<>();
+        String prefix = stem + "-";
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "??????" + extension)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String month = name.substring(prefix.length(), prefix.length() + 6);
+                try {
+                    months.add(YearMonth.parse(month, MONTH_FORMAT));
+                } catch (DateTimeParseException ex) {
+                    // Not one of ours.
+                }
+            }
+        }
+        Collections.sort(months);
+        return months;
+    }
+
+    /**
+     * Moves the minute rows the main file still holds from before partitioning was switched on into their month
+     * partitions, creating those as needed. Without this, readers that only look at partitions would no longer see
+     * them. Each month is copied and committed before it is deleted from the main file, so a move interrupted in
+     * between is finished by the next call.
+     *
+     * @return rows moved
+     */
+    public long moveUnpartitionedRows() throws SQLException {
+        if (Files.notExists(databasePath)) {
+            return 0;
+        }
+        List<YearMonth> months = new ArrayList<>();
+        try (Connection main = open(databasePath);
+             Statement statement = main.createStatement()) {
+            try (ResultSet tables = statement.executeQuery(
+                    "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = 'usage_minutes'")) {
+                if (!tables.next()) {
+                    return 0;
+                }
+            }
+            try (ResultSet result = statement.executeQuery(
+                    "SELECT DISTINCT substr(date, 1, 7) FROM usage_minutes ORDER BY 1")) {
+                while (result.next()) {
+                    months.add(YearMonth.parse(result.getString(1)));
+                }
+            }
+        }
+        long moved = 0;
+        for (YearMonth month : months) {
+            moved += moveMonth(month);
+        }
+        return moved;
+    }
+
+    private long moveMonth(YearMonth month) throws SQLException {
+        try (Connection partition = open(fileFor(month))) {
+            try (PreparedStatement attach = partition.prepareStatement("ATTACH DATABASE ? AS " + UNPARTITIONED)) {
+                attach.setString(1, databasePath.toString());
+                attach.execute();
+            }
+            partition.setAutoCommit(false);
+            SqliteStorageAdapter.createSchema(partition);
+            try (PreparedStatement copy = partition.prepareStatement(COPY_MONTH_SQL)) {
+                bindMonth(copy, month);
+                copy.executeUpdate();
+            }
+            partition.commit();
+            int moved;
+            try (PreparedStatement delete = partition.prepareStatement(DELETE_MONTH_SQL)) {
+                bindMonth(delete, month);
+                moved = delete.executeUpdate();
+            }
+            partition.commit();
+            return moved;
+        }
+    }
+
+    private static void bindMonth(PreparedStatement statement, YearMonth month) throws SQLException {
+        statement.setString(1, month.atDay(1).toString());
+        statement.setString(2, month.plusMonths(1).atDay(1).toString());
+    }
+
+    private static Connection open(Path file) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout=5000");
+        } catch (SQLException ex) {
+            connection.close();
+            throw ex;
+        }
+        return connection;
+    }
+
+    /**
+     * The schema name a partition is attached under.
+     */
+    public static String schema(YearMonth month) {
+        return "p" + month.format(MONTH_FORMAT);
+    }
+
+    /**
+     * Attaches the partitions of {@code months} to {@code connection}. ATTACH is not allowed inside a
+     * transaction, so the connection must be in auto-commit mode or between transactions.
+     */
+    public void attach(Connection connection, List<YearMonth> months) throws SQLException {
+        if (months.size() > MAX_ATTACHED) {
+            throw new IllegalArgumentException("At most " + MAX_ATTACHED + " partitions can be attached at once");
+        }
+        List<YearMonth> attached = new ArrayList<>();
+        try {
+            for (YearMonth month : months) {
+                String sql = "ATTACH DATABASE ? AS " + schema(month);
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setString(1, fileFor(month).toString());
+                    statement.execute();
+                }
+                attached.add(month);
+            }
+        } catch (SQLException ex) {
+            detach(connection, attached);
+            throw ex;
+        }
+    }
+
+    public void detach(Connection connection, List<YearMonth> months) throws SQLException {
+        SQLException failure = null;
+        for (YearMonth month : months) {
+            try (PreparedStatement statement = connection.prepareStatement("DETACH DATABASE " + schema(month))) {
+                statement.execute();
+            } catch (SQLException ex) {
+                if (failure == null) {
+                    failure = ex;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Repeats {@code select} once per partition, with {@code %s} replaced by the partition's schema, and joins the
+     * branches with {@code UNION ALL}. Each branch binds its own copy of the parameters.
+     */
+    public static String unionAll(String select, List<YearMonth> months) {
+        List<String> branches = new ArrayList<>(months.size());
+        for (YearMonth month : months) {
+            branches.add(select.formatted(schema(month)));
+        }
+        return String.join("\nUNION ALL\n", branches);
+    }
+}
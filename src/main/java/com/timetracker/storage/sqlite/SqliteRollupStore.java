@@ -0,0 +1,341 @@
+package com.timetracker.storage.sqlite;
+
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.storage.retention.RollupStore;
+import com.timetracker.storage.retention.UsageRollup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Retention tiers in the usage database: {@code usage_hourly} and {@code usage_daily} next to
+ * {@code usage_minutes}. Rollups and the deletion of the minute rows they replace commit together. Freed pages
+ * are reused by later inserts, so the file stops growing once the tiers reach their steady state. With monthly
+ * partitions the tiers stay in the main file and the partitions holding minute rows are attached per query.
+ */
+public class SqliteRollupStore implements RollupStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SqliteRollupStore.class);
+
+    private static final String SELECT_SQL = """
+            SELECT hour, status, app_id, app_name, exe_path, minutes, active_seconds, idle_seconds
+            FROM %s
+            WHERE date = ?
+            ORDER BY hour, minutes DESC
+            """;
+
+    private final Path databasePath;
+    // Null unless minute rows are split into monthly files.
+    private final SqlitePartitions partitions;
+    private Connection connection;
+
+    public SqliteRollupStore(SqliteStorageConfig config) {
+        Objects.requireNonNull(config, "config");
+        this.databasePath = Path.of(config.databasePath()).toAbsolutePath();
+        this.partitions = config.partitioned() ? new SqlitePartitions(databasePath) : null;
+    }
+
+    @Override
+    public synchronized List<LocalDate> minuteDaysBefore(LocalDate cutoff, int limit) throws IOException {
+        if (partitions != null) {
+            return partitionedDaysBefore(cutoff, limit);
+        }
+        try (PreparedStatement statement = connection().prepareStatement(
+                "SELECT DISTINCT date FROM usage_minutes WHERE date < ? ORDER BY date LIMIT ?")) {
+            statement.setString(1, cutoff.toString());
+            statement.setInt(2, limit);
+            List<LocalDate> days = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    days.add(LocalDate.parse(resultSet.getString(1)));
+                }
+            }
+            return days;
+        } catch (SQLException ex) {
+            throw new IOException("Failed to list expired minute rows", ex);
+        }
+    }
+
+    @Override
+    public synchronized void replaceMinutes(LocalDate date, List<UsageRollup> hourly, List<UsageRollup> daily)
+            throws IOException {
+        Connection db = connection();
+        YearMonth month = YearMonth.from(date);
+        List<YearMonth> attached = partitions != null && Files.exists(partitions.fileFor(month))
+                ? List.of(month)
+                : List.of();
+        try {
+            attach(db, attached);
+            try {
+                delete(db, "DELETE FROM usage_hourly WHERE date = ?", date);
+                delete(db, "DELETE FROM usage_daily WHERE date = ?", date);
+                insert(db, "usage_hourly", hourly);
+                insert(db, "usage_daily", daily);
+                if (partitions == null) {
+                    delete(db, "DELETE FROM usage_minutes WHERE date = ?", date);
+                } else if (!attached.isEmpty()) {
+                    delete(db, "DELETE FROM " + SqlitePartitions.schema(month) + ".usage_minutes WHERE date = ?",
+                            date);
+                }
+                db.commit();
+            } finally {
+                detach(db, attached);
+            }
+        } catch (SQLException ex) {
+            rollback(db);
+            throw new IOException("Failed to roll up " + date, ex);
+        }
+    }
+
+    @Override
+    public synchronized int dropHourlyBefore(LocalDate cutoff) throws IOException {
+        Connection db = connection();
+        try (PreparedStatement statement = db.prepareStatement(
+                "SELECT COUNT(DISTINCT date) FROM usage_hourly WHERE date < ?")) {
+            statement.setString(1, cutoff.toString());
+            int days;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                days = resultSet.next() ? resultSet.getInt(1) : 0;
+            }
+            if (days > 0) {
+                delete(db, "DELETE FROM usage_hourly WHERE date < ?", cutoff);
+                db.commit();
+            }
+            return days;
+        } catch (SQLException ex) {
+            rollback(db);
+            throw new IOException("Failed to drop hourly rollups", ex);
+        }
+    }
+
+    @Override
+    public synchronized List<LocalDate> rolledUpDays() throws IOException {
+        try (PreparedStatement statement = connection().prepareStatement(
+                "SELECT date FROM usage_hourly UNION SELECT date FROM usage_daily ORDER BY date");
+             ResultSet resultSet = statement.executeQuery()) {
+            List<LocalDate> days = new ArrayList<>();
+            while (resultSet.next()) {
+                days.add(LocalDate.parse(resultSet.getString(1)));
+            }
+            return days;
+        } catch (SQLException ex) {
+            throw new IOException("Failed to list rolled-up days", ex);
+        }
+    }
+
+    @Override
+    public List<UsageRollup> hourly(LocalDate date) throws IOException {
+        return select("usage_hourly", date);
+    }
+
+    @Override
+    public List<UsageRollup> daily(LocalDate date) throws IOException {
+        return select("usage_daily", date);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException ex) {
+                log.debug("Failed to close SQLite rollup connection", ex);
+            }
+            connection = null;
+        }
+    }
+
+    /**
+     * Scans the partitions older than {@code cutoff} in groups of at most {@link SqlitePartitions#MAX_ATTACHED},
+     * oldest first, with one {@code UNION ALL} query per group.
+     */
+    private List<LocalDate> partitionedDaysBefore(LocalDate cutoff, int limit) throws IOException {
+        Connection db = connection();
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month : partitions.months()) {
+            if (month.atDay(1).isBefore(cutoff)) {
+                months.add(month);
+            }
+        }
+        List<LocalDate> days = new ArrayList<>();
+        try {
+            int groupSize = SqlitePartitions.MAX_ATTACHED;
+            for (int from = 0; from < months.size() && days.size() < limit; from += groupSize) {
+                List<YearMonth> group = months.subList(from, Math.min(months.size(), from + groupSize));
+                attach(db, group);
+                try (PreparedStatement statement = db.prepareStatement("SELECT DISTINCT date FROM ("
+                        + SqlitePartitions.unionAll("SELECT date FROM %s.usage_minutes WHERE date < ?", group)
+                        + ") ORDER BY date LIMIT ?")) {
+                    for (int i = 0; i < group.size(); i++) {
+                        statement.setString(i + 1, cutoff.toString());
+                    }
+                    statement.setInt(group.size() + 1, limit - days.size());
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            days.add(LocalDate.parse(resultSet.getString(1)));
+                        }
+                    }
+                    db.commit();
+                } finally {
+                    detach(db, group);
+                }
+            }
+            return days;
+        } catch (SQLException ex) {
+            rollback(db);
+            throw new IOException("Failed to list expired minute rows", ex);
+        }
+    }
+
+    /**
+     * ATTACH and DETACH are not allowed inside a transaction, so they run with auto-commit briefly switched on.
+     */
+    private void attach(Connection db, List<YearMonth> months) throws SQLException {
+        if (!months.isEmpty()) {
+            db.setAutoCommit(true);
+            try {
+                partitions.attach(db, months);
+            } finally {
+                db.setAutoCommit(false);
+            }
+        }
+    }
+
+    private void detach(Connection db, List<YearMonth> months) throws SQLException {
+        if (!months.isEmpty()) {
+            db.rollback();
+            db.setAutoCommit(true);
+            try {
+                partitions.detach(db, months);
+            } finally {
+                db.setAutoCommit(false);
+            }
+        }
+    }
+
+    private synchronized List<UsageRollup> select(String table, LocalDate date) throws IOException {
+        try (PreparedStatement statement = connection().prepareStatement(SELECT_SQL.formatted(table))) {
+            statement.setString(1, date.toString());
+            List<UsageRollup> rollups = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    MinuteStatus status = MinuteStatus.valueOf(resultSet.getString("status").toUpperCase(Locale.ROOT));
+                    rollups.add(new UsageRollup(date, resultSet.getInt("hour"), status,
+                            UsageRollup.application(resultSet.getString("app_id"), resultSet.getString("app_name"),
+                                    resultSet.getString("exe_path")),
+                            resultSet.getInt("minutes"),
+                            resultSet.getInt("active_seconds"),
+                            resultSet.getInt("idle_seconds")));
+                }
+            }
+            return rollups;
+        } catch (SQLException ex) {
+            throw new IOException("Failed to read rollups for " + date, ex);
+        }
+    }
+
+    private Connection connection() throws IOException {
+        if (connection == null) {
+            try {
+                if (partitions != null) {
+                    // Expired days are only looked for in partitions, so older minute rows must be in one.
+                    partitions.moveUnpartitionedRows();
+                }
+                Connection db = DriverManager.getConnection("jdbc:sqlite:" + databasePath);
+                try (Statement statement = db.createStatement()) {
+                    statement.execute("PRAGMA busy_timeout=5000");
+                }
+                db.setAutoCommit(false);
+                createSchema(db);
+                db.commit();
+                connection = db;
+            } catch (SQLException ex) {
+                throw new IOException("Failed to open " + databasePath, ex);
+            }
+        }
+        return connection;
+    }
+
+    private static void createSchema(Connection db) throws SQLException {
+        try (Statement statement = db.createStatement()) {
+            for (String table : List.of("usage_hourly", "usage_daily")) {
+                statement.execute("""
+                        CREATE TABLE IF NOT EXISTS %s (
+                            date TEXT NOT NULL,
+                            hour INTEGER NOT NULL,
+                            status TEXT NOT NULL,
+                            app_id TEXT NOT NULL DEFAULT '',
+                            app_name TEXT,
+                            exe_path TEXT,
+                            minutes INTEGER NOT NULL,
+                            active_seconds INTEGER NOT NULL,
+                            idle_seconds INTEGER NOT NULL,
+                            PRIMARY KEY (date, hour, status, app_id, exe_path)
+                        )
+                        """.formatted(table));
+            }
+        }
+    }
+
+    private static void insert(Connection db, String table, List<UsageRollup> rollups) throws SQLException {
+        try (PreparedStatement statement = db.prepareStatement("""
+                INSERT OR REPLACE INTO %s
+                    (date, hour, status, app_id, app_name, exe_path, minutes, active_seconds, idle_seconds)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """.formatted(table))) {
+            for (UsageRollup rollup : rollups) {
+                statement.setString(1, rollup.date().toString());
+                statement.setInt(2, rollup.hour());
+                statement.setString(3, rollup.status().name());
+                Optional<ResolvedApplication> app = rollup.application();
+                statement.setString(4, app.map(ResolvedApplication::id).orElse(""));
+                if (app.isPresent()) {
+                    statement.setString(5, app.get().displayName());
+                    statement.setString(6, app.get().executablePath());
+                } else {
+                    statement.setNull(5, Types.VARCHAR);
+                    statement.setString(6, "");
+                }
+                statement.setInt(7, rollup.minutes());
+                statement.setInt(8, rollup.activeSeconds());
+                statement.setInt(9, rollup.idleSeconds());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void delete(Connection db, String sql, LocalDate date) throws SQLException {
+        try (PreparedStatement statement = db.prepareStatement(sql)) {
+            statement.setString(1, date.toString());
+            statement.executeUpdate();
+        }
+    }
+
+    private static void rollback(Connection db) {
+        try {
+            db.rollback();
+        } catch (SQLException ex) {
+            log.warn("SQLite rollback failed", ex);
+        }
+    }
+}
@@ -4,24 +4,31 @@ import com.timetracker.aggregation.MinuteRecord;
 import com.timetracker.aggregation.MinuteStatus;
 import com.timetracker.app.ResolvedApplication;
 import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.metrics.StorageFlushEvent;
 import com.timetracker.storage.StorageAdapter;
 import com.timetracker.storage.StorageException;
+import com.timetracker.storage.retention.UsageRollup;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 
 public class SqliteStorageAdapter implements StorageAdapter {
 
@@ -29,17 +36,84 @@ public class SqliteStorageAdapter implements StorageAdapter {
 
     private static final int DEFAULT_FLUSH_INTERVAL_MINUTES = 1;
     private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    private static final int DEFAULT_WAL_CHECKPOINT_PAGES = 1000;
 
     private static final DateTimeFormatter MINUTE_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+    // One entry past the last minute, so that the end of a run can be compared with stored minutes as well.
+    private static final String[] MINUTE_TEXT = new String[24 * 60 + 1];
+
+    static {
+        for (int i = 0; i < MINUTE_TEXT.length - 1; i++) {
+            MINUTE_TEXT[i] = MINUTE_FORMAT.format(LocalTime.of(i / 60, i % 60));
+        }
+        MINUTE_TEXT[24 * 60] = "24:00";
+    }
+
+    private static final int COLUMNS = 10;
+    // Statements hold 1, 2, 4, ... 256 rows; a flush is split into the fewest of them (2560 parameters at most).
+    private static final int STATEMENT_SIZES = 9;
+    private static final int MAX_ROWS_PER_STATEMENT = 1 << (STATEMENT_SIZES - 1);
+
+    private static final long MMAP_SIZE_BYTES = 64L * 1024 * 1024;
+    private static final int CACHE_SIZE_KIB = 8192;
+    // Frame header size of a WAL entry, on top of the page itself.
+    private static final int WAL_FRAME_HEADER_BYTES = 24;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO usage_minutes
+                (date, minute, status, app_id, app_name, exe_path, active_seconds, idle_seconds, minutes, title_hash)
+            VALUES
+            """;
+    private static final String ROW_SQL = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String ON_CONFLICT_SQL = """
+            ON CONFLICT(date, minute) DO UPDATE SET
+                status=excluded.status,
+                app_id=excluded.app_id,
+                app_name=excluded.app_name,
+                exe_path=excluded.exe_path,
+                active_seconds=excluded.active_seconds,
+                idle_seconds=excluded.idle_seconds,
+                minutes=excluded.minutes,
+                title_hash=excluded.title_hash,
+                updated_at=CURRENT_TIMESTAMP
+            """;
+
+    private static final String ROW_COLUMNS_SQL = """
+            SELECT minute, status, app_id, app_name, exe_path, active_seconds, idle_seconds, minutes, title_hash
+            FROM usage_minutes
+            """;
+    // Rows a new run may cover: those starting inside it, and longer rows starting before it that may reach in.
+    private static final String COVERED_BY_RUN_SQL = ROW_COLUMNS_SQL
+            + "WHERE date = ? AND minute < ? AND (minute >= ? OR minutes > 1)";
+    // Rows an extended run may cover: only those starting in the minutes it grew by.
+    private static final String COVERED_BY_EXTENSION_SQL = ROW_COLUMNS_SQL
+            + "WHERE date = ? AND minute >= ? AND minute < ?";
+    private static final String DELETE_ROW_SQL = "DELETE FROM usage_minutes WHERE date = ? AND minute = ?";
 
     private final Path databasePath;
+    private final String journalMode;
+    // Null unless the database is split into monthly files.
+    private final SqlitePartitions partitions;
     private final int flushIntervalMinutes;
     private final int maxBatchSize;
-    private final Connection connection;
-    private final PreparedStatement upsertStatement;
+    private final int walCheckpointPages;
+    // Null unless consecutive minutes are stored as runs.
+    private final MinuteRuns runs;
+    private Path openFile;
+    private Connection connection;
+    private final PreparedStatement[] upsertStatements = new PreparedStatement[STATEMENT_SIZES];
+    private PreparedStatement coveredByRunStatement;
+    private PreparedStatement coveredByExtensionStatement;
+    private PreparedStatement deleteRowStatement;
+    // Checkpoint threshold for the open file in bytes of WAL, or 0 when SQLite checkpoints on its own.
+    private long walCheckpointBytes;
+    // Consecutive records almost always share their date.
+    private LocalDate lastDate;
+    private String lastDateText;
 
     private final List<MinuteRecord> buffer = new ArrayList<>();
     private long lastFlushEpochMinute = -1;
+    private volatile long bytesWritten;
 
     public SqliteStorageAdapter(SqliteStorageConfig config) throws StorageException {
         Objects.requireNonNull(config, "config");
@@ -48,30 +122,24 @@ public class SqliteStorageAdapter implements StorageAdapter {
             if (databasePath.getParent() != null) {
                 Files.createDirectories(databasePath.getParent());
             }
-            this.flushIntervalMinutes = DEFAULT_FLUSH_INTERVAL_MINUTES;
-            this.maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
-            String url = "jdbc:sqlite:" + databasePath;
-            this.connection = DriverManager.getConnection(url);
-            this.connection.setAutoCommit(false);
-            configurePragma(connection, config.journalMode());
-            createSchema(connection);
-            this.connection.commit();
-            this.upsertStatement = connection.prepareStatement("""
-                    INSERT INTO usage_minutes
-                        (date, minute, status, app_id, app_name, exe_path, active_seconds, idle_seconds, minutes, title_hash)
-                    VALUES
-                        (?, ?, ?, ?, ?, ?, ?, ?, 1, ?)
-                    ON CONFLICT(date, minute) DO UPDATE SET
-                        status=excluded.status,
-                        app_id=excluded.app_id,
-                        app_name=excluded.app_name,
-                        exe_path=excluded.exe_path,
-                        active_seconds=excluded.active_seconds,
-                        idle_seconds=excluded.idle_seconds,
-                        minutes=excluded.minutes,
-                        title_hash=excluded.title_hash,
-                        updated_at=CURRENT_TIMESTAMP
-                    """);
+            this.journalMode = config.journalMode();
+            this.partitions = config.partitioned() ? new SqlitePartitions(databasePath) : null;
+            this.flushIntervalMinutes = config.flushIntervalMinutes() == null
+                    ? DEFAULT_FLUSH_INTERVAL_MINUTES
+                    : config.flushIntervalMinutes();
+            this.maxBatchSize = config.maxBatchSize() == null ? DEFAULT_MAX_BATCH_SIZE : config.maxBatchSize();
+            this.walCheckpointPages = config.walCheckpointPages() == null
+                    ? DEFAULT_WAL_CHECKPOINT_PAGES
+                    : config.walCheckpointPages();
+            this.runs = config.runs() ? new MinuteRuns() : null;
+            if (partitions == null) {
+                open(databasePath);
+            } else {
+                long moved = partitions.moveUnpartitionedRows();
+                if (moved > 0) {
+                    log.info("Moved {} minute rows from {} into monthly partitions", moved, databasePath);
+                }
+            }
         } catch (Exception ex) {
             throw new StorageException("Failed to initialise SQLite storage", ex);
         }
@@ -99,18 +167,35 @@ public class SqliteStorageAdapter implements StorageAdapter {
         if (buffer.isEmpty()) {
             return;
         }
+        StorageFlushEvent event = new StorageFlushEvent();
+        event.begin();
         try {
-            for (MinuteRecord record : buffer) {
-                bindRecord(upsertStatement, record);
-                upsertStatement.addBatch();
+            List<MinuteRecord> rows;
+            if (runs == null) {
+                upsertBuffer();
+                rows = buffer;
+            } else {
+                List<MinuteRuns.Run> written = runs.coalesce(buffer);
+                writeRuns(written);
+                runs.written(written);
+                rows = written.stream().map(MinuteRuns.Run::row).toList();
+            }
+            checkpointIfDue();
+            long bytes = estimatedRowBytes(rows);
+            bytesWritten += bytes;
+            event.end();
+            if (event.shouldCommit()) {
+                event.storage = "SQLITE";
+                event.records = buffer.size();
+                event.bytes = bytes;
+                event.commit();
             }
-            upsertStatement.executeBatch();
-            connection.commit();
-            upsertStatement.clearBatch();
             buffer.clear();
         } catch (SQLException ex) {
             try {
-                connection.rollback();
+                if (connection != null) {
+                    connection.rollback();
+                }
             } catch (SQLException rollbackEx) {
                 log.warn("SQLite rollback failed", rollbackEx);
             }
@@ -118,70 +203,359 @@ public class SqliteStorageAdapter implements StorageAdapter {
         }
     }
 
+    /**
+     * Estimated from the bound row payloads; page, index and WAL overhead are not included.
+     */
+    @Override
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
     @Override
     public synchronized void close() throws StorageException {
         try {
             flush();
         } finally {
+            closeConnection();
+        }
+    }
+
+    private Path fileFor(MinuteRecord record) {
+        return partitions == null ? databasePath : partitions.fileFor(record.date());
+    }
+
+    /**
+     * Points the writer at {@code file}. Outside of a month change or a late write for an earlier month this is a
+     * no-op.
+     */
+    private void useFile(Path file) throws SQLException {
+        if (file.equals(openFile)) {
+            return;
+        }
+        closeConnection();
+        open(file);
+    }
+
+    private void upsertBuffer() throws SQLException {
+        int from = 0;
+        while (from < buffer.size()) {
+            Path file = fileFor(buffer.get(from));
+            int to = from + 1;
+            while (to < buffer.size() && file.equals(fileFor(buffer.get(to)))) {
+                to++;
+            }
+            useFile(file);
+            upsert(from, to);
+            connection.commit();
+            from = to;
+        }
+    }
+
+    /**
+     * Writes runs one at a time, in order, so a run always supersedes what was stored before it, including an
+     * earlier run of the same flush. The open run keeps its start minute and is updated in place as it grows.
+     */
+    private void writeRuns(List<MinuteRuns.Run> written) throws SQLException {
+        Path file = null;
+        for (MinuteRuns.Run run : written) {
+            Path next = fileFor(run.row());
+            if (!next.equals(file)) {
+                if (file != null) {
+                    connection.commit();
+                }
+                useFile(next);
+                file = next;
+            }
+            writeRun(run);
+        }
+        if (file != null) {
+            connection.commit();
+        }
+    }
+
+    /**
+     * Trims the stored rows the run covers, keeping the parts before and after it, and then upserts the run.
+     */
+    private void writeRun(MinuteRuns.Run run) throws SQLException {
+        MinuteRecord row = run.row();
+        int start = MinuteRuns.start(row);
+        int end = Math.min(MinuteRuns.end(row), MINUTE_TEXT.length - 1);
+        for (MinuteRecord stored : coveredRows(row.date(), start, run.coveredFrom(), end)) {
+            int storedStart = MinuteRuns.start(stored);
+            int storedEnd = MinuteRuns.end(stored);
+            if (storedEnd > end) {
+                upsertOne(slice(stored, end - storedStart, storedEnd - end));
+            }
+            if (storedStart < start) {
+                upsertOne(slice(stored, 0, start - storedStart));
+            } else if (storedStart != start) {
+                deleteRowStatement.setString(1, row.date().toString());
+                deleteRowStatement.setString(2, MINUTE_TEXT[storedStart]);
+                deleteRowStatement.executeUpdate();
+            }
+        }
+        upsertOne(row);
+    }
+
+    /**
+     * Stored rows overlapping {@code [from, end)}; {@code from} is the run's start unless it is being extended.
+     */
+    private List<MinuteRecord> coveredRows(LocalDate date, int start, int from, int end) throws SQLException {
+        if (deleteRowStatement == null) {
+            coveredByRunStatement = connection.prepareStatement(COVERED_BY_RUN_SQL);
+            coveredByExtensionStatement = connection.prepareStatement(COVERED_BY_EXTENSION_SQL);
+            deleteRowStatement = connection.prepareStatement(DELETE_ROW_SQL);
+        }
+        PreparedStatement statement;
+        if (from == start) {
+            statement = coveredByRunStatement;
+            statement.setString(1, date.toString());
+            statement.setString(2, MINUTE_TEXT[end]);
+            statement.setString(3, MINUTE_TEXT[from]);
+        } else {
+            statement = coveredByExtensionStatement;
+            statement.setString(1, date.toString());
+            statement.setString(2, MINUTE_TEXT[from]);
+            statement.setString(3, MINUTE_TEXT[end]);
+        }
+        List<MinuteRecord> covered = new ArrayList<>();
+        try (ResultSet result = statement.executeQuery()) {
+            while (result.next()) {
+                LocalTime minute = LocalTime.parse(result.getString("minute"), MINUTE_FORMAT);
+                MinuteStatus status = MinuteStatus.valueOf(result.getString("status"));
+                Optional<ResolvedApplication> application = status == MinuteStatus.ACTIVE
+                        ? UsageRollup.application(result.getString("app_id"), result.getString("app_name"),
+                                result.getString("exe_path"))
+                        : Optional.empty();
+                MinuteRecord stored = new MinuteRecord(date, minute, status, application,
+                        result.getInt("active_seconds"), result.getInt("idle_seconds"),
+                        Optional.ofNullable(result.getString("title_hash")), Math.max(1, result.getInt("minutes")));
+                if (MinuteRuns.end(stored) > from) {
+                    covered.add(stored);
+                }
+            }
+        }
+        return covered;
+    }
+
+    /**
+     * {@code length} minutes of a stored row from {@code offset} on, with its seconds split as readers split them.
+     */
+    private static MinuteRecord slice(MinuteRecord stored, int offset, int length) {
+        int active = stored.activeSeconds();
+        int idle = stored.idleSeconds();
+        int minutes = stored.minutes();
+        if (stored.status() != MinuteStatus.SUSPENDED) {
+            active = MinuteRuns.head(active, minutes, offset + length) - MinuteRuns.head(active, minutes, offset);
+            idle = MinuteRuns.head(idle, minutes, offset + length) - MinuteRuns.head(idle, minutes, offset);
+        }
+        return new MinuteRecord(stored.date(), stored.minute().plusMinutes(offset), stored.status(),
+                stored.application(), active, idle, stored.windowTitleHash(), length);
+    }
+
+    private void upsertOne(MinuteRecord record) throws SQLException {
+        PreparedStatement statement = upsertStatement(1);
+        bindRecord(statement, 0, record);
+        statement.executeUpdate();
+    }
+
+    /**
+     * Writes {@code buffer[from, to)} with multi-row upserts. Rows are applied in order, so a later row for the
+     * same minute still wins within one statement.
+     */
+    private void upsert(int from, int to) throws SQLException {
+        int index = from;
+        while (index < to) {
+            int rows = Math.min(MAX_ROWS_PER_STATEMENT, Integer.highestOneBit(to - index));
+            PreparedStatement statement = upsertStatement(rows);
+            for (int row = 0; row < rows; row++) {
+                bindRecord(statement, row * COLUMNS, buffer.get(index + row));
+            }
+            statement.executeUpdate();
+            index += rows;
+        }
+    }
+
+    private PreparedStatement upsertStatement(int rows) throws SQLException {
+        int slot = Integer.numberOfTrailingZeros(rows);
+        PreparedStatement statement = upsertStatements[slot];
+        if (statement == null) {
+            StringBuilder sql = new StringBuilder(INSERT_SQL.length() + rows * (ROW_SQL.length() + 2)
+                    + ON_CONFLICT_SQL.length());
+            sql.append(INSERT_SQL);
+            for (int row = 0; row < rows; row++) {
+                sql.append(row == 0 ? "    " : ",\n    ").append(ROW_SQL);
+            }
+            sql.append('\n').append(ON_CONFLICT_SQL);
+            statement = connection.prepareStatement(sql.toString());
+            upsertStatements[slot] = statement;
+        }
+        return statement;
+    }
+
+    /**
+     * Runs a passive checkpoint once the WAL has grown past the configured number of pages. Automatic
+     * checkpoints are off and {@code journal_size_limit} truncates the WAL whenever it restarts, so its size
+     * measures what has not been checkpointed yet.
+     */
+    private void checkpointIfDue() throws SQLException {
+        if (walCheckpointBytes <= 0) {
+            return;
+        }
+        Path wal = openFile.resolveSibling(openFile.getFileName() + "-wal");
+        long walBytes;
+        try {
+            walBytes = Files.exists(wal) ? Files.size(wal) : 0;
+        } catch (IOException ex) {
+            return;
+        }
+        if (walBytes < walCheckpointBytes) {
+            return;
+        }
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("PRAGMA wal_checkpoint(PASSIVE)")) {
+            if (result.next() && result.getInt(3) < result.getInt(2)) {
+                // Readers still use older frames; the rest is picked up by a later checkpoint.
+                log.debug("Checkpointed {} of {} WAL frames of {}", result.getInt(3), result.getInt(2), openFile);
+            }
+        }
+    }
+
+    private void open(Path file) throws SQLException {
+        Connection opened = DriverManager.getConnection("jdbc:sqlite:" + file);
+        try {
+            // journal_mode cannot be changed inside a transaction, so set pragmas before disabling auto-commit.
+            this.walCheckpointBytes = configurePragma(opened, journalMode);
+            opened.setAutoCommit(false);
+            createSchema(opened);
+            opened.commit();
+        } catch (SQLException ex) {
+            opened.close();
+            throw ex;
+        }
+        this.connection = opened;
+        this.openFile = file;
+    }
+
+    private void closeConnection() {
+        for (int i = 0; i < upsertStatements.length; i++) {
             try {
-                if (upsertStatement != null) {
-                    upsertStatement.close();
+                if (upsertStatements[i] != null) {
+                    upsertStatements[i].close();
                 }
             } catch (SQLException ex) {
                 log.debug("Failed to close SQLite prepared statement", ex);
             }
+            upsertStatements[i] = null;
+        }
+        for (PreparedStatement statement : new PreparedStatement[]{
+                coveredByRunStatement, coveredByExtensionStatement, deleteRowStatement}) {
             try {
-                if (connection != null) {
-                    connection.close();
+                if (statement != null) {
+                    statement.close();
                 }
             } catch (SQLException ex) {
-                log.debug("Failed to close SQLite connection", ex);
+                log.debug("Failed to close SQLite prepared statement", ex);
+            }
+        }
+        coveredByRunStatement = null;
+        coveredByExtensionStatement = null;
+        deleteRowStatement = null;
+        try {
+            if (connection != null) {
+                connection.close();
             }
+        } catch (SQLException ex) {
+            log.debug("Failed to close SQLite connection", ex);
         }
+        connection = null;
+        openFile = null;
     }
 
-    private void bindRecord(PreparedStatement statement, MinuteRecord record) throws SQLException {
-        statement.setString(1, record.date().toString());
-        statement.setString(2, MINUTE_FORMAT.format(record.minute()));
-        statement.setString(3, record.status().name());
+    /**
+     * Approximate payload of the bound columns; SQLite page and index overhead is not included.
+     */
+    private static long estimatedRowBytes(List<MinuteRecord> records) {
+        long bytes = 0;
+        for (MinuteRecord record : records) {
+            // date, minute, status and the four integer columns
+            bytes += 10 + 5 + record.status().name().length() + 4 * Integer.BYTES;
+            if (record.application().isPresent()) {
+                ResolvedApplication app = record.application().get();
+                bytes += app.id().length() + app.displayName().length()
+                        + (app.executablePath() == null ? 0 : app.executablePath().length());
+            }
+            bytes += record.windowTitleHash().map(String::length).orElse(0);
+        }
+        return bytes;
+    }
+
+    /**
+     * Binds one row of a multi-row statement; {@code offset} is the number of parameters before it.
+     */
+    private void bindRecord(PreparedStatement statement, int offset, MinuteRecord record) throws SQLException {
+        if (!record.date().equals(lastDate)) {
+            lastDate = record.date();
+            lastDateText = lastDate.toString();
+        }
+        statement.setString(offset + 1, lastDateText);
+        statement.setString(offset + 2, MINUTE_TEXT[record.minute().getHour() * 60 + record.minute().getMinute()]);
+        statement.setString(offset + 3, record.status().name());
 
-        if (record.status() == MinuteStatus.IDLE || record.application().isEmpty()) {
-            statement.setNull(4, java.sql.Types.VARCHAR);
-            statement.setNull(5, java.sql.Types.VARCHAR);
-            statement.setNull(6, java.sql.Types.VARCHAR);
+        if (record.status() != MinuteStatus.ACTIVE || record.application().isEmpty()) {
+            statement.setNull(offset + 4, java.sql.Types.VARCHAR);
+            statement.setNull(offset + 5, java.sql.Types.VARCHAR);
+            statement.setNull(offset + 6, java.sql.Types.VARCHAR);
         } else {
             ResolvedApplication app = record.application().orElseThrow();
-            statement.setString(4, app.id());
-            statement.setString(5, app.displayName());
-            statement.setString(6, app.executablePath());
+            statement.setString(offset + 4, app.id());
+            statement.setString(offset + 5, app.displayName());
+            statement.setString(offset + 6, app.executablePath());
         }
 
-        statement.setInt(7, record.activeSeconds());
-        statement.setInt(8, record.idleSeconds());
+        statement.setInt(offset + 7, record.activeSeconds());
+        statement.setInt(offset + 8, record.idleSeconds());
+        statement.setInt(offset + 9, record.minutes());
 
         if (record.windowTitleHash().isPresent() && StringUtils.isNotBlank(record.windowTitleHash().get())) {
-            statement.setString(9, record.windowTitleHash().get());
+            statement.setString(offset + 10, record.windowTitleHash().get());
         } else {
-            statement.setNull(9, java.sql.Types.VARCHAR);
+            statement.setNull(offset + 10, java.sql.Types.VARCHAR);
         }
     }
 
-    private void configurePragma(Connection connection, String journalMode) throws SQLException {
-        if (StringUtils.isNotBlank(journalMode)) {
-            String mode = journalMode.trim().toUpperCase(Locale.ROOT);
-            try (Statement statement = connection.createStatement()) {
-                statement.execute("PRAGMA journal_mode=" + mode);
-            }
-        }
+    /**
+     * Applies the writer pragmas and returns the WAL size at which {@link #checkpointIfDue()} checkpoints, or 0
+     * when the file is not in WAL mode or checkpointing is left to SQLite.
+     */
+    private long configurePragma(Connection connection, String journalMode) throws SQLException {
         try (Statement statement = connection.createStatement()) {
+            String mode = "";
+            if (StringUtils.isNotBlank(journalMode)) {
+                try (ResultSet result = statement.executeQuery(
+                        "PRAGMA journal_mode=" + journalMode.trim().toUpperCase(Locale.ROOT))) {
+                    mode = result.next() ? result.getString(1) : "";
+                }
+            }
             statement.execute("PRAGMA synchronous=NORMAL");
-        }
-        try (Statement statement = connection.createStatement()) {
             statement.execute("PRAGMA busy_timeout=5000");
+            statement.execute("PRAGMA cache_size=-" + CACHE_SIZE_KIB);
+            statement.execute("PRAGMA temp_store=MEMORY");
+            statement.execute("PRAGMA mmap_size=" + MMAP_SIZE_BYTES);
+            if (walCheckpointPages <= 0 || !"wal".equalsIgnoreCase(mode)) {
+                return 0;
+            }
+            statement.execute("PRAGMA wal_autocheckpoint=0");
+            statement.execute("PRAGMA journal_size_limit=0");
+            int pageSize;
+            try (ResultSet result = statement.executeQuery("PRAGMA page_size")) {
+                pageSize = result.next() ? result.getInt(1) : 4096;
+            }
+            return (long) walCheckpointPages * (pageSize + WAL_FRAME_HEADER_BYTES);
         }
     }
 
-    private void createSchema(Connection connection) throws SQLException {
+    static void createSchema(Connection connection) throws SQLException {
         try (Statement statement = connection.createStatement()) {
             statement.execute("""
                     CREATE TABLE IF NOT EXISTS usage_minutes (
@@ -13,6 +13,7 @@ import java.awt.event.ActionEvent;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
@@ -26,6 +27,7 @@ public class SystemTrayController implements TrayController {
     private volatile Path reportDirectory;
     private volatile Path dataDirectory;
     private final Path configFile;
+    private final Clock clock;
 
     private TrayIcon trayIcon;
     private TrayActions actions;
@@ -36,10 +38,11 @@ public class SystemTrayController implements TrayController {
     private MenuItem exitItem;
     private final AtomicReference<TrayStatus> statusRef = new AtomicReference<>();
 
-    public SystemTrayController(Path reportDirectory, Path dataDirectory, Path configFile) {
+    public SystemTrayController(Path reportDirectory, Path dataDirectory, Path configFile, Clock clock) {
         this.reportDirectory = Objects.requireNonNull(reportDirectory, "reportDirectory");
         this.dataDirectory = Objects.requireNonNull(dataDirectory, "dataDirectory");
         this.configFile = Objects.requireNonNull(configFile, "configFile");
+        this.clock = Objects.requireNonNull(clock, "clock");
     }
 
     @Override
@@ -154,7 +157,7 @@ public class SystemTrayController implements TrayController {
     }
 
     private void openTodayReport(ActionEvent event) {
-        LocalDate today = LocalDate.now();
+        LocalDate today = LocalDate.now(clock);
         Path reportPath = reportDirectory.resolve("daily_report_" + today.format(REPORT_SUFFIX) + ".html");
         if (!Files.exists(reportPath)) {
             displayMessage("TimeTracker", "Report not generated yet for today.", TrayMessageType.INFO);
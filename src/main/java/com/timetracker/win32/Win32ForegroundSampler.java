@@ -13,8 +13,10 @@ import com.timetracker.sampling.ForegroundSampler;
 import com.timetracker.sampling.SamplingException;
 
 import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
@@ -25,14 +27,20 @@ public class Win32ForegroundSampler implements ForegroundSampler {
     private static final int WINDOW_TITLE_MAX_CHARS = 1024;
 
     private final boolean captureWindowTitle;
+    private final Clock clock;
 
     public Win32ForegroundSampler(boolean captureWindowTitle) {
+        this(captureWindowTitle, Clock.systemUTC());
+    }
+
+    public Win32ForegroundSampler(boolean captureWindowTitle, Clock clock) {
         this.captureWindowTitle = captureWindowTitle;
+        this.clock = Objects.requireNonNull(clock, "clock");
     }
 
     @Override
     public ForegroundSample sample() throws SamplingException {
-        Instant now = Instant.now();
+        Instant now = clock.instant();
 
         HWND foregroundWindow = User32.INSTANCE.GetForegroundWindow();
         if (foregroundWindow == null || Pointer.nativeValue(foregroundWindow.getPointer()) == 0) {
@@ -5,7 +5,9 @@ import com.timetracker.app.ResolvedApplication;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.time.LocalTime;
 import java.time.ZoneOffset;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -87,4 +89,94 @@ class MinuteAggregatorTest {
         assertEquals(MinuteStatus.ACTIVE, record.status());
         assertEquals(60, record.activeSeconds());
     }
+
+    @Test
+    void shouldCloseOpenMinuteAndReportGapAfterSuspend() {
+        MinuteAggregator aggregator = new MinuteAggregator(15, 60, 1, ZoneOffset.UTC, 120);
+        Instant base = Instant.parse("2024-01-01T23:58:00Z");
+        ResolvedApplication app = new ResolvedApplication("app", "App", "C:/app.exe", "c:/app.exe", false);
+        ApplicationSample sample = new ApplicationSample(app, Optional.empty());
+
+        for (int i = 0; i < 30; i++) {
+            aggregator.processSample(new SampleTick(base.plusSeconds(i), false, Optional.of(sample), 0));
+        }
+        assertTrue(aggregator.takeGap().isEmpty());
+
+        Instant resumed = Instant.parse("2024-01-03T08:15:10Z");
+        Optional<MinuteRecord> closed = aggregator.processSample(new SampleTick(resumed, false, Optional.of(sample), 0));
+        assertTrue(closed.isPresent());
+        assertEquals(30, closed.orElseThrow().activeSeconds());
+
+        ClockGap gap = aggregator.takeGap().orElseThrow();
+        assertTrue(aggregator.takeGap().isEmpty());
+        List<MinuteRecord> suspended = gap.toSuspendedRecords(ZoneOffset.UTC);
+        assertEquals(3, suspended.size());
+        assertEquals(LocalTime.of(23, 59), suspended.get(0).minute());
+        assertEquals(1, suspended.get(0).minutes());
+        assertEquals(1440, suspended.get(1).minutes());
+        assertEquals(8 * 60 + 15, suspended.get(2).minutes());
+        assertTrue(suspended.stream().allMatch(r -> r.status() == MinuteStatus.SUSPENDED));
+    }
+
+    @Test
+    void shouldCloseOpenMinuteWhenClockMovesBackwards() {
+        MinuteAggregator aggregator = new MinuteAggregator(15, 60, 1, ZoneOffset.UTC);
+        Instant base = Instant.parse("2024-01-01T14:00:00Z");
+        ResolvedApplication app = new ResolvedApplication("app", "App", "C:/app.exe", "c:/app.exe", false);
+        ApplicationSample sample = new ApplicationSample(app, Optional.empty());
+
+        for (int i = 0; i < 20; i++) {
+            aggregator.processSample(new SampleTick(base.plusSeconds(i), false, Optional.of(sample), 0));
+        }
+        Optional<MinuteRecord> closed = aggregator.processSample(
+                new SampleTick(base.minusSeconds(3600), false, Optional.of(sample), 0));
+
+        assertTrue(closed.isPresent());
+        assertEquals(LocalTime.of(14, 0), closed.orElseThrow().minute());
+        assertTrue(aggregator.takeGap().isEmpty());
+    }
+
+    @Test
+    void shouldAccumulateEventIntervalsAcrossMinuteBoundaries() {
+        MinuteAggregator aggregator = new MinuteAggregator(15, 60, 1, ZoneOffset.UTC);
+        Instant base = Instant.parse("2024-01-01T15:00:00Z");
+        ResolvedApplication alpha = new ResolvedApplication("alpha", "Alpha", "C:/alpha.exe", "c:/alpha.exe", false);
+        ResolvedApplication bravo = new ResolvedApplication("bravo", "Bravo", "C:/bravo.exe", "c:/bravo.exe", false);
+
+        assertTrue(aggregator.observe(base.plusSeconds(10), false,
+                Optional.of(new ApplicationSample(alpha, Optional.empty())), 0).isEmpty());
+        // Focus stays on Alpha for 2.5 minutes without any further event.
+        List<MinuteRecord> records = aggregator.observe(base.plusSeconds(160), false,
+                Optional.of(new ApplicationSample(bravo, Optional.empty())), 0);
+
+        assertEquals(2, records.size());
+        assertEquals("Alpha", records.get(0).application().orElseThrow().displayName());
+        assertEquals(50, records.get(0).activeSeconds());
+        assertEquals(60, records.get(1).activeSeconds());
+
+        List<MinuteRecord> closed = aggregator.advanceTo(base.plusSeconds(180));
+        assertEquals(1, closed.size());
+        assertEquals(LocalTime.of(15, 2), closed.get(0).minute());
+        // Alpha kept 40s of the last minute before Bravo took over for the remaining 20s.
+        assertEquals("Alpha", closed.get(0).application().orElseThrow().displayName());
+        assertEquals(40, closed.get(0).activeSeconds());
+    }
+
+    @Test
+    void shouldMarkEventIntervalMinutesIdleAndSkipGaps() {
+        MinuteAggregator aggregator = new MinuteAggregator(15, 60, 1, ZoneOffset.UTC);
+        Instant base = Instant.parse("2024-01-01T16:00:00Z");
+        ResolvedApplication app = new ResolvedApplication("app", "App", "C:/app.exe", "c:/app.exe", false);
+
+        aggregator.observe(base, false, Optional.of(new ApplicationSample(app, Optional.empty())), 0);
+        aggregator.observe(base.plusSeconds(30), true, Optional.empty(), 60);
+        List<MinuteRecord> records = aggregator.observeGap(base.plusSeconds(90), base.plusSeconds(3600));
+
+        assertEquals(2, records.size());
+        assertEquals(MinuteStatus.IDLE, records.get(0).status());
+        assertEquals(MinuteStatus.IDLE, records.get(1).status());
+        ClockGap gap = aggregator.takeGap().orElseThrow();
+        assertEquals(base.plusSeconds(3600), gap.resumedAt());
+        assertTrue(aggregator.advanceTo(base.plusSeconds(3610)).isEmpty());
+    }
 }
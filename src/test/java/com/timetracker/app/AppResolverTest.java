@@ -2,6 +2,7 @@ package com.timetracker.app;
 
 import com.timetracker.config.AliasRule;
 import com.timetracker.config.PrivacyConfig;
+import com.timetracker.config.TitleHashAlgorithm;
 import com.timetracker.sampling.AppIdentity;
 import org.junit.jupiter.api.Test;
 
@@ -14,6 +15,8 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class AppResolverTest {
@@ -62,6 +65,34 @@ class AppResolverTest {
         assertEquals(expected, hash.orElseThrow());
     }
 
+    @Test
+    void shouldReuseResolutionWhileForegroundIsStable() {
+        AppResolver resolver = new AppResolver(List.of(), List.of(), List.of(), new PrivacyConfig(true, "salt"));
+        AppIdentity identity = new AppIdentity("C:/Apps/Focus/focus.exe", "Focus", 77);
+
+        Optional<ApplicationSample> first = resolver.resolve(identity, Optional.of(new String("Window")));
+        Optional<ApplicationSample> second = resolver.resolve(identity, Optional.of(new String("Window")));
+        Optional<ApplicationSample> renamed = resolver.resolve(identity, Optional.of("Other Window"));
+
+        assertSame(first, second);
+        assertSame(first.orElseThrow().application(), renamed.orElseThrow().application());
+        assertNotEquals(first.orElseThrow().windowTitleHash(), renamed.orElseThrow().windowTitleHash());
+    }
+
+    @Test
+    void shouldUseShortNonCryptographicHashWhenFastAlgorithmSelected() {
+        AppIdentity identity = new AppIdentity("C:/Apps/Focus/focus.exe", "Focus", 77);
+        AppResolver fast = new AppResolver(List.of(), List.of(), List.of(),
+                new PrivacyConfig(true, "salt", TitleHashAlgorithm.FAST));
+        AppResolver otherSalt = new AppResolver(List.of(), List.of(), List.of(),
+                new PrivacyConfig(true, "pepper", TitleHashAlgorithm.FAST));
+
+        String hash = fast.resolve(identity, Optional.of(" Window ")).orElseThrow().windowTitleHash().orElseThrow();
+        assertEquals(16, hash.length());
+        assertEquals(hash, fast.resolve(identity, Optional.of("Window")).orElseThrow().windowTitleHash().orElseThrow());
+        assertNotEquals(hash, otherSalt.resolve(identity, Optional.of("Window")).orElseThrow().windowTitleHash().orElseThrow());
+    }
+
     @Test
     void shouldRejectWhenBlacklisted() {
         AppResolver resolver = new AppResolver(List.of(), List.of(), List.of(normalizedPath("C:/Blocked/App.exe")), new PrivacyConfig(false, ""));
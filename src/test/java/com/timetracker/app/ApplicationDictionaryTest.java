@@ -0,0 +1,42 @@
+package com.timetracker.app;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApplicationDictionaryTest {
+
+    @Test
+    void equalApplicationsShareOneInstanceAndId() {
+        ApplicationDictionary dictionary = new ApplicationDictionary(16);
+        ResolvedApplication first = new ResolvedApplication("code", "Code", "C:/code.exe", "c:/code.exe", false);
+        ResolvedApplication second = new ResolvedApplication("code", "Code", "C:/code.exe", "c:/code.exe", false);
+        ResolvedApplication other = new ResolvedApplication("term", "Term", "C:/term.exe", "c:/term.exe", false);
+
+        assertSame(first, dictionary.intern(first));
+        assertSame(first, dictionary.intern(second));
+        assertSame(dictionary.internOptional(first), dictionary.internOptional(second));
+        assertEquals(dictionary.applicationId(first), dictionary.applicationId(second));
+        assertNotEquals(dictionary.applicationId(first), dictionary.applicationId(other));
+        assertSame(other, dictionary.application(dictionary.applicationId(other)));
+    }
+
+    @Test
+    void titleHashesAreInternedUpToCapacity() {
+        ApplicationDictionary dictionary = new ApplicationDictionary(1);
+        String hash = new String("abc123");
+
+        Optional<String> interned = dictionary.internTitleHash(hash);
+        assertSame(interned, dictionary.internTitleHash(new String("abc123")));
+        assertEquals("abc123", dictionary.titleHash(dictionary.titleHashId("abc123")));
+        assertTrue(dictionary.internTitleHash(" ").isEmpty());
+
+        assertEquals(ApplicationDictionary.NO_ID, dictionary.titleHashId("def456"));
+        assertEquals(Optional.of("def456"), dictionary.internTitleHash("def456"));
+    }
+}
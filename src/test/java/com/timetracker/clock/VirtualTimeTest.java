@@ -0,0 +1,103 @@
+package com.timetracker.clock;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VirtualTimeTest {
+
+    private static final Instant START = Instant.parse("2024-03-01T23:58:00Z");
+
+    @Test
+    void runsTasksAcrossSchedulersInDueOrderWithTheClockAtTheirDueTime() {
+        VirtualTime time = new VirtualTime(START, ZoneOffset.UTC);
+        ScheduledExecutorService first = time.newScheduler();
+        ScheduledExecutorService second = time.newScheduler();
+        List<String> runs = new ArrayList<>();
+
+        second.schedule(() -> runs.add("b@" + time.clock().instant()), 2, TimeUnit.MINUTES);
+        first.schedule(() -> runs.add("a@" + time.clock().instant()), 90, TimeUnit.SECONDS);
+        first.schedule(() -> runs.add("c@" + time.clock().instant()), 2, TimeUnit.MINUTES);
+        first.schedule(() -> runs.add("late"), 1, TimeUnit.HOURS);
+
+        assertEquals(3, time.advance(Duration.ofMinutes(5)));
+        assertEquals(List.of("a@2024-03-01T23:59:30Z", "b@2024-03-02T00:00:00Z", "c@2024-03-02T00:00:00Z"), runs);
+        assertEquals(START.plus(Duration.ofMinutes(5)), time.now());
+        assertEquals(1, time.pendingTasks());
+    }
+
+    @Test
+    void periodicTasksRunOncePerPeriodUntilCancelled() {
+        VirtualTime time = new VirtualTime(START, ZoneOffset.UTC);
+        ScheduledExecutorService scheduler = time.newScheduler();
+        List<Instant> runs = new ArrayList<>();
+
+        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(() -> runs.add(time.now()), 0, 1, TimeUnit.DAYS);
+        time.advance(Duration.ofDays(3));
+        assertEquals(List.of(START, START.plus(Duration.ofDays(1)), START.plus(Duration.ofDays(2)),
+                START.plus(Duration.ofDays(3))), runs);
+
+        future.cancel(false);
+        time.advance(Duration.ofDays(3));
+        assertEquals(4, runs.size());
+        assertEquals(0, time.pendingTasks());
+    }
+
+    @Test
+    void suspendedTimeRunsOverdueTasksLateAtTheResumeTime() {
+        VirtualTime time = new VirtualTime(START, ZoneOffset.UTC);
+        ScheduledExecutorService scheduler = time.newScheduler();
+        List<Instant> runs = new ArrayList<>();
+
+        scheduler.scheduleAtFixedRate(() -> runs.add(time.clock().instant()), 1, 1, TimeUnit.MINUTES);
+        time.suspendUntil(START.plus(Duration.ofMinutes(3)));
+        assertTrue(runs.isEmpty());
+
+        assertEquals(3, time.runDue());
+        assertEquals(List.of(time.now(), time.now(), time.now()), runs);
+    }
+
+    @Test
+    void shutdownCancelsPeriodicTasksButRunsQueuedOnes() throws InterruptedException {
+        VirtualTime time = new VirtualTime(START, ZoneOffset.UTC);
+        ScheduledExecutorService scheduler = time.newScheduler();
+        List<String> runs = new ArrayList<>();
+
+        scheduler.scheduleAtFixedRate(() -> runs.add("tick"), 1, 1, TimeUnit.MINUTES);
+        scheduler.execute(() -> runs.add("queued"));
+        scheduler.shutdown();
+
+        assertThrows(RejectedExecutionException.class, () -> scheduler.execute(() -> runs.add("rejected")));
+        assertFalse(scheduler.isTerminated());
+        assertTrue(scheduler.awaitTermination(1, TimeUnit.SECONDS));
+        time.advance(Duration.ofMinutes(5));
+        assertEquals(List.of("queued"), runs);
+    }
+
+    @Test
+    void shutdownNowReturnsEverythingStillQueued() {
+        VirtualTime time = new VirtualTime(START, ZoneOffset.UTC);
+        ScheduledExecutorService scheduler = time.newScheduler();
+        ScheduledExecutorService other = time.newScheduler();
+        other.schedule(() -> { }, 1, TimeUnit.MINUTES);
+        scheduler.schedule(() -> { }, 1, TimeUnit.MINUTES);
+        scheduler.scheduleAtFixedRate(() -> { }, 1, 1, TimeUnit.MINUTES);
+
+        assertEquals(2, scheduler.shutdownNow().size());
+        assertTrue(scheduler.isTerminated());
+        assertEquals(1, time.pendingTasks());
+    }
+}
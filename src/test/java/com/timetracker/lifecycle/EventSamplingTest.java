@@ -0,0 +1,156 @@
+package com.timetracker.lifecycle;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.clock.VirtualTime;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.LoggingConfig;
+import com.timetracker.config.MetricsConfig;
+import com.timetracker.config.ReportConfig;
+import com.timetracker.config.SamplingMode;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.sampling.AppIdentity;
+import com.timetracker.sampling.SimulatedForegroundEventSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Drives {@code samplingMode: EVENTS} with pushed foreground events on virtual time and checks the minutes that
+ * reach storage.
+ */
+class EventSamplingTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    private static final AppIdentity EDITOR = VirtualServiceComponents.EDITOR;
+    private static final AppIdentity BROWSER = new AppIdentity("C:\\Apps\\browser.exe", "Browser", 7);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void focusIdleSuspendPauseAndReloadBecomeMinuteRecords() throws Exception {
+        VirtualTime time = new VirtualTime(at(10, 0, 0), ZONE);
+        SimulatedForegroundEventSource events = new SimulatedForegroundEventSource();
+        FixedConfigManager configManager = new FixedConfigManager(config(15));
+        TimeTrackerService service = new TimeTrackerService(tempDir.resolve("config.json"), configManager,
+                new VirtualServiceComponents(time, events));
+        service.start();
+        try {
+            events.input(time.now(), Duration.ofSeconds(1));
+            events.focus(time.now(), EDITOR, null);
+            advanceUntil(service, time, at(10, 2, 10));
+            events.focus(time.now(), BROWSER, null);
+            advanceUntil(service, time, at(10, 4, 30));
+            events.input(time.now(), Duration.ofSeconds(90));
+            advanceUntil(service, time, at(10, 6, 0));
+            events.input(time.now(), Duration.ZERO);
+            advanceUntil(service, time, at(10, 7, 0));
+
+            // Suspended: on resume the source reports the gap before the overdue minute timers catch up.
+            Instant suspended = time.now();
+            time.suspendUntil(at(10, 20, 0));
+            events.gap(suspended, time.now());
+            time.runDue();
+            service.awaitConsumer();
+
+            advanceUntil(service, time, at(10, 21, 0));
+            service.pause();
+            advanceUntil(service, time, at(10, 23, 0));
+            service.resume();
+            advanceUntil(service, time, at(10, 24, 30));
+            // New thresholds replace the aggregator, which is reseeded with the focus it already knew.
+            configManager.reload(config(20));
+            advanceUntil(service, time, at(10, 26, 30));
+        } finally {
+            service.stop();
+        }
+
+        List<String> minutes;
+        try (UsageDataLoader loader = new UsageDataLoader(config(15), time.clock())) {
+            minutes = loader.load(DAY).stream().map(EventSamplingTest::describe).toList();
+        }
+        assertEquals(List.of(
+                "10:00 ACTIVE Notepad", "10:01 ACTIVE Notepad", "10:02 ACTIVE Browser", "10:03 ACTIVE Browser",
+                "10:04 IDLE", "10:05 IDLE", "10:06 ACTIVE Browser",
+                "10:08 SUSPENDED x12",
+                "10:20 ACTIVE Browser",
+                "10:23 ACTIVE Browser", "10:24 ACTIVE Browser", "10:25 ACTIVE Browser", "10:26 ACTIVE Browser"
+        ), minutes);
+    }
+
+    @Test
+    void suspendNoticedByTheMinuteTimerFirstIsNotAttributedToTheFocusedWindow() throws Exception {
+        VirtualTime time = new VirtualTime(at(10, 0, 0), ZONE);
+        SimulatedForegroundEventSource events = new SimulatedForegroundEventSource();
+        TimeTrackerService service = new TimeTrackerService(tempDir.resolve("config.json"),
+                new FixedConfigManager(config(15)), new VirtualServiceComponents(time, events));
+        service.start();
+        try {
+            events.input(time.now(), Duration.ofSeconds(1));
+            events.focus(time.now(), EDITOR, null);
+            advanceUntil(service, time, at(10, 2, 0));
+
+            Instant suspended = time.now();
+            time.suspendUntil(at(10, 10, 0));
+            time.runDue();
+            service.awaitConsumer();
+            events.gap(suspended, time.now());
+            advanceUntil(service, time, at(10, 11, 30));
+        } finally {
+            service.stop();
+        }
+
+        List<String> minutes;
+        try (UsageDataLoader loader = new UsageDataLoader(config(15), time.clock())) {
+            minutes = loader.load(DAY).stream().map(EventSamplingTest::describe).toList();
+        }
+        // The timer last ran at 10:01:00.5, so the seconds after it up to the suspend are not known to be active;
+        // the late gap event repeats a range that is already closed and is ignored.
+        assertEquals(List.of("10:00 ACTIVE Notepad", "10:02 SUSPENDED x8", "10:10 ACTIVE Notepad",
+                "10:11 ACTIVE Notepad"), minutes);
+    }
+
+    /**
+     * Advances in one-second steps and lets the consumer handle whatever each step queued.
+     */
+    private static void advanceUntil(TimeTrackerService service, VirtualTime time, Instant target)
+            throws InterruptedException {
+        while (time.now().isBefore(target)) {
+            time.advance(Duration.ofSeconds(1));
+            service.awaitConsumer();
+        }
+    }
+
+    private static Instant at(int hour, int minute, int second) {
+        return DAY.atTime(hour, minute, second).atZone(ZONE).toInstant();
+    }
+
+    private static String describe(MinuteRecord record) {
+        return record.minute() + " " + record.status()
+                + record.application().map(app -> " " + app.displayName()).orElse("")
+                + (record.minutes() > 1 ? " x" + record.minutes() : "");
+    }
+
+    private AppConfig config(int minActiveSeconds) {
+        StorageConfig storage = new StorageConfig(StorageType.CSV,
+                new CsvStorageConfig(tempDir.resolve("data").toString(), 1, 100, null), null, null);
+        ReportConfig report = new ReportConfig(tempDir.resolve("report").toString(), "23:59", 5, false);
+        LoggingConfig logging = new LoggingConfig("WARN", tempDir.resolve("logs").resolve("app.log").toString(), 5, 2);
+        MetricsConfig metrics = new MetricsConfig(false, 60, tempDir.resolve("logs").resolve("metrics.txt").toString(),
+                null, null, null);
+        return AppConfig.create(1, minActiveSeconds, 60, storage, report, logging, null, null, null, null,
+                null, null, SamplingMode.EVENTS, metrics);
+    }
+}
@@ -0,0 +1,40 @@
+package com.timetracker.lifecycle;
+
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.ConfigListener;
+import com.timetracker.config.ConfigManager;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Serves one configuration without touching disk; {@link #reload} notifies listeners as a file change would.
+ */
+final class FixedConfigManager implements ConfigManager {
+
+    private final AppConfig config;
+    private final List<ConfigListener> listeners = new CopyOnWriteArrayList<>();
+
+    FixedConfigManager(AppConfig config) {
+        this.config = config;
+    }
+
+    void reload(AppConfig updated) {
+        listeners.forEach(listener -> listener.onConfigReload(updated));
+    }
+
+    @Override
+    public AppConfig load(Path path) {
+        return config;
+    }
+
+    @Override
+    public void save(Path path, AppConfig config) {
+    }
+
+    @Override
+    public void registerListener(ConfigListener listener) {
+        listeners.add(listener);
+    }
+}
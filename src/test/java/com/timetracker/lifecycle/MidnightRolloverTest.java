@@ -0,0 +1,177 @@
+package com.timetracker.lifecycle;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.clock.VirtualTime;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.LoggingConfig;
+import com.timetracker.config.MetricsConfig;
+import com.timetracker.config.ReportConfig;
+import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the service with its own scheduled sampling and report timers across midnight, through a storage switch
+ * and through a pause, on virtual time.
+ */
+class MidnightRolloverTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scheduledReportAndRolloverFollowTheVirtualClock() throws Exception {
+        VirtualTime time = new VirtualTime(DAY.atTime(23, 58).atZone(ZONE).toInstant(), ZONE);
+        TimeTrackerService service = new TimeTrackerService(tempDir.resolve("config.json"),
+                new FixedConfigManager(config()), new VirtualServiceComponents(time));
+        service.start();
+        try {
+            Path dayReport = tempDir.resolve("report").resolve("daily_report_20240301.html");
+            advanceUntil(service, time, DAY.atTime(23, 59, 30).atZone(ZONE).toInstant());
+            awaitFile(time, dayReport);
+
+            advanceUntil(service, time, DAY.plusDays(1).atTime(0, 2).atZone(ZONE).toInstant());
+        } finally {
+            service.stop();
+        }
+
+        assertEquals(List.of("20240301.csv", "20240302.csv"), csvFiles());
+        assertTrue(Files.exists(tempDir.resolve("report").resolve("daily_report_20240302.html")));
+        assertFalse(Files.readAllLines(tempDir.resolve("report").resolve("daily_report_20240301.html")).isEmpty());
+    }
+
+    @Test
+    void storageSwitchesWhileSamplingWithoutLosingOrRepeatingMinutes() throws Exception {
+        VirtualTime time = new VirtualTime(DAY.atTime(10, 0).atZone(ZONE).toInstant(), ZONE);
+        FixedConfigManager configManager = new FixedConfigManager(config());
+        TimeTrackerService service = new TimeTrackerService(tempDir.resolve("config.json"), configManager,
+                new VirtualServiceComponents(time));
+        service.start();
+        AppConfig sqlite = withStorage(new StorageConfig(StorageType.SQLITE, null,
+                new SqliteStorageConfig(tempDir.resolve("data").resolve("usage.db").toString(), "WAL", null, null,
+                        null, null),
+                null));
+        try {
+            advanceUntil(service, time, DAY.atTime(10, 5, 30).atZone(ZONE).toInstant());
+            configManager.reload(sqlite);
+            // The switch runs on the report executor, interleaved with the consumer persisting new minutes.
+            advanceUntil(service, time, DAY.atTime(10, 10, 30).atZone(ZONE).toInstant());
+        } finally {
+            service.stop();
+        }
+
+        List<LocalTime> minutes;
+        try (UsageDataLoader loader = new UsageDataLoader(sqlite, time.clock())) {
+            minutes = loader.load(DAY).stream().map(MinuteRecord::minute).toList();
+        }
+        List<LocalTime> expected = Stream.iterate(LocalTime.of(10, 0), minute -> minute.plusMinutes(1))
+                .limit(minutes.size())
+                .toList();
+        assertEquals(expected, minutes);
+        assertTrue(minutes.size() >= 10, () -> "minutes: " + minutes);
+        // Minutes before the switch stay in the CSV file as well; nothing after it is written there.
+        List<String> csv = Files.readAllLines(tempDir.resolve("data").resolve("2024").resolve("20240301")
+                .resolve("20240301.csv"));
+        assertTrue(csv.size() > 1 && csv.size() < 9, () -> "csv rows: " + csv);
+    }
+
+    @Test
+    void pauseLongerThanTheGapThresholdIsNotRecordedAsSuspend() throws Exception {
+        VirtualTime time = new VirtualTime(DAY.atTime(10, 0).atZone(ZONE).toInstant(), ZONE);
+        TimeTrackerService service = new TimeTrackerService(tempDir.resolve("config.json"),
+                new FixedConfigManager(config()), new VirtualServiceComponents(time));
+        service.start();
+        try {
+            advanceUntil(service, time, DAY.atTime(10, 2, 30).atZone(ZONE).toInstant());
+            service.pause();
+            advanceUntil(service, time, DAY.atTime(10, 8).atZone(ZONE).toInstant());
+            service.resume();
+            advanceUntil(service, time, DAY.atTime(10, 11, 30).atZone(ZONE).toInstant());
+        } finally {
+            service.stop();
+        }
+
+        List<MinuteRecord> records;
+        try (UsageDataLoader loader = new UsageDataLoader(config(), time.clock())) {
+            records = loader.load(DAY);
+        }
+        assertTrue(records.stream().noneMatch(record -> record.status() == MinuteStatus.SUSPENDED),
+                () -> "records: " + records);
+        List<LocalTime> minutes = records.stream().map(MinuteRecord::minute).toList();
+        assertEquals(List.of(LocalTime.of(10, 0), LocalTime.of(10, 1), LocalTime.of(10, 2),
+                LocalTime.of(10, 8), LocalTime.of(10, 9), LocalTime.of(10, 10), LocalTime.of(10, 11)), minutes);
+    }
+
+    /**
+     * Advances in one-second steps, letting the consumer thread catch up after every tick.
+     */
+    private static void advanceUntil(TimeTrackerService service, VirtualTime time, Instant target)
+            throws InterruptedException {
+        while (time.now().isBefore(target)) {
+            time.advance(Duration.ofSeconds(1));
+            while (service.samplingBacklog() > 0) {
+                Thread.sleep(1);
+            }
+        }
+    }
+
+    /**
+     * Reports are produced by consumer-thread work that hands back to the report scheduler, so keep running
+     * whatever is due until the file shows up.
+     */
+    private static void awaitFile(VirtualTime time, Path file) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!Files.exists(file)) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for " + file);
+            time.runDue();
+            Thread.sleep(5);
+        }
+    }
+
+    private List<String> csvFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(tempDir.resolve("data"))) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(".csv"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private AppConfig config() {
+        return withStorage(new StorageConfig(StorageType.CSV,
+                new CsvStorageConfig(tempDir.resolve("data").toString(), 1, 100, null), null, null));
+    }
+
+    private AppConfig withStorage(StorageConfig storage) {
+        ReportConfig report = new ReportConfig(tempDir.resolve("report").toString(), "23:59", 5, false);
+        LoggingConfig logging = new LoggingConfig("WARN", tempDir.resolve("logs").resolve("app.log").toString(), 5, 2);
+        MetricsConfig metrics = new MetricsConfig(false, 60, tempDir.resolve("logs").resolve("metrics.txt").toString(),
+                null, null, null);
+        return AppConfig.create(1, null, 60, storage, report, logging, null, null, null, null,
+                null, null, null, metrics);
+    }
+}
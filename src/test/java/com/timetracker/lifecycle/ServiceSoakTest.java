@@ -0,0 +1,323 @@
+package com.timetracker.lifecycle;
+
+import com.timetracker.clock.VirtualTime;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.ConfigListener;
+import com.timetracker.config.ConfigManager;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.LoggingConfig;
+import com.timetracker.config.MetricsConfig;
+import com.timetracker.config.ReportConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.sampling.AppIdentity;
+import com.timetracker.sampling.ForegroundSample;
+import com.timetracker.sampling.ForegroundSampler;
+import com.timetracker.sampling.IdleDetector;
+import com.timetracker.tray.TrayActions;
+import com.timetracker.tray.TrayController;
+import com.timetracker.tray.TrayMessageType;
+import com.timetracker.tray.TrayStatus;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a simulated year through {@link TimeTrackerService} on a virtual clock: 1-second ticks during the day,
+ * a suspend every night, weekly config reloads and a restart every 30 days. The report and metrics timers run on
+ * the same {@link VirtualTime}. Run with {@code mvn -Psoak test};
+ * {@code -Dsoak.days=N} shortens or extends the run.
+ */
+@Tag("soak")
+class ServiceSoakTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2023, 1, 2);
+    private static final LocalTime WAKE = LocalTime.of(8, 0);
+    private static final LocalTime SLEEP = LocalTime.of(23, 0);
+    private static final int RESTART_EVERY_DAYS = 30;
+    private static final int RELOAD_EVERY_DAYS = 7;
+    // Stay below the ring capacity so that driven ticks are never dropped.
+    private static final int BACKLOG_LIMIT = 768;
+    private static final long MB = 1024L * 1024L;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void yearOfUsageKeepsHeapThreadsAndHandlesBounded() throws Exception {
+        int days = Integer.getInteger("soak.days", 365);
+        VirtualTime time = new VirtualTime(FIRST_DAY.atTime(WAKE).atZone(ZoneId.systemDefault()).toInstant(),
+                ZoneId.systemDefault());
+        FakeComponents components = new FakeComponents(time);
+        FakeConfigManager configManager = new FakeConfigManager(config(60, 10));
+
+        int baselineThreads = liveThreads();
+        long baselineHandles = openFileHandles();
+        long warmedHeap = -1;
+
+        TimeTrackerService service = new TimeTrackerService(tempDir.resolve("config.json"), configManager, components);
+        service.start();
+        for (int day = 0; day < days; day++) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            if (day > 0 && day % RESTART_EVERY_DAYS == 0) {
+                service.stop();
+                assertEquals(0, configManager.listeners.size(), "config listener leaked across restart");
+                service.start();
+            }
+            runDay(service, time, configManager, date, day);
+            if (day == RESTART_EVERY_DAYS - 1) {
+                warmedHeap = usedHeapAfterGc();
+            }
+            // Sleep through the night; the next morning's first tick closes the gap.
+            time.advanceTo(date.plusDays(1).atTime(WAKE).atZone(ZoneId.systemDefault()).toInstant());
+        }
+        awaitDrained(service);
+        long finalHeap = usedHeapAfterGc();
+        service.stop();
+
+        assertEquals(0, configManager.listeners.size(), "config listener still registered after stop");
+        assertTrue(awaitThreadsAtMost(baselineThreads + 2, Duration.ofSeconds(10)),
+                "threads leaked: baseline " + baselineThreads + ", now " + liveThreads());
+        if (baselineHandles >= 0) {
+            long handles = openFileHandles();
+            assertTrue(handles <= baselineHandles + 4, "file handles leaked: baseline " + baselineHandles + ", now " + handles);
+        }
+        if (warmedHeap >= 0) {
+            assertTrue(finalHeap <= warmedHeap + 24 * MB,
+                    "heap grew from " + warmedHeap / MB + " MB to " + finalHeap / MB + " MB");
+        }
+        long reports;
+        try (Stream<Path> files = Files.list(tempDir.resolve("report"))) {
+            reports = files.filter(file -> file.getFileName().toString().endsWith(".html")).count();
+        }
+        assertTrue(reports >= days - 1, "expected a report per day, found " + reports);
+        assertTrue(components.tray.statusUpdates.get() > 0);
+    }
+
+    private void runDay(TimeTrackerService service, VirtualTime time, FakeConfigManager configManager,
+                        LocalDate date, int day) throws InterruptedException {
+        Instant end = date.atTime(SLEEP).atZone(ZoneId.systemDefault()).toInstant();
+        Instant reloadAt = day % RELOAD_EVERY_DAYS == RELOAD_EVERY_DAYS - 1
+                ? date.atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant()
+                : null;
+        while (time.now().isBefore(end)) {
+            if (reloadAt != null && !time.now().isBefore(reloadAt)) {
+                boolean even = (day / RELOAD_EVERY_DAYS) % 2 == 0;
+                configManager.publish(config(even ? 90 : 60, even ? 12 : 10));
+                reloadAt = null;
+            }
+            while (service.samplingBacklog() >= BACKLOG_LIMIT) {
+                Thread.onSpinWait();
+            }
+            service.sampleOnce();
+            time.advance(Duration.ofSeconds(1));
+        }
+        awaitDrained(service);
+    }
+
+    private AppConfig config(int minIdleSeconds, int topN) {
+        StorageConfig storage = new StorageConfig(StorageType.CSV,
+                new CsvStorageConfig(tempDir.resolve("data").toString(), 1, 100, null), null, null);
+        ReportConfig report = new ReportConfig(tempDir.resolve("report").toString(), "23:59", topN, false);
+        LoggingConfig logging = new LoggingConfig("WARN", tempDir.resolve("logs").resolve("app.log").toString(), 5, 2);
+        MetricsConfig metrics = new MetricsConfig(true, 60, tempDir.resolve("logs").resolve("metrics.txt").toString(),
+                null, null, null);
+        return AppConfig.create(1, null, minIdleSeconds, storage, report, logging, null, null, null, null,
+                null, null, null, metrics);
+    }
+
+    private static void awaitDrained(TimeTrackerService service) throws InterruptedException {
+        while (service.samplingBacklog() > 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static int liveThreads() {
+        return ManagementFactory.getThreadMXBean().getThreadCount();
+    }
+
+    private static boolean awaitThreadsAtMost(int limit, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (liveThreads() > limit) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(50);
+        }
+        return true;
+    }
+
+    /**
+     * Open descriptors of this process, or -1 where {@code /proc} is unavailable.
+     */
+    private static long openFileHandles() throws IOException {
+        Path fds = Path.of("/proc/self/fd");
+        if (!Files.isDirectory(fds)) {
+            return -1;
+        }
+        try (Stream<Path> entries = Files.list(fds)) {
+            return entries.count();
+        }
+    }
+
+    /**
+     * Working day: focus rotates through a dozen applications every seven minutes, with idle stretches over
+     * lunch and in the early evening.
+     */
+    private static final class FakeComponents implements ServiceComponents {
+
+        private static final List<AppIdentity> APPS = List.of(
+                new AppIdentity("C:\\Program Files\\Microsoft VS Code\\Code.exe", "Visual Studio Code", 100),
+                new AppIdentity("C:\\Program Files\\Google\\Chrome\\Application\\chrome.exe", "Google Chrome", 101),
+                new AppIdentity("C:\\Windows\\System32\\WindowsTerminal.exe", "Terminal", 102),
+                new AppIdentity("C:\\Program Files\\Microsoft Office\\root\\Office16\\OUTLOOK.EXE", "Outlook", 103),
+                new AppIdentity("C:\\Users\\dev\\AppData\\Local\\Microsoft\\Teams\\Teams.exe", "Teams", 104),
+                new AppIdentity("C:\\Program Files\\JetBrains\\IntelliJ IDEA\\bin\\idea64.exe", "IntelliJ IDEA", 105),
+                new AppIdentity("C:\\Windows\\explorer.exe", "File Explorer", 106),
+                new AppIdentity("C:\\Users\\dev\\AppData\\Local\\slack\\slack.exe", "Slack", 107),
+                new AppIdentity("C:\\Windows\\System32\\notepad.exe", "Notepad", 108),
+                new AppIdentity("C:\\Program Files\\Microsoft Office\\root\\Office16\\EXCEL.EXE", "Excel", 109),
+                new AppIdentity("C:\\Program Files\\Mozilla Firefox\\firefox.exe", "Firefox", 110),
+                new AppIdentity("C:\\Program Files\\Git\\git-bash.exe", "Git Bash", 111));
+
+        private final VirtualTime time;
+        private final Clock clock;
+        private final FakeTray tray = new FakeTray();
+
+        FakeComponents(VirtualTime time) {
+            this.time = time;
+            this.clock = time.clock();
+        }
+
+        @Override
+        public Clock clock() {
+            return clock;
+        }
+
+        @Override
+        public ForegroundSampler sampler(boolean captureWindowTitles) {
+            return () -> {
+                Instant now = clock.instant();
+                long minuteOfDay = now.atZone(clock.getZone()).toLocalTime().toSecondOfDay() / 60;
+                long epochDay = now.atZone(clock.getZone()).toLocalDate().toEpochDay();
+                AppIdentity app = APPS.get((int) ((minuteOfDay / 7 + epochDay) % APPS.size()));
+                return new ForegroundSample(now, Optional.of(app), Optional.empty());
+            };
+        }
+
+        @Override
+        public IdleDetector idleDetector() {
+            return () -> {
+                LocalTime time = clock.instant().atZone(clock.getZone()).toLocalTime();
+                if (time.isAfter(LocalTime.of(12, 0)) && time.isBefore(LocalTime.of(12, 45))) {
+                    return Duration.between(LocalTime.of(12, 0), time);
+                }
+                if (time.isAfter(LocalTime.of(18, 0)) && time.isBefore(LocalTime.of(19, 0))) {
+                    return Duration.between(LocalTime.of(18, 0), time);
+                }
+                return Duration.ofSeconds(1);
+            };
+        }
+
+        @Override
+        public TrayController tray(Path reportDirectory, Path dataDirectory, Path configPath) {
+            return tray;
+        }
+
+        @Override
+        public boolean scheduledSampling() {
+            return false;
+        }
+
+        @Override
+        public ScheduledExecutorService scheduler(String name) {
+            return time.newScheduler();
+        }
+    }
+
+    private static final class FakeTray implements TrayController {
+
+        final AtomicInteger statusUpdates = new AtomicInteger();
+        final AtomicInteger messages = new AtomicInteger();
+
+        @Override
+        public void init(TrayActions actions) {
+        }
+
+        @Override
+        public void updateStatus(TrayStatus status) {
+            statusUpdates.incrementAndGet();
+        }
+
+        @Override
+        public void displayMessage(String caption, String text, TrayMessageType type) {
+            messages.incrementAndGet();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    private static final class FakeConfigManager implements ConfigManager {
+
+        final List<ConfigListener> listeners = new CopyOnWriteArrayList<>();
+        private volatile AppConfig current;
+
+        FakeConfigManager(AppConfig initial) {
+            this.current = initial;
+        }
+
+        void publish(AppConfig config) {
+            current = config;
+            listeners.forEach(listener -> listener.onConfigReload(config));
+        }
+
+        @Override
+        public AppConfig load(Path path) {
+            return current;
+        }
+
+        @Override
+        public void save(Path path, AppConfig config) {
+            current = config;
+        }
+
+        @Override
+        public void registerListener(ConfigListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void unregisterListener(ConfigListener listener) {
+            listeners.remove(listener);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.timetracker.lifecycle;
+
+import com.timetracker.clock.VirtualTime;
+import com.timetracker.sampling.AppIdentity;
+import com.timetracker.sampling.ForegroundEventSource;
+import com.timetracker.sampling.ForegroundSample;
+import com.timetracker.sampling.ForegroundSampler;
+import com.timetracker.sampling.IdleDetector;
+import com.timetracker.tray.TrayActions;
+import com.timetracker.tray.TrayController;
+import com.timetracker.tray.TrayMessageType;
+import com.timetracker.tray.TrayStatus;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Runs the service on a {@link VirtualTime} with Notepad always in front and a silent tray. Timers come from the
+ * virtual timeline; foreground events come from {@code events} when one is given.
+ */
+final class VirtualServiceComponents implements ServiceComponents {
+
+    static final AppIdentity EDITOR = new AppIdentity("C:\\Windows\\System32\\notepad.exe", "Notepad", 42);
+
+    private final VirtualTime time;
+    private final ForegroundEventSource events;
+
+    VirtualServiceComponents(VirtualTime time) {
+        this(time, null);
+    }
+
+    VirtualServiceComponents(VirtualTime time, ForegroundEventSource events) {
+        this.time = time;
+        this.events = events;
+    }
+
+    @Override
+    public Clock clock() {
+        return time.clock();
+    }
+
+    @Override
+    public ForegroundSampler sampler(boolean captureWindowTitles) {
+        return () -> new ForegroundSample(time.now(), Optional.of(EDITOR), Optional.empty());
+    }
+
+    @Override
+    public IdleDetector idleDetector() {
+        return () -> Duration.ofSeconds(1);
+    }
+
+    @Override
+    public TrayController tray(Path reportDirectory, Path dataDirectory, Path configPath) {
+        return new TrayController() {
+            @Override
+            public void init(TrayActions actions) {
+            }
+
+            @Override
+            public void updateStatus(TrayStatus status) {
+            }
+
+            @Override
+            public void displayMessage(String caption, String text, TrayMessageType type) {
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+    }
+
+    @Override
+    public ForegroundEventSource eventSource(Supplier<ForegroundSampler> sampler,
+                                             IdleDetector idleDetector,
+                                             Duration interval,
+                                             Duration idleThreshold,
+                                             Duration gapThreshold) {
+        return events != null
+                ? events
+                : ServiceComponents.super.eventSource(sampler, idleDetector, interval, idleThreshold, gapThreshold);
+    }
+
+    @Override
+    public ScheduledExecutorService scheduler(String name) {
+        return time.newScheduler();
+    }
+}
@@ -0,0 +1,57 @@
+package com.timetracker.metrics;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JfrEventsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void csvFlushEmitsStorageFlushEventWithWrittenBytes() throws Exception {
+        LocalDate day = LocalDate.of(2024, 1, 2);
+        CsvStorageAdapter storage = new CsvStorageAdapter(new CsvStorageConfig(tempDir.toString(), 60, 100, null));
+        Path dump = tempDir.resolve("flush.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(StorageFlushEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            storage.persist(new MinuteRecord(day, LocalTime.of(9, 0), MinuteStatus.IDLE, Optional.empty(),
+                    0, 60, Optional.empty()));
+            storage.persist(new MinuteRecord(day, LocalTime.of(9, 1), MinuteStatus.IDLE, Optional.empty(),
+                    0, 60, Optional.empty()));
+            storage.flush();
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals("com.timetracker.StorageFlush"))
+                .toList();
+        assertEquals(1, events.size());
+        RecordedEvent event = events.get(0);
+        assertEquals("CSV", event.getString("storage"));
+        assertEquals(2, event.getInt("records"));
+        Path csv = tempDir.resolve("2024").resolve("20240102").resolve("20240102.csv");
+        assertTrue(Files.exists(csv));
+        assertEquals(Files.size(csv), event.getLong("bytes"));
+    }
+}
@@ -0,0 +1,68 @@
+package com.timetracker.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsRegistryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void histogramReportsBucketedPercentiles() {
+        MetricsRegistry registry = new MetricsRegistry(true);
+        LatencyHistogram histogram = registry.histogram("stage");
+        for (int i = 0; i < 99; i++) {
+            histogram.record(1_000);
+        }
+        histogram.record(1_000_000);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count());
+        assertEquals(1_000_000, snapshot.maxNanos());
+        assertEquals(1_023, snapshot.p50Nanos());
+        assertEquals(1_023, snapshot.p99Nanos());
+        assertTrue(snapshot.p50Nanos() >= 1_000);
+    }
+
+    @Test
+    void disabledRegistryIgnoresUpdatesAndDumpsToFile() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry(false);
+        Counter counter = registry.counter("records");
+        counter.increment();
+        registry.histogram("flush").record(5_000);
+        assertEquals(0, counter.value());
+        assertEquals(0, registry.histogram("flush").snapshot().count());
+
+        registry.setEnabled(true);
+        counter.add(3);
+        registry.gauge("backlog", () -> 7);
+        Path dump = tempDir.resolve("metrics.txt");
+        registry.writeTo(dump, Instant.parse("2024-01-02T09:00:00Z"));
+
+        String content = Files.readString(dump);
+        assertTrue(content.startsWith("# 2024-01-02T09:00:00Z"));
+        assertTrue(content.contains("counter records 3"));
+        assertTrue(content.contains("gauge backlog 7"));
+        assertTrue(content.contains("histogram flush count=0"));
+    }
+
+    @Test
+    void removedGaugesAreNoLongerDumped() {
+        MetricsRegistry registry = new MetricsRegistry(true);
+        registry.gauge("storage.sink.backup.queued", () -> 1);
+        registry.gauge("storage.sink.archive.queued", () -> 2);
+        registry.gauge("storage.records", () -> 3);
+
+        registry.removeGauges("storage.sink.");
+
+        assertEquals("gauge storage.records 3\n", registry.dump());
+    }
+}
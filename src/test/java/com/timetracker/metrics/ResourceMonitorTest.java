@@ -0,0 +1,201 @@
+package com.timetracker.metrics;
+
+import com.timetracker.aggregation.MinuteAggregator;
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.SampleTick;
+import com.timetracker.app.ApplicationSample;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceMonitorTest {
+
+    private static final long MB = 1024L * 1024L;
+    private static final Instant DAY_START = Instant.parse("2024-03-04T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void reportsEachExceededBudgetOncePerDay() {
+        MutableClock clock = new MutableClock(DAY_START);
+        FakeProbe probe = new FakeProbe();
+        AtomicLong storage = new AtomicLong();
+        ResourceMonitor monitor = new ResourceMonitor(new ResourceBudget(40 * MB, 1.0, MB), probe, clock,
+                storage::get, () -> 0);
+
+        probe.rss = 30 * MB;
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(monitor.sample().isEmpty());
+
+        probe.rss = 45 * MB;
+        storage.set(2 * MB);
+        clock.advance(Duration.ofMinutes(1));
+        List<ResourceMonitor.Violation> violations = monitor.sample();
+        assertEquals(2, violations.size());
+        assertEquals(ResourceMonitor.Resource.RSS, violations.get(0).resource());
+        assertEquals(ResourceMonitor.Resource.DISK_IO, violations.get(1).resource());
+        clock.advance(Duration.ofMinutes(1));
+        assertTrue(monitor.sample().isEmpty());
+
+        // Two hours at 2% of a core trips the CPU budget once the window is long enough.
+        probe.cpuNanos += Duration.ofMinutes(2).plusSeconds(30).toNanos();
+        clock.advance(Duration.ofHours(2));
+        violations = monitor.sample();
+        assertEquals(1, violations.size());
+        assertEquals(ResourceMonitor.Resource.CPU, violations.get(0).resource());
+
+        // A new day starts with fresh windows: storage is measured from the rollover, RSS is reported again.
+        clock.advance(Duration.ofDays(1));
+        probe.rss = 50 * MB;
+        violations = monitor.sample();
+        assertEquals(1, violations.size());
+        assertEquals(ResourceMonitor.Resource.RSS, violations.get(0).resource());
+        assertEquals(LocalDate.of(2024, 3, 5), violations.get(0).day());
+        assertEquals(0, monitor.snapshot().storageBytes());
+        assertEquals(4, monitor.snapshot().violations());
+    }
+
+    @Test
+    void syntheticDayStaysWithinBudget() throws Exception {
+        MutableClock clock = new MutableClock(DAY_START);
+        CsvStorageAdapter storage = new CsvStorageAdapter(new CsvStorageConfig(tempDir.toString(), 1, 100, null));
+        ResourceBudget budget = new ResourceBudget(40 * MB, 1.0, MB);
+        // Disk is what storage really writes for the day, rows and minute index. The test JVM's resident size and
+        // CPU time belong to the test runner rather than the tracker, so the probe plays back a steady 0.5% of a
+        // core and a resident size that grows slowly instead.
+        FakeProbe probe = new FakeProbe();
+        probe.rss = 30 * MB;
+        ResourceMonitor monitor = new ResourceMonitor(budget, probe, clock, storage::bytesWritten, () -> 0);
+        long cpuPerMinute = Duration.ofMinutes(1).toNanos() / 200;
+
+        MinuteAggregator aggregator = new MinuteAggregator(15, 60, 1, ZoneOffset.UTC);
+        List<ApplicationSample> apps = List.of(
+                sample("editor", "Editor"), sample("browser", "Browser"), sample("terminal", "Terminal"));
+        for (int second = 0; second < 24 * 3600; second++) {
+            Instant timestamp = DAY_START.plusSeconds(second);
+            boolean idle = (second / 600) % 6 == 5;
+            Optional<ApplicationSample> app = idle ? Optional.empty() : Optional.of(apps.get((second / 600) % 3));
+            Optional<MinuteRecord> record = aggregator.processSample(
+                    new SampleTick(timestamp, idle, app, idle ? second % 600 : 0));
+            if (record.isPresent()) {
+                storage.persist(record.get());
+            }
+            if (second % 60 == 59) {
+                clock.set(timestamp);
+                probe.cpuNanos += cpuPerMinute;
+                probe.rss = 30 * MB + (second / 3600) * 256 * 1024;
+                assertTrue(monitor.sample().isEmpty(), "budget exceeded during the day");
+            }
+        }
+        aggregator.flushPendingMinute().ifPresent(record -> {
+            try {
+                storage.persist(record);
+            } catch (Exception ex) {
+                throw new AssertionError(ex);
+            }
+        });
+        Path file = tempDir.resolve("2024").resolve("20240304").resolve("20240304.csv");
+        Path sidecar = file.resolveSibling("20240304.csv.minutes");
+        // The minute index is saved once the day is done, not after every flush.
+        storage.flush();
+        assertFalse(Files.exists(sidecar));
+        storage.close();
+        clock.set(DAY_START.plus(Duration.ofDays(1)).minusSeconds(1));
+        assertTrue(monitor.sample().isEmpty());
+
+        assertEquals(Files.size(file) + Files.size(sidecar), monitor.snapshot().storageBytes());
+        assertTrue(monitor.snapshot().storageBytes() < budget.maxDiskBytesPerDay());
+        assertEquals(0.5, monitor.snapshot().cpuPercent(), 0.01);
+        assertEquals(30 * MB + 23 * 256 * 1024, monitor.snapshot().peakRssBytes());
+        assertTrue(monitor.snapshot().peakRssBytes() < budget.maxRssBytes());
+
+        // Closing the day evaluates the full-day CPU average.
+        clock.set(DAY_START.plus(Duration.ofDays(1)));
+        assertTrue(monitor.sample().isEmpty());
+    }
+
+    private static ApplicationSample sample(String id, String name) {
+        return new ApplicationSample(
+                new ResolvedApplication(id, name, "C:/" + id + ".exe", "c:/" + id + ".exe", false), Optional.empty());
+    }
+
+    private static final class FakeProbe implements ResourceProbe {
+        long rss;
+        long cpuNanos;
+
+        @Override
+        public long rssBytes() {
+            return rss;
+        }
+
+        @Override
+        public long heapUsedBytes() {
+            return rss / 2;
+        }
+
+        @Override
+        public long nonHeapUsedBytes() {
+            return rss / 4;
+        }
+
+        @Override
+        public long processCpuNanos() {
+            return cpuNanos;
+        }
+
+        @Override
+        public int threadCount() {
+            return 8;
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant start) {
+            this.now = start;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        void set(Instant instant) {
+            now = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.timetracker.pipeline;
+
+import com.timetracker.aggregation.MinuteAggregator;
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.SampleTick;
+import com.timetracker.app.ApplicationSample;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.clock.VirtualTime;
+import com.timetracker.sampling.AppIdentity;
+import com.timetracker.sampling.ForegroundSample;
+import com.timetracker.storage.StorageAdapter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SamplingPipelineTest {
+
+    private static final long INTERVAL_MILLIS = 10;
+
+    @Test
+    void shouldKeepSamplingCadenceWhenStorageIsSlow() throws Exception {
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        // The producer runs on virtual time on this thread while the consumer is really slow.
+        VirtualTime time = new VirtualTime(base, ZoneOffset.UTC);
+        AtomicInteger sampled = new AtomicInteger();
+        AtomicLong virtualSecond = new AtomicLong();
+        ResolvedApplication app = new ResolvedApplication("app", "App", "C:/app.exe", "c:/app.exe", false);
+        AppIdentity identity = new AppIdentity("C:/app.exe", "App", 1);
+
+        // Every sample is stamped 60s after the previous one, so each tick completes a minute and hits storage.
+        SlowStorageAdapter storage = new SlowStorageAdapter(200);
+        MinuteAggregator aggregator = new MinuteAggregator(1, 60, 1, ZoneOffset.UTC, Integer.MAX_VALUE);
+        AtomicInteger processed = new AtomicInteger();
+
+        SamplingPipeline pipeline = new SamplingPipeline(
+                slot -> {
+                    sampled.incrementAndGet();
+                    Instant timestamp = base.plusSeconds(60 * virtualSecond.getAndIncrement());
+                    slot.set(new ForegroundSample(timestamp, Optional.of(identity), Optional.empty()), 0);
+                },
+                slot -> {
+                    SampleTick tick = new SampleTick(slot.sample().timestamp(), false,
+                            Optional.of(new ApplicationSample(app, Optional.empty())), 0);
+                    aggregator.processSample(tick).ifPresent(storage::persist);
+                    processed.incrementAndGet();
+                },
+                () -> true,
+                SamplingPipeline.DEFAULT_CAPACITY,
+                new StageMetrics(),
+                time.newScheduler());
+
+        pipeline.start(INTERVAL_MILLIS);
+        long startedNanos = System.nanoTime();
+        time.advance(Duration.ofSeconds(1));
+        Duration sampling = Duration.ofNanos(System.nanoTime() - startedNanos);
+        int persistedWhileSampling = storage.persisted.get();
+        storage.slow = false;
+        pipeline.stop(10_000);
+
+        int samples = sampled.get();
+        assertEquals(101, samples);
+        assertTrue(persistedWhileSampling < samples / 2, "storage should have fallen far behind");
+        // Waiting on storage would have taken 200ms per sample, about 20s in all.
+        assertTrue(sampling.compareTo(Duration.ofSeconds(5)) < 0, "sampling stalled behind slow storage: " + sampling);
+
+        // Stop drains everything that was published before the producer halted.
+        assertEquals(samples, processed.get());
+        assertEquals(0, pipeline.metrics().droppedTicks());
+    }
+
+    @Test
+    void shouldRejectClaimWhenRingIsFull() {
+        TickRingBuffer ring = new TickRingBuffer(2);
+        TickSlot first = ring.claim();
+        ring.publish(1);
+        ring.claim();
+        ring.publish(2);
+        assertNull(ring.claim());
+
+        assertSame(first, ring.peek());
+        ring.release();
+        assertSame(first, ring.claim());
+        assertEquals(1, ring.size());
+    }
+
+    private static final class SlowStorageAdapter implements StorageAdapter {
+        private final long delayMillis;
+        private final AtomicInteger persisted = new AtomicInteger();
+        private volatile boolean slow = true;
+
+        private SlowStorageAdapter(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void persist(MinuteRecord record) {
+            if (slow) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            persisted.incrementAndGet();
+        }
+
+        @Override
+        public void flush() {
+        }
+    }
+}
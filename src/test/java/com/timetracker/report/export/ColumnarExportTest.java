@@ -0,0 +1,117 @@
+package com.timetracker.report.export;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColumnarExportTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2024, 1, 1);
+    private static final int DAYS = 90;
+    // Used only from this day on, so earlier blocks can be skipped when filtering on it.
+    private static final LocalDate BROWSER_FROM = FIRST.plusDays(60);
+
+    private static final ResolvedApplication EDITOR = new ResolvedApplication(
+            "editor", "Editor", "C:\\Apps\\editor.exe", "c:\\apps\\editor.exe", true);
+    private static final ResolvedApplication TERMINAL = new ResolvedApplication(
+            "c:\\apps\\term.exe", "term.exe", "C:\\Apps\\term.exe", "c:\\apps\\term.exe", false);
+    private static final ResolvedApplication BROWSER = new ResolvedApplication(
+            "c:\\apps\\browser.exe", "browser.exe", "C:\\Apps\\browser.exe", "c:\\apps\\browser.exe", false);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void exportsCompactlyAndScansWithBlockSkipping() throws Exception {
+        AppConfig config = AppConfig.create(null, null, null,
+                new StorageConfig(StorageType.CSV, new CsvStorageConfig(tempDir.resolve("csv").toString(), 1, 500, 0),
+                        null, null),
+                null, null, null, null, null, null, null, null, null, null);
+        try (CsvStorageAdapter storage = new CsvStorageAdapter(config.storage().csv())) {
+            for (int i = 0; i < DAYS; i++) {
+                writeDay(storage, FIRST.plusDays(i));
+            }
+        }
+
+        Path file = tempDir.resolve("export").resolve("usage.ttc");
+        try (UsageDataLoader loader = new UsageDataLoader(config, 0)) {
+            ColumnarExporter.Result result = new ColumnarExporter(loader)
+                    .export(FIRST.minusDays(5), FIRST.plusDays(DAYS + 5), file);
+            assertEquals(DAYS, result.days());
+            assertTrue(result.bytes() < DAYS * 1024L, () -> result.bytes() + " bytes");
+
+            try (ColumnarFile columnar = ColumnarFile.open(file)) {
+                List<DayUsage> days = columnar.readAll();
+                assertEquals(DAYS, days.size());
+                long records = 0;
+                for (DayUsage day : days) {
+                    assertEquals(loader.loadDay(day.date()).toRecords(), day.toRecords());
+                    records += day.recordCount();
+                }
+                assertEquals(result.records(), records);
+
+                List<DayUsage> browsing = new ArrayList<>();
+                ColumnarFile.ScanResult scan = columnar.scan(ColumnarFile.Filter.all()
+                        .applications(BROWSER.id())
+                        .statuses(MinuteStatus.ACTIVE), browsing::add);
+                assertEquals(BROWSER_FROM, browsing.get(0).date());
+                assertEquals(60, scan.blocksSkipped());
+                assertEquals(DAYS - 60, scan.blocksRead());
+                assertEquals(30L * (DAYS - 60), scan.rows());
+
+                ColumnarFile.ScanResult week = columnar.scan(ColumnarFile.Filter.all()
+                        .between(FIRST.plusDays(7), FIRST.plusDays(13))
+                        .statuses(MinuteStatus.IDLE), day -> assertEquals(20, day.recordCount()));
+                assertEquals(7, week.blocksRead());
+                assertEquals(7 * 20L, week.rows());
+            }
+        }
+    }
+
+    /**
+     * 09:00-12:59 and 14:00-17:59 alternating editor and terminal in 20-minute stretches, 12:00-12:19 idle, a
+     * suspended lunch, and from {@link #BROWSER_FROM} on 30 browser minutes after 17:00.
+     */
+    private static void writeDay(CsvStorageAdapter storage, LocalDate date) throws Exception {
+        for (int hour = 9; hour < 18; hour++) {
+            if (hour == 13) {
+                storage.persist(MinuteRecord.suspended(date, LocalTime.of(13, 0), 60));
+                continue;
+            }
+            for (int minute = 0; minute < 60; minute++) {
+                MinuteRecord record;
+                if (hour == 12 && minute < 20) {
+                    record = new MinuteRecord(date, LocalTime.of(hour, minute), MinuteStatus.IDLE, Optional.empty(),
+                            0, 60, Optional.empty());
+                } else {
+                    ResolvedApplication app = hour == 17 && minute < 30 && !date.isBefore(BROWSER_FROM)
+                            ? BROWSER
+                            : (minute / 20) % 2 == 0 ? EDITOR : TERMINAL;
+                    record = new MinuteRecord(date, LocalTime.of(hour, minute), MinuteStatus.ACTIVE,
+                            Optional.of(app), 45 + minute % 15, 15 - minute % 15, Optional.empty());
+                }
+                storage.persist(record);
+            }
+        }
+        storage.flush();
+    }
+}
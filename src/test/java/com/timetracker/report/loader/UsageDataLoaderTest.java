@@ -0,0 +1,263 @@
+package com.timetracker.report.loader;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.SqlitePartitioning;
+import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.storage.csv.CsvArchive;
+import com.timetracker.storage.csv.CsvArchiveCompactor;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import com.timetracker.storage.sqlite.SqliteStorageAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UsageDataLoaderTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 2);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void csvRoundTripPreservesRecordsAndSharesRepeatedValues() throws Exception {
+        AppConfig config = csvConfig();
+        ResolvedApplication editor = new ResolvedApplication(
+                "editor", "Editor, \"Pro\"", "C:\\Apps\\editor.exe", "c:\\apps\\editor.exe", true);
+        List<MinuteRecord> written = List.of(
+                new MinuteRecord(DAY, LocalTime.of(9, 0), MinuteStatus.ACTIVE, Optional.of(editor),
+                        55, 5, Optional.of("abc")),
+                new MinuteRecord(DAY, LocalTime.of(9, 1), MinuteStatus.ACTIVE, Optional.of(editor),
+                        60, 0, Optional.of("abc")),
+                new MinuteRecord(DAY, LocalTime.of(9, 2), MinuteStatus.IDLE, Optional.empty(),
+                        0, 60, Optional.empty()),
+                MinuteRecord.suspended(DAY, LocalTime.of(9, 3), 42));
+
+        CsvStorageAdapter storage = new CsvStorageAdapter(config.storage().csv());
+        for (MinuteRecord record : written) {
+            storage.persist(record);
+        }
+        storage.close();
+
+        List<MinuteRecord> loaded = new UsageDataLoader(config).load(DAY);
+
+        assertEquals(written, loaded);
+        assertSame(loaded.get(0).date(), loaded.get(3).date());
+        assertSame(loaded.get(0).application(), loaded.get(1).application());
+        assertSame(loaded.get(0).windowTitleHash(), loaded.get(1).windowTitleHash());
+        assertTrue(new UsageDataLoader(config).load(DAY.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void loadDayProducesColumnarView() throws Exception {
+        AppConfig config = csvConfig();
+        ResolvedApplication editor = new ResolvedApplication(
+                "editor", "Editor", "C:\\Apps\\editor.exe", "c:\\apps\\editor.exe", true);
+        CsvStorageAdapter storage = new CsvStorageAdapter(config.storage().csv());
+        storage.persist(new MinuteRecord(DAY, LocalTime.of(0, 0), MinuteStatus.ACTIVE, Optional.of(editor),
+                40, 0, Optional.of("abc")));
+        storage.persist(new MinuteRecord(DAY, LocalTime.of(23, 59), MinuteStatus.IDLE, Optional.empty(),
+                0, 60, Optional.empty()));
+        storage.persist(MinuteRecord.suspended(DAY, LocalTime.of(12, 0), 30));
+        storage.close();
+
+        DayUsage day = new UsageDataLoader(config).loadDay(DAY);
+
+        assertEquals(3, day.recordCount());
+        assertTrue(day.hasUsage());
+        assertEquals(Optional.of(editor), day.application(0));
+        assertEquals(40, day.activeSeconds(0));
+        assertEquals(MinuteStatus.IDLE, day.status(23 * 60 + 59));
+        assertEquals(60, day.idleSeconds(23 * 60 + 59));
+        assertEquals(30, day.span(12 * 60));
+        assertFalse(day.isPresent(1));
+    }
+
+    @Test
+    void cachedDayIsReusedUntilTheFileChanges() throws Exception {
+        AppConfig config = csvConfig();
+        CsvStorageAdapter storage = new CsvStorageAdapter(config.storage().csv());
+        storage.persist(new MinuteRecord(DAY, LocalTime.of(8, 0), MinuteStatus.IDLE, Optional.empty(),
+                0, 60, Optional.empty()));
+        storage.flush();
+        UsageDataLoader loader = new UsageDataLoader(config);
+
+        DayUsage first = loader.loadDay(DAY);
+        assertSame(first, loader.loadDay(DAY));
+
+        storage.persist(new MinuteRecord(DAY, LocalTime.of(8, 1), MinuteStatus.IDLE, Optional.empty(),
+                0, 60, Optional.empty()));
+        storage.close();
+        DayUsage reloaded = loader.loadDay(DAY);
+
+        assertEquals(2, reloaded.recordCount());
+        DayCacheStats stats = loader.cacheStats();
+        assertEquals(1, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.invalidations());
+    }
+
+    @Test
+    void duplicateMinutesAreSupersededAcrossRestarts() throws Exception {
+        AppConfig config = csvConfig();
+        ResolvedApplication editor = new ResolvedApplication(
+                "editor", "Editor", "C:\\Apps\\editor.exe", "c:\\apps\\editor.exe", true);
+        MinuteRecord idleAtNine = new MinuteRecord(DAY, LocalTime.of(9, 0), MinuteStatus.IDLE, Optional.empty(),
+                0, 60, Optional.empty());
+        MinuteRecord activeAtNineOne = new MinuteRecord(DAY, LocalTime.of(9, 1), MinuteStatus.ACTIVE,
+                Optional.of(editor), 60, 0, Optional.empty());
+
+        CsvStorageAdapter first = new CsvStorageAdapter(config.storage().csv());
+        first.persist(new MinuteRecord(DAY, LocalTime.of(9, 0), MinuteStatus.ACTIVE, Optional.of(editor),
+                60, 0, Optional.empty()));
+        first.persist(idleAtNine);
+        first.persist(new MinuteRecord(DAY, LocalTime.of(9, 1), MinuteStatus.IDLE, Optional.empty(),
+                0, 60, Optional.empty()));
+        first.close();
+        assertEquals(1, first.supersededMinutes());
+
+        // A replay after restart finds the minute through the sidecar.
+        CsvStorageAdapter second = new CsvStorageAdapter(config.storage().csv());
+        second.persist(activeAtNineOne);
+        second.close();
+        assertEquals(1, second.supersededMinutes());
+
+        // Without the sidecar the occupancy is rebuilt from the file.
+        Path csv = tempDir.resolve("2024").resolve("20240102").resolve("20240102.csv");
+        Files.delete(csv.resolveSibling("20240102.csv.minutes"));
+        CsvStorageAdapter third = new CsvStorageAdapter(config.storage().csv());
+        MinuteRecord suspendedAtNine = MinuteRecord.suspended(DAY, LocalTime.of(9, 0), 1);
+        third.persist(suspendedAtNine);
+        third.close();
+        assertEquals(1, third.supersededMinutes());
+
+        assertEquals(5, Files.readAllLines(csv).size());
+        assertEquals(List.of(suspendedAtNine, activeAtNineOne), new UsageDataLoader(config).load(DAY));
+        DayUsage day = new UsageDataLoader(config).loadDay(DAY);
+        assertEquals(2, day.recordCount());
+        assertEquals(MinuteStatus.SUSPENDED, day.status(9 * 60));
+        assertEquals(Optional.of(editor), day.application(9 * 60 + 1));
+    }
+
+    @Test
+    void archivedDaysAreReadFromTheMonthlyArchive() throws Exception {
+        AppConfig config = csvConfig();
+        LocalDate recent = LocalDate.of(2024, 1, 30);
+        CsvStorageAdapter storage = new CsvStorageAdapter(config.storage().csv());
+        for (LocalDate date : List.of(DAY, DAY.plusDays(1), recent)) {
+            storage.persist(new MinuteRecord(date, LocalTime.of(9, 0), MinuteStatus.IDLE, Optional.empty(),
+                    0, 60, Optional.empty()));
+            storage.persist(MinuteRecord.suspended(date, LocalTime.of(9, 1), 10));
+        }
+        storage.close();
+        List<MinuteRecord> before = new UsageDataLoader(config).load(DAY);
+
+        Clock february = Clock.fixed(Instant.parse("2024-02-01T12:00:00Z"), ZoneOffset.UTC);
+        CsvArchiveCompactor compactor = new CsvArchiveCompactor(tempDir, 7, february);
+        assertEquals(2, compactor.compact());
+
+        assertFalse(Files.exists(tempDir.resolve("2024").resolve("20240102")));
+        assertTrue(Files.exists(tempDir.resolve("2024").resolve("20240130").resolve("20240130.csv")));
+        try (CsvArchive archive = CsvArchive.open(CsvArchive.fileFor(tempDir, YearMonth.of(2024, 1)))) {
+            assertEquals(List.of(DAY, DAY.plusDays(1)), archive.days());
+        }
+        UsageDataLoader loader = new UsageDataLoader(config, february);
+        assertEquals(before, loader.load(DAY));
+        assertEquals(2, loader.loadDay(DAY.plusDays(1)).recordCount());
+        assertEquals(2, loader.loadDay(recent).recordCount());
+
+        // A late write for an archived day lands in a new file, supersedes the archive and is merged on the next run.
+        MinuteRecord late = new MinuteRecord(DAY, LocalTime.of(9, 0), MinuteStatus.IDLE, Optional.empty(),
+                0, 30, Optional.empty());
+        CsvStorageAdapter lateStorage = new CsvStorageAdapter(config.storage().csv());
+        lateStorage.persist(late);
+        lateStorage.close();
+        assertEquals(late, loader.load(DAY).get(0));
+        assertEquals(1, compactor.compact());
+        assertFalse(Files.exists(tempDir.resolve("2024").resolve("20240102")));
+        assertEquals(late, loader.load(DAY).get(0));
+        assertEquals(30, loader.loadDay(DAY).idleSeconds(9 * 60));
+        loader.close();
+    }
+
+    @Test
+    void sqliteDaysShareOnePooledConnection() throws Exception {
+        StorageConfig storageConfig = new StorageConfig(StorageType.SQLITE, null,
+                new SqliteStorageConfig(tempDir.resolve("usage.db").toString(), "WAL", null, null, null, null),
+                null);
+        AppConfig config = AppConfig.create(null, null, null, storageConfig,
+                null, null, null, null, null, null, null, null, null, null);
+        try (SqliteStorageAdapter storage = new SqliteStorageAdapter(config.storage().sqlite())) {
+            for (int i = 0; i < 30; i++) {
+                storage.persist(new MinuteRecord(DAY.plusDays(i), LocalTime.of(10, 0), MinuteStatus.IDLE,
+                        Optional.empty(), 0, 60, Optional.empty()));
+            }
+            storage.flush();
+
+            try (UsageDataLoader loader = new UsageDataLoader(config)) {
+                for (int i = 0; i < 30; i++) {
+                    assertEquals(1, loader.loadDay(DAY.plusDays(i)).recordCount());
+                }
+                assertEquals(1, loader.load(DAY).size());
+                assertEquals(1, loader.sqliteConnectionsOpened());
+            }
+        }
+    }
+
+    @Test
+    void partitionedSqliteReadsEachMonthFromItsOwnFile() throws Exception {
+        StorageConfig storageConfig = new StorageConfig(StorageType.SQLITE, null,
+                new SqliteStorageConfig(tempDir.resolve("usage.db").toString(), "WAL", SqlitePartitioning.MONTHLY,
+                        null, null, null),
+                null);
+        AppConfig config = AppConfig.create(null, null, null, storageConfig,
+                null, null, null, null, null, null, null, null, null, null);
+        LocalDate february = LocalDate.of(2024, 2, 1);
+        try (SqliteStorageAdapter storage = new SqliteStorageAdapter(config.storage().sqlite())) {
+            // A late write for January after February started goes back to January's file.
+            for (LocalDate date : List.of(DAY, february, DAY.plusDays(1))) {
+                storage.persist(new MinuteRecord(date, LocalTime.of(10, 0), MinuteStatus.IDLE,
+                        Optional.empty(), 0, 60, Optional.empty()));
+                storage.flush();
+            }
+        }
+
+        assertTrue(Files.exists(tempDir.resolve("usage-202401.db")));
+        assertTrue(Files.exists(tempDir.resolve("usage-202402.db")));
+        try (UsageDataLoader loader = new UsageDataLoader(config)) {
+            assertEquals(1, loader.loadDay(DAY).recordCount());
+            assertEquals(1, loader.loadDay(DAY.plusDays(1)).recordCount());
+            assertEquals(1, loader.load(february).size());
+            assertTrue(loader.loadDay(LocalDate.of(2024, 3, 1)).isEmpty());
+            assertFalse(Files.exists(tempDir.resolve("usage-202403.db")));
+            assertEquals(2, loader.sqliteConnectionsOpened());
+        }
+    }
+
+    private AppConfig csvConfig() {
+        StorageConfig storage = new StorageConfig(StorageType.CSV,
+                new CsvStorageConfig(tempDir.toString(), 1, 100, null), null, null);
+        return AppConfig.create(null, null, null, storage, null, null, null, null, null, null, null, null, null, null);
+    }
+}
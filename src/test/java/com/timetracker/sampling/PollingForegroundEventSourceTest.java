@@ -0,0 +1,72 @@
+package com.timetracker.sampling;
+
+import com.timetracker.clock.VirtualTime;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PollingForegroundEventSourceTest {
+
+    @Test
+    void shouldEmitEventsOnlyWhenStateChanges() throws Exception {
+        Instant base = Instant.parse("2024-01-01T09:00:00Z");
+        AppIdentity editor = new AppIdentity("C:/editor.exe", "Editor", 10);
+        AppIdentity browser = new AppIdentity("C:/browser.exe", "Browser", 20);
+        List<ForegroundSample> samples = new ArrayList<>();
+        List<Duration> idle = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            samples.add(new ForegroundSample(base.plusSeconds(i), Optional.of(i < 6 ? editor : browser), Optional.empty()));
+            idle.add(Duration.ofSeconds(i == 8 ? 90 : 1));
+        }
+        // Resume after a long gap.
+        samples.add(new ForegroundSample(base.plusSeconds(3600), Optional.of(browser), Optional.empty()));
+        idle.add(Duration.ZERO);
+
+        int[] cursor = {0};
+        ForegroundSampler sampler = () -> samples.get(cursor[0]);
+        IdleDetector idleDetector = () -> idle.get(cursor[0]);
+        List<String> events = new ArrayList<>();
+
+        // Polls only run inside advanceTo, on this thread, so the listener never races the background timer.
+        VirtualTime time = new VirtualTime(base, ZoneOffset.UTC);
+        PollingForegroundEventSource source = new PollingForegroundEventSource(
+                () -> sampler, idleDetector, Duration.ofSeconds(1), Duration.ofSeconds(60), Duration.ofSeconds(120),
+                time::newScheduler);
+        source.start(new ForegroundEventListener() {
+            @Override
+            public void onForegroundChanged(Instant timestamp, Optional<AppIdentity> app, Optional<String> windowTitle) {
+                events.add("focus:" + app.map(AppIdentity::displayName).orElse("-") + "@" + timestamp.getEpochSecond() % 3600);
+            }
+
+            @Override
+            public void onInputActivity(Instant timestamp, Duration idleDuration) {
+                events.add("input:" + idleDuration.toSeconds() + "@" + timestamp.getEpochSecond() % 3600);
+            }
+
+            @Override
+            public void onClockGap(Instant lastObserved, Instant resumedAt) {
+                events.add("gap");
+            }
+        });
+        // One poll per virtual second.
+        for (cursor[0] = 0; cursor[0] < samples.size(); cursor[0]++) {
+            time.advanceTo(base.plusSeconds(cursor[0]));
+        }
+        source.stop();
+
+        assertEquals(List.of(
+                "input:1@0", "focus:Editor@0",
+                "focus:Browser@6",
+                "input:90@8",
+                "input:1@9",
+                "gap", "input:0@0", "focus:Browser@0"
+        ), events);
+    }
+}
@@ -0,0 +1,69 @@
+package com.timetracker.storage.csv;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.config.CsvStorageConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class CsvArchiveCompactorTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 2);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void rerunAfterAFailedDeleteDoesNotMergeTheDayAgain() throws Exception {
+        CsvStorageConfig config = new CsvStorageConfig(tempDir.toString(), 1, 100, null);
+        write(config, new MinuteRecord(DAY, LocalTime.of(9, 0), MinuteStatus.IDLE, Optional.empty(),
+                0, 60, Optional.empty()));
+        Clock february = Clock.fixed(Instant.parse("2024-02-01T12:00:00Z"), ZoneOffset.UTC);
+        CsvArchiveCompactor compactor = new CsvArchiveCompactor(tempDir, 7, february);
+        Path csv = tempDir.resolve("2024").resolve("20240102").resolve("20240102.csv");
+        Path archiveFile = CsvArchive.fileFor(tempDir, YearMonth.of(2024, 1));
+
+        // The first archive run and a later merge, each followed by a delete that failed.
+        for (int minute = 1; minute <= 2; minute++) {
+            write(config, new MinuteRecord(DAY, LocalTime.of(9, minute), MinuteStatus.IDLE, Optional.empty(),
+                    0, 30, Optional.empty()));
+            byte[] dayFile = Files.readAllBytes(csv);
+            assertEquals(1, compactor.compact());
+            byte[] archived = read(archiveFile);
+            long size = Files.size(archiveFile);
+
+            Files.createDirectories(csv.getParent());
+            Files.write(csv, dayFile);
+            assertEquals(1, compactor.compact());
+            assertFalse(Files.exists(csv));
+            assertArrayEquals(archived, read(archiveFile));
+            assertEquals(size, Files.size(archiveFile));
+        }
+    }
+
+    private static void write(CsvStorageConfig config, MinuteRecord record) throws Exception {
+        try (CsvStorageAdapter storage = new CsvStorageAdapter(config)) {
+            storage.persist(record);
+        }
+    }
+
+    private static byte[] read(Path archiveFile) throws Exception {
+        try (CsvArchive archive = CsvArchive.open(archiveFile)) {
+            return archive.read(DAY);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.timetracker.storage.fanout;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageSinkConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FanOutStorageAdapterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    private static final ResolvedApplication EDITOR = new ResolvedApplication(
+            "editor", "Editor", "C:\\Apps\\editor.exe", "c:\\apps\\editor.exe", true);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void failingSinkSpillsAndCatchesUpWithoutHoldingUpThePrimary() throws Exception {
+        // A file where the sink expects its directory makes every write fail until it is removed.
+        Path share = tempDir.resolve("share");
+        Files.writeString(share, "offline");
+        StorageSinkConfig sinkConfig = new StorageSinkConfig("share", StorageType.CSV,
+                new CsvStorageConfig(share.toString(), 1, 10, 0), null, 4, 1, tempDir.resolve("spill").toString())
+                .withDefaults(tempDir, 0);
+        QueuedSink sink = new QueuedSink(sinkConfig);
+        CsvStorageConfig primaryConfig = new CsvStorageConfig(tempDir.resolve("local").toString(), 1, 10, 0);
+
+        try (FanOutStorageAdapter storage = new FanOutStorageAdapter(new CsvStorageAdapter(primaryConfig),
+                List.of(sink))) {
+            storage.start();
+            for (int minute = 0; minute < 30; minute++) {
+                storage.persist(record(minute));
+            }
+            storage.flush();
+            assertEquals(30, load(primaryConfig).size());
+
+            awaitUntil(() -> sink.failures() > 0 && sink.queued() == 0);
+            assertTrue(sink.spilledRecords() > 0);
+            assertTrue(sink.lagMinutes() > 0);
+
+            Files.delete(share);
+            for (int minute = 30; minute < 40; minute++) {
+                storage.persist(record(minute));
+            }
+            storage.flush();
+            awaitUntil(() -> sink.lagMinutes() == 0);
+        }
+
+        List<MinuteRecord> delivered = load(new CsvStorageConfig(share.toString(), 1, 10, 0));
+        assertEquals(40, delivered.size());
+        assertEquals(LocalTime.of(9, 0), delivered.get(0).minute());
+        assertFalse(Files.exists(tempDir.resolve("spill").resolve("pending")));
+        assertFalse(Files.exists(tempDir.resolve("spill").resolve("replay")));
+    }
+
+    @Test
+    void overflowIsSpilledByTheSinkThreadNotByTheCaller() throws Exception {
+        Path spill = tempDir.resolve("spill");
+        StorageSinkConfig sinkConfig = new StorageSinkConfig("share", StorageType.CSV,
+                new CsvStorageConfig(tempDir.resolve("share").toString(), 1, 10, 0), null, 4, 1, spill.toString())
+                .withDefaults(tempDir, 0);
+        QueuedSink sink = new QueuedSink(sinkConfig);
+        try (sink) {
+            // The worker is not running yet, so anything written to disk here would be the caller's doing.
+            for (int minute = 0; minute < 30; minute++) {
+                sink.offer(record(minute));
+            }
+            assertEquals(30, sink.queued());
+            assertEquals(0, sink.spilledRecords());
+            assertFalse(Files.exists(spill));
+
+            sink.start();
+            awaitUntil(() -> sink.lagMinutes() == 0);
+            assertTrue(sink.spilledRecords() > 0);
+        }
+
+        assertEquals(30, load(new CsvStorageConfig(tempDir.resolve("share").toString(), 1, 10, 0)).size());
+        assertEquals(0, sink.droppedRecords());
+    }
+
+    private static MinuteRecord record(int minute) {
+        return new MinuteRecord(DAY, LocalTime.of(9, 0).plusMinutes(minute), MinuteStatus.ACTIVE,
+                Optional.of(EDITOR), 50, 10, Optional.empty());
+    }
+
+    private static List<MinuteRecord> load(CsvStorageConfig csv) throws Exception {
+        AppConfig config = AppConfig.create(null, null, null, new StorageConfig(StorageType.CSV, csv, null, null),
+                null, null, null, null, null, null, null, null, null, null);
+        try (UsageDataLoader loader = new UsageDataLoader(config, 0)) {
+            return loader.load(DAY);
+        }
+    }
+
+    private static void awaitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out");
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.timetracker.storage.migration;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.RetentionConfig;
+import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import com.timetracker.storage.retention.RetentionJob;
+import com.timetracker.storage.sqlite.SqliteStorageAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StorageMigrationTest {
+
+    private static final Clock APRIL = Clock.fixed(Instant.parse("2024-04-15T12:00:00Z"), ZoneOffset.UTC);
+    private static final List<LocalDate> MINUTE_DAYS = List.of(LocalDate.of(2024, 2, 10), LocalDate.of(2024, 4, 1));
+    private static final List<LocalDate> ROLLED_UP_DAYS = List.of(LocalDate.of(2024, 1, 2), LocalDate.of(2024, 1, 3));
+
+    private static final ResolvedApplication MAIL = new ResolvedApplication(
+            "mail", "Mail; \"Work\", Inbox", "D:\\Tools\\mail.exe", "d:\\tools\\mail.exe", true);
+    private static final ResolvedApplication TERMINAL = new ResolvedApplication(
+            "d:\\tools\\term.exe", "term.exe", "D:\\Tools\\term.exe", "d:\\tools\\term.exe", false);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void copiesHistoryBetweenCsvAndSqliteAndResumes() throws Exception {
+        AppConfig csv = config(tempDir.resolve("csv"));
+        try (CsvStorageAdapter storage = new CsvStorageAdapter(csv.storage().csv())) {
+            for (LocalDate date : ROLLED_UP_DAYS) {
+                writeDay(storage, date);
+            }
+            for (LocalDate date : MINUTE_DAYS) {
+                writeDay(storage, date);
+            }
+        }
+        try (UsageDataLoader loader = new UsageDataLoader(csv, APRIL)) {
+            assertEquals(2, new RetentionJob(csv.storage().retention(), loader.rollupStore(), loader::loadDay, APRIL)
+                    .run());
+        }
+
+        StorageMigration toSqlite = new StorageMigration(csv, StorageType.CSV, StorageType.SQLITE, 3, APRIL);
+        StorageMigration.Result result = toSqlite.run();
+        assertTrue(result.verified(), () -> "mismatches: " + result.mismatches());
+        assertEquals(2, result.days());
+        assertEquals(2, result.copiedDays());
+        assertEquals(2, result.rolledUpDays());
+        // 31 rows per day; the superseded 08:10 is stored once.
+        assertEquals(2 * 31, result.records());
+        assertFalse(Files.exists(toSqlite.progressFile()));
+
+        // As if the previous run had been stopped right after committing February.
+        new StorageMigration.Progress(StorageType.CSV, StorageType.SQLITE, MINUTE_DAYS.get(0))
+                .write(toSqlite.progressFile());
+        StorageMigration.Result resumed = toSqlite.run();
+        assertTrue(resumed.verified());
+        assertEquals(1, resumed.copiedDays());
+
+        AppConfig back = config(tempDir.resolve("back"));
+        StorageMigration toCsv = new StorageMigration(back, StorageType.SQLITE, StorageType.CSV, 2, APRIL);
+        assertTrue(toCsv.run().verified());
+
+        try (UsageDataLoader original = new UsageDataLoader(csv, APRIL);
+             UsageDataLoader copy = new UsageDataLoader(withType(back, StorageType.CSV), APRIL)) {
+            for (LocalDate date : MINUTE_DAYS) {
+                List<MinuteRecord> records = copy.load(date);
+                assertEquals(StorageMigration.DayRows.of(original.load(date), date),
+                        StorageMigration.DayRows.of(records, date));
+                assertEquals(Optional.of("m810b"), records.stream()
+                        .filter(record -> record.minute().equals(LocalTime.of(8, 10)))
+                        .findFirst().orElseThrow().windowTitleHash());
+            }
+            for (LocalDate date : ROLLED_UP_DAYS) {
+                assertEquals(original.rollupStore().hourly(date).size(), copy.rollupStore().hourly(date).size());
+                assertEquals(original.loadDay(date).recordCount(), copy.loadDay(date).recordCount());
+            }
+        }
+    }
+
+    @Test
+    void dayTheServiceAlreadyWroteToIsVerifiedByTheRowsItCopied() throws Exception {
+        AppConfig csv = config(tempDir.resolve("csv"));
+        LocalDate today = MINUTE_DAYS.get(1);
+        try (CsvStorageAdapter storage = new CsvStorageAdapter(csv.storage().csv())) {
+            writeDay(storage, today);
+        }
+        // After a hot swap the target already holds today's later minutes.
+        try (SqliteStorageAdapter target = new SqliteStorageAdapter(csv.storage().sqlite())) {
+            target.persist(new MinuteRecord(today, LocalTime.of(20, 0), MinuteStatus.ACTIVE, Optional.of(TERMINAL),
+                    60, 0, Optional.empty()));
+            target.flush();
+        }
+
+        StorageMigration.Result result = new StorageMigration(csv, StorageType.CSV, StorageType.SQLITE, 1, APRIL)
+                .run();
+        assertTrue(result.verified(), () -> "mismatches: " + result.mismatches());
+        try (UsageDataLoader copy = new UsageDataLoader(withType(csv, StorageType.SQLITE), APRIL)) {
+            assertEquals(32, copy.load(today).size());
+        }
+    }
+
+    /**
+     * 08:00-08:24 with window titles and a superseded 08:10, 12:00-12:44 suspended and 17:00-17:04 idle.
+     */
+    private static void writeDay(CsvStorageAdapter storage, LocalDate date) throws Exception {
+        for (int minute = 0; minute < 25; minute++) {
+            ResolvedApplication app = minute < 15 ? MAIL : TERMINAL;
+            storage.persist(new MinuteRecord(date, LocalTime.of(8, minute), MinuteStatus.ACTIVE, Optional.of(app),
+                    48, 12, Optional.of("m" + minute)));
+        }
+        storage.flush();
+        storage.persist(new MinuteRecord(date, LocalTime.of(8, 10), MinuteStatus.ACTIVE, Optional.of(TERMINAL),
+                40, 20, Optional.of("m810b")));
+        storage.persist(MinuteRecord.suspended(date, LocalTime.of(12, 0), 45));
+        for (int minute = 0; minute < 5; minute++) {
+            storage.persist(new MinuteRecord(date, LocalTime.of(17, minute), MinuteStatus.IDLE, Optional.empty(),
+                    0, 60, Optional.empty()));
+        }
+        storage.flush();
+    }
+
+    private static AppConfig config(Path csvRoot) {
+        return AppConfig.create(null, null, null,
+                new StorageConfig(StorageType.CSV, new CsvStorageConfig(csvRoot.toString(), 1, 100, 0),
+                        new SqliteStorageConfig(csvRoot.resolveSibling("usage.db").toString(), "WAL", null, null,
+                                null, null),
+                        new RetentionConfig(70, 365).withDefaults()),
+                null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static AppConfig withType(AppConfig config, StorageType type) {
+        StorageConfig storage = config.storage();
+        return AppConfig.create(null, null, null,
+                new StorageConfig(type, storage.csv(), storage.sqlite(), storage.retention()),
+                null, null, null, null, null, null, null, null, null, null);
+    }
+}
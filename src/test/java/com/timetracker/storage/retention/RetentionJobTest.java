@@ -0,0 +1,171 @@
+package com.timetracker.storage.retention;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.CsvStorageConfig;
+import com.timetracker.config.RetentionConfig;
+import com.timetracker.config.SqlitePartitioning;
+import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import com.timetracker.storage.StorageAdapter;
+import com.timetracker.storage.csv.CsvArchiveCompactor;
+import com.timetracker.storage.csv.CsvStorageAdapter;
+import com.timetracker.storage.sqlite.SqliteStorageAdapter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetentionJobTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 2);
+    private static final Clock APRIL = Clock.fixed(Instant.parse("2024-04-15T12:00:00Z"), ZoneOffset.UTC);
+    private static final Clock NEXT_YEAR = Clock.fixed(Instant.parse("2025-01-15T12:00:00Z"), ZoneOffset.UTC);
+    private static final RetentionConfig RETENTION = new RetentionConfig(30, 180).withDefaults();
+
+    private static final ResolvedApplication EDITOR = new ResolvedApplication(
+            "editor", "Editor, \"Pro\"", "C:\\Apps\\editor.exe", "c:\\apps\\editor.exe", true);
+    private static final ResolvedApplication BROWSER = new ResolvedApplication(
+            "c:\\apps\\browser.exe", "browser.exe", "C:\\Apps\\browser.exe", "c:\\apps\\browser.exe", false);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void csvDaysFallBackToHourlyThenDailyRollups() throws Exception {
+        AppConfig config = config(new StorageConfig(StorageType.CSV,
+                new CsvStorageConfig(tempDir.toString(), 1, 100, null), null, RETENTION));
+        try (CsvStorageAdapter storage = new CsvStorageAdapter(config.storage().csv())) {
+            writeDay(storage, DAY);
+            writeDay(storage, DAY.plusDays(1));
+            writeDay(storage, LocalDate.of(2024, 4, 1));
+        }
+        new CsvArchiveCompactor(tempDir, 7, APRIL).compact();
+
+        assertRolledUp(config, tempDir.resolve("2024").resolve("202401.hourly.csv"));
+        assertFalse(Files.exists(tempDir.resolve("2024").resolve("202401.archive")));
+        assertFalse(Files.exists(tempDir.resolve("2024").resolve("20240401")));
+    }
+
+    @Test
+    void sqliteDaysFallBackToHourlyThenDailyRollups() throws Exception {
+        AppConfig config = config(new StorageConfig(StorageType.SQLITE, null,
+                new SqliteStorageConfig(tempDir.resolve("usage.db").toString(), "WAL", null, null, null, null),
+                RETENTION));
+        try (SqliteStorageAdapter storage = new SqliteStorageAdapter(config.storage().sqlite())) {
+            writeDay(storage, DAY);
+            writeDay(storage, DAY.plusDays(1));
+            writeDay(storage, LocalDate.of(2024, 4, 1));
+        }
+
+        assertRolledUp(config, null);
+    }
+
+    @Test
+    void partitionedSqliteDaysAreScannedAcrossMonths() throws Exception {
+        AppConfig config = config(new StorageConfig(StorageType.SQLITE, null,
+                new SqliteStorageConfig(tempDir.resolve("usage.db").toString(), "WAL", SqlitePartitioning.MONTHLY,
+                        null, null, null),
+                RETENTION));
+        try (SqliteStorageAdapter storage = new SqliteStorageAdapter(config.storage().sqlite())) {
+            writeDay(storage, DAY);
+            writeDay(storage, DAY.plusDays(1));
+            writeDay(storage, LocalDate.of(2024, 4, 1));
+        }
+        assertTrue(Files.exists(tempDir.resolve("usage-202401.db")));
+        assertTrue(Files.exists(tempDir.resolve("usage-202404.db")));
+        assertFalse(Files.exists(tempDir.resolve("usage.db")));
+
+        assertRolledUp(config, null);
+    }
+
+    private void assertRolledUp(AppConfig config, Path hourlyFile) throws Exception {
+        DayUsage before;
+        try (UsageDataLoader loader = new UsageDataLoader(config, APRIL)) {
+            before = loader.loadDay(DAY);
+            RetentionJob job = new RetentionJob(RETENTION, loader.rollupStore(), loader::loadDay, APRIL);
+            assertEquals(2, job.run());
+            assertEquals(0, job.run());
+            assertEquals(List.of(), loader.rollupStore().minuteDaysBefore(LocalDate.of(2024, 3, 16), 31));
+        }
+        if (hourlyFile != null) {
+            assertTrue(Files.exists(hourlyFile));
+        }
+
+        try (UsageDataLoader loader = new UsageDataLoader(config, APRIL)) {
+            DayUsage hourly = loader.loadDay(DAY);
+            assertEquals(totals(before), totals(hourly));
+            assertEquals(MinuteStatus.ACTIVE, hourly.status(9 * 60));
+            assertEquals(MinuteStatus.IDLE, hourly.status(13 * 60 + 10));
+            assertFalse(hourly.isPresent(12 * 60));
+            assertEquals(60, loader.load(DAY).size());
+            assertEquals(61, loader.loadDay(LocalDate.of(2024, 4, 1)).recordCount());
+        }
+
+        try (UsageDataLoader loader = new UsageDataLoader(config, NEXT_YEAR)) {
+            RetentionJob job = new RetentionJob(RETENTION, loader.rollupStore(), loader::loadDay, NEXT_YEAR);
+            assertEquals(1, job.run());
+            DayUsage daily = loader.loadDay(DAY);
+            assertEquals(totals(before), totals(daily));
+            // Daily totals are laid out from midnight once the hours are gone.
+            assertEquals(MinuteStatus.ACTIVE, daily.status(0));
+        }
+        if (hourlyFile != null) {
+            assertFalse(Files.exists(hourlyFile));
+        }
+    }
+
+    /**
+     * 09:00-09:29 editor, 09:30-09:39 browser, 13:00-13:19 idle and a suspended 12:00.
+     */
+    private static void writeDay(StorageAdapter storage, LocalDate date) throws Exception {
+        for (int minute = 0; minute < 40; minute++) {
+            ResolvedApplication app = minute < 30 ? EDITOR : BROWSER;
+            storage.persist(new MinuteRecord(date, LocalTime.of(9, minute), MinuteStatus.ACTIVE, Optional.of(app),
+                    55, 5, Optional.empty()));
+        }
+        storage.persist(MinuteRecord.suspended(date, LocalTime.of(12, 0), 30));
+        for (int minute = 0; minute < 20; minute++) {
+            storage.persist(new MinuteRecord(date, LocalTime.of(13, minute), MinuteStatus.IDLE, Optional.empty(),
+                    0, 60, Optional.empty()));
+        }
+        storage.flush();
+    }
+
+    private static Map<String, Integer> totals(DayUsage day) {
+        Map<String, Integer> totals = new TreeMap<>();
+        for (int minute = 0; minute < DayUsage.MINUTES_PER_DAY; minute++) {
+            MinuteStatus status = day.status(minute);
+            if (status == null || status == MinuteStatus.SUSPENDED) {
+                continue;
+            }
+            String key = day.application(minute).map(ResolvedApplication::id).orElse(status.name());
+            totals.merge(key, day.activeSeconds(minute) + day.idleSeconds(minute) * 1000, Integer::sum);
+        }
+        return totals;
+    }
+
+    private static AppConfig config(StorageConfig storage) {
+        return AppConfig.create(null, null, null, storage, null, null, null, null, null, null, null, null, null,
+                null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.timetracker.storage.sqlite;
+
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MinuteRunsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 2);
+    private static final ResolvedApplication EDITOR = new ResolvedApplication(
+            "editor", "Editor", "C:\\Apps\\editor.exe", "c:\\apps\\editor.exe", true);
+    private static final ResolvedApplication BROWSER = new ResolvedApplication(
+            "browser", "Browser", "C:\\Apps\\browser.exe", "c:\\apps\\browser.exe", true);
+
+    @Test
+    void coalesceFoldsMatchingMinutesWithoutOpeningTheRun() {
+        MinuteRuns runs = new MinuteRuns();
+        List<MinuteRecord> minutes = List.of(
+                active(EDITOR, 9, 0, 50), active(EDITOR, 9, 1, 60), active(EDITOR, 9, 2, 40),
+                active(BROWSER, 9, 3, 30),
+                // A gap ends the run even for the same application.
+                active(BROWSER, 9, 5, 20));
+
+        List<MinuteRuns.Run> coalesced = runs.coalesce(minutes);
+        assertEquals(3, coalesced.size());
+        MinuteRecord editor = coalesced.get(0).row();
+        assertEquals(LocalTime.of(9, 0), editor.minute());
+        assertEquals(3, editor.minutes());
+        assertEquals(150, editor.activeSeconds());
+        assertEquals(9 * 60, coalesced.get(0).coveredFrom());
+        assertEquals(1, coalesced.get(1).row().minutes());
+        assertEquals(9 * 60 + 5, coalesced.get(2).coveredFrom());
+
+        // Nothing is open until the runs are written.
+        assertEquals(coalesced, runs.coalesce(minutes));
+    }
+
+    @Test
+    void writtenRunIsExtendedByTheNextFlush() {
+        MinuteRuns runs = new MinuteRuns();
+        runs.written(runs.coalesce(List.of(active(EDITOR, 9, 0, 50), active(EDITOR, 9, 1, 60))));
+
+        List<MinuteRuns.Run> extended = runs.coalesce(List.of(active(EDITOR, 9, 2, 40), active(BROWSER, 9, 3, 30)));
+        assertEquals(2, extended.size());
+        MinuteRecord editor = extended.get(0).row();
+        assertEquals(LocalTime.of(9, 0), editor.minute());
+        assertEquals(3, editor.minutes());
+        assertEquals(150, editor.activeSeconds());
+        // Only the new minute can still hold an older row.
+        assertEquals(9 * 60 + 2, extended.get(0).coveredFrom());
+
+        // An empty flush leaves the open run alone.
+        runs.written(List.of());
+        assertEquals(extended, runs.coalesce(List.of(active(EDITOR, 9, 2, 40), active(BROWSER, 9, 3, 30))));
+    }
+
+    @Test
+    void suspendedMinutesAreNeverExtended() {
+        MinuteRuns runs = new MinuteRuns();
+        List<MinuteRuns.Run> coalesced = runs.coalesce(List.of(
+                active(EDITOR, 9, 0, 50), MinuteRecord.suspended(DAY, LocalTime.of(9, 1), 1),
+                MinuteRecord.suspended(DAY, LocalTime.of(9, 2), 1), active(EDITOR, 9, 3, 50)));
+        assertEquals(4, coalesced.size());
+        assertEquals(1, coalesced.get(1).row().minutes());
+        assertEquals(MinuteStatus.SUSPENDED, coalesced.get(2).row().status());
+    }
+
+    @Test
+    void headSplitsSecondsLikePerMinute() {
+        MinuteRecord run = new MinuteRecord(DAY, LocalTime.of(9, 0), MinuteStatus.ACTIVE, Optional.of(EDITOR),
+                100, 0, Optional.empty(), 3);
+        List<MinuteRecord> perMinute = run.perMinute();
+        int seconds = 0;
+        for (int minutes = 0; minutes <= 3; minutes++) {
+            assertEquals(seconds, MinuteRuns.head(100, 3, minutes));
+            if (minutes < 3) {
+                seconds += perMinute.get(minutes).activeSeconds();
+            }
+        }
+    }
+
+    private static MinuteRecord active(ResolvedApplication app, int hour, int minute, int seconds) {
+        return new MinuteRecord(DAY, LocalTime.of(hour, minute), MinuteStatus.ACTIVE, Optional.of(app),
+                seconds, 60 - seconds, Optional.empty());
+    }
+}
@@ -0,0 +1,207 @@
+package com.timetracker.storage.sqlite;
+
+import com.timetracker.aggregation.DayUsage;
+import com.timetracker.aggregation.MinuteRecord;
+import com.timetracker.aggregation.MinuteStatus;
+import com.timetracker.app.ResolvedApplication;
+import com.timetracker.config.AppConfig;
+import com.timetracker.config.SqliteEncoding;
+import com.timetracker.config.SqlitePartitioning;
+import com.timetracker.config.SqliteStorageConfig;
+import com.timetracker.config.StorageConfig;
+import com.timetracker.config.StorageType;
+import com.timetracker.report.loader.UsageDataLoader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqliteStorageAdapterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 1, 2);
+    private static final LocalDate FEBRUARY = LocalDate.of(2024, 2, 1);
+    private static final ResolvedApplication EDITOR = new ResolvedApplication(
+            "editor", "Editor", "C:\\Apps\\editor.exe", "c:\\apps\\editor.exe", true);
+    private static final ResolvedApplication BROWSER = new ResolvedApplication(
+            "browser", "Browser", "C:\\Apps\\browser.exe", "c:\\apps\\browser.exe", true);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void switchingToMonthlyPartitionsMovesExistingRows() throws Exception {
+        AppConfig single = config("usage.db", SqlitePartitioning.NONE, null);
+        try (SqliteStorageAdapter storage = new SqliteStorageAdapter(single.storage().sqlite())) {
+            for (LocalDate date : List.of(DAY, DAY.plusDays(1), FEBRUARY)) {
+                storage.persist(idle(date, LocalTime.of(10, 0)));
+            }
+        }
+
+        AppConfig monthly = config("usage.db", SqlitePartitioning.MONTHLY, null);
+        // Read before any writer opened the partitioned layout.
+        try (UsageDataLoader loader = new UsageDataLoader(monthly, 0)) {
+            assertEquals(1, loader.loadDay(DAY).recordCount());
+            assertEquals(1, loader.load(FEBRUARY).size());
+            assertEquals(List.of(DAY, DAY.plusDays(1), FEBRUARY),
+                    loader.rollupStore().minuteDaysBefore(LocalDate.of(2024, 3, 1), 10));
+        }
+        assertTrue(Files.exists(tempDir.resolve("usage-202401.db")));
+        assertTrue(Files.exists(tempDir.resolve("usage-202402.db")));
+        assertEquals(0, rowCount(tempDir.resolve("usage.db")));
+
+        try (SqliteStorageAdapter storage = new SqliteStorageAdapter(monthly.storage().sqlite())) {
+            storage.persist(idle(DAY, LocalTime.of(10, 1)));
+        }
+        assertEquals(3, rowCount(tempDir.resolve("usage-202401.db")));
+        try (UsageDataLoader loader = new UsageDataLoader(monthly, 0)) {
+            assertEquals(2, loader.loadDay(DAY).recordCount());
+        }
+    }
+
+    @Test
+    void bulkUpsertKeepsTheLastRowPerMinuteAndCheckpoints() throws Exception {
+        StorageConfig storageConfig = new StorageConfig(StorageType.SQLITE, null,
+                new SqliteStorageConfig(tempDir.resolve("usage.db").toString(), "WAL", null, 1440, 5000, 16),
+                null);
+        AppConfig config = AppConfig.create(null, null, null, storageConfig,
+                null, null, null, null, null, null, null, null, null, null);
+        try (SqliteStorageAdapter storage = new SqliteStorageAdapter(config.storage().sqlite())) {
+            for (int day = 0; day < 5; day++) {
+                for (int minute = 0; minute < DayUsage.MINUTES_PER_DAY; minute++) {
+                    storage.persist(idle(DAY.plusDays(day), LocalTime.of(minute / 60, minute % 60)));
+                }
+                // Supersedes a row of the same multi-row statement.
+                storage.persist(new MinuteRecord(DAY.plusDays(day), LocalTime.of(0, 1), MinuteStatus.ACTIVE,
+                        Optional.of(EDITOR), 42, 0, Optional.empty()));
+                storage.flush();
+            }
+            Path database = tempDir.resolve("usage.db");
+            assertTrue(Files.size(database.resolveSibling("usage.db-wal")) < Files.size(database));
+        }
+
+        try (UsageDataLoader loader = new UsageDataLoader(config)) {
+            for (int day = 0; day < 5; day++) {
+                DayUsage usage = loader.loadDay(DAY.plusDays(day));
+                assertEquals(DayUsage.MINUTES_PER_DAY, usage.recordCount());
+                assertEquals(Optional.of(EDITOR), usage.application(1));
+                assertEquals(42, usage.activeSeconds(1));
+                assertEquals(MinuteStatus.IDLE, usage.status(2));
+            }
+        }
+    }
+
+    @Test
+    void runsStoreFewRowsAndReadBackMinuteByMinute() throws Exception {
+        List<MinuteRecord> day = new ArrayList<>();
+        for (int minute = 9 * 60; minute < 17 * 60; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+            if (minute >= 12 * 60 && minute < 12 * 60 + 30) {
+                day.add(idle(DAY, time));
+            } else if (minute == 12 * 60 + 30) {
+                day.add(MinuteRecord.suspended(DAY, time, 30));
+            } else if (minute < 12 * 60 || minute >= 13 * 60) {
+                ResolvedApplication app = (minute / 45) % 2 == 0 ? EDITOR : BROWSER;
+                day.add(new MinuteRecord(DAY, time, MinuteStatus.ACTIVE, Optional.of(app), 50 + minute % 11,
+                        minute % 7, Optional.of(app.id() + minute / 90)));
+            }
+        }
+        // After a clock rollback: splits one run in two, then covers the end of it and the start of the next.
+        List<MinuteRecord> rewritten = new ArrayList<>();
+        for (int[] range : new int[][]{{10 * 60 + 40, 10 * 60 + 45}, {11 * 60 + 10, 11 * 60 + 20}}) {
+            for (int minute = range[0]; minute < range[1]; minute++) {
+                rewritten.add(new MinuteRecord(DAY, LocalTime.of(minute / 60, minute % 60), MinuteStatus.IDLE,
+                        Optional.empty(), 0, 45, Optional.empty()));
+            }
+        }
+
+        AppConfig minutes = config("minutes.db", null, SqliteEncoding.MINUTES);
+        AppConfig runs = config("runs.db", null, SqliteEncoding.RUNS);
+        try (SqliteStorageAdapter minuteStorage = new SqliteStorageAdapter(minutes.storage().sqlite());
+             SqliteStorageAdapter runStorage = new SqliteStorageAdapter(runs.storage().sqlite())) {
+            // A flush after every minute, so the open run is extended in place rather than written whole.
+            for (MinuteRecord record : day) {
+                for (SqliteStorageAdapter storage : List.of(minuteStorage, runStorage)) {
+                    storage.persist(record);
+                    storage.flush();
+                }
+            }
+            try (UsageDataLoader minuteLoader = new UsageDataLoader(minutes, 0);
+                 UsageDataLoader runLoader = new UsageDataLoader(runs, 0)) {
+                // Seconds are totals per run, so they match per application rather than per minute.
+                DayUsage expected = minuteLoader.loadDay(DAY);
+                DayUsage actual = runLoader.loadDay(DAY);
+                for (ResolvedApplication app : List.of(EDITOR, BROWSER)) {
+                    assertEquals(activeSeconds(expected, app), activeSeconds(actual, app));
+                }
+            }
+            for (MinuteRecord record : rewritten) {
+                minuteStorage.persist(record);
+                runStorage.persist(record);
+            }
+        }
+
+        assertTrue(rowCount(tempDir.resolve("minutes.db")) > 400);
+        int runRows = rowCount(tempDir.resolve("runs.db"));
+        assertTrue(runRows < 30, () -> "rows: " + runRows);
+        try (UsageDataLoader minuteLoader = new UsageDataLoader(minutes, 0);
+             UsageDataLoader runLoader = new UsageDataLoader(runs, 0)) {
+            DayUsage expected = minuteLoader.loadDay(DAY);
+            DayUsage actual = runLoader.loadDay(DAY);
+            assertEquals(expected.recordCount(), actual.recordCount());
+            for (int minute = 0; minute < DayUsage.MINUTES_PER_DAY; minute++) {
+                assertEquals(expected.status(minute), actual.status(minute), "minute " + minute);
+                assertEquals(expected.application(minute), actual.application(minute), "minute " + minute);
+                assertEquals(expected.span(minute), actual.span(minute), "minute " + minute);
+            }
+            assertEquals(45, actual.idleSeconds(10 * 60 + 44));
+            assertEquals(MinuteStatus.ACTIVE, actual.status(10 * 60 + 45));
+            assertEquals(45, actual.idleSeconds(11 * 60 + 19));
+
+            List<MinuteRecord> records = runLoader.load(DAY);
+            assertEquals(minuteLoader.load(DAY).size(), records.size());
+            assertTrue(records.stream().allMatch(record -> record.minutes() == 1
+                    || record.status() == MinuteStatus.SUSPENDED));
+        }
+    }
+
+    private static MinuteRecord idle(LocalDate date, LocalTime minute) {
+        return new MinuteRecord(date, minute, MinuteStatus.IDLE, Optional.empty(), 0, 60, Optional.empty());
+    }
+
+    private static int activeSeconds(DayUsage day, ResolvedApplication app) {
+        int seconds = 0;
+        for (int minute = 0; minute < DayUsage.MINUTES_PER_DAY; minute++) {
+            if (day.application(minute).equals(Optional.of(app))) {
+                seconds += day.activeSeconds(minute);
+            }
+        }
+        return seconds;
+    }
+
+    private AppConfig config(String file, SqlitePartitioning partitioning, SqliteEncoding encoding) {
+        StorageConfig storage = new StorageConfig(StorageType.SQLITE, null,
+                new SqliteStorageConfig(tempDir.resolve(file).toString(), "WAL", partitioning, null, null, null,
+                        encoding),
+                null);
+        return AppConfig.create(null, null, null, storage, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    private static int rowCount(Path database) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + database);
+             ResultSet result = connection.createStatement().executeQuery("SELECT COUNT(*) FROM usage_minutes")) {
+            return result.getInt(1);
+        }
+    }
+}